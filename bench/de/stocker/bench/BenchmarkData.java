@@ -0,0 +1,115 @@
+package de.stocker.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.json.CandleResponseParser;
+import de.stocker.model.dataWrappers.CandleSeries;
+import de.stocker.simulator.SimulatedMarket;
+
+/**
+ * The Class BenchmarkData creates the input data of the benchmarks from a
+ * simulated market with a fixed seed, so every run measures the same
+ * payloads.
+ *
+ * @author Matthias Rudolph
+ */
+public final class BenchmarkData {
+
+    private static final long SEED = 1;
+    private static final int HISTORY_DAYS = 730;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a simulated market.
+     *
+     * @param symbolCount the number of stocks
+     * @return the market
+     */
+    public static SimulatedMarket createMarket(int symbolCount) {
+        return new SimulatedMarket(symbolCount, HISTORY_DAYS, SEED);
+    }
+
+    /**
+     * Gets the chart resolution of a URL string.
+     *
+     * @param urlString the URL string used for API requests
+     * @return the chart resolution
+     * @throws IllegalArgumentException if there is none for the string
+     */
+    public static EChartResolution getResolution(String urlString) {
+        EChartResolution resolution = EChartResolution.fromUrlString(urlString);
+        if (resolution == null) {
+            throw new IllegalArgumentException("Unsupported resolution " + urlString);
+        }
+        return resolution;
+    }
+
+    /**
+     * Creates a candle response of the data provider with the latest candles
+     * of a stock.
+     *
+     * @param market     the market
+     * @param resolution the resolution
+     * @param count      the number of candles
+     * @return the JSON response
+     */
+    public static String createCandleResponse(SimulatedMarket market, EChartResolution resolution, int count) {
+        long to = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long from = to - TimeUnit.MILLISECONDS.toSeconds(resolution.getIntervalMillis()) * count;
+        return market.writeCandles(market.getSymbol(0), resolution, from, to);
+    }
+
+    /**
+     * Creates a candle series with the latest candles of a stock.
+     *
+     * @param market     the market
+     * @param resolution the resolution
+     * @param count      the number of candles
+     * @return the candle series
+     */
+    public static CandleSeries createCandleSeries(SimulatedMarket market, EChartResolution resolution, int count) {
+        return new CandleResponseParser().parse(createCandleResponse(market, resolution, count));
+    }
+
+    /**
+     * Creates trade push messages of the data provider. The trades are spread
+     * over the stocks at random and over one minute, so all trades of a stock
+     * update the same candles, the common case for a stock traded frequently.
+     *
+     * @param market           the market
+     * @param stockCount       the number of stocks traded, the first ones of
+     *                         the market
+     * @param messageCount     the number of messages
+     * @param tradesPerMessage the number of trades per message
+     * @param minute           the start of the minute of the trades in epoch
+     *                         milliseconds
+     * @return the messages
+     */
+    public static String[] createTradeMessages(SimulatedMarket market, int stockCount, int messageCount,
+            int tradesPerMessage, long minute) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long minuteMillis = TimeUnit.MINUTES.toMillis(1);
+        long trades = (long) messageCount * tradesPerMessage;
+        String[] messages = new String[messageCount];
+        StringBuilder sb = new StringBuilder();
+        for (int m = 0; m < messageCount; m++) {
+            sb.setLength(0);
+            sb.append("{\"data\":[");
+            for (int i = 0; i < tradesPerMessage; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                long time = minute + ((long) m * tradesPerMessage + i) * minuteMillis / trades;
+                market.appendTrade(sb, random.nextInt(stockCount), time, random);
+            }
+            sb.append("],\"type\":\"trade\"}");
+            messages[m] = sb.toString();
+        }
+        return messages;
+    }
+
+}
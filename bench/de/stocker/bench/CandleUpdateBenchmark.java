@@ -0,0 +1,112 @@
+package de.stocker.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.model.CandleBuckets;
+import de.stocker.model.StockCalcHelper;
+import de.stocker.model.dataWrappers.CandleSeries;
+import de.stocker.model.dataWrappers.TradeDelta;
+
+/**
+ * The Class CandleUpdateBenchmark measures the update of a candle series with
+ * pushed trades by StockCalcHelper.updateCandlesFromPushData, one update per
+ * trade as well as one update for the trades of a time slice conflated into a
+ * TradeDelta. The score is the time of one update with the given number of
+ * trades, a single trade for a batch size of 1.
+ *
+ * The trades update the last candle of the series, the common case; a new
+ * candle is only appended once per bucket.
+ *
+ * @author Matthias Rudolph
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandleUpdateBenchmark {
+
+    // parameters are set by the generated benchmark code in another package
+    @Param({ "1", "60", "D" })
+    public String resolution;
+
+    @Param({ "1", "10", "100", "1000" })
+    public int batchSize;
+
+    private EChartResolution chartResolution;
+    private CandleSeries candles;
+    private TradeDelta delta;
+    private double[] prices;
+    private long[] times;
+    private double[] volumes;
+
+    /**
+     * Creates the candle series and the trades of the last minute.
+     */
+    @Setup
+    public void setUp() {
+        chartResolution = BenchmarkData.getResolution(resolution);
+        candles = BenchmarkData.createCandleSeries(BenchmarkData.createMarket(1), chartResolution, 1000);
+        delta = new TradeDelta();
+
+        long minute = CandleBuckets.getBucketStart(EChartResolution.ONE, System.currentTimeMillis());
+        double price = candles.getPriceClose(candles.size() - 1);
+        SplittableRandom random = new SplittableRandom(1);
+        prices = new double[batchSize];
+        times = new long[batchSize];
+        volumes = new double[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            prices[i] = price * (1 + 0.001 * (random.nextDouble() - 0.5));
+            times[i] = minute + i * TimeUnit.MINUTES.toMillis(1) / batchSize;
+            volumes[i] = 1 + random.nextInt(100);
+        }
+    }
+
+    /**
+     * Updates the candles with every trade, as before the trades were
+     * conflated.
+     *
+     * @return the candles
+     */
+    @Benchmark
+    public CandleSeries perTrade() {
+        for (int i = 0; i < batchSize; i++) {
+            StockCalcHelper.updateCandlesFromPushData(candles, prices[i], times[i], volumes[i], chartResolution);
+        }
+        return candles;
+    }
+
+    /**
+     * Conflates the trades and updates the candles with the segments of the
+     * delta, as the push pipeline does.
+     *
+     * @return the candles
+     */
+    @Benchmark
+    public CandleSeries conflated() {
+        delta.clear();
+        for (int i = 0; i < batchSize; i++) {
+            delta.add(prices[i], times[i], volumes[i]);
+        }
+        for (int s = 0; s < delta.getSegmentCount(); s++) {
+            StockCalcHelper.updateCandlesFromPushData(candles, delta, s, chartResolution);
+        }
+        return candles;
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.stocker.bench;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.common.EChartType;
+import de.stocker.common.IStockItem;
+import de.stocker.model.StockerModel;
+import de.stocker.simulator.SimulatedMarket;
+import de.stocker.view.ChartFrame;
+import de.stocker.view.ChartPanel;
+
+/**
+ * The Class ChartPaintBenchmark measures painting the chart panel of a chart
+ * frame into an offscreen image, including collecting the data from the stock
+ * item. The chart shows a Simple Moving Average and a Bollinger Band. The
+ * benchmark runs headless, so it doesn't need a display.
+ *
+ * @author Matthias Rudolph
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChartPaintBenchmark {
+
+    private final int WIDTH = 1200;
+    private final int HEIGHT = 800;
+    private final long DATA_TIMEOUT_MILLIS = 10000;
+
+    // parameters are set by the generated benchmark code in another package
+    @Param({ "CANDLE", "LINE" })
+    public EChartType chartType;
+
+    @Param({ "1", "D" })
+    public String resolution;
+
+    private ChartPanel chartPanel;
+    private BufferedImage image;
+
+    /**
+     * Opens a chart frame for a stock of the simulated market and waits for
+     * its candles.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Setup
+    public void setUp() throws InterruptedException {
+        EChartResolution chartResolution = BenchmarkData.getResolution(resolution);
+        SimulatedMarket market = BenchmarkData.createMarket(1);
+        StockerModel stockerModel = new StockerModel(new SimulatedNetworkController(market), null);
+        String stockId = market.getSymbol(0);
+        ChartFrame chartFrame = new ChartFrame(stockerModel, stockId, chartResolution, chartType, Color.RED,
+                Color.BLUE, Color.GREEN);
+
+        // the candles are fetched in the background
+        IStockItem stockItem = stockerModel.getStock(stockId);
+        long deadline = System.currentTimeMillis() + DATA_TIMEOUT_MILLIS;
+        while (!stockItem.hasCandles(chartResolution)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("No candles for " + stockId);
+            }
+            Thread.sleep(10);
+        }
+        chartFrame.addMovingAvg(20, Color.BLUE);
+        chartFrame.addBollingerBand(2, 20, Color.GREEN);
+
+        chartPanel = (ChartPanel) chartFrame.getContentPane().getComponent(0);
+        chartPanel.setSize(WIDTH, HEIGHT);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Paints the chart into the image.
+     *
+     * @return the image
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g = image.createGraphics();
+        try {
+            chartPanel.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+}
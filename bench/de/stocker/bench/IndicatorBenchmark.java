@@ -0,0 +1,131 @@
+package de.stocker.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.model.StockCalcHelper;
+import de.stocker.model.dataWrappers.BollingerBand;
+import de.stocker.model.dataWrappers.CandleSeries;
+import de.stocker.model.dataWrappers.CandleView;
+import de.stocker.model.dataWrappers.SimpleMovingAverage;
+
+/**
+ * The Class IndicatorBenchmark measures the calculation of the chart
+ * indicators by StockCalcHelper over the close prices of a candle series, for
+ * several window sizes, as well as their update with the price of a new trade.
+ *
+ * @author Matthias Rudolph
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorBenchmark {
+
+    // parameters are set by the generated benchmark code in another package
+    @Param({ "20", "50", "200" })
+    public int window;
+
+    @Param({ "1000", "10000" })
+    public int candleCount;
+
+    private CandleView candles;
+    private double[] closePrices;
+    private SimpleMovingAverage movingAverage;
+    private BollingerBand bollingerBand;
+    private double lastClose;
+    private int tradeCount;
+
+    /**
+     * Creates the candles and the indicators to update.
+     */
+    @Setup
+    public void setUp() {
+        CandleSeries series = BenchmarkData.createCandleSeries(BenchmarkData.createMarket(1), EChartResolution.ONE,
+                candleCount);
+        candles = series.tail(candleCount);
+        closePrices = new double[candles.size()];
+        for (int i = 0; i < closePrices.length; i++) {
+            closePrices[i] = candles.getPriceClose(i);
+        }
+        lastClose = closePrices[closePrices.length - 1];
+        movingAverage = StockCalcHelper.getSimpleMovingAverage(window, candles);
+        bollingerBand = StockCalcHelper.getBollingerBand(2, window, candles);
+    }
+
+    /**
+     * Calculates the moving average of an array of close prices.
+     *
+     * @return the moving average
+     */
+    @Benchmark
+    public double[] movingAverageOfArray() {
+        return StockCalcHelper.getMovingAverage(window, closePrices);
+    }
+
+    /**
+     * Calculates the Simple Moving Average indicator of a candle view, as
+     * when an indicator is added to a chart.
+     *
+     * @return the indicator
+     */
+    @Benchmark
+    public SimpleMovingAverage simpleMovingAverage() {
+        return StockCalcHelper.getSimpleMovingAverage(window, candles);
+    }
+
+    /**
+     * Calculates the Bollinger Band indicator of a candle view, as when an
+     * indicator is added to a chart.
+     *
+     * @return the indicator
+     */
+    @Benchmark
+    public BollingerBand bollingerBand() {
+        return StockCalcHelper.getBollingerBand(2, window, candles);
+    }
+
+    /**
+     * Updates the last value of the Simple Moving Average with a new close
+     * price, as for every trade.
+     *
+     * @return the indicator
+     */
+    @Benchmark
+    public SimpleMovingAverage simpleMovingAverageUpdate() {
+        movingAverage.updateLastValue(nextClose());
+        return movingAverage;
+    }
+
+    /**
+     * Updates the last value of the Bollinger Band with a new close price, as
+     * for every trade.
+     *
+     * @return the indicator
+     */
+    @Benchmark
+    public BollingerBand bollingerBandUpdate() {
+        bollingerBand.updateLastValue(nextClose());
+        return bollingerBand;
+    }
+
+    // alternates between two prices, so the values don't drift
+    private double nextClose() {
+        return lastClose + (tradeCount++ & 1) * 0.01;
+    }
+
+}
@@ -0,0 +1,155 @@
+package de.stocker.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.json.CandleResponseParser;
+import de.stocker.json.JsonFactory;
+import de.stocker.json.JsonHistCandle;
+import de.stocker.json.JsonTradeObject;
+import de.stocker.json.TradeMessageParser;
+import de.stocker.json.Utf8CharSequence;
+import de.stocker.model.dataWrappers.CandleSeries;
+import de.stocker.model.dataWrappers.TradeBatch;
+import de.stocker.simulator.SimulatedMarket;
+
+/**
+ * The Class JsonParsingBenchmark measures the parsing of trade push messages
+ * and candle responses, with Gson by JsonFactory.jsonToObject as well as with
+ * the streaming parsers the app uses, TradeMessageParser and
+ * CandleResponseParser. Push messages are parsed from a string and from the
+ * received UTF-8 bytes.
+ *
+ * @author Matthias Rudolph
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+    /**
+     * A trade push message and the parser state reused for every message.
+     */
+    @State(Scope.Thread)
+    public static class TradeMessage {
+
+        // parameters are set by the generated benchmark code in another package
+        @Param({ "1", "10", "100" })
+        public int tradesPerMessage;
+
+        private String message;
+        private ByteBuffer bytes;
+        private final TradeMessageParser parser = new TradeMessageParser();
+        private final TradeBatch trades = new TradeBatch();
+
+        /**
+         * Creates the message.
+         */
+        @Setup
+        public void setUp() {
+            SimulatedMarket market = BenchmarkData.createMarket(10);
+            message = BenchmarkData.createTradeMessages(market, 10, 1, tradesPerMessage,
+                    System.currentTimeMillis())[0];
+            bytes = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * A candle response and the parser reused for every response.
+     */
+    @State(Scope.Thread)
+    public static class CandleResponse {
+
+        @Param({ "100", "1000", "5000" })
+        public int candleCount;
+
+        private String response;
+        private final CandleResponseParser parser = new CandleResponseParser();
+
+        /**
+         * Creates the response.
+         */
+        @Setup
+        public void setUp() {
+            response = BenchmarkData.createCandleResponse(BenchmarkData.createMarket(1), EChartResolution.ONE,
+                    candleCount);
+        }
+    }
+
+    /**
+     * Parses a trade message with Gson, as before the streaming parser.
+     *
+     * @param state the message
+     * @return the parsed message
+     */
+    @Benchmark
+    public JsonTradeObject tradeMessageGson(TradeMessage state) {
+        return JsonFactory.jsonToObject(state.message, JsonTradeObject.class);
+    }
+
+    /**
+     * Parses a trade message string with the streaming parser.
+     *
+     * @param state the message
+     * @return the trades
+     */
+    @Benchmark
+    public TradeBatch tradeMessageParser(TradeMessage state) {
+        state.trades.clear();
+        state.parser.parse(state.message, state.trades);
+        return state.trades;
+    }
+
+    /**
+     * Parses the UTF-8 bytes of a trade message with the streaming parser, as
+     * received from the web socket.
+     *
+     * @param state the message
+     * @return the trades
+     */
+    @Benchmark
+    public TradeBatch tradeMessageParserBytes(TradeMessage state) {
+        state.trades.clear();
+        state.parser.parse(new Utf8CharSequence(state.bytes), state.trades);
+        return state.trades;
+    }
+
+    /**
+     * Parses a candle response with Gson, as before the streaming parser.
+     *
+     * @param state the response
+     * @return the parsed response
+     */
+    @Benchmark
+    public JsonHistCandle candleResponseGson(CandleResponse state) {
+        return JsonFactory.jsonToObject(state.response, JsonHistCandle.class);
+    }
+
+    /**
+     * Parses a candle response with the streaming parser.
+     *
+     * @param state the response
+     * @return the candle series
+     */
+    @Benchmark
+    public CandleSeries candleResponseParser(CandleResponse state) {
+        return state.parser.parse(state.response);
+    }
+
+}
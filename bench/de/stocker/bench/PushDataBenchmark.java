@@ -0,0 +1,134 @@
+package de.stocker.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.model.CandleBuckets;
+import de.stocker.model.PushPipeline;
+import de.stocker.model.StockerModel;
+import de.stocker.simulator.SimulatedMarket;
+
+/**
+ * The Class PushDataBenchmark measures push messages passed to
+ * StockerModel.newPushData end to end: queueing, parsing, conflating and
+ * applying the trades to the stock items, their candles and indicators. Each
+ * invocation submits a number of messages and waits until the push pipeline
+ * has applied all their trades, the score is the time per message.
+ *
+ * The stocks have one minute candles and two indicators on them,
+ * like a stock shown in a chart.
+ *
+ * @author Matthias Rudolph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PushDataBenchmark {
+
+    private static final int MESSAGES_PER_INVOCATION = 100;
+    private static final int MESSAGE_COUNT = 1000;
+
+    // parameters are set by the generated benchmark code in another package
+    @Param({ "1", "50" })
+    public int stockCount;
+
+    @Param({ "1", "10", "100" })
+    public int tradesPerMessage;
+
+    private StockerModel stockerModel;
+    private PushPipeline pushPipeline;
+    private String[] messages;
+    private ByteBuffer[] messageBytes;
+    private int nextMessage;
+
+    /**
+     * Creates the data model with the stocks and the messages.
+     */
+    @Setup
+    public void setUp() {
+        SimulatedMarket market = BenchmarkData.createMarket(stockCount);
+        stockerModel = new StockerModel(new SimulatedNetworkController(market), null);
+        pushPipeline = stockerModel.getPushPipeline();
+        for (int i = 0; i < stockCount; i++) {
+            String stockId = market.getSymbol(i);
+            stockerModel.getStock(stockId);
+            stockerModel.triggerDataGeneration(stockId, EChartResolution.ONE);
+            stockerModel.getStock(stockId).getMovingAvg(EChartResolution.ONE, 20);
+            stockerModel.getStock(stockId).getBollingerBand(EChartResolution.ONE, 2, 20);
+        }
+
+        long minute = CandleBuckets.getBucketStart(EChartResolution.ONE, System.currentTimeMillis());
+        messages = BenchmarkData.createTradeMessages(market, stockCount, MESSAGE_COUNT, tradesPerMessage, minute);
+        messageBytes = new ByteBuffer[MESSAGE_COUNT];
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            messageBytes[i] = ByteBuffer.wrap(messages[i].getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Stops the push pipeline.
+     */
+    @TearDown
+    public void tearDown() {
+        pushPipeline.stop();
+    }
+
+    /**
+     * Submits messages as strings and waits until they have been applied.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void newPushDataString() {
+        long target = pushPipeline.getAppliedTrades() + (long) MESSAGES_PER_INVOCATION * tradesPerMessage;
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            stockerModel.newPushData(messages[nextMessage()]);
+        }
+        awaitAppliedTrades(target);
+    }
+
+    /**
+     * Submits messages as UTF-8 bytes, as received from the web socket, and
+     * waits until they have been applied.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void newPushDataBytes() {
+        long target = pushPipeline.getAppliedTrades() + (long) MESSAGES_PER_INVOCATION * tradesPerMessage;
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            stockerModel.newPushData(messageBytes[nextMessage()].duplicate());
+        }
+        awaitAppliedTrades(target);
+    }
+
+    private int nextMessage() {
+        int i = nextMessage;
+        nextMessage = (i + 1) % MESSAGE_COUNT;
+        return i;
+    }
+
+    private void awaitAppliedTrades(long target) {
+        while (pushPipeline.getAppliedTrades() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package de.stocker.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import de.stocker.common.ERequestPriority;
+import de.stocker.common.INetworkController;
+import de.stocker.common.IPushSubscriber;
+import de.stocker.model.dataWrappers.DataProvider;
+import de.stocker.simulator.SimulatedMarket;
+
+/**
+ * The Class SimulatedNetworkController answers the pull requests of the data
+ * model in the same thread from a simulated market, without a network, so
+ * the benchmarks measure the app and not the connection. Push messages are
+ * passed to the data model by the benchmarks directly.
+ *
+ * @author Matthias Rudolph
+ */
+public class SimulatedNetworkController implements INetworkController {
+
+    private final SimulatedMarket market;
+    private DataProvider dataProvider = new DataProvider("Simulator", "", "", "");
+
+    /**
+     * Instantiates a new simulated network controller.
+     *
+     * @param market the simulated market answering the requests
+     */
+    public SimulatedNetworkController(SimulatedMarket market) {
+        this.market = market;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataProvider getActiveDataProvider() {
+        return dataProvider;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setActiveDataProvider(DataProvider dataProvider) {
+        this.dataProvider = dataProvider;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registerPushSubscriber(IPushSubscriber pushSub) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSearch(String symbol, ERequestPriority priority) {
+        return market.writeSearch(symbol);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getSearchAsync(String symbol, ERequestPriority priority) {
+        return CompletableFuture.completedFuture(getSearch(symbol, priority));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCandles(String symbol, String resolution, String from, String to, ERequestPriority priority) {
+        return market.writeCandles(symbol, BenchmarkData.getResolution(resolution), Long.parseLong(from),
+                Long.parseLong(to));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getCandlesAsync(String symbol, String resolution, String from, String to,
+            ERequestPriority priority) {
+        return CompletableFuture.completedFuture(getCandles(symbol, resolution, from, to, priority));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getQuote(String symbol, ERequestPriority priority) {
+        return market.writeQuote(symbol);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getQuoteAsync(String symbol, ERequestPriority priority) {
+        return CompletableFuture.completedFuture(getQuote(symbol, priority));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendWebSocketMessage(String message) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(String symbol) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unsubscribe(String symbol) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pushConnectionOpened() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pushConnectionLost() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newPushDataReceived(String message) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newPushDataReceived(ByteBuffer message) {
+    }
+
+}
@@ -0,0 +1,25 @@
+package de.stocker.common;
+
+/**
+ * The Enum EBackpressurePolicy sets how the push pipeline handles new push
+ * messages while its queue is full.
+ * 
+ * @author Matthias Rudolph
+ */
+public enum EBackpressurePolicy {
+    
+    /** Wait until there is room in the queue, stalling the socket reads. */
+    BLOCK,
+    
+    /** Drop the oldest queued message to make room for the new one. */
+    DROP_OLDEST,
+    
+    /**
+     * Collect the messages arriving while the queue is full and hand them to
+     * the parser as one batch, without stalling the socket reads. At most as
+     * many messages as fit into the queue are collected, beyond that the
+     * oldest collected message is dropped for each new one.
+     */
+    COALESCE
+
+}
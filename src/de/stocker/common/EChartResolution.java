@@ -1,5 +1,7 @@
 package de.stocker.common;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * The Enum EChartResolution used for data fetching and displaying the correct
  * data for the requested interval. Intervals follow finnhub and
@@ -10,31 +12,32 @@ package de.stocker.common;
 public enum EChartResolution {
     
     /** The one. */
-    ONE("1", "1 min"),
+    ONE("1", "1 min", TimeUnit.MINUTES.toMillis(1)),
     
     /** The five. */
-    FIVE("5", "5 min"),
+    FIVE("5", "5 min", TimeUnit.MINUTES.toMillis(5)),
     
     /** The fifteen. */
-    FIFTEEN("15", "15 min"),
+    FIFTEEN("15", "15 min", TimeUnit.MINUTES.toMillis(15)),
     
     /** The thirty. */
-    THIRTY("30", "30 min"),
+    THIRTY("30", "30 min", TimeUnit.MINUTES.toMillis(30)),
     
     /** The sixty. */
-    SIXTY("60", "60 min"),
+    SIXTY("60", "60 min", TimeUnit.HOURS.toMillis(1)),
     
     /** The day. */
-    DAY("D", "Day"),
+    DAY("D", "Day", TimeUnit.DAYS.toMillis(1)),
     
     /** The week. */
-    WEEK("W", "Week"),
+    WEEK("W", "Week", TimeUnit.DAYS.toMillis(7)),
     
     /** The month. */
-    MONTH("M", "Month");
+    MONTH("M", "Month", TimeUnit.DAYS.toMillis(31));
     
     private String urlString;
     private String windowTitleString;
+    private long intervalMillis;
 
     /**
      * Instantiates a new chart resolution enum.
@@ -42,10 +45,13 @@ public enum EChartResolution {
      * @param urlString the URL string used for API requests.
      * @param windowTitleString the window title string used to display the
      * resolution in a human readable form.
+     * @param intervalMillis the time length of one chart interval in
+     * milliseconds
      */
-    EChartResolution(String urlString, String windowTitleString) {
+    EChartResolution(String urlString, String windowTitleString, long intervalMillis) {
         this.urlString = urlString;
         this.windowTitleString = windowTitleString;
+        this.intervalMillis = intervalMillis;
     }
     
     /**
@@ -57,6 +63,21 @@ public enum EChartResolution {
         return urlString;
     }
     
+    /**
+     * Gets the chart resolution of a URL string used for API requests.
+     *
+     * @param urlString the URL string, e. g. "D"
+     * @return the chart resolution or null, if there is none for the string
+     */
+    public static EChartResolution fromUrlString(String urlString) {
+        for (EChartResolution resolution : values()) {
+            if (resolution.urlString.equals(urlString)) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Gets the window title string used to display the resolution in a human
      * readable form.
@@ -66,4 +87,45 @@ public enum EChartResolution {
     public String getWindowTitleString() {
         return windowTitleString;
     }
+    
+    /**
+     * Gets the time length of one chart interval in milliseconds. Months are
+     * approximated with 31 days, the calendar-aligned intervals used for
+     * aggregating candles are calculated by CandleBuckets.
+     *
+     * @return the interval length in milliseconds
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+    
+    /**
+     * Gets the base resolution whose candles this resolution is aggregated
+     * from. Intraday resolutions are aggregated from the 1 minute candles,
+     * weeks and months from the daily candles. Data providers only supply a
+     * limited amount of 1 minute data, which isn't enough to aggregate years
+     * of daily candles.
+     *
+     * @return the base resolution
+     */
+    public EChartResolution getBaseResolution() {
+        switch (this) {
+        case DAY:
+        case WEEK:
+        case MONTH:
+            return DAY;
+        default:
+            return ONE;
+        }
+    }
+    
+    /**
+     * Checks if this is a base resolution, whose candles are fetched from the
+     * data provider and updated from push data.
+     *
+     * @return true, if this is a base resolution
+     */
+    public boolean isBaseResolution() {
+        return getBaseResolution() == this;
+    }
 }
@@ -0,0 +1,21 @@
+package de.stocker.common;
+
+/**
+ * The Enum ERequestPriority sets the order in which queued pull requests are
+ * sent to the data provider while its rate limit is reached. Requests of a
+ * higher priority are always sent first.
+ * 
+ * @author Matthias Rudolph
+ */
+public enum ERequestPriority {
+    
+    /** Requests a user is waiting for, e. g. for a visible chart or a search. */
+    CHART,
+    
+    /** Requests for stocks added to the watchlist. */
+    WATCHLIST,
+    
+    /** Requests prefetching data, e. g. restoring the stocks at startup. */
+    BACKGROUND
+
+}
@@ -0,0 +1,23 @@
+package de.stocker.common;
+
+/**
+ * The listener interface for receiving notifications about the progress of
+ * adding a number of stocks to the data model at once, e. g. when the stocks
+ * of the last session are restored.
+ *
+ * @author Matthias Rudolph
+ */
+public interface IHydrationListener {
+
+    /**
+     * Invoked when the data of a stock has been loaded, i. e. its basic data
+     * and its candle data for the default resolution, or loading it has
+     * failed. Called on the thread which loaded the stock.
+     *
+     * @param stockId the stock id
+     * @param done the number of stocks added so far
+     * @param total the number of stocks to add
+     */
+    void stockHydrated(String stockId, int done, int total);
+
+}
@@ -60,6 +60,21 @@ public interface IMainController {
      * Saves all persistence information to file.
      */
     void savePersistence();
+
+    /**
+     * Prepares the application for exiting: saves all persistence information
+     * to file and stops the background threads.
+     */
+    void shutdown();
+    
+    /**
+     * Shows a status text in the status bar of the main frame, e. g. the
+     * progress of restoring the stocks of the last session. Can be called
+     * from any thread.
+     *
+     * @param text the status text, an empty string to clear it
+     */
+    void showStatus(String text);
     
     /**
      * Gets the current preferences model with all currently active preferences.
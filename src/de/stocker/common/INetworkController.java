@@ -1,5 +1,8 @@
 package de.stocker.common;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
 import de.stocker.model.dataWrappers.DataProvider;
 
 /**
@@ -33,43 +36,132 @@ public interface INetworkController {
     
     /**
      * Gets search results from the data provider through an API request.
+     * Waits for the response, so it must not be called on the event dispatch
+     * thread.
      *
      * @param symbol the search string
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
      * @return the search results
      */
-    String getSearch(String symbol);
+    String getSearch(String symbol, ERequestPriority priority);
+    
+    /**
+     * Gets search results from the data provider through an API request
+     * without waiting for the response.
+     *
+     * @param symbol the search string
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
+     * @return the future of the search results, completed with null if the
+     * request fails
+     */
+    CompletableFuture<String> getSearchAsync(String symbol, ERequestPriority priority);
     
     /**
      * Gets stock candle data from the data provider through an API request.
+     * Waits for the response, so it must not be called on the event dispatch
+     * thread.
      *
      * @param symbol the stock symbol
      * @param resolution the chart resolution
      * @param from from time stamp
      * @param to to time stamp
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
      * @return the candle data
      */
-    String getCandles(String symbol, String resolution, String from, String to);
+    String getCandles(String symbol, String resolution, String from, String to, ERequestPriority priority);
+    
+    /**
+     * Gets stock candle data from the data provider through an API request
+     * without waiting for the response.
+     *
+     * @param symbol the stock symbol
+     * @param resolution the chart resolution
+     * @param from from time stamp
+     * @param to to time stamp
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
+     * @return the future of the candle data, completed with null if the
+     * request fails
+     */
+    CompletableFuture<String> getCandlesAsync(String symbol, String resolution, String from, String to, ERequestPriority priority);
     
     /**
-     * Gets quote data from the data provider through an API request.
+     * Gets quote data from the data provider through an API request. Waits
+     * for the response, so it must not be called on the event dispatch
+     * thread.
      *
      * @param symbol the stock symbol
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
      * @return the quote data
      */
-    String getQuote(String symbol);
+    String getQuote(String symbol, ERequestPriority priority);
+    
+    /**
+     * Gets quote data from the data provider through an API request without
+     * waiting for the response.
+     *
+     * @param symbol the stock symbol
+     * @param priority the priority of the request, if the rate limit of the
+     * data provider is reached
+     * @return the future of the quote data, completed with null if the request
+     * fails
+     */
+    CompletableFuture<String> getQuoteAsync(String symbol, ERequestPriority priority);
     
     /**
-     * Sends a web socket message.
+     * Sends a web socket message. The message is sent in the background as
+     * soon as the web socket is open, the caller doesn't wait for it.
      *
      * @param message the message string
      */
     void sendWebSocketMessage(String message);
     
+    /**
+     * Subscribes a stock to push updates. The subscription is sent in the
+     * background as soon as the web socket is open and again for every new
+     * connection.
+     *
+     * @param symbol the stock symbol
+     */
+    void subscribe(String symbol);
+    
+    /**
+     * Unsubscribes a stock from push updates. The caller doesn't wait for it.
+     *
+     * @param symbol the stock symbol
+     */
+    void unsubscribe(String symbol);
+    
+    /**
+     * Called when the web socket connection has been opened. Sends the
+     * messages and subscriptions waiting for it.
+     */
+    void pushConnectionOpened();
+    
+    /**
+     * Called when the web socket connection has been lost or couldn't be
+     * established. Connects again after a delay.
+     */
+    void pushConnectionLost();
+    
     /**
      * Called when new push data is received. Notifies all push subscribers.
      *
      * @param message the message
      */
     void newPushDataReceived(String message);
+
+    /**
+     * Called when new push data is received as UTF-8 encoded bytes. Notifies
+     * all push subscribers. The buffer is shared by all subscribers, so they
+     * must not change its position or limit.
+     *
+     * @param message the message bytes
+     */
+    void newPushDataReceived(ByteBuffer message);
     
 }
@@ -1,5 +1,7 @@
 package de.stocker.common;
 
+import java.nio.ByteBuffer;
+
 /**
  * The Interface IPushSubscriber implemented by the class handling the incoming
  * push messages from the network.
@@ -15,4 +17,24 @@ public interface IPushSubscriber {
      */
     void newPushData(String data);
 
+    /**
+     * Called by the network controller when new push data is received as
+     * UTF-8 encoded bytes. The buffer must not be changed, it may be kept to
+     * read the data later.
+     *
+     * @param data the push data bytes
+     */
+    void newPushData(ByteBuffer data);
+    
+    /**
+     * Called by the network controller when push data is received again after
+     * the connection was lost, with the time range in which push data may
+     * have been missed.
+     *
+     * @param from the time of the last push data before the connection was
+     * lost in epoch milliseconds
+     * @param to the time the connection was restored in epoch milliseconds
+     */
+    void pushDataInterrupted(long from, long to);
+
 }
@@ -57,6 +57,15 @@ public interface IStockItem {
      */
     double getCurPriceOld();
     
+    /**
+     * Gets the latest snapshot of the price state and the alarms. All values
+     * of a snapshot belong to the same update, so readers on other threads
+     * should use it when they need more than one value.
+     *
+     * @return the stock snapshot
+     */
+    StockSnapshot getSnapshot();
+    
     /**
      * Checks if stock item is loading data from the data provider.
      *
@@ -85,6 +94,20 @@ public interface IStockItem {
      */
     void setAvailable(boolean available);
     
+    /**
+     * Sets the basic data of a stock item which has been added before its
+     * data arrived, e. g. while restoring the stocks of the last session, and
+     * marks it available.
+     *
+     * @param displaySymbol the display symbol
+     * @param description the description
+     * @param curPrice the current price
+     * @param curPriceInstant the current price instant
+     * @param openPrice the open price of the day
+     */
+    void setBasicData(String displaySymbol, String description, double curPrice, Instant curPriceInstant,
+            double openPrice);
+    
     /**
      * Adds a stock listener which gets notified when the stock data is updated
      *
@@ -123,6 +146,35 @@ public interface IStockItem {
      * @param pushData the push data containing a single times-sales data unit
      */
     void updateStockFromPushData(double price, Instant instant, TradeDataUnit pushData);
+    
+    /**
+     * Updates the stock item from push data. Used to update the current price,
+     * the time stamp and the candle data from a single times-sales data unit,
+     * taking price and time stamp from the data unit itself
+     *
+     * @param pushData the push data containing a single times-sales data unit
+     */
+    void updateStockFromPushData(TradeDataUnit pushData);
+
+    /**
+     * Updates the stock item from a single trade pushed by the data provider.
+     * Used to update the current price, the time stamp and the candle data
+     * without a data unit object.
+     *
+     * @param price the trade price
+     * @param time the time of the trade in epoch milliseconds
+     * @param volume the trade volume
+     */
+    void updateStockFromPushData(double price, long time, double volume);
+    
+    /**
+     * Updates the stock item from all trades of the stock received in a time
+     * slice, conflated into a single update. The current price and time stamp
+     * are taken from the last trade. The stock listeners are notified once.
+     *
+     * @param delta the conflated trades
+     */
+    void updateStockFromPushData(TradeDelta delta);
 
     /**
      * Checks if the stock item has the candle data for the specified
@@ -151,6 +203,44 @@ public interface IStockItem {
      */
     void putCandleData(EChartResolution chartResolution, List<ChartCandle> candles);
     
+    /**
+     * Stores a candle series for the specified resolution.
+     *
+     * @param chartResolution the chart resolution
+     * @param candles the candle series
+     */
+    void putCandleData(EChartResolution chartResolution, CandleSeries candles);
+    
+    /**
+     * Adds older candle data in front of the stored candle data of a
+     * resolution. Candles overlapping the stored data are skipped. If there is
+     * no stored data, the candle data is stored as it is.
+     *
+     * @param chartResolution the chart resolution
+     * @param olderCandles the older candle data
+     */
+    void prependCandleData(EChartResolution chartResolution, CandleSeries olderCandles);
+    
+    /**
+     * Merges candle data of a time range into the stored candle data of a
+     * resolution, e. g. the candles of a gap in the push data. Nothing is done
+     * if there is no stored data. The stock listeners are notified.
+     *
+     * @param chartResolution the chart resolution
+     * @param gapCandles the candle data of the time range
+     */
+    void mergeCandleData(EChartResolution chartResolution, CandleSeries gapCandles);
+    
+    /**
+     * Gets the stored candle data of a resolution, e. g. to find out which
+     * data is missing. The series is updated by push data and must not be
+     * changed by the caller.
+     *
+     * @param chartResolution the chart resolution
+     * @return the candle series or null, if no data is stored
+     */
+    CandleSeries getCandleData(EChartResolution chartResolution);
+    
     /**
      * Gets a list of chart candles containing the candle data for a specified
      * resolution, default amount.
@@ -177,6 +267,15 @@ public interface IStockItem {
      * @return the candle array
      */
     ChartCandle[] getCandleArray(EChartResolution chartResolution);
+    
+    /**
+     * Gets a view of the candles to draw for the specified resolution without
+     * copying the candle data.
+     *
+     * @param chartResolution the chart resolution
+     * @return the candle view or null, if there is not enough candle data
+     */
+    CandleView getCandleView(EChartResolution chartResolution);
 
     /**
      * Gets a Bollinger Band object for this stock item for the specified
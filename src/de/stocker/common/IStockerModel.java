@@ -3,6 +3,7 @@ package de.stocker.common;
 import java.awt.Color;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import de.stocker.model.*;
 import de.stocker.model.dataWrappers.AlarmUnit;
@@ -22,6 +23,28 @@ public interface IStockerModel {
      */
     void addStock(String stockId);
     
+    /**
+     * Adds the stock with the corresponding id to the data base, requesting
+     * its data with a priority, e. g. in the background.
+     *
+     * @param stockId the stock id
+     * @param priority the priority of the requests for the stock
+     */
+    void addStock(String stockId, ERequestPriority priority);
+    
+    /**
+     * Adds a number of stocks to the data base without waiting for their data,
+     * e. g. when restoring the stocks of the last session. The stock items
+     * are added right away, marked as loading, and their data is loaded in
+     * parallel. The stock listeners of a stock item are notified once its
+     * data has arrived.
+     *
+     * @param stockIds the stock ids
+     * @param listener the listener notified about the progress, may be null
+     * @return the future completed when the data of all stocks has been loaded
+     */
+    CompletableFuture<Void> addStocks(List<String> stockIds, IHydrationListener listener);
+    
     /**
      * Gets the stock item corresponding to the stock id.
      *
@@ -43,6 +66,12 @@ public interface IStockerModel {
      * Resets the model to an empty state.
      */
     void resetModel();
+
+    /**
+     * Shuts the model down, stopping the threads processing the push data.
+     * Push data received afterwards is ignored.
+     */
+    void shutdown();
     
     /**
      * Adds an alarm for a specified stock and threshold.
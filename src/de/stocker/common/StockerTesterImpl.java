@@ -6,7 +6,7 @@ import de.stocker.model.StockCalcHelper;
 import de.stocker.model.StockerModel;
 import stocker.IStockerTester;
 
-public class StockerTesterImpl implements IStockerTester {
+public class StockerTesterImpl implements IStockerTester, AutoCloseable {
     
     private IStockerModel stockerModel;
     
@@ -93,5 +93,14 @@ public class StockerTesterImpl implements IStockerTester {
     public Set<String> getAlarmStockIds() {
         return stockerModel.getAlarmStockIds();
     }
+
+    /**
+     * Shuts the data model down, so every test doesn't leave its threads
+     * behind.
+     */
+    @Override
+    public void close() {
+        stockerModel.shutdown();
+    }
     
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.*;
 
 import de.stocker.common.*;
 import de.stocker.model.dataWrappers.AlarmUnit;
+import de.stocker.model.dataWrappers.StockSnapshot;
 import de.stocker.view.AlarmView;
 
 /**
@@ -61,8 +62,15 @@ public class AlarmController implements IAlarmListener, IStockListener {
      */
     @Override
     public void stockDataUpdated(IStockItem stockItem) {
-        Set<AlarmUnit> alarmUnits = stockItem.getAlarmUnits();
-        double curPrice = stockItem.getCurPrice();
+        // alarms and price from the same snapshot, firing an alarm removes it
+        // from the stock item but not from the snapshot being iterated
+        StockSnapshot snapshot = stockItem.getSnapshot();
+        Set<AlarmUnit> alarmUnits = snapshot.getAlarmUnits();
+        double curPrice = snapshot.getCurPrice();
+        // a snapshot may conflate several trades, a threshold is crossed if
+        // any of their prices reached it
+        double priceLow = snapshot.getPriceLow();
+        double priceHigh = snapshot.getPriceHigh();
         if (alarmUnits != null && curPrice != 0) {
             for (AlarmUnit alarmUnit : alarmUnits) {
                 double threshold = alarmUnit.getThreshold();
@@ -70,12 +78,12 @@ public class AlarmController implements IAlarmListener, IStockListener {
 
                 switch (position) {
                 case ALARM_ADDED_WHEN_PRICE_ABOVE_THRESHOLD:
-                    if (curPrice <= threshold) {
+                    if (priceLow <= threshold) {
                         fireAlarm(stockItem, alarmUnit);
                     }
                     break;
                 case ALARM_ADDED_WHEN_PRICE_BELOW_THRESHOLD:
-                    if (curPrice >= threshold) {
+                    if (priceHigh >= threshold) {
                         fireAlarm(stockItem, alarmUnit);
                     }
                     break;
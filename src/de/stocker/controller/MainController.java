@@ -4,6 +4,8 @@ import javax.swing.*;
 import javax.swing.plaf.DimensionUIResource;
 
 import de.stocker.common.*;
+import de.stocker.metrics.MetricsRegistry;
+import de.stocker.metrics.MetricsReporter;
 import de.stocker.model.StockerModel;
 import de.stocker.model.dataWrappers.DataProvider;
 import de.stocker.network.NetworkController;
@@ -32,6 +34,8 @@ public class MainController implements IMainController {
     
     private AlarmController alarmController;
     
+    private MetricsReporter metricsReporter;
+    
     // used to remember the last location of the watchlist frame
     private int watchlistX = 0;
     private int watchlistY = 0;
@@ -39,7 +43,8 @@ public class MainController implements IMainController {
     /**
      * Instantiates a new main controller. The main controller generates and
      * connects all the different parts of the application in its constructor:
-     * Main frame, persistence, preferences, network, data model, alarms.
+     * Main frame, persistence, preferences, network, data model, alarms,
+     * metrics log.
      */
     public MainController() {
         this.mainFrame = new MainFrame(this);
@@ -50,13 +55,21 @@ public class MainController implements IMainController {
         this.preferencesController = new PreferencesController(this, persistenceController.getPreferencesModel());
         this.preferencesModel = preferencesController.getPreferencesModel();
         
-        this.networkController = new NetworkController(preferencesController.getActiveDataProvider());
+        this.networkController = new NetworkController(preferencesController.getActiveDataProvider(),
+                preferencesModel.getPullConnectTimeout(), preferencesModel.getPullReadTimeout());
 
         this.stockerModel = new StockerModel(networkController, preferencesModel);
+        RepaintScheduler.getDefault().setMaxFrameRate(preferencesModel.getChartFrameRate());
         
         this.alarmController = new AlarmController();
         getStockerModel().setAlarmListener(alarmController);
         
+        if (preferencesModel.getMetricsLogInterval() > 0) {
+            this.metricsReporter = new MetricsReporter(MetricsRegistry.getDefault(),
+                    preferencesModel.getMetricsLogInterval());
+            metricsReporter.start();
+        }
+        
         persistenceController.rebuildDataModel();
         
         persistenceController.rebuildUI();
@@ -73,24 +86,47 @@ public class MainController implements IMainController {
     
     /**
      * {@inheritDoc}
+     * 
+     * The stock item is fetched in the background first, so the chart frame
+     * doesn't wait for the requests on the event dispatch thread.
      */
     @Override
     public void openChartFrame(String stockId) {
-        SwingUtilities.invokeLater(() -> {
-            ChartFrame chartFrame = new ChartFrame(getStockerModel(), stockId, preferencesModel.getChartResolution(),
-                    preferencesModel.getChartType(), preferencesModel.getColorAlarm(),
-                    preferencesModel.getColorMovingAvg(), preferencesModel.getColorBollinger());
-            DimensionUIResource minSize = new DimensionUIResource(preferencesModel.getMinWidthChartFrame(),
-                    preferencesModel.getMinHeightChartFrame());
-            chartFrame.setMinimumSize(minSize);
+        SwingWorker<Void, Void> stockWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                getStockerModel().getStock(stockId);
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                createChartFrame(stockId);
+            }
+        };
+        stockWorker.execute();
+    }
+    
+    /**
+     * Creates a chart frame for a stock whose stock item has been fetched and
+     * adds it to the main frame. Runs on the event dispatch thread.
+     *
+     * @param stockId the stock id
+     */
+    private void createChartFrame(String stockId) {
+        ChartFrame chartFrame = new ChartFrame(getStockerModel(), stockId, preferencesModel.getChartResolution(),
+                preferencesModel.getChartType(), preferencesModel.getColorAlarm(),
+                preferencesModel.getColorMovingAvg(), preferencesModel.getColorBollinger());
+        DimensionUIResource minSize = new DimensionUIResource(preferencesModel.getMinWidthChartFrame(),
+                preferencesModel.getMinHeightChartFrame());
+        chartFrame.setMinimumSize(minSize);
 
-            addToMainFrame(chartFrame);
+        addToMainFrame(chartFrame);
 
-            // stagger the frames locations to avoid complete overlap
-            chartFrame.setLocation(chartFrame.getDesktopPane().getWidth() - chartFrame.getWidth() - (chartFrame.getXOffset() * chartFrame.getOpenFrameCount()), chartFrame.getYOffset() * chartFrame.getOpenFrameCount());
-            mainFrame.bringToFront(chartFrame);
-        });                
-    }    
+        // stagger the frames locations to avoid complete overlap
+        chartFrame.setLocation(chartFrame.getDesktopPane().getWidth() - chartFrame.getWidth() - (chartFrame.getXOffset() * chartFrame.getOpenFrameCount()), chartFrame.getYOffset() * chartFrame.getOpenFrameCount());
+        mainFrame.bringToFront(chartFrame);
+    }
     
     
     
@@ -262,6 +298,26 @@ public class MainController implements IMainController {
     public void savePersistence() {
         persistenceController.savePersistenceToFile();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        savePersistence();
+        stockerModel.shutdown();
+        if (metricsReporter != null) {
+            metricsReporter.stop();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void showStatus(String text) {
+        mainFrame.setStatusText(text);
+    }
     
     /**
      * {@inheritDoc}
@@ -0,0 +1,203 @@
+package de.stocker.json;
+
+import de.stocker.model.dataWrappers.CandleSeries;
+
+/**
+ * The Class CandleResponseParser decodes the historical candle data received
+ * from the data provider, e. g.
+ * {"c":[217.68,221.03],"h":[222.49,221.5],"l":[217.19,217.14],"o":[221.03,218.55],"s":"ok","t":[1569297600,1569384000],"v":[33463820,24018876]}.
+ * The arrays of the response are decoded straight into the columns of a
+ * {@link CandleSeries}, which then uses them as its storage. Unlike the
+ * reflective parsing into a {@link JsonHistCandle}, there are no intermediate
+ * arrays to copy the values from and no objects per candle.
+ *
+ * The length of the first array is counted in advance to allocate the
+ * columns, all other arrays are decoded in a single pass. The time stamps are
+ * converted from epoch seconds to epoch milliseconds.
+ *
+ * A parser is not thread-safe, but it can be used for any number of responses.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleResponseParser extends JsonScanner {
+
+    private long[] timeOpen;
+    private double[] priceLow;
+    private double[] priceHigh;
+    private double[] priceOpen;
+    private double[] priceClose;
+    private double[] volume;
+    private int size;
+
+    /**
+     * Parses a response of historical candle data into a candle series.
+     * Responses without data, e. g. with the status "no_data", result in an
+     * empty series.
+     *
+     * @param response the response
+     * @return the candle series
+     * @throws IllegalArgumentException if the response is malformed or its
+     *                                  arrays are of different lengths
+     */
+    public CandleSeries parse(CharSequence response) {
+        begin(response);
+        size = -1;
+        try {
+            parseResponse();
+            if (size <= 0) {
+                return new CandleSeries();
+            }
+            return new CandleSeries(timeOpen, priceLow, priceHigh, priceOpen, priceClose, volume, size);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed candle response at position " + pos, e);
+        } finally {
+            end();
+            timeOpen = null;
+            priceLow = null;
+            priceHigh = null;
+            priceOpen = null;
+            priceClose = null;
+            volume = null;
+        }
+    }
+
+    /**
+     * Parses the top level object of the response.
+     */
+    private void parseResponse() {
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            int keyStart = readStringRange();
+            int keyLength = pos - 1 - keyStart;
+            expect(':');
+            char key = keyLength == 1 ? in.charAt(keyStart) : 0;
+            if (key == 0 || "chlotv".indexOf(key) < 0 || peek() != '[') {
+                // status, null or unknown values
+                skipValue();
+                continue;
+            }
+            if (size < 0) {
+                allocateColumns();
+            }
+            switch (key) {
+            case 'c':
+                readDoubles(priceClose);
+                break;
+            case 'h':
+                readDoubles(priceHigh);
+                break;
+            case 'l':
+                readDoubles(priceLow);
+                break;
+            case 'o':
+                readDoubles(priceOpen);
+                break;
+            case 'v':
+                readDoubles(volume);
+                break;
+            default:
+                readTimes(timeOpen);
+                break;
+            }
+        } while (nextMember('}'));
+    }
+
+    /**
+     * Allocates the columns when the first array is found, with the number of
+     * its elements as size.
+     */
+    private void allocateColumns() {
+        size = countElements();
+        int capacity = CandleSeries.capacityFor(size);
+        timeOpen = new long[capacity];
+        priceLow = new double[capacity];
+        priceHigh = new double[capacity];
+        priceOpen = new double[capacity];
+        priceClose = new double[capacity];
+        volume = new double[capacity];
+    }
+
+    /**
+     * Counts the elements of the array at the current position without
+     * consuming it.
+     *
+     * @return the number of elements
+     */
+    private int countElements() {
+        int start = pos;
+        int count = 0;
+        expect('[');
+        if (peek() != ']') {
+            do {
+                skipValue();
+                count++;
+            } while (nextMember(']'));
+        }
+        pos = start;
+        return count;
+    }
+
+    /**
+     * Reads an array of numbers into a column.
+     *
+     * @param column the column
+     */
+    private void readDoubles(double[] column) {
+        expect('[');
+        int i = 0;
+        if (peek() != ']') {
+            do {
+                checkIndex(i);
+                if (peek() == 'n') {
+                    skipValue();
+                    column[i++] = 0;
+                } else {
+                    column[i++] = readDouble();
+                }
+            } while (nextMember(']'));
+        } else {
+            pos++;
+        }
+        checkLength(i);
+    }
+
+    /**
+     * Reads an array of time stamps in epoch seconds into a column in epoch
+     * milliseconds.
+     *
+     * @param column the column
+     */
+    private void readTimes(long[] column) {
+        expect('[');
+        int i = 0;
+        if (peek() != ']') {
+            do {
+                checkIndex(i);
+                // adjust to milliseconds to be able to merge candles from push data later
+                column[i++] = readLong() * 1000;
+            } while (nextMember(']'));
+        } else {
+            pos++;
+        }
+        checkLength(i);
+    }
+
+    private void checkIndex(int i) {
+        if (i >= size) {
+            throw new IllegalArgumentException("Candle arrays of different lengths at position " + pos);
+        }
+    }
+
+    private void checkLength(int length) {
+        if (length != size) {
+            throw new IllegalArgumentException("Candle arrays of different lengths at position " + pos);
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package de.stocker.json;
+
+/**
+ * The Class JsonScanner is the base of the hand-written parsers for the JSON
+ * messages of the data provider whose parsing is time critical. It reads a
+ * message from a char sequence in a single pass and offers methods to read
+ * the values and skip the parts a parser isn't interested in, without creating
+ * any objects for them.
+ *
+ * A scanner is not thread-safe, it keeps the state of the message being
+ * parsed.
+ *
+ * @author Matthias Rudolph
+ */
+abstract class JsonScanner {
+
+    // powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    // integers up to 2^53 are exactly representable as doubles
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // state of the message being parsed
+    CharSequence in;
+    int pos;
+    int length;
+    // hash code of the last string read, as calculated by String.hashCode()
+    int stringHash;
+    // whether the last string read contains escapes or non-ASCII characters
+    boolean stringEscaped;
+    boolean stringNonAscii;
+
+    /**
+     * Starts reading a message.
+     *
+     * @param message the message
+     */
+    final void begin(CharSequence message) {
+        in = message;
+        pos = 0;
+        length = message.length();
+    }
+
+    /**
+     * Finishes reading a message, so the scanner doesn't keep a reference to
+     * it.
+     */
+    final void end() {
+        in = null;
+    }
+
+    /**
+     * Reads a number as a double. Numbers with up to 15 significant digits and
+     * small exponents, which covers prices and volumes, are converted exactly
+     * with a single multiplication or division, all others are handed to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @return the number
+     */
+    final double readDouble() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = false;
+        if (pos < length && in.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean digits = false;
+        char c;
+        while (pos < length && (c = in.charAt(pos)) >= '0' && c <= '9') {
+            if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + (c - '0');
+            } else {
+                exact = false;
+            }
+            digits = true;
+            pos++;
+        }
+        if (pos < length && in.charAt(pos) == '.') {
+            pos++;
+            while (pos < length && (c = in.charAt(pos)) >= '0' && c <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                } else if (c != '0') {
+                    exact = false;
+                }
+                digits = true;
+                pos++;
+            }
+        }
+        if (!digits) {
+            throw new IllegalArgumentException("Malformed number at position " + start);
+        }
+        if (pos < length && ((c = in.charAt(pos)) == 'e' || c == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < length && ((c = in.charAt(pos)) == '-' || c == '+')) {
+                negativeExponent = c == '-';
+                pos++;
+            }
+            int e = 0;
+            while (pos < length && (c = in.charAt(pos)) >= '0' && c <= '9') {
+                e = Math.min(e * 10 + (c - '0'), 10000);
+                pos++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        if (exact && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(in.subSequence(start, pos).toString());
+    }
+
+    /**
+     * Reads a number as a long, e. g. a time stamp. Numbers with a fraction or
+     * an exponent are read as a double and truncated.
+     *
+     * @return the number
+     */
+    final long readLong() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = false;
+        if (pos < length && in.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        char c;
+        while (pos < length && (c = in.charAt(pos)) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            digits++;
+            pos++;
+        }
+        if (digits == 0 || digits > 18
+                || (pos < length && ((c = in.charAt(pos)) == '.' || c == 'e' || c == 'E'))) {
+            pos = start;
+            return (long) readDouble();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a string and returns the position of its first character. The
+     * position afterwards is behind the closing quote, so the string ends at
+     * pos - 1. The hash code of the string and whether it contains escapes or
+     * non-ASCII characters is kept for the caller.
+     *
+     * @return the position of the first character of the string
+     */
+    final int readStringRange() {
+        expect('"');
+        int start = pos;
+        int hash = 0;
+        boolean escaped = false;
+        boolean nonAscii = false;
+        while (true) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+            } else if (c >= 0x80) {
+                nonAscii = true;
+            }
+            hash = 31 * hash + c;
+        }
+        stringHash = hash;
+        stringEscaped = escaped;
+        stringNonAscii = nonAscii;
+        return start;
+    }
+
+    /**
+     * Decodes the escape sequences of a string. Rare for stock ids, so it's
+     * fine to allocate here.
+     *
+     * @param raw the string as contained in the message, without quotes
+     * @return the decoded string
+     */
+    static String decodeString(String raw) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            c = raw.charAt(++i);
+            switch (c) {
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 't':
+                sb.append('\t');
+                break;
+            case 'u':
+                sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                i += 4;
+                break;
+            default:
+                sb.append(c);
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Skips a value of any type, including nested objects and arrays.
+     */
+    final void skipValue() {
+        int depth = 0;
+        do {
+            char c = peek();
+            switch (c) {
+            case '{':
+            case '[':
+                depth++;
+                pos++;
+                break;
+            case '}':
+            case ']':
+                depth--;
+                pos++;
+                break;
+            case ',':
+            case ':':
+                pos++;
+                break;
+            case '"':
+                readStringRange();
+                break;
+            default:
+                // number or literal
+                while (pos < length && (c = in.charAt(pos)) != ',' && c != '}' && c != ']'
+                        && !Character.isWhitespace(c)) {
+                    pos++;
+                }
+                break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Moves on to the next member of an object or element of an array.
+     *
+     * @param close the closing character of the object or array
+     * @return true, if another member follows, false if the object or array
+     *         is closed
+     */
+    final boolean nextMember(char close) {
+        char c = peek();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected ',' or '" + close + "' at position " + (pos - 1));
+    }
+
+    /**
+     * Checks if the characters of the message at a position equal a string.
+     *
+     * @param start the position in the message
+     * @param s     the string
+     * @return true, if the characters are equal
+     */
+    final boolean regionEquals(int start, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (in.charAt(start + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    final void expect(char c) {
+        if (peek() != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+        }
+        pos++;
+    }
+
+    /**
+     * Skips whitespace and gets the next character without consuming it.
+     *
+     * @return the next character
+     */
+    final char peek() {
+        skipWhitespace();
+        if (pos >= length) {
+            throw new IllegalArgumentException("Unexpected end of message");
+        }
+        return in.charAt(pos);
+    }
+
+    final void skipWhitespace() {
+        char c;
+        while (pos < length && ((c = in.charAt(pos)) == ' ' || c == '\n' || c == '\r' || c == '\t')) {
+            pos++;
+        }
+    }
+
+}
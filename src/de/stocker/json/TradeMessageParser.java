@@ -0,0 +1,258 @@
+package de.stocker.json;
+
+import java.util.function.Function;
+
+import de.stocker.model.dataWrappers.TradeBatch;
+
+/**
+ * The Class TradeMessageParser parses the trade messages pushed by the data
+ * provider, e. g.
+ * {"type":"trade","data":[{"c":["1"],"p":7296.89,"s":"AAPL","t":1575526691134,"v":0.01}]}.
+ * Unlike the reflective parsing with {@link JsonFactory}, the message is read
+ * in a single pass straight into the columns of a {@link TradeBatch}, fields
+ * which aren't needed (like the trade conditions) are skipped without creating
+ * any objects.
+ *
+ * Stock ids are interned: the first time a stock id is read, the resolver is
+ * asked for its canonical string, i. e. the key of the stock item in the
+ * registry of active stocks. This string is remembered and returned for every
+ * further trade of the stock, so parsing a trade of an active stock doesn't
+ * allocate anything. Stock ids the resolver doesn't know are not remembered.
+ *
+ * Messages can be passed as strings or, to skip decoding them, as
+ * {@link Utf8CharSequence} of the received bytes. Stock ids containing escapes
+ * or non-ASCII characters are decoded into a new string and aren't interned.
+ *
+ * A parser is not thread-safe, it is used by the parser thread of the push
+ * pipeline only.
+ *
+ * @author Matthias Rudolph
+ */
+public class TradeMessageParser extends JsonScanner {
+
+    private static final int DEFAULT_SYMBOL_CAPACITY = 64;
+
+    private final Function<String, String> symbolResolver;
+
+    // open addressing hash table of the interned stock ids
+    private String[] symbols = new String[DEFAULT_SYMBOL_CAPACITY];
+    private int symbolCount;
+
+    /**
+     * Instantiates a new trade message parser, which doesn't intern stock ids
+     * against a registry, every stock id read is remembered.
+     */
+    public TradeMessageParser() {
+        this(Function.identity());
+    }
+
+    /**
+     * Instantiates a new trade message parser.
+     *
+     * @param symbolResolver the function returning the canonical string of a
+     *                       stock id, or null if the stock id shouldn't be
+     *                       remembered
+     */
+    public TradeMessageParser(Function<String, String> symbolResolver) {
+        this.symbolResolver = symbolResolver;
+    }
+
+    /**
+     * Parses a push message and adds its trades to the end of a trade batch.
+     * Messages of other types, e. g. pings, don't add any trades.
+     *
+     * @param message the push message
+     * @param trades  the trade batch to add the trades to
+     * @return true, if the message is a trade message
+     * @throws IllegalArgumentException if the message is malformed, no trades
+     *                                  are added then
+     */
+    public boolean parse(CharSequence message, TradeBatch trades) {
+        int start = trades.size();
+        begin(message);
+        try {
+            if (parseMessage(trades)) {
+                return true;
+            }
+            trades.truncate(start);
+            return false;
+        } catch (RuntimeException e) {
+            trades.truncate(start);
+            throw e instanceof IllegalArgumentException ? e
+                    : new IllegalArgumentException("Malformed push message at position " + pos, e);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Parses the top level object of a message. The data array may come before
+     * the type, so the trades are always read and dropped by the caller if the
+     * message turns out not to be a trade message.
+     *
+     * @param trades the trade batch to add the trades to
+     * @return true, if the message is a trade message
+     */
+    private boolean parseMessage(TradeBatch trades) {
+        boolean trade = false;
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return false;
+        }
+        do {
+            int keyStart = readStringRange();
+            int keyLength = pos - 1 - keyStart;
+            expect(':');
+            if (keyLength == 4 && regionEquals(keyStart, "type")) {
+                if (peek() == '"') {
+                    int valueStart = readStringRange();
+                    trade = pos - 1 - valueStart == 5 && regionEquals(valueStart, "trade");
+                } else {
+                    skipValue();
+                }
+            } else if (keyLength == 4 && regionEquals(keyStart, "data") && peek() == '[') {
+                parseTrades(trades);
+            } else {
+                skipValue();
+            }
+        } while (nextMember('}'));
+        return trade;
+    }
+
+    /**
+     * Parses the array of trades.
+     *
+     * @param trades the trade batch to add the trades to
+     */
+    private void parseTrades(TradeBatch trades) {
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            if (peek() == '{') {
+                parseTrade(trades);
+            } else {
+                skipValue();
+            }
+        } while (nextMember(']'));
+    }
+
+    /**
+     * Parses a single trade object.
+     *
+     * @param trades the trade batch to add the trade to
+     */
+    private void parseTrade(TradeBatch trades) {
+        String stockId = null;
+        double price = 0;
+        long time = 0;
+        double volume = 0;
+
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+        } else {
+            do {
+                int keyStart = readStringRange();
+                int keyLength = pos - 1 - keyStart;
+                expect(':');
+                char key = keyLength == 1 ? in.charAt(keyStart) : 0;
+                if (peek() == 'n') {
+                    // null values keep the defaults
+                    skipValue();
+                } else if (key == 'p') {
+                    price = readDouble();
+                } else if (key == 's') {
+                    stockId = readSymbol();
+                } else if (key == 't') {
+                    time = readLong();
+                } else if (key == 'v') {
+                    volume = readDouble();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+        }
+        trades.add(stockId, price, time, volume);
+    }
+
+    /**
+     * Reads a stock id and returns its interned string.
+     *
+     * @return the stock id
+     */
+    private String readSymbol() {
+        if (peek() != '"') {
+            skipValue();
+            return null;
+        }
+        int start = readStringRange();
+        int end = pos - 1;
+        if (stringEscaped || stringNonAscii) {
+            String raw = in.subSequence(start, end).toString();
+            String symbol = stringEscaped ? decodeString(raw) : raw;
+            String canonical = symbolResolver.apply(symbol);
+            return canonical != null ? canonical : symbol;
+        }
+
+        int mask = symbols.length - 1;
+        for (int i = mix(stringHash) & mask; symbols[i] != null; i = (i + 1) & mask) {
+            String s = symbols[i];
+            if (s.length() == end - start && regionEquals(start, s)) {
+                return s;
+            }
+        }
+
+        String symbol = in.subSequence(start, end).toString();
+        String canonical = symbolResolver.apply(symbol);
+        if (canonical == null) {
+            return symbol;
+        }
+        addSymbol(canonical);
+        return canonical;
+    }
+
+    /**
+     * Adds a stock id to the table of interned stock ids, which is kept at
+     * most half full.
+     *
+     * @param symbol the stock id
+     */
+    private void addSymbol(String symbol) {
+        if (++symbolCount > symbols.length >> 1) {
+            String[] old = symbols;
+            symbols = new String[old.length << 1];
+            for (String s : old) {
+                if (s != null) {
+                    insertSymbol(s);
+                }
+            }
+        }
+        insertSymbol(symbol);
+    }
+
+    private void insertSymbol(String symbol) {
+        int mask = symbols.length - 1;
+        int i = mix(symbol.hashCode()) & mask;
+        while (symbols[i] != null) {
+            i = (i + 1) & mask;
+        }
+        symbols[i] = symbol;
+    }
+
+    /**
+     * Spreads the bits of a hash code, so that similar stock ids don't end up
+     * in neighboring slots of the table.
+     *
+     * @param hash the hash code
+     * @return the mixed hash code
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -0,0 +1,114 @@
+package de.stocker.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Class Utf8CharSequence gives the {@link TradeMessageParser} access to a
+ * push message as received, i. e. as UTF-8 encoded bytes, without decoding it
+ * into a string first. Each byte is one char of the sequence, which is exact
+ * for ASCII, and the structure of a JSON message, its numbers and usually its
+ * stock ids are ASCII. Multi-byte characters appear as several chars of 0x80
+ * and above, so parsers have to use {@link #toString()} or
+ * {@link #subSequence(int, int)} to get properly decoded strings for ranges
+ * containing them.
+ *
+ * The buffer is read with absolute access only, its position and limit at the
+ * time the sequence is created mark the message and must not be changed
+ * afterwards.
+ *
+ * @author Matthias Rudolph
+ */
+public class Utf8CharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    // the backing array of heap buffers is read directly, null for direct
+    // buffers
+    private final byte[] array;
+    private final int arrayOffset;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Instantiates a new char sequence of the remaining bytes of a buffer.
+     *
+     * @param buffer the buffer containing the UTF-8 encoded message
+     */
+    public Utf8CharSequence(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.remaining());
+    }
+
+    /**
+     * Instantiates a new char sequence of a range of a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the index of the first byte in the buffer
+     * @param length the number of bytes
+     */
+    private Utf8CharSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.array = buffer.hasArray() ? buffer.array() : null;
+        this.arrayOffset = array != null ? buffer.arrayOffset() + offset : 0;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets the byte at an index as a char.
+     *
+     * @param index the index of the byte
+     * @return the byte as a char from 0 to 0xFF
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        if (array != null) {
+            return (char) (array[arrayOffset + index] & 0xFF);
+        }
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    /**
+     * Gets a range of the bytes as a char sequence, without copying them.
+     *
+     * @param start the index of the first byte, inclusive
+     * @param end the index of the last byte, exclusive
+     * @return the char sequence of the range
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length "
+                    + length);
+        }
+        return new Utf8CharSequence(buffer, offset + start, end - start);
+    }
+
+    /**
+     * Decodes the bytes into a string.
+     *
+     * @return the decoded string
+     */
+    @Override
+    public String toString() {
+        if (array != null) {
+            return new String(array, arrayOffset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
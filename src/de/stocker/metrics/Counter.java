@@ -0,0 +1,39 @@
+package de.stocker.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Class Counter counts events, e. g. errors. It is incremented by several
+ * threads without contending on one variable.
+ *
+ * @author Matthias Rudolph
+ */
+public class Counter implements ICounterMXBean {
+
+    private final LongAdder value = new LongAdder();
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Counts a number of events.
+     *
+     * @param n the number of events
+     */
+    public void add(long n) {
+        value.add(n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValue() {
+        return value.sum();
+    }
+
+}
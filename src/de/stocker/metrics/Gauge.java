@@ -0,0 +1,32 @@
+package de.stocker.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The Class Gauge reads a value kept elsewhere whenever it is queried, e. g.
+ * a queue depth or a counter a component keeps anyway.
+ *
+ * @author Matthias Rudolph
+ */
+public class Gauge implements ICounterMXBean {
+
+    private final LongSupplier supplier;
+
+    /**
+     * Instantiates a new gauge.
+     *
+     * @param supplier the supplier of the value
+     */
+    public Gauge(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValue() {
+        return supplier.getAsLong();
+    }
+
+}
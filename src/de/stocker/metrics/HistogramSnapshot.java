@@ -0,0 +1,112 @@
+package de.stocker.metrics;
+
+/**
+ * The Class HistogramSnapshot holds the counts of a latency histogram at one
+ * point in time, to calculate percentiles from. The difference of two
+ * snapshots of the same histogram gives the values recorded in between.
+ *
+ * @author Matthias Rudolph
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    /**
+     * Instantiates a new histogram snapshot.
+     *
+     * @param counts the counts per bucket
+     * @param count  the number of recorded values
+     * @param total  the sum of the recorded values
+     * @param max    the largest recorded value
+     */
+    HistogramSnapshot(long[] counts, long count, long total, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    /**
+     * Gets the values recorded after an earlier snapshot of the same
+     * histogram. The largest of them is only known to the precision of the
+     * histogram.
+     *
+     * @param earlier the earlier snapshot, may be null
+     * @return the snapshot of the values recorded in between
+     */
+    public HistogramSnapshot since(HistogramSnapshot earlier) {
+        if (earlier == null) {
+            return this;
+        }
+        long[] c = new long[counts.length];
+        int highest = -1;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = counts[i] - earlier.counts[i];
+            if (c[i] > 0) {
+                highest = i;
+            }
+        }
+        long m = highest < 0 ? 0 : Math.min(LatencyHistogram.getHighestValue(highest), max);
+        return new HistogramSnapshot(c, count - earlier.count, total - earlier.total, m);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean in nanoseconds, 0 if there are no values
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the largest value in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the value at a percentile, i. e. the largest value of the bucket
+     * the percentile falls into, but at most the largest recorded value.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the value in nanoseconds, 0 if there are no values
+     */
+    public long getValueAtPercentile(double percentile) {
+        // the sum of the buckets, may differ slightly from the count while
+        // values are recorded during the snapshot
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        if (sum == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(sum * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.getHighestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,16 @@
+package de.stocker.metrics;
+
+/**
+ * The Interface ICounterMXBean exposes a counter or gauge through JMX.
+ *
+ * @author Matthias Rudolph
+ */
+public interface ICounterMXBean {
+
+    /**
+     * Gets the current value.
+     *
+     * @return the value
+     */
+    long getValue();
+}
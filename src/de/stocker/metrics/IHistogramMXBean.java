@@ -0,0 +1,60 @@
+package de.stocker.metrics;
+
+/**
+ * The Interface IHistogramMXBean exposes a latency histogram through JMX, e. g.
+ * to JConsole. All values are in microseconds and cover everything recorded
+ * since the start of the application.
+ *
+ * @author Matthias Rudolph
+ */
+public interface IHistogramMXBean {
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    long getCount();
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the maximum in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Gets the median of the recorded values.
+     *
+     * @return the 50th percentile in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Gets the 90th percentile of the recorded values.
+     *
+     * @return the 90th percentile in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * Gets the 99th percentile of the recorded values.
+     *
+     * @return the 99th percentile in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Gets the 99.9th percentile of the recorded values.
+     *
+     * @return the 99.9th percentile in microseconds
+     */
+    double getP999Micros();
+}
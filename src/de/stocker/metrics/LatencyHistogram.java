@@ -0,0 +1,182 @@
+package de.stocker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Class LatencyHistogram records durations in nanoseconds into buckets of
+ * logarithmically growing width, like an HdrHistogram: every power of two is
+ * split into 64 buckets of equal width, so a recorded value is known to a
+ * precision of about 1.6 %, whether it is a few microseconds or several
+ * seconds. Values below 128 ns are counted exactly.
+ *
+ * Recording is lock-free and doesn't create objects, so it can be called on
+ * the hot paths by several threads at once. Percentiles are calculated from a
+ * snapshot of the counts.
+ *
+ * @author Matthias Rudolph
+ */
+public class LatencyHistogram implements IHistogramMXBean {
+
+    // 2^SUB_BUCKET_BITS buckets per power of two
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // larger values are counted as the largest trackable value, about 18 minutes
+    static final long MAX_TRACKABLE_VALUE = (1L << 40) - 1;
+    static final int BUCKET_COUNT = getIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Instantiates a new empty latency histogram.
+     *
+     * @param name the name of the histogram
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the bucket index of a value. Values below 2 * SUB_BUCKET_COUNT are
+     * their own index, larger values are shifted right until they are below
+     * that, the number of shifts selects the group of buckets.
+     *
+     * @param value the value, at least 0 and at most the largest trackable
+     *              value
+     * @return the bucket index
+     */
+    static int getIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param index the bucket index
+     * @return the largest value of the bucket
+     */
+    static long getHighestValue(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index - shift * SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative durations are counted
+     *              as 0
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_VALUE);
+        counts.incrementAndGet(getIndex(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Records the time passed since a start time taken with System.nanoTime.
+     *
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Takes a snapshot of the counts recorded so far. Values recorded while the
+     * snapshot is taken may be missing in it.
+     *
+     * @return the snapshot
+     */
+    public HistogramSnapshot snapshot() {
+        long[] c = new long[BUCKET_COUNT];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(c, totalCount.get(), totalValue.get(), maxValue.get());
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMeanMicros() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMaxMicros() {
+        return maxValue.get() / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP50Micros() {
+        return snapshot().getValueAtPercentile(50) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP90Micros() {
+        return snapshot().getValueAtPercentile(90) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP99Micros() {
+        return snapshot().getValueAtPercentile(99) / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP999Micros() {
+        return snapshot().getValueAtPercentile(99.9) / 1000.0;
+    }
+
+}
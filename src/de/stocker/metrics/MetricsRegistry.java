@@ -0,0 +1,173 @@
+package de.stocker.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The Class MetricsRegistry holds the latency histograms, counters and gauges
+ * of the application by name. Every metric is registered with the platform
+ * MBean server as well, as "de.stocker:type=Histogram,name=..." and so on, so
+ * it can be watched with JConsole or any other JMX client while the
+ * application runs.
+ *
+ * The components get their metrics from the default registry once and keep
+ * them, so recording a value doesn't involve the registry.
+ *
+ * @author Matthias Rudolph
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final String DOMAIN = "de.stocker";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+    private final Map<String, ICounterMXBean> values = new ConcurrentHashMap<String, ICounterMXBean>();
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * Gets the registry of the application.
+     *
+     * @return the default registry
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets the latency histogram with a name, creating it if there is none.
+     *
+     * @param name the name
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> {
+            LatencyHistogram histogram = new LatencyHistogram(n);
+            register("Histogram", n, histogram);
+            return histogram;
+        });
+    }
+
+    /**
+     * Gets the counter with a name, creating it if there is none.
+     *
+     * @param name the name
+     * @return the counter or a new counter that isn't registered, if the name
+     *         belongs to a gauge
+     */
+    public Counter counter(String name) {
+        ICounterMXBean value = values.computeIfAbsent(name, n -> {
+            Counter counter = new Counter();
+            register("Counter", n, counter);
+            return counter;
+        });
+        if (value instanceof Counter) {
+            return (Counter) value;
+        }
+        System.err.println("Error: Metric " + name + " is not a counter.");
+        return new Counter();
+    }
+
+    /**
+     * Registers a gauge reading a value from a supplier, replacing a gauge
+     * registered with the same name before.
+     *
+     * @param name     the name
+     * @param supplier the supplier of the value
+     * @return the gauge
+     */
+    public Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = new Gauge(supplier);
+        values.put(name, gauge);
+        unregister("Gauge", name);
+        register("Gauge", name, gauge);
+        return gauge;
+    }
+
+    /**
+     * Removes a metric, e. g. the paint time histogram of a closed chart. It is
+     * only removed if it hasn't been replaced by another metric with the same
+     * name in the meantime.
+     *
+     * @param name   the name
+     * @param metric the metric
+     */
+    public void remove(String name, Object metric) {
+        if (histograms.remove(name, metric)) {
+            unregister("Histogram", name);
+        } else if (values.remove(name, metric)) {
+            unregister(metric instanceof Gauge ? "Gauge" : "Counter", name);
+        }
+    }
+
+    /**
+     * Gets the latency histograms sorted by name.
+     *
+     * @return the histograms
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<String, LatencyHistogram>(histograms);
+    }
+
+    /**
+     * Gets the counters and gauges sorted by name.
+     *
+     * @return the counters and gauges
+     */
+    public Map<String, ICounterMXBean> getValues() {
+        return new TreeMap<String, ICounterMXBean>(values);
+    }
+
+    /**
+     * Registers a metric with the MBean server. A failed registration is
+     * logged, the metric works without it.
+     *
+     * @param type   the type of the metric
+     * @param name   the name of the metric
+     * @param metric the metric
+     */
+    private void register(String type, String name, Object metric) {
+        try {
+            mBeanServer.registerMBean(metric, getObjectName(type, name));
+        } catch (JMException e) {
+            System.err.println("Error: Can't register metric " + name + " with JMX. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters a metric from the MBean server, if it is registered.
+     *
+     * @param type the type of the metric
+     * @param name the name of the metric
+     */
+    private void unregister(String type, String name) {
+        try {
+            ObjectName objectName = getObjectName(type, name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Error: Can't unregister metric " + name + " from JMX. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the JMX object name of a metric. The name is quoted, as metric
+     * names may contain characters like the colon of a stock id.
+     *
+     * @param type the type of the metric
+     * @param name the name of the metric
+     * @return the object name
+     * @throws JMException if the name is not valid
+     */
+    private ObjectName getObjectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+}
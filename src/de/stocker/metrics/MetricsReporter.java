@@ -0,0 +1,126 @@
+package de.stocker.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class MetricsReporter periodically writes the metrics of a registry to
+ * the log. Every report covers the interval since the previous one: for each
+ * histogram that recorded values the count and percentiles of these values,
+ * for each counter and gauge its value and its change. Histograms without
+ * values and unchanged counters are left out, and nothing is written if
+ * nothing changed, so an idle application doesn't fill the log.
+ *
+ * @author Matthias Rudolph
+ */
+public class MetricsReporter {
+
+    private final MetricsRegistry registry;
+    private final int intervalSeconds;
+
+    // state of the previous report, only used by the reporter thread
+    private final Map<String, HistogramSnapshot> lastSnapshots = new HashMap<String, HistogramSnapshot>();
+    private final Map<String, Long> lastValues = new HashMap<String, Long>();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Instantiates a new metrics reporter. The reporter has to be started.
+     *
+     * @param registry        the registry to report
+     * @param intervalSeconds the interval between two reports in seconds
+     */
+    public MetricsReporter(MetricsRegistry registry, int intervalSeconds) {
+        this.registry = registry;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+    }
+
+    /**
+     * Starts reporting on a daemon thread, the first report is written after
+     * one interval.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Metrics reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        // the values until now are not part of the first interval
+        executor.execute(() -> createReport());
+        executor.scheduleAtFixedRate(() -> {
+            String report = createReport();
+            if (!report.isEmpty()) {
+                System.out.print(report);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops reporting.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Creates the report of the interval since the previous report.
+     *
+     * @return the report, one line per metric, empty if nothing changed
+     */
+    String createReport() {
+        StringBuilder sb = new StringBuilder();
+
+        for (Map.Entry<String, LatencyHistogram> e : registry.getHistograms().entrySet()) {
+            HistogramSnapshot snapshot = e.getValue().snapshot();
+            HistogramSnapshot interval = snapshot.since(lastSnapshots.put(e.getKey(), snapshot));
+            if (interval.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("  %-40s n=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s%n", e.getKey(),
+                    interval.getCount(), format(interval.getMean()), format(interval.getValueAtPercentile(50)),
+                    format(interval.getValueAtPercentile(90)), format(interval.getValueAtPercentile(99)),
+                    format(interval.getValueAtPercentile(99.9)), format(interval.getMax())));
+        }
+
+        for (Map.Entry<String, ICounterMXBean> e : registry.getValues().entrySet()) {
+            long value = e.getValue().getValue();
+            Long last = lastValues.put(e.getKey(), value);
+            long change = last == null ? value : value - last;
+            if (change != 0) {
+                sb.append(String.format("  %-40s %d (%+d)%n", e.getKey(), value, change));
+            }
+        }
+        if (sb.length() == 0) {
+            return "";
+        }
+        return "Metrics of the last " + intervalSeconds + " s:" + System.lineSeparator() + sb;
+    }
+
+    /**
+     * Formats a duration with a unit matching its magnitude.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    private static String format(double nanos) {
+        if (nanos < 1000) {
+            return String.format("%.0fns", nanos);
+        } else if (nanos < 1000000) {
+            return String.format("%.1fus", nanos / 1000);
+        } else if (nanos < 1000000000) {
+            return String.format("%.2fms", nanos / 1000000);
+        } else {
+            return String.format("%.2fs", nanos / 1000000000);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package de.stocker.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Class TickLatencyProbe measures the tick-to-pixel latency of a stock in
+ * one view, e. g. a chart: the time from receiving a trade from the push
+ * server until it has been painted. The probe is told about every update of
+ * the stock and remembers the receive time of the oldest trade that hasn't
+ * been painted yet. When the view paints, it takes this time before reading
+ * the data and records the latency once painting is done, so every paint
+ * records the trade that waited longest for it. Updates arriving while the
+ * view paints are left for the next paint.
+ *
+ * The latencies are recorded into the histograms "tickToPixel.[view]" of all
+ * stocks and "tickToPixel.[view].[stock id]" of the stock, shared by all
+ * probes of the same view and stock. The histogram of the stock is removed
+ * from the metrics registry when the last of these probes is closed.
+ *
+ * @author Matthias Rudolph
+ */
+public class TickLatencyProbe {
+
+    // number of open probes per histogram of a stock
+    private static final Map<String, Integer> openProbes = new HashMap<String, Integer>();
+
+    private final LatencyHistogram viewLatency;
+    private final String stockLatencyName;
+    private final LatencyHistogram stockLatency;
+    // guarded by openProbes
+    private boolean closed;
+    // System.nanoTime, 0 if no trade is waiting
+    private final AtomicLong pendingReceiveTime = new AtomicLong();
+
+    /**
+     * Instantiates a new tick latency probe.
+     *
+     * @param view    the name of the view, e. g. "chart"
+     * @param stockId the stock id
+     */
+    public TickLatencyProbe(String view, String stockId) {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        this.viewLatency = registry.histogram("tickToPixel." + view);
+        this.stockLatencyName = "tickToPixel." + view + "." + stockId;
+        synchronized (openProbes) {
+            this.stockLatency = registry.histogram(stockLatencyName);
+            openProbes.merge(stockLatencyName, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Closes the probe when the view doesn't show the stock anymore. The
+     * histogram of the stock is removed from the metrics registry, unless
+     * other probes of the view and stock are still open.
+     */
+    public void close() {
+        synchronized (openProbes) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (openProbes.compute(stockLatencyName, (name, count) -> count > 1 ? count - 1 : null) == null) {
+                MetricsRegistry.getDefault().remove(stockLatencyName, stockLatency);
+            }
+        }
+    }
+
+    /**
+     * Notes an update of the stock. Called on the thread applying the update.
+     *
+     * @param receiveTime the System.nanoTime the oldest trade of the update
+     *                    was received at, 0 if the update doesn't come from
+     *                    push data
+     */
+    public void updated(long receiveTime) {
+        if (receiveTime != 0) {
+            // keeps the time of an older trade still waiting
+            pendingReceiveTime.compareAndSet(0, receiveTime);
+        }
+    }
+
+    /**
+     * Takes the receive time of the oldest trade waiting to be painted. Called
+     * by the view before it reads the data to paint.
+     *
+     * @return the System.nanoTime the trade was received at, 0 if no trade is
+     *         waiting
+     */
+    public long takePending() {
+        return pendingReceiveTime.getAndSet(0);
+    }
+
+    /**
+     * Records the latency of a trade that has been painted.
+     *
+     * @param receiveTime the receive time taken before painting, nothing is
+     *                    recorded if it is 0
+     */
+    public void shown(long receiveTime) {
+        if (receiveTime != 0) {
+            long latency = System.nanoTime() - receiveTime;
+            viewLatency.record(latency);
+            stockLatency.record(latency);
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package de.stocker.model;
+
+import java.util.concurrent.TimeUnit;
+
+import de.stocker.common.EChartResolution;
+
+/**
+ * The Class CandleBuckets calculates the time intervals (buckets) candles of a
+ * chart resolution are aggregated in. Buckets are aligned to wall-clock
+ * boundaries in UTC: intraday buckets to multiples of their length since the
+ * epoch, days to midnight, weeks to Monday and months to the first day of the
+ * calendar month. Every point in time therefore belongs to exactly one bucket
+ * per resolution, independent of when the first trade arrived, so candle data
+ * can be merged deterministically.
+ *
+ * All calculations are done in O(1) with integer arithmetic and don't allocate
+ * any objects, so they can be used for every single trade.
+ *
+ * @author Matthias Rudolph
+ */
+public final class CandleBuckets {
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    // 1970-01-01 was a Thursday, three days after the start of its ISO week
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    // days from 0000-03-01 to 1970-01-01 and days per 400 year cycle of the
+    // proleptic Gregorian calendar
+    private static final long DAYS_0000_TO_1970 = 719468;
+    private static final long DAYS_PER_CYCLE = 146097;
+
+    private CandleBuckets() {
+    }
+
+    /**
+     * Gets the start of the bucket a point in time belongs to.
+     *
+     * @param chartResolution the chart resolution
+     * @param time            the time in epoch milliseconds
+     * @return the start of the bucket in epoch milliseconds
+     */
+    public static long getBucketStart(EChartResolution chartResolution, long time) {
+        switch (chartResolution) {
+        case WEEK:
+            long day = Math.floorDiv(time, MILLIS_PER_DAY);
+            return (day - Math.floorMod(day + EPOCH_DAY_OF_WEEK, 7)) * MILLIS_PER_DAY;
+        case MONTH:
+            return getFirstDayOfMonth(Math.floorDiv(time, MILLIS_PER_DAY)) * MILLIS_PER_DAY;
+        default:
+            long interval = chartResolution.getIntervalMillis();
+            return Math.floorDiv(time, interval) * interval;
+        }
+    }
+
+    /**
+     * Gets the start of the bucket following the bucket a point in time
+     * belongs to.
+     *
+     * @param chartResolution the chart resolution
+     * @param time            the time in epoch milliseconds
+     * @return the start of the next bucket in epoch milliseconds
+     */
+    public static long getNextBucketStart(EChartResolution chartResolution, long time) {
+        long start = getBucketStart(chartResolution, time);
+        if (chartResolution == EChartResolution.MONTH) {
+            // no month is shorter than 28 days or longer than 31 days
+            return getBucketStart(chartResolution, start + 32 * MILLIS_PER_DAY);
+        }
+        return start + (chartResolution == EChartResolution.WEEK ? 7 * MILLIS_PER_DAY
+                : chartResolution.getIntervalMillis());
+    }
+
+    /**
+     * Gets the first day of the calendar month of a day. The day of month is
+     * calculated by shifting the year to start in March, so that the leap day
+     * is the last day of the year and the month lengths follow a fixed pattern.
+     *
+     * @param epochDay the day counted from 1970-01-01
+     * @return the first day of its month counted from 1970-01-01
+     */
+    private static long getFirstDayOfMonth(long epochDay) {
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_CYCLE);
+        long dayOfEra = days - era * DAYS_PER_CYCLE;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long month = (5 * dayOfYear + 2) / 153;
+        long dayOfMonth = dayOfYear - (153 * month + 2) / 5;
+        return epochDay - dayOfMonth;
+    }
+
+}
@@ -0,0 +1,158 @@
+package de.stocker.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import de.stocker.common.EChartResolution;
+
+/**
+ * The Class CandleRangePlanner estimates the time range to request from the
+ * data provider to receive a number of candles. Candles only exist for
+ * intervals with trades, so the range is longer than the number of candles
+ * times the interval, e. g. about five times longer for hourly candles of a
+ * stock traded six and a half hours on weekdays.
+ *
+ * The first estimate for a stock is based on its trading sessions: stocks
+ * with an exchange prefix, e. g. "BINANCE:BTCUSDT", are crypto currencies or
+ * currency pairs and are assumed to be traded around the clock, all others
+ * are assumed to be traded in the regular session of the US exchanges. Once
+ * candles of a stock have been received, the estimate is corrected by the
+ * density of the received candles, i. e. the share of intervals with trades,
+ * compared to the expected one. Holidays, shortened sessions and illiquid
+ * stocks are thereby accounted for with the next request. Where the data
+ * provider has no older data, e. g. before a stock was listed, is remembered
+ * as well, so the range isn't requested again.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleRangePlanner {
+
+    // extra range on every estimate, so that a single request is usually enough
+    private final double SAFETY_MARGIN = 1.25;
+    // the density is never assumed lower, e. g. for stocks without trades in
+    // the requested range
+    private final double MINIMUM_DENSITY = 0.01;
+
+    // regular session of the US exchanges from 9:30 to 16:00
+    private final long SESSION_START_MILLIS = TimeUnit.MINUTES.toMillis(9 * 60 + 30);
+    private final long SESSION_LENGTH_MILLIS = TimeUnit.MINUTES.toMillis(6 * 60 + 30);
+    private final double TRADING_DAYS_PER_YEAR = 252;
+    private final double DAYS_PER_YEAR = 365.25;
+
+    // observed density divided by the expected density, per stock and base resolution
+    private Map<String, Double> densityCorrections = new ConcurrentHashMap<String, Double>();
+    // end of the ranges without data, per stock and base resolution
+    private Map<String, Long> historyStarts = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Estimates the time range needed to receive a number of candles of a
+     * resolution.
+     *
+     * @param stockId the stock id
+     * @param resolution the resolution of the candles
+     * @param candles the number of candles
+     * @return the time range in milliseconds, 0 if no candles are needed
+     */
+    public long estimateRange(String stockId, EChartResolution resolution, int candles) {
+        if (candles <= 0) {
+            return 0;
+        }
+        Double correction = densityCorrections.get(getKey(stockId, resolution.getBaseResolution()));
+        double density = getSessionDensity(stockId, resolution) * (correction != null ? correction : 1);
+        density = Math.min(1, Math.max(MINIMUM_DENSITY, density));
+
+        long intervals = (long) Math.ceil(candles / density * SAFETY_MARGIN);
+        return intervals * resolution.getIntervalMillis();
+    }
+
+    /**
+     * Records the number of candles received for a requested time range, to
+     * correct further estimates for the stock.
+     *
+     * @param stockId the stock id
+     * @param baseResolution the resolution of the received candles
+     * @param candles the number of received candles
+     * @param from the start of the requested range in epoch milliseconds
+     * @param to the end of the requested range in epoch milliseconds
+     */
+    public void recordDensity(String stockId, EChartResolution baseResolution, int candles, long from, long to) {
+        double intervals = (double) (to - from) / baseResolution.getIntervalMillis();
+        // ranges of a few intervals say little about the density
+        if (candles <= 0 || intervals < 10) {
+            return;
+        }
+        double observed = Math.min(1, candles / intervals);
+        densityCorrections.put(getKey(stockId, baseResolution), observed / getSessionDensity(stockId, baseResolution));
+    }
+
+    /**
+     * Records that the data provider has no candles before a time, e. g.
+     * because the stock wasn't listed yet.
+     *
+     * @param stockId the stock id
+     * @param baseResolution the resolution of the requested candles
+     * @param time the time in epoch milliseconds
+     */
+    public void recordHistoryStart(String stockId, EChartResolution baseResolution, long time) {
+        historyStarts.merge(getKey(stockId, baseResolution), time, Math::max);
+    }
+
+    /**
+     * Checks if the data provider may have candles before a time.
+     *
+     * @param stockId the stock id
+     * @param baseResolution the resolution of the candles
+     * @param time the time in epoch milliseconds
+     * @return false, if there are known to be no candles before the time
+     */
+    public boolean hasHistoryBefore(String stockId, EChartResolution baseResolution, long time) {
+        Long historyStart = historyStarts.get(getKey(stockId, baseResolution));
+        return historyStart == null || time > historyStart;
+    }
+
+    /**
+     * Gets the expected share of intervals with trades from the trading
+     * sessions of a stock.
+     *
+     * @param stockId the stock id
+     * @param resolution the resolution
+     * @return the expected density from 0 to 1
+     */
+    private double getSessionDensity(String stockId, EChartResolution resolution) {
+        if (isTradedAroundTheClock(stockId)) {
+            return 1;
+        }
+
+        switch (resolution) {
+        case WEEK:
+        case MONTH:
+            return 1;
+        case DAY:
+            return TRADING_DAYS_PER_YEAR / DAYS_PER_YEAR;
+        default:
+            // intervals touched by the session, e. g. seven hourly candles from 9:00 to 15:00
+            long interval = resolution.getIntervalMillis();
+            double sessionIntervals = Math.ceil(
+                    (double) (SESSION_START_MILLIS % interval + SESSION_LENGTH_MILLIS) / interval);
+            double intervalsPerDay = (double) TimeUnit.DAYS.toMillis(1) / interval;
+            return sessionIntervals / intervalsPerDay * TRADING_DAYS_PER_YEAR / DAYS_PER_YEAR;
+        }
+    }
+
+    /**
+     * Checks if a stock is traded around the clock, which is assumed for
+     * symbols with an exchange prefix.
+     *
+     * @param stockId the stock id
+     * @return true, if the stock is traded around the clock
+     */
+    private boolean isTradedAroundTheClock(String stockId) {
+        return stockId.indexOf(':') >= 0;
+    }
+
+    private String getKey(String stockId, EChartResolution baseResolution) {
+        return stockId + "/" + baseResolution.getUrlString();
+    }
+
+}
@@ -0,0 +1,553 @@
+package de.stocker.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.stocker.common.EBackpressurePolicy;
+import de.stocker.metrics.Counter;
+import de.stocker.metrics.Gauge;
+import de.stocker.metrics.LatencyHistogram;
+import de.stocker.metrics.MetricsRegistry;
+import de.stocker.model.dataWrappers.TradeBatch;
+import de.stocker.model.dataWrappers.TradeDelta;
+
+/**
+ * The Class PushPipeline moves the processing of push messages off the web
+ * socket thread. Messages are received into a bounded queue, parsed by a
+ * parser thread and the resulting trades are applied to the stock items by a
+ * number of apply threads (shards). The trades are partitioned by the hash of
+ * their stock id, so all trades of a stock are applied by the same shard in
+ * the order they were received, while different stocks are processed in
+ * parallel. The web socket thread only has to queue the message, so slow
+ * parsing or slow stock listeners can't stall the socket reads.
+ *
+ * Trades are passed between the threads in columnar trade batches. The parser
+ * thread parses into one reusable batch, which is copied into one batch per
+ * shard, so no object is created per trade.
+ *
+ * The shards conflate the trades before applying them: all trades of a stock
+ * in a time slice, i. e. in the batches waiting for the shard, are folded into
+ * one trade delta and applied as a single update. A burst of trades for one
+ * stock thereby results in one notification of its listeners instead of one
+ * per trade, the more so the more the shard is behind.
+ *
+ * What happens when the message queue is full is set by the backpressure
+ * policy. The pipeline counts received, dropped and coalesced messages and
+ * keeps track of the queue depth. While it runs, these counters are published
+ * as gauges of the metrics registry, along with the parse time of a message,
+ * the apply time of a delta and the latency from receiving a message to
+ * having applied its trades.
+ *
+ * @author Matthias Rudolph
+ */
+public class PushPipeline {
+
+    /**
+     * Parses a push message into trades.
+     */
+    public interface MessageParser {
+
+        /**
+         * Parses a push message and adds its trades to the end of a trade
+         * batch.
+         *
+         * @param message the push message
+         * @param trades  the trade batch to add the trades to
+         * @return true, if the message contains trades
+         */
+        boolean parse(CharSequence message, TradeBatch trades);
+    }
+
+    /**
+     * Applies the conflated trades of a stock to the data model.
+     */
+    public interface TradeApplier {
+
+        /**
+         * Applies the conflated trades of a stock to the data model. The delta
+         * is reused afterwards, so it must not be kept.
+         *
+         * @param stockId the stock id
+         * @param delta   the conflated trades
+         */
+        void apply(String stockId, TradeDelta delta);
+    }
+
+    /**
+     * A push message with the time it was received at.
+     */
+    private static class ReceivedFrame {
+
+        private final CharSequence message;
+        // System.nanoTime
+        private final long receiveTime;
+
+        private ReceivedFrame(CharSequence message, long receiveTime) {
+            this.message = message;
+            this.receiveTime = receiveTime;
+        }
+    }
+
+    private static final LatencyHistogram PARSE_TIME = MetricsRegistry.getDefault().histogram("push.parse");
+    private static final LatencyHistogram APPLY_TIME = MetricsRegistry.getDefault().histogram("push.apply");
+    private static final LatencyHistogram RECEIVE_TO_APPLY = MetricsRegistry.getDefault()
+            .histogram("push.receiveToApply");
+    private static final Counter PARSE_ERRORS = MetricsRegistry.getDefault().counter("push.parse.errors");
+    private static final Counter APPLY_ERRORS = MetricsRegistry.getDefault().counter("push.apply.errors");
+
+    private final EBackpressurePolicy policy;
+    private final MessageParser parser;
+    private final TradeApplier applier;
+
+    // receive -> parse
+    private final BlockingQueue<ReceivedFrame> frameQueue;
+    // messages collected while the queue is full with policy COALESCE, they
+    // are newer than all queued messages, guarded by the overflow lock. At
+    // most as many as fit into the queue, the oldest are dropped beyond that
+    private ArrayDeque<ReceivedFrame> overflow = new ArrayDeque<ReceivedFrame>();
+    private final int overflowCapacity;
+    private final Object overflowLock = new Object();
+    // parse -> apply, one queue per shard
+    private final List<BlockingQueue<TradeBatch>> shardQueues;
+    // reused by the parser thread for every message
+    private final TradeBatch parsed = new TradeBatch();
+
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong coalescedFrames = new AtomicLong();
+    private final AtomicLong appliedTrades = new AtomicLong();
+    private final AtomicLong appliedUpdates = new AtomicLong();
+    private volatile int maxQueueDepth;
+
+    // batches conflated at most into one time slice, bounding the delay of
+    // the first trades of a slice
+    private final int MAX_SLICE_BATCHES = 64;
+
+    private volatile boolean running;
+    private Thread parseThread;
+    private Thread[] applyThreads;
+    // gauges registered while running, by name
+    private final Map<String, Gauge> gauges = new HashMap<String, Gauge>();
+
+    /**
+     * Instantiates a new push pipeline. The pipeline has to be started before
+     * messages are processed.
+     *
+     * @param parser     the parser for the push messages, called by the parser
+     *                   thread only
+     * @param applier    the applier for conflated trades, called by the apply
+     *                   threads
+     * @param capacity   the capacity of the message queue
+     * @param policy     the policy for handling messages while the queue is
+     *                   full
+     * @param shardCount the number of apply threads
+     */
+    public PushPipeline(MessageParser parser, TradeApplier applier, int capacity,
+            EBackpressurePolicy policy, int shardCount) {
+        this.parser = parser;
+        this.applier = applier;
+        this.policy = policy;
+        this.frameQueue = new ArrayBlockingQueue<ReceivedFrame>(Math.max(1, capacity));
+        this.overflowCapacity = Math.max(1, capacity);
+        this.shardQueues = new ArrayList<BlockingQueue<TradeBatch>>();
+        for (int i = 0; i < Math.max(1, shardCount); i++) {
+            shardQueues.add(new ArrayBlockingQueue<TradeBatch>(Math.max(1, capacity)));
+        }
+    }
+
+    /**
+     * Starts the parser and apply threads. They are daemon threads, so they
+     * don't keep the application alive. The counters of the pipeline are
+     * registered as gauges, replacing those of a pipeline started before.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        parseThread = new Thread(this::parseLoop, "Push parser");
+        parseThread.setDaemon(true);
+        parseThread.start();
+
+        applyThreads = new Thread[shardQueues.size()];
+        for (int i = 0; i < shardQueues.size(); i++) {
+            BlockingQueue<TradeBatch> queue = shardQueues.get(i);
+            applyThreads[i] = new Thread(() -> applyLoop(queue), "Push applier " + (i + 1));
+            applyThreads[i].setDaemon(true);
+            applyThreads[i].start();
+        }
+
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        gauges.put("push.frames.received", registry.gauge("push.frames.received", this::getReceivedFrames));
+        gauges.put("push.frames.dropped", registry.gauge("push.frames.dropped", this::getDroppedFrames));
+        gauges.put("push.frames.coalesced", registry.gauge("push.frames.coalesced", this::getCoalescedFrames));
+        gauges.put("push.queue.depth", registry.gauge("push.queue.depth", this::getQueueDepth));
+        gauges.put("push.queue.maxDepth", registry.gauge("push.queue.maxDepth", this::getMaxQueueDepth));
+        gauges.put("push.batches.pending", registry.gauge("push.batches.pending", this::getPendingTradeBatches));
+        gauges.put("push.trades.applied", registry.gauge("push.trades.applied", this::getAppliedTrades));
+        gauges.put("push.updates.applied", registry.gauge("push.updates.applied", this::getAppliedUpdates));
+    }
+
+    /**
+     * Stops the parser and apply threads. Queued messages are discarded and
+     * the gauges of the pipeline are removed.
+     */
+    public synchronized void stop() {
+        running = false;
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+            MetricsRegistry.getDefault().remove(e.getKey(), e.getValue());
+        }
+        gauges.clear();
+        if (parseThread != null) {
+            parseThread.interrupt();
+            for (Thread t : applyThreads) {
+                t.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Receives a new push message. Called on the web socket thread, so apart
+     * from the policy BLOCK this never waits. The message is queued as it is,
+     * e. g. as a string or as a view of the received bytes, so it must not be
+     * changed afterwards.
+     *
+     * @param message the push message
+     */
+    public void submit(CharSequence message) {
+        ReceivedFrame frame = new ReceivedFrame(message, System.nanoTime());
+        receivedFrames.incrementAndGet();
+
+        switch (policy) {
+        case BLOCK:
+            try {
+                frameQueue.put(frame);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            break;
+        case DROP_OLDEST:
+            while (!frameQueue.offer(frame)) {
+                if (frameQueue.poll() != null) {
+                    droppedFrames.incrementAndGet();
+                }
+            }
+            break;
+        case COALESCE:
+        default:
+            synchronized (overflowLock) {
+                // once messages have spilled over, new messages follow them
+                // until the parser has taken them, to keep the order
+                if (!overflow.isEmpty() || !frameQueue.offer(frame)) {
+                    if (overflow.size() >= overflowCapacity) {
+                        overflow.pollFirst();
+                        droppedFrames.incrementAndGet();
+                    }
+                    overflow.addLast(frame);
+                    coalescedFrames.incrementAndGet();
+                }
+            }
+            break;
+        }
+
+        int depth = getQueueDepth();
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+    }
+
+    /**
+     * Takes messages from the queue and parses them until the pipeline is
+     * stopped. Messages collected while the queue was full are parsed as one
+     * batch once the queue is empty.
+     */
+    private void parseLoop() {
+        while (running) {
+            try {
+                ReceivedFrame frame = frameQueue.poll();
+                if (frame != null) {
+                    parse(frame);
+                    forward();
+                    continue;
+                }
+
+                Collection<ReceivedFrame> batch = takeOverflow();
+                if (!batch.isEmpty()) {
+                    for (ReceivedFrame f : batch) {
+                        parse(f);
+                    }
+                    forward();
+                    continue;
+                }
+
+                frame = frameQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    parse(frame);
+                    forward();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes all messages collected while the queue was full. They are only
+     * taken once the queue is empty, which is checked under the same lock the
+     * messages are added with, as the queue may have been filled again since
+     * the parser found it empty.
+     *
+     * @return the messages, oldest first
+     */
+    private Collection<ReceivedFrame> takeOverflow() {
+        synchronized (overflowLock) {
+            if (overflow.isEmpty() || !frameQueue.isEmpty()) {
+                return Collections.emptyList();
+            }
+            ArrayDeque<ReceivedFrame> batch = overflow;
+            overflow = new ArrayDeque<ReceivedFrame>();
+            return batch;
+        }
+    }
+
+    /**
+     * Parses a single message into the reused trade batch, stamping its trades
+     * with the receive time of the message. Errors are logged, so a malformed
+     * message can't stop the pipeline.
+     *
+     * @param frame the push message
+     */
+    private void parse(ReceivedFrame frame) {
+        int from = parsed.size();
+        long start = System.nanoTime();
+        try {
+            parser.parse(frame.message, parsed);
+        } catch (RuntimeException e) {
+            PARSE_ERRORS.increment();
+            System.err.println("Error: Can't parse push message. " + e.getMessage());
+        }
+        PARSE_TIME.recordSince(start);
+        parsed.setReceiveTime(from, frame.receiveTime);
+    }
+
+    /**
+     * Hands the parsed trades to the shards of their stock ids, waiting if a
+     * shard is behind. Every shard gets its own copy of its trades, the
+     * reused trade batch is cleared afterwards.
+     *
+     * @throws InterruptedException if the pipeline is stopped while waiting
+     */
+    private void forward() throws InterruptedException {
+        int size = parsed.size();
+        if (size == 0) {
+            return;
+        }
+
+        // count the trades per shard first, so every shard gets one batch of
+        // the right size
+        int[] shards = new int[size];
+        int[] counts = new int[shardQueues.size()];
+        for (int i = 0; i < size; i++) {
+            shards[i] = getShard(parsed.getStockId(i));
+            counts[shards[i]]++;
+        }
+
+        TradeBatch[] batches = new TradeBatch[shardQueues.size()];
+        for (int i = 0; i < size; i++) {
+            int shard = shards[i];
+            if (batches[shard] == null) {
+                batches[shard] = new TradeBatch(counts[shard]);
+            }
+            batches[shard].add(parsed, i);
+        }
+        parsed.clear();
+
+        for (int shard = 0; shard < batches.length; shard++) {
+            if (batches[shard] != null) {
+                shardQueues.get(shard).put(batches[shard]);
+            }
+        }
+    }
+
+    /**
+     * Gets the shard responsible for a stock id.
+     *
+     * @param stockId the stock id
+     * @return the index of the shard
+     */
+    private int getShard(String stockId) {
+        return stockId == null ? 0 : Math.floorMod(stockId.hashCode(), shardQueues.size());
+    }
+
+    /**
+     * Applies the parsed trades of one shard to the data model until the
+     * pipeline is stopped. All batches waiting for the shard are taken as one
+     * time slice, their trades are conflated per stock and applied in the
+     * order the stocks first appear in the slice.
+     *
+     * @param queue the queue of the shard
+     */
+    private void applyLoop(BlockingQueue<TradeBatch> queue) {
+        // deltas are reused for every slice, no objects are created per trade
+        Map<String, TradeDelta> deltas = new HashMap<String, TradeDelta>();
+        List<String> updatedStockIds = new ArrayList<String>();
+        List<TradeBatch> slice = new ArrayList<TradeBatch>();
+
+        while (running) {
+            try {
+                slice.add(queue.take());
+                queue.drainTo(slice, MAX_SLICE_BATCHES - 1);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            for (TradeBatch trades : slice) {
+                for (int i = 0; i < trades.size(); i++) {
+                    String stockId = trades.getStockId(i);
+                    TradeDelta delta = deltas.get(stockId);
+                    if (delta == null) {
+                        delta = new TradeDelta();
+                        deltas.put(stockId, delta);
+                    }
+                    if (delta.getTradeCount() == 0) {
+                        updatedStockIds.add(stockId);
+                    }
+                    delta.add(trades.getPrice(i), trades.getTime(i), trades.getVolume(i), trades.getReceiveTime(i));
+                }
+            }
+            slice.clear();
+
+            for (String stockId : updatedStockIds) {
+                TradeDelta delta = deltas.get(stockId);
+                long start = System.nanoTime();
+                try {
+                    applier.apply(stockId, delta);
+                } catch (RuntimeException e) {
+                    APPLY_ERRORS.increment();
+                    System.err.println("Error: Can't apply push data. " + e.getMessage());
+                    e.printStackTrace();
+                }
+                long end = System.nanoTime();
+                APPLY_TIME.record(end - start);
+                if (delta.getFirstReceiveTime() != 0) {
+                    RECEIVE_TO_APPLY.record(end - delta.getFirstReceiveTime());
+                }
+                appliedTrades.addAndGet(delta.getTradeCount());
+                appliedUpdates.incrementAndGet();
+                delta.clear();
+            }
+            updatedStockIds.clear();
+        }
+    }
+
+    /**
+     * Gets the backpressure policy.
+     *
+     * @return the backpressure policy
+     */
+    public EBackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the number of messages waiting to be parsed.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        synchronized (overflowLock) {
+            return frameQueue.size() + overflow.size();
+        }
+    }
+
+    /**
+     * Gets the highest number of messages that were waiting to be parsed at
+     * the same time.
+     *
+     * @return the maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Gets the number of parsed messages waiting to be applied.
+     *
+     * @return the number of pending trade batches
+     */
+    public int getPendingTradeBatches() {
+        int pending = 0;
+        for (BlockingQueue<TradeBatch> queue : shardQueues) {
+            pending += queue.size();
+        }
+        return pending;
+    }
+    
+    /**
+     * Gets the number of shards applying trades in parallel.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shardQueues.size();
+    }
+
+    /**
+     * Gets the number of received messages.
+     *
+     * @return the number of received messages
+     */
+    public long getReceivedFrames() {
+        return receivedFrames.get();
+    }
+
+    /**
+     * Gets the number of messages dropped with the policy DROP_OLDEST, or with
+     * the policy COALESCE once the collected messages reached their limit.
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Gets the number of messages collected into batches with the policy
+     * COALESCE.
+     *
+     * @return the number of coalesced messages
+     */
+    public long getCoalescedFrames() {
+        return coalescedFrames.get();
+    }
+
+    /**
+     * Gets the number of trades applied to the data model.
+     *
+     * @return the number of applied trades
+     */
+    public long getAppliedTrades() {
+        return appliedTrades.get();
+    }
+
+    /**
+     * Gets the number of updates of the data model, each applying the
+     * conflated trades of one stock.
+     *
+     * @return the number of applied updates
+     */
+    public long getAppliedUpdates() {
+        return appliedUpdates.get();
+    }
+
+}
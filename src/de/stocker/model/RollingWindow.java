@@ -0,0 +1,235 @@
+package de.stocker.model;
+
+/**
+ * The Class RollingWindow keeps the last n values of a series in a ring buffer
+ * together with their running sum and running sum of squared deviations
+ * (Welford). Appending a value, sliding the window or replacing the newest
+ * value are O(1) operations, which allows the Simple Moving Average and the
+ * Bollinger Bands to be calculated in a single linear pass and to be updated
+ * incrementally.
+ *
+ * The running sum is compensated (Neumaier), so the mean stays within
+ * rounding of a sum over the window. When the window fills up and whenever
+ * all of its values become equal, the sums are calculated from the buffer the
+ * same way as summing up every period, so a flat window has a standard
+ * deviation of exactly 0 instead of the leftovers of the running sums.
+ *
+ * @author Matthias Rudolph
+ */
+public final class RollingWindow {
+
+    private final double[] values;
+
+    // index of the oldest value in the ring buffer
+    private int head;
+    private int count;
+
+    private double sum;
+    // compensation of the rounding errors of the running sum
+    private double compensation;
+    // sum of squared deviations from the mean
+    private double m2;
+
+    // number of equal values at the end of the window, at most n
+    private int equalRun;
+    // set while all values of the full window are equal
+    private boolean flat;
+
+    // number of slides since the last exact recalculation
+    private int slides;
+
+    /**
+     * Instantiates a new empty rolling window for the period n.
+     *
+     * @param n the period n, callers make sure it is at least 1
+     */
+    public RollingWindow(int n) {
+        this.values = new double[Math.max(1, n)];
+    }
+
+    /**
+     * Appends a new value. If the window is already full, the oldest value is
+     * dropped.
+     *
+     * @param value the new value
+     */
+    public void push(double value) {
+        if (count > 0 && value == values[(head + count - 1) % values.length]) {
+            equalRun = Math.min(equalRun + 1, values.length);
+        } else {
+            equalRun = 1;
+        }
+
+        if (count < values.length) {
+            double meanOld = getMean();
+            values[(head + count) % values.length] = value;
+            count++;
+            add(value);
+            m2 += (value - meanOld) * (value - getMean());
+            if (count == values.length) {
+                flat = equalRun == count;
+                recalculate();
+            }
+        } else {
+            double oldest = values[head];
+            values[head] = value;
+            head = (head + 1) % values.length;
+            exchange(oldest, value);
+
+            // recalculate from the buffer when the values have become equal,
+            // and once per full turn so that rounding errors of the running
+            // sums can't accumulate, amortized O(1)
+            if (isNewlyFlat() || ++slides >= values.length) {
+                recalculate();
+            }
+        }
+    }
+
+    /**
+     * Replaces the newest value, e. g. when the last candle has been updated
+     * with a new close price.
+     *
+     * @param value the new value
+     */
+    public void replaceLast(double value) {
+        if (count == 0) {
+            push(value);
+            return;
+        }
+        int last = (head + count - 1) % values.length;
+        double old = values[last];
+        if (old == value) {
+            return;
+        }
+        values[last] = value;
+        exchange(old, value);
+
+        // count the equal values at the end again, the loop ends right away
+        // unless the new value continues the values before it
+        equalRun = 1;
+        for (int i = count - 2; i >= 0 && values[(head + i) % values.length] == value; i--) {
+            equalRun++;
+        }
+        if (isNewlyFlat()) {
+            recalculate();
+        }
+    }
+
+    /**
+     * Checks if all values of the full window have just become equal and
+     * keeps the result for the next check.
+     *
+     * @return true, if the window has just become flat
+     */
+    private boolean isNewlyFlat() {
+        boolean wasFlat = flat;
+        flat = isFull() && equalRun == count;
+        return flat && !wasFlat;
+    }
+
+    /**
+     * Exchanges one value in the window for another one while keeping the
+     * number of values constant.
+     *
+     * @param oldValue the value leaving the window
+     * @param newValue the value entering the window
+     */
+    private void exchange(double oldValue, double newValue) {
+        if (oldValue == newValue) {
+            return;
+        }
+        double meanOld = getMean();
+        add(-oldValue);
+        add(newValue);
+        double meanNew = getMean();
+        m2 += (newValue - oldValue) * (newValue - meanNew + oldValue - meanOld);
+    }
+
+    /**
+     * Adds a value to the running sum, keeping the rounding error in the
+     * compensation.
+     *
+     * @param value the value
+     */
+    private void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    /**
+     * Recalculates the sum and the sum of squared deviations from the values
+     * in the buffer, in the order of summing up a period from its oldest value.
+     */
+    private void recalculate() {
+        double s = 0;
+        for (int i = 0; i < count; i++) {
+            s += values[(head + i) % values.length];
+        }
+        double mean = s / count;
+        double sq = 0;
+        for (int i = 0; i < count; i++) {
+            double d = values[(head + i) % values.length] - mean;
+            sq += d * d;
+        }
+        sum = s;
+        compensation = 0;
+        m2 = sq;
+        slides = 0;
+    }
+
+    /**
+     * Removes all values from the window.
+     */
+    public void clear() {
+        head = 0;
+        count = 0;
+        sum = 0;
+        compensation = 0;
+        m2 = 0;
+        equalRun = 0;
+        flat = false;
+        slides = 0;
+    }
+
+    /**
+     * Checks if the window contains n values.
+     *
+     * @return true, if the window is full
+     */
+    public boolean isFull() {
+        return count == values.length;
+    }
+
+    /**
+     * Gets the period n of this window.
+     *
+     * @return the period n
+     */
+    public int getN() {
+        return values.length;
+    }
+
+    /**
+     * Gets the mean of the values in the window.
+     *
+     * @return the mean, 0 if the window is empty
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (sum + compensation) / count;
+    }
+
+    /**
+     * Gets the population standard deviation of the values in the window.
+     *
+     * @return the standard deviation, 0 if the window is empty
+     */
+    public double getStdDev() {
+        return count == 0 ? 0 : Math.sqrt(Math.max(0, m2) / count);
+    }
+
+}
@@ -1,12 +1,14 @@
 package de.stocker.model;
 
-import java.time.Instant;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
 
 import de.stocker.common.EChartResolution;
-import de.stocker.model.dataWrappers.ChartCandle;
+import de.stocker.model.dataWrappers.BollingerBand;
+import de.stocker.model.dataWrappers.CandleSeries;
+import de.stocker.model.dataWrappers.CandleView;
+import de.stocker.model.dataWrappers.SimpleMovingAverage;
 import de.stocker.model.dataWrappers.TradeDataUnit;
+import de.stocker.model.dataWrappers.TradeDelta;
 
 /**
  * The Class StockCalcHelper is a calculator class with static methods to
@@ -20,7 +22,8 @@ public final class StockCalcHelper {
     /**
      * Calculates the Simple Moving Average for the specified period and the input
      * array of values according to the formula in the course specification. Method
-     * returns an array of results.
+     * returns an array of results. The values are calculated in a single pass
+     * with a running sum.
      *
      * @param n         the period n
      * @param stockData input array of values
@@ -29,23 +32,76 @@ public final class StockCalcHelper {
      *         average
      */
     public static double[] getMovingAverage(int n, double[] stockData) {
-        if (stockData.length < n) {
+        if (n < 1 || stockData.length < n) {
             System.err.println("Not enough data to calculate moving average.");
             return new double[0];
         }
 
-        int indicatorLength = stockData.length - n + 1;
-        double[] movAvg = new double[indicatorLength];
-        for (int i = 0; i < indicatorLength; i++) {
-            double sum = 0;
+        return calculateMovingAverage(n, stockData.length, i -> stockData[i], new RollingWindow(n));
+    }
 
-            for (int j = 0; j < n; j++) {
-                sum += stockData[i + j];
-            }
+    /**
+     * Calculates the Simple Moving Average for the specified period and the input
+     * array of values and wraps it into a Simple Moving Average indicator object.
+     * The object keeps the rolling window of the calculation so it can be
+     * updated with new close prices later on.
+     *
+     * @param n         the period n
+     * @param stockData input array of values
+     * @return the Simple Moving Average object, containing an empty array if
+     *         there was not enough input data to calculate the moving average
+     */
+    public static SimpleMovingAverage getSimpleMovingAverage(int n, double[] stockData) {
+        return getSimpleMovingAverage(n, stockData.length, i -> stockData[i]);
+    }
+
+    /**
+     * Calculates the Simple Moving Average for the specified period over the
+     * close prices of a candle view and wraps it into a Simple Moving Average
+     * indicator object. The close prices are read from the view directly.
+     *
+     * @param n       the period n
+     * @param candles the candle view
+     * @return the Simple Moving Average object, containing an empty array if
+     *         there was not enough input data to calculate the moving average
+     * 
+     * @see StockCalcHelper#getSimpleMovingAverage(int, double[])
+     */
+    public static SimpleMovingAverage getSimpleMovingAverage(int n, CandleView candles) {
+        return getSimpleMovingAverage(n, candles.size(), candles::getPriceClose);
+    }
 
-            movAvg[i] = sum / n;
+    private static SimpleMovingAverage getSimpleMovingAverage(int n, int length, IntToDoubleFunction stockData) {
+        if (n < 1 || length < n) {
+            System.err.println("Not enough data to calculate moving average.");
+            return new SimpleMovingAverage(n, new double[0]);
         }
 
+        RollingWindow window = new RollingWindow(n);
+        double[] movAvg = calculateMovingAverage(n, length, stockData, window);
+        return new SimpleMovingAverage(n, movAvg, window);
+    }
+
+    /**
+     * Slides the rolling window over the input values once and collects the
+     * mean for every full period. Afterwards the window contains the last n
+     * input values.
+     *
+     * @param n         the period n
+     * @param length    the number of input values
+     * @param stockData the input values by index
+     * @param window    an empty rolling window for the period n
+     * @return the array of Moving Average values
+     */
+    private static double[] calculateMovingAverage(int n, int length, IntToDoubleFunction stockData,
+            RollingWindow window) {
+        double[] movAvg = new double[length - n + 1];
+        for (int i = 0; i < length; i++) {
+            window.push(stockData.applyAsDouble(i));
+            if (i >= n - 1) {
+                movAvg[i - n + 1] = window.getMean();
+            }
+        }
         return movAvg;
     }
 
@@ -62,18 +118,13 @@ public final class StockCalcHelper {
      *         Band
      */
     public static double[] getUpperBollingerBand(double f, int n, double[] stockData) {
-        if (stockData.length < n) {
+        if (n < 1 || stockData.length < n) {
             System.err.println("Not enough data to calculate upper Bollinger band.");
             return new double[0];
         }
 
-        int indicatorLength = stockData.length - n + 1;
-        double[] upperBol = new double[indicatorLength];
-        double[] movAvg = getMovingAverage(n, stockData);
-        for (int i = 0; i < indicatorLength; i++) {
-            upperBol[i] = movAvg[i] + f * stdDev(i, n, stockData, movAvg[i]);
-        }
-
+        double[] upperBol = new double[stockData.length - n + 1];
+        calculateBollingerBand(f, n, stockData.length, i -> stockData[i], new RollingWindow(n), null, upperBol, null);
         return upperBol;
     }
 
@@ -90,154 +141,237 @@ public final class StockCalcHelper {
      *         Band
      */
     public static double[] getLowerBollingerBand(double f, int n, double[] stockData) {
-        if (stockData.length < n) {
+        if (n < 1 || stockData.length < n) {
             System.err.println("Not enough data to calculate lower Bollinger band.");
             return new double[0];
         }
 
-        int indicatorLength = stockData.length - n + 1;
-        double[] lowerBol = new double[indicatorLength];
-        double[] movAvg = getMovingAverage(n, stockData);
-        for (int i = 0; i < indicatorLength; i++) {
-            lowerBol[i] = movAvg[i] - f * stdDev(i, n, stockData, movAvg[i]);
+        double[] lowerBol = new double[stockData.length - n + 1];
+        calculateBollingerBand(f, n, stockData.length, i -> stockData[i], new RollingWindow(n), null, null, lowerBol);
+        return lowerBol;
+    }
+
+    /**
+     * Calculates the Simple Moving Average and both Bollinger Bands for the
+     * specified parameters and input values in one linear pass and wraps them
+     * into a Bollinger Band indicator object. The object keeps the rolling
+     * window of the calculation so it can be updated with new close prices
+     * later on.
+     *
+     * @param f         the standard deviation factor f
+     * @param n         the period n
+     * @param stockData input array of values
+     * @return the Bollinger Band object, containing empty arrays if there was
+     *         not enough input data to calculate the Bollinger Band
+     */
+    public static BollingerBand getBollingerBand(double f, int n, double[] stockData) {
+        return getBollingerBand(f, n, stockData.length, i -> stockData[i]);
+    }
+
+    /**
+     * Calculates the Simple Moving Average and both Bollinger Bands for the
+     * specified parameters over the close prices of a candle view. The close
+     * prices are read from the view directly.
+     *
+     * @param f       the standard deviation factor f
+     * @param n       the period n
+     * @param candles the candle view
+     * @return the Bollinger Band object, containing empty arrays if there was
+     *         not enough input data to calculate the Bollinger Band
+     * 
+     * @see StockCalcHelper#getBollingerBand(double, int, double[])
+     */
+    public static BollingerBand getBollingerBand(double f, int n, CandleView candles) {
+        return getBollingerBand(f, n, candles.size(), candles::getPriceClose);
+    }
+
+    private static BollingerBand getBollingerBand(double f, int n, int length, IntToDoubleFunction stockData) {
+        if (n < 1 || length < n) {
+            System.err.println("Not enough data to calculate Bollinger band.");
+            return new BollingerBand(f, n, new double[0], new double[0], new double[0]);
         }
 
-        return lowerBol;
+        int indicatorLength = length - n + 1;
+        double[] movAvg = new double[indicatorLength];
+        double[] upperBol = new double[indicatorLength];
+        double[] lowerBol = new double[indicatorLength];
+        RollingWindow window = new RollingWindow(n);
+        calculateBollingerBand(f, n, length, stockData, window, movAvg, upperBol, lowerBol);
+        return new BollingerBand(f, n, movAvg, upperBol, lowerBol, window);
     }
 
-    private static double stdDev(int i, int n, double[] stockData, double movAvgPrice) {
-        double sum = 0;
-        for (int j = 0; j < n; j++) {
-            sum += Math.pow(stockData[i + j] - movAvgPrice, 2);
+    /**
+     * Slides a rolling window over the input values once and writes the Moving
+     * Average and the Bollinger Band values into the output arrays which are
+     * not null. The standard deviation is taken from the running variance of
+     * the window instead of summing up the whole period for every data point.
+     * Afterwards the window contains the last n input values.
+     *
+     * @param f         the standard deviation factor f
+     * @param n         the period n
+     * @param length    the number of input values
+     * @param stockData the input values by index
+     * @param window    an empty rolling window for the period n
+     * @param movAvg    output array for the Moving Average or null
+     * @param upperBol  output array for the upper Bollinger Band or null
+     * @param lowerBol  output array for the lower Bollinger Band or null
+     */
+    private static void calculateBollingerBand(double f, int n, int length, IntToDoubleFunction stockData,
+            RollingWindow window, double[] movAvg, double[] upperBol, double[] lowerBol) {
+        for (int i = 0; i < length; i++) {
+            window.push(stockData.applyAsDouble(i));
+            if (i < n - 1) {
+                continue;
+            }
+
+            int j = i - n + 1;
+            double mean = window.getMean();
+            double deviation = f * window.getStdDev();
+            if (movAvg != null) {
+                movAvg[j] = mean;
+            }
+            if (upperBol != null) {
+                upperBol[j] = mean + deviation;
+            }
+            if (lowerBol != null) {
+                lowerBol[j] = mean - deviation;
+            }
         }
-        double stdDev = Math.sqrt(sum / n);
-        return stdDev;
     }
 
     /**
-     * Updates a list of candles from a new times-sales/trade data point pushed by
-     * the data provider.
+     * Updates a candle series from a new times-sales/trade data point pushed by
+     * the data provider. The last candle is updated in place, a new candle is
+     * only appended when the trade starts a new calendar-aligned bucket.
      *
-     * @param candles         the list of candles as presently stored by the stock
+     * @param candles         the candle series as presently stored by the stock
      *                        item
      * @param tradeData       the times-sales/trade data point, containing new
      *                        price, time and trade volume
      * @param chartResolution the chart resolution of the input candles
-     * @return the list of candles after updating it with the new data point
+     * @return true, if a new candle was appended, false if the last candle was
+     *         updated
      */
-    public static List<ChartCandle> updateCandlesFromPushData(List<ChartCandle> candles, TradeDataUnit tradeData,
+    public static boolean updateCandlesFromPushData(CandleSeries candles, TradeDataUnit tradeData,
             EChartResolution chartResolution) {
-        List<ChartCandle> candlesToOperateOn = candles;
-
-        // calculate the time length of a chart interval depending on the resolution
-        long timeDiff = 0;
-        switch (chartResolution) {
-        case ONE:
-            timeDiff = TimeUnit.MINUTES.toMillis(1);
-            break;
-        case FIVE:
-            timeDiff = TimeUnit.MINUTES.toMillis(5);
-            break;
-        case FIFTEEN:
-            timeDiff = TimeUnit.MINUTES.toMillis(15);
-            break;
-        case THIRTY:
-            timeDiff = TimeUnit.MINUTES.toMillis(30);
-            break;
-        case SIXTY:
-            timeDiff = TimeUnit.HOURS.toMillis(1);
-            break;
-        case DAY:
-            timeDiff = TimeUnit.DAYS.toMillis(1);
-            break;
-        case WEEK:
-            timeDiff = TimeUnit.DAYS.toMillis(7);
-            break;
-        case MONTH:
-            timeDiff = TimeUnit.DAYS.toMillis(31);
-            break;
-        default:
-            break;
-        }
+        return updateCandlesFromPushData(candles, tradeData.getPrice(), tradeData.getTime(), tradeData.getVolume(),
+                chartResolution);
+    }
 
-        /*
-         * Algorithm has to decide whether to update the last candle if its interval is
-         * not yet "full" or else whether to append a new candle to the list. For this
-         * first the last candle pulled from the list.
-         */
-        ChartCandle lastCandle = candlesToOperateOn.get(candlesToOperateOn.size() - 1);
-        long timeOpen = lastCandle.getTimeOpen();
-        double priceOpen = lastCandle.getPriceOpen();
-        double priceLow = lastCandle.getPriceLow();
-        double priceHigh = lastCandle.getPriceHigh();
-        double priceClose = lastCandle.getPriceClose();
-        double volume = lastCandle.getVolume();
-
-        /*
-         * Introduce a boolean to check whether the algorithm is still working on the
-         * last candle of the list or has generated a new one.
-         */
-        boolean workingOnLastCandle = true;
-
-        if (tradeData.getTime() > timeOpen + timeDiff) {
-            // If interval is "full" generate a new candle from the current values
-            ChartCandle candle = new ChartCandle(timeOpen, Instant.ofEpochMilli(timeOpen), priceLow, priceHigh,
-                    priceOpen, priceClose, volume);
-
-            // Resets the last candle or adds a new one depending on check
-            if (workingOnLastCandle) {
-                candlesToOperateOn.set(candlesToOperateOn.size() - 1, candle);
-                workingOnLastCandle = false;
-            } else {
-                candlesToOperateOn.add(candle);
-            }
+    /**
+     * Updates a candle series from a single trade pushed by the data provider,
+     * given by its values instead of a data unit object.
+     *
+     * @param candles         the candle series as presently stored by the stock
+     *                        item
+     * @param price           the trade price
+     * @param time            the time of the trade in epoch milliseconds
+     * @param volume          the trade volume
+     * @param chartResolution the chart resolution of the input candles
+     * @return true, if a new candle was appended, false if the last candle was
+     *         updated
+     */
+    public static boolean updateCandlesFromPushData(CandleSeries candles, double price, long time, double volume,
+            EChartResolution chartResolution) {
+        return candles.addTrade(CandleBuckets.getBucketStart(chartResolution, time), price, volume);
+    }
 
-            timeOpen = tradeData.getTime();
-            priceOpen = tradeData.getPrice();
-            priceLow = tradeData.getPrice();
-            priceHigh = tradeData.getPrice();
-            priceClose = tradeData.getPrice();
-            volume = tradeData.getVolume();
-        }
+    /**
+     * Updates a candle series from a segment of conflated trades, i. e. from
+     * all trades of one minute received at once.
+     *
+     * @param candles         the candle series as presently stored by the stock
+     *                        item
+     * @param delta           the conflated trades
+     * @param segment         the index of the segment
+     * @param chartResolution the chart resolution of the input candles
+     * @return true, if a new candle was appended, false if the last candle was
+     *         updated
+     */
+    public static boolean updateCandlesFromPushData(CandleSeries candles, TradeDelta delta, int segment,
+            EChartResolution chartResolution) {
+        return candles.addTrades(CandleBuckets.getBucketStart(chartResolution, delta.getSegmentStart(segment)),
+                delta.getSegmentLow(segment), delta.getSegmentHigh(segment), delta.getSegmentOpen(segment),
+                delta.getSegmentClose(segment), delta.getSegmentVolume(segment));
+    }
 
-        priceLow = Math.min(priceLow, tradeData.getPrice());
-        priceHigh = Math.max(priceHigh, tradeData.getPrice());
-        priceClose = tradeData.getPrice();
-        volume += tradeData.getVolume();
+    /**
+     * Aggregates the candles of a base resolution into the candles of a higher
+     * resolution. Only the last candle of the target series is calculated
+     * again, together with the candles for base data that is newer than it,
+     * so the target series can be brought up to date incrementally whenever it
+     * is accessed. Candles are aggregated in calendar-aligned buckets.
+     *
+     * @param base             the candle series of the base resolution
+     * @param target           the candle series to aggregate into
+     * @param targetResolution the chart resolution of the target series
+     * @return the index of the first candle of the target series which was
+     *         changed or appended
+     */
+    public static int aggregateCandles(CandleSeries base, CandleSeries target, EChartResolution targetResolution) {
+        // the base series must not change while it is aggregated
+        synchronized (base) {
+            int baseSize = base.size();
+            int first = target.size();
+            int i = 0;
+            long bucketOpen = 0;
+            boolean replaceLast = false;
 
-        ChartCandle candle = new ChartCandle(timeOpen, Instant.ofEpochMilli(timeOpen), priceLow, priceHigh, priceOpen,
-                priceClose, volume);
+            if (first > 0) {
+                bucketOpen = CandleBuckets.getBucketStart(targetResolution, target.getTimeOpen(first - 1));
+                i = base.indexOfTime(bucketOpen);
+                replaceLast = i < baseSize
+                        && CandleBuckets.getBucketStart(targetResolution, base.getTimeOpen(i)) == bucketOpen;
+                if (replaceLast) {
+                    first--;
+                }
+            }
 
-        // Resets the last candle or adds a new one depending on check
-        if (workingOnLastCandle) {
-            candlesToOperateOn.set(candlesToOperateOn.size() - 1, candle);
-            workingOnLastCandle = false;
-        } else {
-            candlesToOperateOn.add(candle);
-        }
+            while (i < baseSize) {
+                if (!replaceLast) {
+                    bucketOpen = CandleBuckets.getBucketStart(targetResolution, base.getTimeOpen(i));
+                }
+                long bucketEnd = CandleBuckets.getNextBucketStart(targetResolution, bucketOpen);
+                double low = base.getPriceLow(i);
+                double high = base.getPriceHigh(i);
+                double open = base.getPriceOpen(i);
+                double close = base.getPriceClose(i);
+                double volume = base.getVolume(i);
+                i++;
 
-        return candlesToOperateOn;
+                while (i < baseSize && base.getTimeOpen(i) < bucketEnd) {
+                    low = Math.min(low, base.getPriceLow(i));
+                    high = Math.max(high, base.getPriceHigh(i));
+                    close = base.getPriceClose(i);
+                    volume += base.getVolume(i);
+                    i++;
+                }
+
+                if (replaceLast) {
+                    target.setLast(bucketOpen, low, high, open, close, volume);
+                    replaceLast = false;
+                } else {
+                    target.append(bucketOpen, low, high, open, close, volume);
+                }
+            }
+            return first;
+        }
     }
 
     /**
-     * Updates a list of candles from a an array of times-sales/trade data points
+     * Updates a candle series from a an array of times-sales/trade data points
      * pushed by the data provider.
      *
-     * @param candles         the list of candles as presently stored by the stock
+     * @param candles         the candle series as presently stored by the stock
      *                        item
      * @param tradeData       the array of times-sales/trade data points, containing
      *                        new prices, times and trade volumes
      * @param chartResolution the chart resolution of the input candles
-     * @return the list of candles after updating it with the new data points
      */
-    public static List<ChartCandle> updateCandlesFromPushData(List<ChartCandle> candles, TradeDataUnit[] tradeData,
+    public static void updateCandlesFromPushData(CandleSeries candles, TradeDataUnit[] tradeData,
             EChartResolution chartResolution) {
-        List<ChartCandle> candlesToOperateOn = candles;
-
         for (TradeDataUnit tradeDataUnit : tradeData) {
-            candlesToOperateOn = updateCandlesFromPushData(candlesToOperateOn, tradeDataUnit, chartResolution);
+            updateCandlesFromPushData(candles, tradeDataUnit, chartResolution);
         }
-
-        return candlesToOperateOn;
     }
 }
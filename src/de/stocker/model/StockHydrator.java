@@ -0,0 +1,84 @@
+package de.stocker.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import de.stocker.common.IHydrationListener;
+
+/**
+ * The Class StockHydrator loads the data of a number of stocks at once, e. g.
+ * the stocks of the last session at startup. The stock items are already in
+ * the data model, marked as loading, and are filled in by a loader as their
+ * data arrives. Loading a stock means a search, a quote and the candle
+ * requests for the default resolution, which mostly wait for the network. The
+ * stocks are therefore loaded in parallel by a bounded number of threads, so
+ * the waiting times overlap while the data provider isn't flooded with
+ * requests. The progress is reported to a listener when a stock is done.
+ *
+ * @author Matthias Rudolph
+ */
+public class StockHydrator {
+
+    private final Consumer<String> loader;
+    private final int parallelism;
+
+    /**
+     * Instantiates a new stock hydrator.
+     *
+     * @param loader      the loader filling in the data of a stock, called
+     *                    with the stock id
+     * @param parallelism the maximum number of stocks loaded at the same time
+     */
+    public StockHydrator(Consumer<String> loader, int parallelism) {
+        this.loader = loader;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Loads the data of stocks in parallel without waiting for it. Errors are
+     * logged, a stock that can't be loaded doesn't stop the others.
+     *
+     * @param stockIds the stock ids
+     * @param listener the listener notified whenever a stock has been loaded,
+     *                 may be null
+     * @return the future completed when all stocks have been loaded
+     */
+    public CompletableFuture<Void> hydrate(List<String> stockIds, IHydrationListener listener) {
+        int total = stockIds.size();
+        if (total == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, total), r -> {
+            Thread t = new Thread(r, "Stock hydrator " + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(total);
+        for (String stockId : stockIds) {
+            futures.add(CompletableFuture.runAsync(() -> loader.accept(stockId), executor)
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            System.err.println("Error: Can't load stock " + stockId + ". " + ex.getMessage());
+                        }
+                        int d = done.incrementAndGet();
+                        if (listener != null) {
+                            listener.stockHydrated(stockId, d, total);
+                        }
+                    }));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+        all.whenComplete((v, ex) -> executor.shutdown());
+        return all;
+    }
+
+}
@@ -4,8 +4,12 @@ import java.awt.Color;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import de.stocker.common.*;
+import de.stocker.metrics.LatencyHistogram;
+import de.stocker.metrics.MetricsRegistry;
 import de.stocker.model.dataWrappers.*;
 
 /**
@@ -16,32 +20,53 @@ import de.stocker.model.dataWrappers.*;
  */
 public class StockItem implements IStockItem {
     
-    private Set<IStockListener> stockListeners = new HashSet<IStockListener>();
+    // listeners are added and removed on the EDT while the push thread notifies
+    // them
+    private Set<IStockListener> stockListeners = new CopyOnWriteArraySet<IStockListener>();
     
     private final String stockId;
-    private final String displaySymbol;
-    private final String description;
+    // set once the basic data has arrived, if the stock item was added before
+    private volatile String displaySymbol;
+    private volatile String description;
     
-    private double curPrice;
-    private Instant curPriceInstant;
-    private double curPriceOld;
-    private Instant curPriceInstantOld;
+    // Price state and alarms are published as an immutable snapshot, replaced
+    // with every update. Writers synchronize on the state lock, readers just
+    // read the volatile reference
+    private volatile StockSnapshot snapshot;
+    private final Object stateLock = new Object();
     
     private double openPrice;
     
-    private boolean loading;
-    private boolean available;
+    private volatile boolean loading;
+    private volatile boolean available;
     
     private final int DEFAULT_CANDLE_DRAW_AMOUNT = 30;
     
-    // calculated in-object
-    private double change;
+    // durations of the push updates and indicator calculations, over all stocks
+    private static final LatencyHistogram CANDLE_UPDATE_TIME = MetricsRegistry.getDefault()
+            .histogram("stock.candleUpdate");
+    private static final LatencyHistogram INDICATOR_UPDATE_TIME = MetricsRegistry.getDefault()
+            .histogram("indicator.update");
+    private static final LatencyHistogram INDICATOR_COMPUTE_TIME = MetricsRegistry.getDefault()
+            .histogram("indicator.compute");
+    private static final LatencyHistogram LISTENER_FAN_OUT_TIME = MetricsRegistry.getDefault()
+            .histogram("stock.listenerFanOut");
+    
+    // cached, values() returns a new array with every call
+    private static final EChartResolution[] CHART_RESOLUTIONS = EChartResolution.values();
     
     // Use Collections to make the map synchronized
     // Details: https://docs.oracle.com/en/java/javase/11/docs/api/java.base/java/util/EnumMap.html
-    private Map<EChartResolution, List<ChartCandle>> candleMap = Collections.synchronizedMap(new EnumMap<EChartResolution, List<ChartCandle>>(EChartResolution.class));
+    // Only the series of the base resolutions are fetched and updated from
+    // push data, the others are aggregated from them lazily on access
+    private Map<EChartResolution, CandleSeries> candleMap = Collections.synchronizedMap(new EnumMap<EChartResolution, CandleSeries>(EChartResolution.class));
+    
+    // Live indicator objects per resolution, rolled forward with every push
+    // update instead of being recalculated from scratch for every repaint
+    private Map<EChartResolution, List<BollingerBand>> liveBollingerBands = Collections.synchronizedMap(new EnumMap<EChartResolution, List<BollingerBand>>(EChartResolution.class));
+    private Map<EChartResolution, List<SimpleMovingAverage>> liveMovingAvgs = Collections.synchronizedMap(new EnumMap<EChartResolution, List<SimpleMovingAverage>>(EChartResolution.class));
     
-    // Alarms
+    // Alarms, guarded by the state lock
     private Set<AlarmUnit> alarmUnits = new HashSet<AlarmUnit>();
 
     /**
@@ -57,6 +82,8 @@ public class StockItem implements IStockItem {
         this.description = "";
         
         this.available = available;
+        
+        this.snapshot = new StockSnapshot(stockId, 0, 0, 0, 0, alarmUnits);
     }
     
     /**
@@ -76,13 +103,12 @@ public class StockItem implements IStockItem {
 
         this.displaySymbol = displaySymbol;
         this.description = description;
-        this.curPrice = curPrice;
-        this.curPriceInstant = curPriceInstant;
         this.openPrice = openPrice;
         
         this.available = available;
 
-        calculateChange();
+        this.snapshot = new StockSnapshot(stockId, curPrice, 0, curPriceInstant.toEpochMilli(),
+                calculateChange(curPrice), alarmUnits);
     }
 
     /**
@@ -94,45 +120,37 @@ public class StockItem implements IStockItem {
     }
     
     /**
-     * Updates the stock price with a new price.
+     * Updates the stock price with a new price. The stock listeners are
+     * notified by the caller, once the candles are updated as well.
      *
      * @param price the new price
-     * @param instant the new instant
+     * @param time the new price time in epoch milliseconds
      */
-    private void updateStockPrice(double price, Instant instant) {
-        setCurPrice(price);
-        setCurPriceInstant(instant);
-        calculateChange();
-        
-        notifyStockListeners();
+    private void updateStockPrice(double price, long time) {
+        // the previous price becomes the old price of the new snapshot
+        synchronized (stateLock) {
+            snapshot = new StockSnapshot(snapshot, price, time, calculateChange(price));
+        }
     }
 
     /**
-     * Sets the current price and pushes the old price to the curPriceOld field.
-     *
-     * @param price the new current price
+     * Publishes a new snapshot after the alarms have been changed. Callers
+     * hold the state lock.
      */
-    private void setCurPrice(double price) {
-        curPriceOld = curPrice;
-        curPrice = price;
+    private void publishAlarms() {
+        StockSnapshot s = snapshot;
+        snapshot = new StockSnapshot(stockId, s.getCurPrice(), s.getCurPriceOld(), s.getCurPriceTime(),
+                s.getChange(), alarmUnits);
     }
 
     /**
-     * Sets the current price instant.
+     * Calculates the change of a price vs. the opening price of the day.
      *
-     * @param instant the new current price instant
-     */
-    private void setCurPriceInstant(Instant instant) {
-        curPriceInstantOld = curPriceInstant;
-        curPriceInstant = instant;
-        
-    }
-
-    /**
-     * Calculates the change.
+     * @param price the price
+     * @return the rounded change
      */
-    private void calculateChange() {
-        change = roundChange(curPrice / openPrice - 1);
+    private double calculateChange(double price) {
+        return roundChange(price / openPrice - 1);
     }
 
     /**
@@ -171,7 +189,7 @@ public class StockItem implements IStockItem {
      */
     @Override
     public double getCurPrice() {
-        return curPrice;
+        return snapshot.getCurPrice();
     }
 
     /**
@@ -179,7 +197,7 @@ public class StockItem implements IStockItem {
      */
     @Override
     public double getChange() {
-        return change;
+        return snapshot.getChange();
     }
     
     /**
@@ -187,7 +205,15 @@ public class StockItem implements IStockItem {
      */
     @Override
     public double getCurPriceOld() {
-        return curPriceOld;
+        return snapshot.getCurPriceOld();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StockSnapshot getSnapshot() {
+        return snapshot;
     }
     
     /**
@@ -207,10 +233,9 @@ public class StockItem implements IStockItem {
         // check for week and months because data providers provider not enough
         // data for these resolutions
         if (candleResolution == EChartResolution.WEEK || candleResolution == EChartResolution.MONTH) {
-            return (candleMap.containsKey(candleResolution));
+            return getCandleSeries(candleResolution) != null;
         } else {
-            return (candleMap.containsKey(candleResolution) &&
-                    candleMap.get(candleResolution).size() >= amount);
+            return getCandleCount(candleResolution) >= amount;
         }
     }
 
@@ -228,14 +253,15 @@ public class StockItem implements IStockItem {
      */
     @Override
     public List<ChartCandle> getCandles(EChartResolution candleResolution, int amount) {
-        if (!candleMap.containsKey(candleResolution)) {
+        CandleSeries candles = getCandleSeries(candleResolution);
+        if (candles == null) {
             return null;
         }
-        List<ChartCandle> candles = candleMap.get(candleResolution);
-        if (candles.size() >= amount) {
-            return candles.subList(candles.size() - amount, candles.size() - 1);
+        int size = candles.size();
+        if (size >= amount) {
+            return candles.getCandles(size - amount, size - 1);
         } else {
-            return candles;
+            return candles.getCandles(0, size);
         }
     }
     
@@ -244,51 +270,162 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void putCandleData(EChartResolution candleResolution, List<ChartCandle> candles) {
+        putCandleData(candleResolution, new CandleSeries(candles));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putCandleData(EChartResolution candleResolution, CandleSeries candles) {
         candleMap.put(candleResolution, candles);
+        resetDerivedData(candleResolution);
     }
     
     /**
      * {@inheritDoc}
      */
     @Override
-    public ChartCandle[] getCandleArray(EChartResolution chartResolution) {
-        ChartCandle[] candleArray = new ChartCandle[0];
+    public void prependCandleData(EChartResolution candleResolution, CandleSeries olderCandles) {
+        CandleSeries candles = candleMap.get(candleResolution);
+        if (candles == null) {
+            putCandleData(candleResolution, olderCandles);
+            return;
+        }
+        candles.prependAll(olderCandles);
+        resetDerivedData(candleResolution);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void mergeCandleData(EChartResolution candleResolution, CandleSeries gapCandles) {
+        CandleSeries candles = candleMap.get(candleResolution);
+        if (candles == null) {
+            return;
+        }
+        candles.mergeAll(gapCandles);
+        resetDerivedData(candleResolution);
+        notifyStockListeners();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CandleSeries getCandleData(EChartResolution candleResolution) {
+        return candleMap.get(candleResolution);
+    }
+    
+    /**
+     * Drops the live indicators of a resolution after its candle data has been
+     * replaced or extended, together with the series aggregated from it.
+     *
+     * @param candleResolution the chart resolution of the changed data
+     */
+    private void resetDerivedData(EChartResolution candleResolution) {
+        // live indicators are seeded again from the new data on next access
+        liveBollingerBands.remove(candleResolution);
+        liveMovingAvgs.remove(candleResolution);
         
-        List<ChartCandle> candles = candleMap.get(chartResolution);
+        // the series aggregated from new base data are built again on next
+        // access
+        if (candleResolution.isBaseResolution()) {
+            for (EChartResolution res : CHART_RESOLUTIONS) {
+                if (res != candleResolution && res.getBaseResolution() == candleResolution) {
+                    candleMap.remove(res);
+                    liveBollingerBands.remove(res);
+                    liveMovingAvgs.remove(res);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the candle series of a resolution. Series of resolutions other than
+     * the base resolutions are created from the base series on first access
+     * and brought up to date with every further access, rolling their live
+     * indicators forward.
+     *
+     * @param chartResolution the chart resolution
+     * @return the candle series or null, if neither the series nor its base
+     * series is present
+     */
+    private CandleSeries getCandleSeries(EChartResolution chartResolution) {
+        CandleSeries candles = candleMap.get(chartResolution);
+        if (chartResolution.isBaseResolution()) {
+            return candles;
+        }
         
-        if (chartResolution == EChartResolution.WEEK && candles != null) {
-            if (candles.size() >= DEFAULT_CANDLE_DRAW_AMOUNT) {
-                List<ChartCandle> candleSublist = candles.subList(candles.size() - DEFAULT_CANDLE_DRAW_AMOUNT, candles.size());
-                candleArray = candleSublist.toArray(new ChartCandle[0]);
-            } else {
-                candleArray = candles.toArray(new ChartCandle[0]);
+        CandleSeries baseCandles = candleMap.get(chartResolution.getBaseResolution());
+        if (baseCandles == null) {
+            return candles;
+        }
+        if (candles == null) {
+            candles = candleMap.computeIfAbsent(chartResolution, r -> new CandleSeries());
+        }
+        
+        // aggregating and rolling the indicators forward has to happen in one
+        // step, so that concurrent accesses don't apply the changes twice
+        synchronized (candles) {
+            int oldSize = candles.size();
+            int first = StockCalcHelper.aggregateCandles(baseCandles, candles, chartResolution);
+            int size = candles.size();
+            for (int i = first; i < size; i++) {
+                updateLiveIndicators(chartResolution, i >= oldSize, candles.getPriceClose(i));
             }
-        } else if (chartResolution == EChartResolution.MONTH && candles != null) {
-            candleArray = candles.toArray(new ChartCandle[0]);
-        } else if (candles != null && candles.size() >= DEFAULT_CANDLE_DRAW_AMOUNT) {
-            List<ChartCandle> candleSublist = candles.subList(candles.size() - DEFAULT_CANDLE_DRAW_AMOUNT, candles.size());
-            candleArray = candleSublist.toArray(new ChartCandle[0]);
+        }
+        return candles;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChartCandle[] getCandleArray(EChartResolution chartResolution) {
+        CandleView candleView = getCandleView(chartResolution);
+        return candleView == null ? new ChartCandle[0] : candleView.toArray();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * The view is taken from a copy of the candles, so later push updates
+     * don't change it while it is being drawn.
+     */
+    @Override
+    public CandleView getCandleView(EChartResolution chartResolution) {
+        CandleSeries candles = getCandleSeries(chartResolution);
+        
+        if (candles == null) {
+            System.err.println("Error: Can't get candle values. No candle data present.");
+            return null;
+        } else if (chartResolution == EChartResolution.WEEK) {
+            return candles.snapshotTail(DEFAULT_CANDLE_DRAW_AMOUNT);
+        } else if (chartResolution == EChartResolution.MONTH) {
+            return candles.snapshotTail(candles.size());
+        } else if (candles.size() >= DEFAULT_CANDLE_DRAW_AMOUNT) {
+            return candles.snapshotTail(DEFAULT_CANDLE_DRAW_AMOUNT);
         } else {
             System.err.println("Error: Can't get candle values. Not enough candle data present.");
+            return null;
         }
-        return candleArray;
     }
     
     /**
-     * Gets an array of the last close prices. This is used to gather the values
-     * for the indicator calculations.
+     * Gets a view of the last candles whose close prices are used for the
+     * indicator calculations.
      *
      * @param chartResolution the chart resolution
      * @param amount the amount of close prices
-     * @return the array of close prices
+     * @return the view of the last candles or null, if there are not enough
+     * candles present
      */
-    private double[] getClosePrices(EChartResolution chartResolution, int amount) {
-        double[] closePrices = new double[amount];
-        List<ChartCandle> candles = candleMap.get(chartResolution);
+    private CandleView getClosePrices(EChartResolution chartResolution, int amount) {
+        CandleSeries candles = getCandleSeries(chartResolution);
         if (candles != null && candles.size() >= amount) {
-            for (int i = 0; i < amount; i++) {
-                closePrices[i] = candles.get(candles.size() - amount + i).getPriceClose();
-            }
+            return candles.tail(amount);
         } else if (isLoading()) {
             try {
                 Thread.sleep(100);
@@ -299,29 +436,129 @@ public class StockItem implements IStockItem {
         } else {
             System.err.println("Error: Can't get close prices. Not enough candle data present.");
         }
-        return closePrices;
+        return null;
+    }
+    
+    /**
+     * Gets the number of candles stored for the specified resolution.
+     *
+     * @param chartResolution the chart resolution
+     * @return the number of candles
+     */
+    private int getCandleCount(EChartResolution chartResolution) {
+        CandleSeries candles = getCandleSeries(chartResolution);
+        return candles == null ? 0 : candles.size();
     }
     
     /**
      * {@inheritDoc}
+     * 
+     * The live indicator object for these parameters is calculated once and
+     * then updated with every push update. A copy of its current values is
+     * returned.
      */
     @Override
     public BollingerBand getBollingerBand(EChartResolution chartResolution, double f, int n) {
-        double[] closePrices = getClosePrices(chartResolution, DEFAULT_CANDLE_DRAW_AMOUNT + n);
-        double[] lower = StockCalcHelper.getLowerBollingerBand(f, n, closePrices);
-        double[] upper = StockCalcHelper.getUpperBollingerBand(f, n, closePrices);
-        double[] movingAvg = StockCalcHelper.getMovingAverage(n, closePrices);
-        return new BollingerBand(f, n, movingAvg, upper, lower);
+        int amount = DEFAULT_CANDLE_DRAW_AMOUNT + n;
+        // waits for the candles of a loading stock and brings aggregated
+        // series and their indicators up to date
+        if (getClosePrices(chartResolution, amount) == null) {
+            // not enough data, calculate from a zero filled array as before
+            return StockCalcHelper.getBollingerBand(f, n, new double[amount]).copy();
+        }
+        
+        // seeding and registering happen under the lock the candles are
+        // updated under, so no update is lost in between
+        CandleSeries candles = getCandleSeries(chartResolution);
+        synchronized (candles) {
+            List<BollingerBand> bands = liveBollingerBands.computeIfAbsent(chartResolution,
+                    r -> new CopyOnWriteArrayList<BollingerBand>());
+            for (BollingerBand band : bands) {
+                if (band.getF() == f && band.getN() == n) {
+                    return band.copy();
+                }
+            }
+            
+            long start = System.nanoTime();
+            BollingerBand band = StockCalcHelper.getBollingerBand(f, n, candles.tail(amount));
+            INDICATOR_COMPUTE_TIME.recordSince(start);
+            bands.add(band);
+            return band.copy();
+        }
     }
     
     /**
      * {@inheritDoc}
+     * 
+     * The live indicator object for these parameters is calculated once and
+     * then updated with every push update. A copy of its current values is
+     * returned.
      */
     @Override
     public SimpleMovingAverage getMovingAvg(EChartResolution chartResolution, int n) {
-        double[] closePrices = getClosePrices(chartResolution, DEFAULT_CANDLE_DRAW_AMOUNT + n);
-        double[] movingAvg = StockCalcHelper.getMovingAverage(n, closePrices);
-        return new SimpleMovingAverage(n, movingAvg);
+        int amount = DEFAULT_CANDLE_DRAW_AMOUNT + n;
+        if (getClosePrices(chartResolution, amount) == null) {
+            // not enough data, calculate from a zero filled array as before
+            return StockCalcHelper.getSimpleMovingAverage(n, new double[amount]).copy();
+        }
+        
+        CandleSeries candles = getCandleSeries(chartResolution);
+        synchronized (candles) {
+            List<SimpleMovingAverage> smas = liveMovingAvgs.computeIfAbsent(chartResolution,
+                    r -> new CopyOnWriteArrayList<SimpleMovingAverage>());
+            for (SimpleMovingAverage sma : smas) {
+                if (sma.getN() == n) {
+                    return sma.copy();
+                }
+            }
+            
+            long start = System.nanoTime();
+            SimpleMovingAverage sma = StockCalcHelper.getSimpleMovingAverage(n, candles.tail(amount));
+            INDICATOR_COMPUTE_TIME.recordSince(start);
+            smas.add(sma);
+            return sma.copy();
+        }
+    }
+    
+    /**
+     * Rolls the live indicators of a resolution forward after its candles have
+     * been updated with a new trade.
+     *
+     * @param chartResolution the chart resolution
+     * @param candleAppended true, if a new candle was appended, false if the
+     * last candle was updated
+     * @param closePrice the close price of the last candle
+     * @return the number of indicators rolled forward
+     */
+    private int updateLiveIndicators(EChartResolution chartResolution, boolean candleAppended, double closePrice) {
+        int updated = 0;
+        List<BollingerBand> bands = liveBollingerBands.get(chartResolution);
+        if (bands != null) {
+            updated += bands.size();
+            // indexed loops, no iterator per trade
+            for (int i = 0; i < bands.size(); i++) {
+                BollingerBand band = bands.get(i);
+                if (candleAppended) {
+                    band.appendValue(closePrice);
+                } else {
+                    band.updateLastValue(closePrice);
+                }
+            }
+        }
+        
+        List<SimpleMovingAverage> smas = liveMovingAvgs.get(chartResolution);
+        if (smas != null) {
+            updated += smas.size();
+            for (int i = 0; i < smas.size(); i++) {
+                SimpleMovingAverage sma = smas.get(i);
+                if (candleAppended) {
+                    sma.appendValue(closePrice);
+                } else {
+                    sma.updateLastValue(closePrice);
+                }
+            }
+        }
+        return updated;
     }
     
     /**
@@ -330,13 +567,9 @@ public class StockItem implements IStockItem {
      * @param tradeData the array of trade data
      */
     private void updateCandlesFromPushData(TradeDataUnit[] tradeData) {
-        for (EChartResolution res : EChartResolution.values()) {
-            if (candleMap.containsKey(res)) {
-                List<ChartCandle> updatedCandles = StockCalcHelper.updateCandlesFromPushData(candleMap.get(res), tradeData, res);
-                candleMap.put(res, updatedCandles);
-            }
+        for (TradeDataUnit tradeDataUnit : tradeData) {
+            applyTradeData(tradeDataUnit);
         }
-        notifyStockListeners();
     }
     
     /**
@@ -345,13 +578,42 @@ public class StockItem implements IStockItem {
      * @param tradeData the trade data point
      */
     private void updateCandlesFromPushData(TradeDataUnit tradeData) {
-        for (EChartResolution res : EChartResolution.values()) {
-            if (candleMap.containsKey(res)) {
-                List<ChartCandle> updatedCandles = StockCalcHelper.updateCandlesFromPushData(candleMap.get(res), tradeData, res);
-                candleMap.put(res, updatedCandles);
+        applyTradeData(tradeData);
+    }
+    
+    /**
+     * Applies a single trade data point to the candles of the stored base
+     * resolutions and to their live indicators.
+     *
+     * @param tradeData the trade data point
+     */
+    private void applyTradeData(TradeDataUnit tradeData) {
+        applyTrade(tradeData.getPrice(), tradeData.getTime(), tradeData.getVolume());
+    }
+    
+    /**
+     * Applies a single trade to the candles of the stored base resolutions and
+     * to their live indicators. The other resolutions pick up the change when
+     * they are accessed next.
+     *
+     * @param price the trade price
+     * @param time the time of the trade in epoch milliseconds
+     * @param volume the trade volume
+     */
+    private void applyTrade(double price, long time, double volume) {
+        for (EChartResolution res : CHART_RESOLUTIONS) {
+            if (!res.isBaseResolution()) {
+                continue;
+            }
+            CandleSeries candles = candleMap.get(res);
+            if (candles != null && candles.size() > 0) {
+                // the live indicators are seeded under the same lock
+                synchronized (candles) {
+                    boolean appended = StockCalcHelper.updateCandlesFromPushData(candles, price, time, volume, res);
+                    updateLiveIndicators(res, appended, price);
+                }
             }
         }
-        notifyStockListeners();
     }
     
     /**
@@ -359,7 +621,7 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void updateStockFromPushData(double price, Instant instant, TradeDataUnit[] pushData) {
-        updateStockPrice(price, instant);
+        updateStockPrice(price, instant.toEpochMilli());
         updateCandlesFromPushData(pushData);
         notifyStockListeners();
     }
@@ -369,11 +631,78 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void updateStockFromPushData(double price, Instant instant, TradeDataUnit pushData) {
-        updateStockPrice(price, instant);
+        updateStockPrice(price, instant.toEpochMilli());
         updateCandlesFromPushData(pushData);
         notifyStockListeners();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateStockFromPushData(TradeDataUnit pushData) {
+        updateStockFromPushData(pushData.getPrice(), pushData.getTime(), pushData.getVolume());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateStockFromPushData(double price, long time, double volume) {
+        updateStockPrice(price, time);
+        applyTrade(price, time, volume);
+        notifyStockListeners();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateStockFromPushData(TradeDelta delta) {
+        if (delta.getTradeCount() == 0) {
+            return;
+        }
+        double price = delta.getPrice();
+        synchronized (stateLock) {
+            snapshot = new StockSnapshot(snapshot, price, delta.getTime(), calculateChange(price),
+                    delta.getPriceLow(), delta.getPriceHigh(), delta.getFirstReceiveTime());
+        }
+        
+        // the candle and indicator updates alternate, their durations are
+        // summed up separately
+        long candleNanos = 0;
+        long indicatorNanos = 0;
+        boolean candlesUpdated = false;
+        boolean indicatorsUpdated = false;
+        for (EChartResolution res : CHART_RESOLUTIONS) {
+            if (!res.isBaseResolution()) {
+                continue;
+            }
+            CandleSeries candles = candleMap.get(res);
+            if (candles != null && candles.size() > 0) {
+                candlesUpdated = true;
+                // the live indicators are seeded under the same lock
+                synchronized (candles) {
+                    for (int s = 0; s < delta.getSegmentCount(); s++) {
+                        long start = System.nanoTime();
+                        boolean appended = StockCalcHelper.updateCandlesFromPushData(candles, delta, s, res);
+                        long candlesDone = System.nanoTime();
+                        indicatorsUpdated |= updateLiveIndicators(res, appended, delta.getSegmentClose(s)) > 0;
+                        candleNanos += candlesDone - start;
+                        indicatorNanos += System.nanoTime() - candlesDone;
+                    }
+                }
+            }
+        }
+        if (candlesUpdated) {
+            CANDLE_UPDATE_TIME.record(candleNanos);
+        }
+        if (indicatorsUpdated) {
+            INDICATOR_UPDATE_TIME.record(indicatorNanos);
+        }
+        notifyStockListeners();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -395,9 +724,14 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void notifyStockListeners() {
+        if (stockListeners.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
         for (IStockListener l : stockListeners) {
             l.stockDataUpdated(this);
         }
+        LISTENER_FAN_OUT_TIME.recordSince(start);
     }
     
     /**
@@ -413,21 +747,25 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void addAlarm(double threshold, Color color) {
-        for (Double d : getAlarms()) {
-            if (d == threshold) {
-                return;
+        synchronized (stateLock) {
+            for (Double d : getAlarms()) {
+                if (d == threshold) {
+                    return;
+                }
             }
-        }
 
-        EAlarmPos position;
-        if (curPrice < threshold) {
-            position = EAlarmPos.ALARM_ADDED_WHEN_PRICE_BELOW_THRESHOLD;
-        } else if (curPrice > threshold) {
-            position = EAlarmPos.ALARM_ADDED_WHEN_PRICE_ABOVE_THRESHOLD;
-        } else {
-            return;
+            double curPrice = snapshot.getCurPrice();
+            EAlarmPos position;
+            if (curPrice < threshold) {
+                position = EAlarmPos.ALARM_ADDED_WHEN_PRICE_BELOW_THRESHOLD;
+            } else if (curPrice > threshold) {
+                position = EAlarmPos.ALARM_ADDED_WHEN_PRICE_ABOVE_THRESHOLD;
+            } else {
+                return;
+            }
+            alarmUnits.add(new AlarmUnit(this.stockId, threshold, position, color));
+            publishAlarms();
         }
-        alarmUnits.add(new AlarmUnit(this.stockId, threshold, position, color));
     }
     
     /**
@@ -435,7 +773,7 @@ public class StockItem implements IStockItem {
      */
     @Override
     public double[] getAlarms() {
-        AlarmUnit[] objectArray = alarmUnits.toArray(new AlarmUnit[0]);
+        AlarmUnit[] objectArray = snapshot.getAlarmUnits().toArray(new AlarmUnit[0]);
         double[] primitiveArray = new double[objectArray.length];
         for (int i = 0; i < objectArray.length; i++) {
             primitiveArray[i] = objectArray[i].getThreshold();
@@ -445,10 +783,12 @@ public class StockItem implements IStockItem {
     
     /**
      * {@inheritDoc}
+     * 
+     * The set is taken from the current snapshot and can't be modified.
      */
     @Override
     public Set<AlarmUnit> getAlarmUnits() {
-        return alarmUnits;
+        return snapshot.getAlarmUnits();
     }
     
     /**
@@ -456,7 +796,11 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void removeAlarm(double threshold) {
-        alarmUnits.removeIf(alarmUnit -> (alarmUnit.getThreshold() == threshold));
+        synchronized (stateLock) {
+            if (alarmUnits.removeIf(alarmUnit -> (alarmUnit.getThreshold() == threshold))) {
+                publishAlarms();
+            }
+        }
     }
     
     /**
@@ -464,7 +808,10 @@ public class StockItem implements IStockItem {
      */
     @Override
     public void clearAlarms() {
-        alarmUnits.clear();
+        synchronized (stateLock) {
+            alarmUnits.clear();
+            publishAlarms();
+        }
     }
 
     /**
@@ -499,4 +846,20 @@ public class StockItem implements IStockItem {
         this.available = available;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBasicData(String displaySymbol, String description, double curPrice, Instant curPriceInstant,
+            double openPrice) {
+        this.displaySymbol = displaySymbol;
+        this.description = description;
+        synchronized (stateLock) {
+            this.openPrice = openPrice;
+            snapshot = new StockSnapshot(stockId, curPrice, 0, curPriceInstant.toEpochMilli(),
+                    calculateChange(curPrice), alarmUnits);
+        }
+        this.available = true;
+    }
+
 }
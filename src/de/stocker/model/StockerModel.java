@@ -1,14 +1,19 @@
 package de.stocker.model;
 
 import java.awt.Color;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
-import com.google.gson.JsonObject;
+import javax.swing.SwingUtilities;
 
 import de.stocker.common.*;
 import de.stocker.json.*;
+import de.stocker.metrics.TickLatencyProbe;
 import de.stocker.model.dataWrappers.*;
 import de.stocker.preferences.PreferencesModel;
 
@@ -26,16 +31,37 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     private PreferencesModel preferencesModel;
     private IAlarmListener alarmListener;
 
-    private List<IStockItem> activeStocks = new ArrayList<IStockItem>();
+    // Registry of the active stocks keyed by stock id, accessed by the push
+    // thread and the Swing workers
+    private Map<String, IStockItem> activeStocks = new ConcurrentHashMap<String, IStockItem>();
+    // stock ids whose subscription and data generation have been started
+    private Set<String> initializedStocks = ConcurrentHashMap.newKeySet();
+    // stock items being fetched, so other threads asking for them can wait
+    private Map<String, CompletableFuture<IStockItem>> pendingStocks = new ConcurrentHashMap<String, CompletableFuture<IStockItem>>();
     
-    // Watchlist
-    private List<IStockItem> watchlist = new ArrayList<IStockItem>();
+    // Watchlist, rarely changed but read for every push update
+    private List<IStockItem> watchlist = new CopyOnWriteArrayList<IStockItem>();
+    private Map<String, Integer> watchlistIndices = new ConcurrentHashMap<String, Integer>();
     private WatchlistTableModel watchlistTableModel = new WatchlistTableModel(watchlist);
     
     // Search
     private List<SearchResult> searchResults = new ArrayList<SearchResult>();
     private SearchResultTableModel searchResultTableModel = new SearchResultTableModel(searchResults);
     
+    // Push data is processed off the web socket thread
+    private PushPipeline pushPipeline;
+    // stock ids of trades are interned against the active stocks
+    private TradeMessageParser tradeParser = new TradeMessageParser(this::getCanonicalStockId);
+    private final int DEFAULT_PUSH_QUEUE_CAPACITY = 1024;
+    
+    // Number of stocks added in parallel by addStocks
+    private final int DEFAULT_HYDRATION_PARALLELISM = 8;
+    
+    // Time ranges of candle requests
+    private CandleRangePlanner rangePlanner = new CandleRangePlanner();
+    // candle requests per fetch, usually one is enough
+    private final int MAX_CANDLE_REQUESTS = 4;
+    
     private final int DEFAULT_CANDLE_DRAW_AMOUNT = 30;
     // FOR INDICATORS
     private final int DEFAULT_CANDLE_BACKLOG_AMOUNT = 200;
@@ -53,6 +79,17 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
             networkController.registerPushSubscriber(this);
         }
         this.preferencesModel = preferencesModel;
+        
+        if (preferencesModel != null) {
+            pushPipeline = new PushPipeline(tradeParser::parse, this::updateStockFromPushData,
+                    preferencesModel.getPushQueueCapacity(), preferencesModel.getPushBackpressurePolicy(),
+                    preferencesModel.getPushShardCount());
+        } else {
+            pushPipeline = new PushPipeline(tradeParser::parse, this::updateStockFromPushData,
+                    DEFAULT_PUSH_QUEUE_CAPACITY, EBackpressurePolicy.COALESCE,
+                    Runtime.getRuntime().availableProcessors());
+        }
+        pushPipeline.start();
     }
 
     /**
@@ -60,22 +97,152 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      */
     @Override
     public void newPushData(String data) {
-        JsonTradeObject jsonTrade = JsonFactory.jsonToObject(data, JsonTradeObject.class);
-        if (jsonTrade.getType().equals("trade")) {
-            TradeDataUnit[] tradeData = jsonTrade.getDataArray();
-            for (int i = 0; i < tradeData.length; i++) {
-                updateStockFromPushData(tradeData[i].getStockId(), tradeData[i].getPrice(), Instant.ofEpochMilli(tradeData[i].getTime()), tradeData[i]);
+        pushPipeline.submit(data);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pushDataInterrupted(long from, long to) {
+        System.out.println("Filling gap in push data of " + TimeUnit.MILLISECONDS.toSeconds(to - from) + " s...");
+        for (IStockItem stockItem : activeStocks.values()) {
+            if (stockItem.isAvailable()) {
+                backfillCandleData(stockItem, from, to);
+            }
+        }
+    }
+    
+    /**
+     * Requests the candles of a time range in which push data may have been
+     * missed and merges them into the candle data of a stock, without waiting
+     * for the responses. One request is sent for each base resolution with
+     * stored candle data.
+     *
+     * @param stockItem the stock item
+     * @param from the start of the time range in epoch milliseconds
+     * @param to the end of the time range in epoch milliseconds
+     */
+    private void backfillCandleData(IStockItem stockItem, long from, long to) {
+        for (EChartResolution baseResolution : EChartResolution.values()) {
+            if (!baseResolution.isBaseResolution()) {
+                continue;
             }
+            CandleSeries candles = stockItem.getCandleData(baseResolution);
+            if (candles == null || candles.size() == 0) {
+                continue;
+            }
+            
+            // the candle of the last push data is requested again as well
+            long bucketStart = CandleBuckets.getBucketStart(baseResolution, from);
+            networkController.getCandlesAsync(stockItem.getStockId(), baseResolution.getUrlString(),
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(bucketStart)),
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(to)), ERequestPriority.WATCHLIST)
+                    .thenAccept(jsonString -> {
+                        CandleSeries gapCandles = toCandleSeries(jsonString);
+                        if (gapCandles.size() > 0) {
+                            stockItem.mergeCandleData(baseResolution, gapCandles);
+                        }
+                    });
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void newPushData(ByteBuffer data) {
+        // parsed from the bytes, without decoding them into a string
+        pushPipeline.submit(new Utf8CharSequence(data));
+    }
+    
+    /**
+     * Gets the stock id string of an active stock item, used by the trade
+     * parser to intern stock ids. Parsed trades then share the string with the
+     * registry, which makes the lookups of their stock items cheaper.
+     *
+     * @param stockId the stock id
+     * @return the stock id of the active stock item or null, if the stock isn't
+     *         active
+     */
+    private String getCanonicalStockId(String stockId) {
+        IStockItem stockItem = activeStocks.get(stockId);
+        return stockItem != null ? stockItem.getStockId() : null;
+    }
+    
+    /**
+     * Gets the push pipeline, e. g. to read its queue metrics.
+     *
+     * @return the push pipeline
+     */
+    public PushPipeline getPushPipeline() {
+        return pushPipeline;
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public void addStock(String stockId) {
-        if (!isDuplicate(activeStocks, stockId)) {
-            generateStockItem(stockId);
+        getStock(stockId, ERequestPriority.WATCHLIST);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addStock(String stockId, ERequestPriority priority) {
+        getStock(stockId, priority);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Void> addStocks(List<String> stockIds, IHydrationListener listener) {
+        // the stock items are added right away and filled in by the hydrator
+        // as their data arrives
+        for (String stockId : stockIds) {
+            activeStocks.computeIfAbsent(stockId, id -> {
+                IStockItem stockItem = new StockItem(id, false);
+                stockItem.setLoading(true);
+                return stockItem;
+            });
+        }
+        return new StockHydrator(this::loadStock, DEFAULT_HYDRATION_PARALLELISM).hydrate(stockIds, listener);
+    }
+    
+    /**
+     * Loads the data of a stock item added by addStocks, called by the stock
+     * hydrator. The basic data is filled in, then the stock is subscribed to
+     * push updates and the candle data of the default resolution is fetched.
+     * The stock listeners are notified once all of it has arrived, so charts
+     * opened in the meantime can set up their indicators.
+     *
+     * @param stockId the stock id
+     */
+    private void loadStock(String stockId) {
+        IStockItem stockItem = activeStocks.get(stockId);
+        // removed by a reset in the meantime, or loaded by another caller
+        if (stockItem == null || !initializedStocks.add(stockId)) {
+            return;
+        }
+        try {
+            fetchStockItem(stockId, ERequestPriority.BACKGROUND, stockItem);
+        } finally {
+            stockItem.setLoading(false);
+        }
+        
+        if (stockItem.isAvailable()) {
+            subscribeStockToPushUpdates(stockId);
+            if (preferencesModel != null) {
+                triggerDataGeneration(stockId, preferencesModel.getChartResolution(), ERequestPriority.BACKGROUND);
+            }
+        }
+        stockItem.notifyStockListeners();
+        
+        if (watchlistIndices.containsKey(stockId)) {
+            fireWatchlistRowUpdated(stockId);
         }
     }
 
@@ -83,11 +250,12 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      * {@inheritDoc}
      */
     @Override
-    public void addWatchlistEntry(String stockId) {
-        IStockItem stockItem = getStock(stockId);
+    public synchronized void addWatchlistEntry(String stockId) {
+        IStockItem stockItem = getStock(stockId, ERequestPriority.WATCHLIST);
         
-        if (!isDuplicate(watchlist, stockId)) {
+        if (!watchlistIndices.containsKey(stockId)) {
             watchlist.add(stockItem);
+            updateWatchlistIndices();
         }
         
         watchlistTableModel.fireTableDataChanged();
@@ -97,27 +265,38 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      * {@inheritDoc}
      */
     @Override
-    public void removeWatchlistEntry(String stockId) {
+    public synchronized void removeWatchlistEntry(String stockId) {
         watchlist.removeIf(wle -> wle.getStockId().equals(stockId));
+        updateWatchlistIndices();
         watchlistTableModel.fireTableDataChanged();
     }
 
     /**
-     * Checks if the stock is a duplicate in a specific list.
+     * Notifies the watchlist table of an updated stock on the event dispatch
+     * thread. The row is looked up only there, as rows may have been removed
+     * or moved in the meantime.
      *
-     * @param list the list to check
-     * @param stockId the stock id to check
-     * @return true, if stock is duplicate
-     */
-    private boolean isDuplicate(List<IStockItem> list, String stockId) {
-        if (!list.isEmpty()) {
-            for (IStockItem stock : list) {
-                if (stock.getStockId().equals(stockId)) {
-                    return true;
-                }
+     * @param stockId the stock id
+     */
+    private void fireWatchlistRowUpdated(String stockId) {
+        SwingUtilities.invokeLater(() -> {
+            Integer index = watchlistIndices.get(stockId);
+            if (index != null && index < watchlistTableModel.getRowCount()) {
+                watchlistTableModel.fireTableRowsUpdated(index, index);
             }
+        });
+    }
+
+    /**
+     * Rebuilds the index of watchlist rows by stock id after the watchlist has
+     * been changed.
+     */
+    private void updateWatchlistIndices() {
+        watchlistIndices.clear();
+        for (int i = 0; i < watchlist.size(); i++) {
+            watchlistIndices.put(watchlist.get(i).getStockId(), i);
         }
-        return false;
+        watchlistTableModel.updateTickLatencies(watchlistIndices.keySet());
     }
 
     /**
@@ -125,45 +304,91 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      */
     @Override
     public IStockItem getStock(String stockId) {
-        if (!isDuplicate(activeStocks, stockId)) {
-            generateStockItem(stockId);
-        }
-
-        for (IStockItem stockItem : activeStocks) {
-            if (stockItem.getStockId().equals(stockId)) {
-                return stockItem;
-            }
+        return getStock(stockId, ERequestPriority.CHART);
+    }
+    
+    /**
+     * Gets the stock item corresponding to the stock id, fetching it if
+     * necessary.
+     *
+     * @param stockId the stock id
+     * @param priority the priority of the requests for fetching the stock item
+     * @return the stock item
+     */
+    private IStockItem getStock(String stockId, ERequestPriority priority) {
+        IStockItem stockItem = activeStocks.get(stockId);
+        if (stockItem == null) {
+            stockItem = generateStockItem(stockId, priority);
         }
-
-        System.err.println("Error: No stock data available.");
-        return null;
+        return stockItem;
     }
 
     /**
-     * Generates and triggers the data for a stock item.
+     * Generates and triggers the data for a stock item. Only one thread
+     * fetches a stock item, concurrent calls for the same stock id wait for it
+     * and get the same stock item, and only one of them triggers its data. The
+     * fetch isn't done inside the registry map, so stock items with different
+     * ids can be fetched in parallel.
      *
      * @param stockId the stock id
+     * @param priority the priority of the requests
+     * @return the stock item
      */
-    private void generateStockItem(String stockId) {
-        IStockItem stockItem = fetchStockItem(stockId);
-
-        addToActiveStocks(stockItem);
+    private IStockItem generateStockItem(String stockId, ERequestPriority priority) {
+        IStockItem stockItem;
+        CompletableFuture<IStockItem> future = new CompletableFuture<IStockItem>();
+        CompletableFuture<IStockItem> pending = pendingStocks.putIfAbsent(stockId, future);
+        if (pending != null) {
+            stockItem = pending.join();
+        } else {
+            try {
+                // may have been added since the caller looked it up
+                stockItem = activeStocks.get(stockId);
+                if (stockItem == null) {
+                    stockItem = fetchStockItem(stockId, priority, null);
+                    // addStocks may have added it in the meantime
+                    IStockItem added = activeStocks.putIfAbsent(stockId, stockItem);
+                    if (added != null) {
+                        stockItem = added;
+                    }
+                }
+                future.complete(stockItem);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                pendingStocks.remove(stockId, future);
+            }
+        }
 
-        // Fetch data for default resolution
-        if (preferencesModel != null) {
-            triggerDataGeneration(stockId, preferencesModel.getChartResolution());
+        if (initializedStocks.add(stockId)) {
+            if (stockItem.isAvailable()) {
+                subscribeStockToPushUpdates(stockId);
+            }
+            
+            // Fetch data for default resolution
+            if (preferencesModel != null) {
+                triggerDataGeneration(stockId, preferencesModel.getChartResolution(), priority);
+            }
         }
+        return stockItem;
     }
 
     /**
      * Fetches a stock item from the network, storing the basic information alongside it.
      *
      * @param stockId the stock id
+     * @param priority the priority of the requests
+     * @param stockItem the stock item to fill in with the basic information,
+     * null to create a new one
      * @return the stock item
      */
-    private IStockItem fetchStockItem(String stockId) {
+    private IStockItem fetchStockItem(String stockId, ERequestPriority priority, IStockItem stockItem) {
         if (networkController != null) {
-        String requestResult = networkController.getSearch(stockId);
+        String requestResult = networkController.getSearch(stockId, priority);
+        if (requestResult == null) {
+            return notAvailable(stockId, stockItem);
+        }
         JsonSearchObject searchObject = JsonFactory.jsonToObject(requestResult, JsonSearchObject.class);
         JsonSearchResult searchResult = searchObject.getMatchingResult(stockId);
 
@@ -171,7 +396,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
             String description = searchResult.getDescription();
             String displaySymbol = searchResult.getDisplaySymbol();
 
-            String quoteString = networkController.getQuote(stockId);
+            String quoteString = networkController.getQuote(stockId, priority);
             if (quoteString != null) {
                 JsonQuoteObject quoteObject = JsonFactory.jsonToObject(quoteString, JsonQuoteObject.class);
 
@@ -179,48 +404,66 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
                 Instant curPriceInstant = Instant.ofEpochSecond(quoteObject.getTime());
                 double openPrice = quoteObject.getOpen();
 
+                if (stockItem != null) {
+                    stockItem.setBasicData(displaySymbol, description, curPrice, curPriceInstant, openPrice);
+                    return stockItem;
+                }
                 return new StockItem(stockId, true, displaySymbol, description, curPrice, curPriceInstant, openPrice);
             } else {
         // catching the situations where fetching the stock item data fails and
         // generates an not-available dummy object then
-                return new StockItem(stockId, false);
+                return notAvailable(stockId, stockItem);
             }
         } else {
-            return new StockItem(stockId, false);
+            return notAvailable(stockId, stockItem);
         }
         } else {
-            return new StockItem(stockId, false);
+            return notAvailable(stockId, stockItem);
         }
     }
-
+    
     /**
-     * Adds a stock to the active stocks and subscribes it to the push updates
-     * if it is available.
+     * Gets the stock item of a stock which isn't available at the data
+     * provider.
      *
-     * @param stockItem the stock item
+     * @param stockId the stock id
+     * @param stockItem the stock item to keep, may be null
+     * @return the stock item or a new not-available dummy object, if it is null
      */
-    private void addToActiveStocks(IStockItem stockItem) {
-        activeStocks.add(stockItem);
-        if (stockItem.isAvailable()) {
-            subscribeStockToPushUpdates(stockItem.getStockId());
-        }
+    private IStockItem notAvailable(String stockId, IStockItem stockItem) {
+        return stockItem != null ? stockItem : new StockItem(stockId, false);
     }
 
     /**
-     * Updates a stock item from push data.
+     * Updates a stock item from push data, called by the apply threads of the
+     * push pipeline with the conflated trades of a time slice. All trades of a
+     * stock are applied by the same thread, different stocks concurrently.
+     * Push data for stocks that are not active (anymore) is ignored, so the
+     * pipeline never has to wait for a stock item to be fetched. The watchlist
+     * row is updated on the event dispatch thread, the time the trades were
+     * received at is handed to the watchlist to measure when they become
+     * visible.
      *
      * @param stockId the stock id
-     * @param price the new price
-     * @param instant the new instant
-     * @param pushData the trade data point
+     * @param delta the conflated trades
      */
-    private void updateStockFromPushData(String stockId, double price, Instant instant, TradeDataUnit pushData) {
-        IStockItem stockItem = getStock(stockId);
-        stockItem.updateStockFromPushData(price, instant, pushData);
+    private void updateStockFromPushData(String stockId, TradeDelta delta) {
+        if (stockId == null) {
+            return;
+        }
+        IStockItem stockItem = activeStocks.get(stockId);
+        if (stockItem == null) {
+            return;
+        }
+        stockItem.updateStockFromPushData(delta);
 
-        if (watchlist.contains(stockItem)) {
-            int index = watchlistTableModel.getWatchlistEntryIndex(stockItem);
-            watchlistTableModel.fireTableRowsUpdated(index, index);
+        if (watchlistIndices.containsKey(stockId)) {
+            TickLatencyProbe tickLatency = watchlistTableModel.getTickLatency(stockId);
+            // null if removed from the watchlist in the meantime
+            if (tickLatency != null) {
+                tickLatency.updated(stockItem.getSnapshot().getReceiveTime());
+            }
+            fireWatchlistRowUpdated(stockId);
         }
     }
 
@@ -231,7 +474,11 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     public void triggerSearch(String searchString) {
         clearSearchResults();
         
-        String requestResult = networkController.getSearch(searchString);
+        String requestResult = networkController.getSearch(searchString, ERequestPriority.CHART);
+        if (requestResult == null) {
+            searchResultTableModel.fireTableDataChanged();
+            return;
+        }
         JsonSearchObject searchObject = JsonFactory.jsonToObject(requestResult, JsonSearchObject.class);
         JsonSearchResult[] jsonResults = searchObject.getResult();
         
@@ -268,125 +515,203 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     }
 
     /**
-     * Fetch candle data from the network. The method works by generating an
-     * "earlier" time stamp to request data from that instant to now, checking if
-     * it gets enough data in return or else repeating the request with an even
-     * earlier time stamp.
+     * Fetch candle data from the network. Only the base resolution of the chart
+     * resolution is requested, the other resolutions are aggregated from it by
+     * the stock item. Only as much data as the chart resolution needs is
+     * requested, e. g. a few hundred 1 minute candles for the 1 minute chart
+     * instead of two weeks of them for the 60 minutes chart. The older data
+     * for another resolution is requested when it is selected.
+     * 
+     * The time range of the request is estimated by the range planner from the
+     * trading sessions and the candle density observed for the stock before,
+     * so a single request is usually enough. Only if it isn't, the missing range
+     * before the oldest received candle is requested. Data which is already
+     * stored, e. g. after a resolution with more history has been selected, is
+     * never requested again: only the older range is requested and added in
+     * front of it.
      *
      * @param stockId the stock id
      * @param chartResolution the chart resolution
+     * @param priority the priority of the requests
      */
-    private void fetchCandleData(String stockId, EChartResolution chartResolution) {
+    private void fetchCandleData(String stockId, EChartResolution chartResolution, ERequestPriority priority) {
         IStockItem stockItem = getStock(stockId);
         stockItem.setLoading(true);
         
-        Instant now = Instant.now();
-        String nowString = String.valueOf(now.getEpochSecond());
-        
-        JsonHistCandle histCandleArray = null;
-        int numberOfEntries = 0;
-        
-        String earlierString = "";
-        
-        long timeDiff = 0;
-        switch (chartResolution) {
-        case ONE:
-            timeDiff = TimeUnit.MINUTES.toSeconds(1);
-            break;
-        case FIVE:
-            timeDiff = TimeUnit.MINUTES.toSeconds(5);
-            break;
-        case FIFTEEN:
-            timeDiff = TimeUnit.MINUTES.toSeconds(15);
-            break;
-        case THIRTY:
-            timeDiff = TimeUnit.MINUTES.toSeconds(30);
-            break;
-        case SIXTY:
-            timeDiff = TimeUnit.HOURS.toSeconds(1);
-            break;
-        case DAY:
-            timeDiff = TimeUnit.DAYS.toSeconds(1);
-            break;
-        case WEEK:
-            timeDiff = TimeUnit.DAYS.toSeconds(7);
-            break;
-        case MONTH:
-            timeDiff = TimeUnit.DAYS.toSeconds(31);
-            break;
-        default:
-            break;
+        EChartResolution baseResolution = chartResolution.getBaseResolution();
+        CandleSeries candles = stockItem.getCandleData(baseResolution);
+        if (candles != null && candles.size() == 0) {
+            candles = null;
         }
         
-        // arbitrary number of cycles to make sure there is enough data in the database to calculate all indicators
-        // doesn't work for months and weeks on the free version of finnhub as data is limited to one year
-        for (int i = 1; i <= 10; i++) {
-            long defaultTimeDiffIteration = (DEFAULT_CANDLE_BACKLOG_AMOUNT + 5 * i * DEFAULT_CANDLE_DRAW_AMOUNT) * timeDiff;
-
-            switch (chartResolution) {
-            case ONE:
-            case FIVE:
-            case FIFTEEN:
-            case THIRTY:
-            case SIXTY:
-            case DAY:
-                earlierString = String.valueOf(Long.valueOf(nowString) - defaultTimeDiffIteration);
-                break;
-            case WEEK:
-                earlierString = String.valueOf(Long.valueOf(nowString) - (i * DEFAULT_CANDLE_DRAW_AMOUNT * timeDiff));
-                break;
-            case MONTH:
-                earlierString = String.valueOf(Long.valueOf(nowString) - (i * 12 * timeDiff));
-                break;
-            default:
-                break;
+        long to = candles != null ? candles.getTimeOpen(0) - 1000 : System.currentTimeMillis();
+        long fullRange = estimateMissingRange(stockId, chartResolution, null);
+        long range = estimateMissingRange(stockId, chartResolution, candles);
+        
+        for (int i = 0; i < MAX_CANDLE_REQUESTS && range > 0
+                && rangePlanner.hasHistoryBefore(stockId, baseResolution, to); i++) {
+            long from = to - range;
+            String jsonString = networkController.getCandles(stockId, baseResolution.getUrlString(),
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(from)),
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(to)), priority);
+            CandleSeries older = toCandleSeries(jsonString);
+            
+            if (older.size() == 0) {
+                // the data provider has no older data, e. g. only one year on the
+                // finnhub free version
+                if (jsonString == null) {
+                    break;
+                }
+                if (range >= fullRange) {
+                    rangePlanner.recordHistoryStart(stockId, baseResolution, to);
+                    break;
+                }
+                // or the range was closed for trading, e. g. a weekend
+                to = from;
+                range *= 2;
+                continue;
             }
-
-            String jsonString = networkController.getCandles(stockId, chartResolution.getUrlString(), earlierString,
-                    nowString);
-            histCandleArray = JsonFactory.jsonToObject(jsonString, JsonHistCandle.class);
-
-            numberOfEntries = histCandleArray.getNumberOfEntries();
-
+            
+            rangePlanner.recordDensity(stockId, baseResolution, older.size(), from, to);
+            stockItem.prependCandleData(baseResolution, older);
+            candles = stockItem.getCandleData(baseResolution);
+            
             // break when enough data collected
-            // account for the behavior of finnhub free version, delivering only one year of data
-            if (chartResolution == EChartResolution.WEEK && numberOfEntries >= 50) {
-                break;
-            } else if (chartResolution == EChartResolution.MONTH && numberOfEntries >= 12) {
-                break;
-            } else if (numberOfEntries > DEFAULT_CANDLE_BACKLOG_AMOUNT + DEFAULT_CANDLE_DRAW_AMOUNT) {
+            if (hasEnoughCandles(candles, chartResolution)) {
                 break;
             }
-
+            to = candles.getTimeOpen(0) - 1000;
+            range = estimateMissingRange(stockId, chartResolution, candles);
         }
         
-        List<ChartCandle> candles = new ArrayList<ChartCandle>();
-        
-        // translates the provider format to the data wrapper class
-        for (int i = 0; i < numberOfEntries; i++) {
-            // adjust to milliseconds to be able to merge candles from push data later
-            ChartCandle candle = new ChartCandle(histCandleArray.getTime()[i] * 1000,
-                    Instant.ofEpochSecond(histCandleArray.getTime()[i]),
-                    histCandleArray.getLow()[i], histCandleArray.getHigh()[i],
-                    histCandleArray.getOpen()[i], histCandleArray.getClose()[i], histCandleArray.getVolume()[i]);
-            candles.add(candle);
+        // marks the data as fetched, even if there is none
+        if (candles == null) {
+            stockItem.putCandleData(baseResolution, new CandleSeries());
         }
-        
-        // puts the collected data in the stock item
-        stockItem.putCandleData(chartResolution, candles);
         stockItem.setLoading(false);
     }
     
+    /**
+     * Translates historical candle data from the provider format to the
+     * columnar candle series. The response is decoded straight into the
+     * columns of the series.
+     *
+     * @param jsonString the historical candle data as received
+     * @return the candle series, empty if the data can't be read
+     */
+    private CandleSeries toCandleSeries(String jsonString) {
+        if (jsonString == null) {
+            return new CandleSeries();
+        }
+        try {
+            return new CandleResponseParser().parse(jsonString);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Can't read candle data. " + e.getMessage());
+            return new CandleSeries();
+        }
+    }
+    
+    /**
+     * Estimates the time range to request before the stored candles of a base
+     * resolution, to get enough candles for a chart resolution.
+     *
+     * @param stockId the stock id
+     * @param chartResolution the chart resolution
+     * @param baseCandles the stored candles of the base resolution, may be null
+     * @return the time range in milliseconds, 0 if there are enough candles
+     */
+    private long estimateMissingRange(String stockId, EChartResolution chartResolution, CandleSeries baseCandles) {
+        int required = getRequiredCandleCount(chartResolution);
+        int missing = required - countCandles(baseCandles, chartResolution, required);
+        return rangePlanner.estimateRange(stockId, chartResolution, missing);
+    }
+    
+    /**
+     * Checks if base candle data is sufficient for a chart resolution.
+     *
+     * @param baseCandles the candle series of the base resolution, may be null
+     * @param chartResolution the chart resolution
+     * @return true, if there are enough candles
+     */
+    private boolean hasEnoughCandles(CandleSeries baseCandles, EChartResolution chartResolution) {
+        int required = getRequiredCandleCount(chartResolution);
+        return countCandles(baseCandles, chartResolution, required) >= required;
+    }
+    
+    /**
+     * Gets the number of candles needed of a resolution to calculate all
+     * indicators. Accounts for the behavior of the finnhub free version,
+     * delivering only one year of data, by needing less weeks and months.
+     *
+     * @param res the resolution
+     * @return the number of candles
+     */
+    private int getRequiredCandleCount(EChartResolution res) {
+        switch (res) {
+        case WEEK:
+            return 50;
+        case MONTH:
+            return 12;
+        default:
+            return DEFAULT_CANDLE_BACKLOG_AMOUNT + DEFAULT_CANDLE_DRAW_AMOUNT + 1;
+        }
+    }
+    
+    /**
+     * Counts the candles of a resolution that would be aggregated from base
+     * candle data, i. e. the buckets of the resolution the base candles fall
+     * into. Counting starts at the newest candle and stops at the limit.
+     *
+     * @param baseCandles the candle series of the base resolution, may be null
+     * @param res the resolution
+     * @param limit the number of candles to count at most
+     * @return the number of candles, at most the limit
+     */
+    private int countCandles(CandleSeries baseCandles, EChartResolution res, int limit) {
+        if (baseCandles == null) {
+            return 0;
+        }
+        if (res.isBaseResolution()) {
+            return Math.min(baseCandles.size(), limit);
+        }
+        synchronized (baseCandles) {
+            int count = 0;
+            long bucket = Long.MIN_VALUE;
+            // the base candles are sorted by time, so every bucket is a run
+            for (int i = baseCandles.size() - 1; i >= 0 && count < limit; i--) {
+                long start = CandleBuckets.getBucketStart(res, baseCandles.getTimeOpen(i));
+                if (start != bucket) {
+                    bucket = start;
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public void triggerDataGeneration(String stockId, EChartResolution chartResolution) {
-        IStockItem stockItem = getStock(stockId);
+        triggerDataGeneration(stockId, chartResolution, ERequestPriority.CHART);
+    }
+    
+    /**
+     * Fetches the candle data of a stock for a chart resolution, if it isn't
+     * sufficient or being fetched already.
+     *
+     * @param stockId the stock id
+     * @param chartResolution the chart resolution
+     * @param priority the priority of the requests
+     */
+    private void triggerDataGeneration(String stockId, EChartResolution chartResolution, ERequestPriority priority) {
+        IStockItem stockItem = getStock(stockId, priority);
         if (stockItem.isAvailable()) {
-            if (!stockItem.hasCandles(chartResolution, DEFAULT_CANDLE_BACKLOG_AMOUNT + DEFAULT_CANDLE_DRAW_AMOUNT)
-                    && !stockItem.isLoading()) {
-                fetchCandleData(stockId, chartResolution);
+            // the older data a resolution needs is loaded when it is selected
+            CandleSeries baseCandles = stockItem.getCandleData(chartResolution.getBaseResolution());
+            if (!hasEnoughCandles(baseCandles, chartResolution) && !stockItem.isLoading()) {
+                fetchCandleData(stockId, chartResolution, priority);
             }
         }
     }
@@ -406,7 +731,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     public List<ChartCandle> getCandles(String stockId, EChartResolution candleResolution, int amount) {
         IStockItem stockItem = getStock(stockId);
         if (!stockItem.hasCandles(candleResolution, amount)) {
-            fetchCandleData(stockId, candleResolution);
+            fetchCandleData(stockId, candleResolution, ERequestPriority.CHART);
         }
         return stockItem.getCandles(candleResolution, amount);
     }
@@ -416,12 +741,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      */
     @Override
     public void subscribeStockToPushUpdates(String stockId) {
-        JsonObject sub = new JsonObject();
-        sub.addProperty("type", "subscribe");
-        sub.addProperty("symbol", stockId);
-        
-        String message = JsonFactory.objectToJson(sub);
-        networkController.sendWebSocketMessage(message);
+        networkController.subscribe(stockId);
     }
 
     /**
@@ -429,12 +749,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      */
     @Override
     public void unsubscribeStockFromPushUpdates(String stockId) {
-        JsonObject unsub = new JsonObject();
-        unsub.addProperty("type", "unsubscribe");
-        unsub.addProperty("symbol", stockId);
-        
-        String message = JsonFactory.objectToJson(unsub);
-        networkController.sendWebSocketMessage(message);
+        networkController.unsubscribe(stockId);
     }
     
     /**
@@ -442,11 +757,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      */
     @Override
     public String[] getActiveStockIds() {
-        List<String> stockIds = new ArrayList<String>();
-        for (IStockItem s : activeStocks) {
-            stockIds.add(s.getStockId());
-        }
-        return stockIds.toArray(new String[0]);
+        return activeStocks.keySet().toArray(new String[0]);
     }
         
     /**
@@ -465,17 +776,28 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
      * {@inheritDoc}
      */
     @Override
-    public void resetModel() {
+    public synchronized void resetModel() {
         watchlist.clear();
+        updateWatchlistIndices();
         activeStocks.clear();
+        initializedStocks.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        pushPipeline.stop();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void clearWatchlist() {
+    public synchronized void clearWatchlist() {
         watchlist.clear();
+        updateWatchlistIndices();
     }
 
     /**
@@ -558,7 +880,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     @Override
     public Set<String> getAlarmStockIds() {
         Set<String> alarmStockIds = new HashSet<String>();
-        for (IStockItem stockItem : activeStocks) {
+        for (IStockItem stockItem : activeStocks.values()) {
             double[] alarms = stockItem.getAlarms();
             if (alarms != null && alarms.length > 0) {
                 alarmStockIds.add(stockItem.getStockId());
@@ -574,7 +896,7 @@ public class StockerModel implements IStockerModel, IPushSubscriber {
     public Set<AlarmUnit> getAllAlarmUnits() {
         Set<AlarmUnit> allAlarmUnits = new HashSet<AlarmUnit>();
         
-        for (IStockItem stockItem : activeStocks) {
+        for (IStockItem stockItem : activeStocks.values()) {
             allAlarmUnits.addAll(stockItem.getAlarmUnits());
         }
         
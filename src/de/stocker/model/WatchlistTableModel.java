@@ -1,11 +1,13 @@
 package de.stocker.model;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
 
 import de.stocker.common.IStockItem;
+import de.stocker.metrics.TickLatencyProbe;
 
 /**
  * The Class WatchlistTableModel extends AbstractTableModel to display the
@@ -21,6 +23,8 @@ public class WatchlistTableModel extends AbstractTableModel {
     private List<IStockItem> watchlist;
     private Map<Integer, Boolean> timerStates;
     private Map<Integer, Timer> timerMap = new HashMap<Integer, Timer>();
+    // updated by the push threads, taken by the table on the EDT
+    private Map<String, TickLatencyProbe> tickLatencies = new ConcurrentHashMap<String, TickLatencyProbe>();
     
     /**
      * Instantiates a new watchlist table model for the provided list of
@@ -100,9 +104,9 @@ public class WatchlistTableModel extends AbstractTableModel {
             case 1:
                 return stockItem.getStockId();
             case 2:
-                return stockItem.getCurPrice();
+                return stockItem.getSnapshot().getCurPrice();
             case 3:
-                return stockItem.getChange();
+                return stockItem.getSnapshot().getChange();
             default:
                 return null;
             }
@@ -111,7 +115,8 @@ public class WatchlistTableModel extends AbstractTableModel {
             // not available at the data provider
             switch (columnIndex) {
             case 0:
-                return "No data avaible.";
+                // a restored stock whose data hasn't arrived yet
+                return stockItem.isLoading() ? "Loading..." : "No data avaible.";
             case 1:
                 return stockItem.getStockId();
             case 2:
@@ -142,6 +147,38 @@ public class WatchlistTableModel extends AbstractTableModel {
         return watchlist.indexOf(stockItem);
     }
 
+    /**
+     * Gets the probe measuring when pushed trades of a stock become visible in
+     * the watchlist. The stocker model notes the updates, the watchlist table
+     * takes them when it paints the price of the stock.
+     *
+     * @param stockId the stock id
+     * @return the tick latency probe, null if the stock isn't in the watchlist
+     */
+    public TickLatencyProbe getTickLatency(String stockId) {
+        return tickLatencies.get(stockId);
+    }
+
+    /**
+     * Updates the tick latency probes after the watchlist has been changed.
+     * Probes are created for the new stocks and closed for the removed ones,
+     * so their histograms don't stay in the metrics registry.
+     *
+     * @param stockIds the stock ids in the watchlist
+     */
+    public void updateTickLatencies(Set<String> stockIds) {
+        for (String stockId : stockIds) {
+            tickLatencies.computeIfAbsent(stockId, id -> new TickLatencyProbe("watchlist", id));
+        }
+        for (Iterator<Map.Entry<String, TickLatencyProbe>> it = tickLatencies.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, TickLatencyProbe> entry = it.next();
+            if (!stockIds.contains(entry.getKey())) {
+                it.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+
     /**
      * Generates new timer states. This ensures that there are no old timers
      * interfering.
@@ -2,6 +2,8 @@ package de.stocker.model.dataWrappers;
 
 import java.util.Arrays;
 
+import de.stocker.model.RollingWindow;
+
 /**
  * The Class BollingerBand contains all information of a Bollinger Band
  * indicator object: the values of the Bollinger Bands, the Simple Moving
@@ -17,6 +19,13 @@ public class BollingerBand extends PaintableChartComponent {
     private double[] upperBollingerBand;
     private double[] lowerBollingerBand;
     
+    // rolling state over the last n close prices, only present for the live
+    // indicator objects kept by the stock item, not persisted
+    private transient RollingWindow window;
+    // index of the oldest data point in the arrays, which a live object uses
+    // as ring buffers, 0 for all other objects
+    private transient int start;
+    
     /**
      * Instantiates a new Bollinger Band object with the specified parameters
      * for storing all indicator components.
@@ -39,6 +48,117 @@ public class BollingerBand extends PaintableChartComponent {
         
         name = "Bollinger Band";
     }
+    
+    /**
+     * Instantiates a new live Bollinger Band object which keeps the rolling
+     * state of its calculation so that it can be updated with new close prices
+     * in O(1). Its arrays are used as ring buffers, so only copies of it have
+     * the data points in order.
+     *
+     * @param f the standard deviation factor f
+     * @param n n determines the period of the moving average used to calculate
+     * the Bollinger Bands
+     * @param movingAvg the array of Simple Moving Average values
+     * @param upperBollingerBand the array containing the values of the upper
+     * Bollinger Band
+     * @param lowerBollingerBand the array containing the values of the lower
+     * Bollinger Band
+     * @param window the rolling window containing the last n close prices
+     */
+    public BollingerBand(double f, int n, double[] movingAvg, double[] upperBollingerBand,
+            double[] lowerBollingerBand, RollingWindow window) {
+        this(f, n, movingAvg, upperBollingerBand, lowerBollingerBand);
+        this.window = window;
+    }
+    
+    /**
+     * Checks if this object keeps a rolling state and can be updated with new
+     * close prices.
+     *
+     * @return true, if this is a live indicator object
+     */
+    public boolean isRolling() {
+        return window != null && window.isFull() && movingAvg != null && movingAvg.length > 0;
+    }
+    
+    /**
+     * Moves the indicator one data point forward for a newly appended candle.
+     * The oldest values are overwritten so that the length of the arrays stays
+     * the same.
+     *
+     * @param closePrice the close price of the new candle
+     */
+    public synchronized void appendValue(double closePrice) {
+        if (!isRolling()) {
+            return;
+        }
+        window.push(closePrice);
+        // the oldest slot becomes the newest one
+        start = (start + 1) % movingAvg.length;
+        updateLastDataPoint();
+    }
+    
+    /**
+     * Updates the last data point of the indicator for a changed close price
+     * of the last candle.
+     *
+     * @param closePrice the new close price of the last candle
+     */
+    public synchronized void updateLastValue(double closePrice) {
+        if (!isRolling()) {
+            return;
+        }
+        window.replaceLast(closePrice);
+        updateLastDataPoint();
+    }
+    
+    private void updateLastDataPoint() {
+        int last = (start + movingAvg.length - 1) % movingAvg.length;
+        double mean = window.getMean();
+        double deviation = f * window.getStdDev();
+        movingAvg[last] = mean;
+        upperBollingerBand[last] = mean + deviation;
+        lowerBollingerBand[last] = mean - deviation;
+    }
+    
+    /**
+     * Creates a copy of the current indicator values without the rolling
+     * state, which can be handed out to a chart frame. The values of the copy
+     * are in order, oldest first.
+     *
+     * @return the copy of this Bollinger Band object
+     */
+    public synchronized BollingerBand copy() {
+        return new BollingerBand(f, n, copyOf(movingAvg), copyOf(upperBollingerBand), copyOf(lowerBollingerBand));
+    }
+    
+    /**
+     * Copies an array of indicator values, starting with the oldest data
+     * point.
+     *
+     * @param values the array of values
+     * @return the copy in order or null, if the array is null
+     */
+    private double[] copyOf(double[] values) {
+        if (values == null) {
+            return null;
+        }
+        double[] copy = new double[values.length];
+        System.arraycopy(values, start, copy, 0, values.length - start);
+        System.arraycopy(values, 0, copy, values.length - start, start);
+        return copy;
+    }
+    
+    /**
+     * Gets an array of indicator values in order, which is the array itself
+     * unless this is a live object that has been moved forward.
+     *
+     * @param values the array of values
+     * @return the array in order
+     */
+    private synchronized double[] ordered(double[] values) {
+        return start == 0 ? values : copyOf(values);
+    }
 
     /**
      * Gets an array of upper Bollinger Band values. The array is as long as the
@@ -48,6 +168,7 @@ public class BollingerBand extends PaintableChartComponent {
      * @return the array of upper Bollinger Band values
      */
     public double[] getUpperBollingerBand() {
+        double[] upperBollingerBand = ordered(this.upperBollingerBand);
         if (upperBollingerBand.length >= n) {
             return Arrays.copyOfRange(upperBollingerBand, upperBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT, upperBollingerBand.length - 1);
         } else {
@@ -65,6 +186,7 @@ public class BollingerBand extends PaintableChartComponent {
      * @return the array of lower Bollinger Band values
      */
     public double[] getLowerBollingerBand() {
+        double[] lowerBollingerBand = ordered(this.lowerBollingerBand);
         if (lowerBollingerBand.length >= n) {
             return Arrays.copyOfRange(lowerBollingerBand, lowerBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT, lowerBollingerBand.length - 1);
         } else {
@@ -81,6 +203,7 @@ public class BollingerBand extends PaintableChartComponent {
      * @return the array of Simple Moving Average values
      */
     public double[] getMovingAvg() {
+        double[] movingAvg = ordered(this.movingAvg);
         if (movingAvg.length >= n) {
             return Arrays.copyOfRange(movingAvg, movingAvg.length - DEFAULT_CANDLE_DRAW_AMOUNT, movingAvg.length - 1);
         } else {
@@ -97,7 +220,8 @@ public class BollingerBand extends PaintableChartComponent {
      */
     public double getMinPrice() {
         double min = 0;
-        if (lowerBollingerBand != null) {
+        if (this.lowerBollingerBand != null) {
+            double[] lowerBollingerBand = ordered(this.lowerBollingerBand);
             min = lowerBollingerBand[lowerBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT];
             for (int i = 0; i < DEFAULT_CANDLE_DRAW_AMOUNT; i++) {
                 double d = lowerBollingerBand[lowerBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT + i];
@@ -117,7 +241,8 @@ public class BollingerBand extends PaintableChartComponent {
      */
     public double getMaxPrice() {
         double max = 0;
-        if (upperBollingerBand != null) {
+        if (this.upperBollingerBand != null) {
+            double[] upperBollingerBand = ordered(this.upperBollingerBand);
             max = upperBollingerBand[upperBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT];
             for (int i = 0; i < DEFAULT_CANDLE_DRAW_AMOUNT; i++) {
                 double d = upperBollingerBand[upperBollingerBand.length - DEFAULT_CANDLE_DRAW_AMOUNT + i];
@@ -0,0 +1,517 @@
+package de.stocker.model.dataWrappers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class CandleSeries stores the candle data of one stock and resolution in
+ * columns: parallel primitive arrays for the opening times and the OHLCV
+ * values instead of one object per candle. The arrays are used as a ring buffer
+ * which doubles its capacity when full, so candles can be appended at the end
+ * and prepended at the front in amortized O(1).
+ *
+ * Candles are addressed by their logical index, 0 being the oldest candle.
+ * Access is synchronized on the series, because it is updated by push data
+ * while the charts are reading from it.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleSeries {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    // time in epoch milliseconds to be compatible with the millisecond
+    // time stamps of the push data
+    private long[] timeOpen;
+    private double[] priceLow;
+    private double[] priceHigh;
+    private double[] priceOpen;
+    private double[] priceClose;
+    private double[] volume;
+
+    // physical index of the oldest candle
+    private int head;
+    private int size;
+
+    /**
+     * Instantiates a new empty candle series with the default capacity.
+     */
+    public CandleSeries() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new empty candle series with room for at least the
+     * specified amount of candles before it has to grow.
+     *
+     * @param capacity the initial capacity
+     */
+    public CandleSeries(int capacity) {
+        allocate(capacityFor(capacity));
+    }
+
+    /**
+     * Instantiates a new candle series containing the data of a list of chart
+     * candles.
+     *
+     * @param candles the list of candles, oldest first
+     */
+    public CandleSeries(List<ChartCandle> candles) {
+        this(candles.size());
+        for (ChartCandle c : candles) {
+            append(c.getTimeOpen(), c.getPriceLow(), c.getPriceHigh(), c.getPriceOpen(), c.getPriceClose(),
+                    c.getVolume());
+        }
+    }
+
+    /**
+     * Instantiates a new candle series on columns filled by the caller, e. g.
+     * a decoder of historical candle data, without copying them. The arrays
+     * have to be of the same length, which has to be a capacity as returned by
+     * {@link #capacityFor(int)}, and contain the candles at their start,
+     * oldest first. They must not be used by the caller afterwards.
+     *
+     * @param timeOpen the opening times in epoch milliseconds
+     * @param priceLow the low prices
+     * @param priceHigh the high prices
+     * @param priceOpen the open prices
+     * @param priceClose the close prices
+     * @param volume the trade volumes
+     * @param size the number of candles
+     * @throws IllegalArgumentException if the arrays don't have a valid
+     * capacity
+     */
+    public CandleSeries(long[] timeOpen, double[] priceLow, double[] priceHigh, double[] priceOpen,
+            double[] priceClose, double[] volume, int size) {
+        int capacity = timeOpen.length;
+        if (capacity != capacityFor(capacity) || size > capacity || priceLow.length != capacity
+                || priceHigh.length != capacity || priceOpen.length != capacity || priceClose.length != capacity
+                || volume.length != capacity) {
+            throw new IllegalArgumentException("Invalid candle columns for " + size + " candles");
+        }
+        this.timeOpen = timeOpen;
+        this.priceLow = priceLow;
+        this.priceHigh = priceHigh;
+        this.priceOpen = priceOpen;
+        this.priceClose = priceClose;
+        this.volume = volume;
+        this.size = size;
+    }
+
+    /**
+     * Gets the smallest power of two which is at least the requested capacity,
+     * so that physical indices can be calculated with a bit mask.
+     *
+     * @param capacity the requested capacity
+     * @return the capacity to allocate
+     */
+    public static int capacityFor(int capacity) {
+        int c = DEFAULT_INITIAL_CAPACITY;
+        while (c < capacity) {
+            c <<= 1;
+        }
+        return c;
+    }
+
+    private void allocate(int capacity) {
+        timeOpen = new long[capacity];
+        priceLow = new double[capacity];
+        priceHigh = new double[capacity];
+        priceOpen = new double[capacity];
+        priceClose = new double[capacity];
+        volume = new double[capacity];
+    }
+
+    /**
+     * Doubles the capacity and moves the candles to the start of the new
+     * arrays.
+     */
+    private void grow() {
+        long[] oldTime = timeOpen;
+        double[] oldLow = priceLow;
+        double[] oldHigh = priceHigh;
+        double[] oldOpen = priceOpen;
+        double[] oldClose = priceClose;
+        double[] oldVolume = volume;
+
+        allocate(oldTime.length << 1);
+
+        int first = oldTime.length - head;
+        copyRing(oldTime, timeOpen, first);
+        copyRing(oldLow, priceLow, first);
+        copyRing(oldHigh, priceHigh, first);
+        copyRing(oldOpen, priceOpen, first);
+        copyRing(oldClose, priceClose, first);
+        copyRing(oldVolume, volume, first);
+        head = 0;
+    }
+
+    private void copyRing(Object src, Object dest, int first) {
+        System.arraycopy(src, head, dest, 0, first);
+        System.arraycopy(src, 0, dest, first, head);
+    }
+
+    private int physical(int i) {
+        return (head + i) & (timeOpen.length - 1);
+    }
+
+    /**
+     * Appends a new candle at the end of the series.
+     *
+     * @param time the opening time in epoch milliseconds
+     * @param low the low price
+     * @param high the high price
+     * @param open the open price
+     * @param close the close price
+     * @param vol the trade volume
+     */
+    public synchronized void append(long time, double low, double high, double open, double close, double vol) {
+        if (size == timeOpen.length) {
+            grow();
+        }
+        size++;
+        set(physical(size - 1), time, low, high, open, close, vol);
+    }
+
+    /**
+     * Inserts a new candle at the front of the series, used for adding older
+     * data.
+     *
+     * @param time the opening time in epoch milliseconds
+     * @param low the low price
+     * @param high the high price
+     * @param open the open price
+     * @param close the close price
+     * @param vol the trade volume
+     */
+    public synchronized void prepend(long time, double low, double high, double open, double close, double vol) {
+        if (size == timeOpen.length) {
+            grow();
+        }
+        head = (head - 1) & (timeOpen.length - 1);
+        size++;
+        set(head, time, low, high, open, close, vol);
+    }
+
+    /**
+     * Inserts the candles of another series which opened before the first
+     * candle of this series at the front, used for adding older data without
+     * requesting the known candles again. Candles of the other series which
+     * overlap this series are skipped.
+     *
+     * @param older the series with the older candles
+     * @return the number of inserted candles
+     */
+    public synchronized int prependAll(CandleSeries older) {
+        synchronized (older) {
+            int end = size > 0 ? older.indexOfTime(timeOpen[physical(0)]) : older.size;
+            for (int i = end - 1; i >= 0; i--) {
+                int p = older.physical(i);
+                prepend(older.timeOpen[p], older.priceLow[p], older.priceHigh[p], older.priceOpen[p],
+                        older.priceClose[p], older.volume[p]);
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Merges the candles of another series into this series, used for filling
+     * a gap in the data, e. g. after the push connection was lost. The other
+     * series is taken as complete for its candles: a candle opening at the
+     * same time as a candle of this series replaces it, except for the last
+     * candle of this series, which may contain trades pushed after the other
+     * series was requested and is combined with it. All other candles are
+     * inserted at their position.
+     *
+     * @param other the series with the candles of the gap
+     */
+    public synchronized void mergeAll(CandleSeries other) {
+        synchronized (other) {
+            for (int i = 0; i < other.size; i++) {
+                int o = other.physical(i);
+                int index = indexOfTime(other.timeOpen[o]);
+                if (index == size || timeOpen[physical(index)] != other.timeOpen[o]) {
+                    insert(index, other.timeOpen[o], other.priceLow[o], other.priceHigh[o], other.priceOpen[o],
+                            other.priceClose[o], other.volume[o]);
+                } else if (index < size - 1) {
+                    set(physical(index), other.timeOpen[o], other.priceLow[o], other.priceHigh[o],
+                            other.priceOpen[o], other.priceClose[o], other.volume[o]);
+                } else {
+                    int p = physical(index);
+                    priceLow[p] = Math.min(priceLow[p], other.priceLow[o]);
+                    priceHigh[p] = Math.max(priceHigh[p], other.priceHigh[o]);
+                    priceOpen[p] = other.priceOpen[o];
+                    volume[p] = Math.max(volume[p], other.volume[o]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts a new candle at an index, moving the later candles back.
+     *
+     * @param index the index of the new candle
+     * @param time the opening time in epoch milliseconds
+     * @param low the low price
+     * @param high the high price
+     * @param open the open price
+     * @param close the close price
+     * @param vol the trade volume
+     */
+    private void insert(int index, long time, double low, double high, double open, double close, double vol) {
+        if (size == timeOpen.length) {
+            grow();
+        }
+        for (int i = size; i > index; i--) {
+            int from = physical(i - 1);
+            int to = physical(i);
+            set(to, timeOpen[from], priceLow[from], priceHigh[from], priceOpen[from], priceClose[from],
+                    volume[from]);
+        }
+        size++;
+        set(physical(index), time, low, high, open, close, vol);
+    }
+
+    /**
+     * Overwrites the values of the last candle in place.
+     *
+     * @param time the opening time in epoch milliseconds
+     * @param low the low price
+     * @param high the high price
+     * @param open the open price
+     * @param close the close price
+     * @param vol the trade volume
+     */
+    public synchronized void setLast(long time, double low, double high, double open, double close, double vol) {
+        if (size == 0) {
+            append(time, low, high, open, close, vol);
+            return;
+        }
+        set(physical(size - 1), time, low, high, open, close, vol);
+    }
+
+    /**
+     * Aggregates a trade into the series. The last candle is updated in place
+     * if the trade belongs to its bucket or an earlier one, otherwise a new
+     * candle is started for the bucket of the trade. Nothing is allocated
+     * unless the buffer has to grow.
+     *
+     * @param bucketStart the start of the bucket the trade belongs to in epoch
+     * milliseconds
+     * @param price the trade price
+     * @param vol the trade volume
+     * @return true, if a new candle was appended, false if the last candle
+     * was updated
+     */
+    public synchronized boolean addTrade(long bucketStart, double price, double vol) {
+        return addTrades(bucketStart, price, price, price, price, vol);
+    }
+
+    /**
+     * Aggregates a number of consecutive trades of the same bucket into the
+     * series, given by their OHLCV values. The result is the same as adding
+     * the trades one by one.
+     *
+     * @param bucketStart the start of the bucket the trades belong to in
+     * epoch milliseconds
+     * @param low the lowest price of the trades
+     * @param high the highest price of the trades
+     * @param open the price of the first trade
+     * @param close the price of the last trade
+     * @param vol the total volume of the trades
+     * @return true, if a new candle was appended, false if the last candle
+     * was updated
+     */
+    public synchronized boolean addTrades(long bucketStart, double low, double high, double open, double close,
+            double vol) {
+        if (size == 0 || bucketStart > timeOpen[physical(size - 1)]) {
+            append(bucketStart, low, high, open, close, vol);
+            return true;
+        }
+
+        int p = physical(size - 1);
+        if (low < priceLow[p]) {
+            priceLow[p] = low;
+        }
+        if (high > priceHigh[p]) {
+            priceHigh[p] = high;
+        }
+        priceClose[p] = close;
+        volume[p] += vol;
+        return false;
+    }
+
+    private void set(int p, long time, double low, double high, double open, double close, double vol) {
+        timeOpen[p] = time;
+        priceLow[p] = low;
+        priceHigh[p] = high;
+        priceOpen[p] = open;
+        priceClose[p] = close;
+        volume[p] = vol;
+    }
+
+    /**
+     * Gets the number of candles in the series.
+     *
+     * @return the number of candles
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the opening time of a candle in epoch milliseconds.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the opening time
+     */
+    public synchronized long getTimeOpen(int i) {
+        return timeOpen[physical(i)];
+    }
+
+    /**
+     * Gets the low price of a candle.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the low price
+     */
+    public synchronized double getPriceLow(int i) {
+        return priceLow[physical(i)];
+    }
+
+    /**
+     * Gets the high price of a candle.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the high price
+     */
+    public synchronized double getPriceHigh(int i) {
+        return priceHigh[physical(i)];
+    }
+
+    /**
+     * Gets the open price of a candle.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the open price
+     */
+    public synchronized double getPriceOpen(int i) {
+        return priceOpen[physical(i)];
+    }
+
+    /**
+     * Gets the close price of a candle.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the close price
+     */
+    public synchronized double getPriceClose(int i) {
+        return priceClose[physical(i)];
+    }
+
+    /**
+     * Gets the trade volume of a candle.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the trade volume
+     */
+    public synchronized double getVolume(int i) {
+        return volume[physical(i)];
+    }
+
+    /**
+     * Gets the index of the first candle which opened at or after the
+     * specified time. The candles are ordered by time, so a binary search is
+     * used.
+     *
+     * @param time the time in epoch milliseconds
+     * @return the index of the candle, the size of the series if all candles
+     * opened before the specified time
+     */
+    public synchronized int indexOfTime(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timeOpen[physical(mid)] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets a chart candle object containing the values of a candle. Only used
+     * where candle objects are still required, the series itself doesn't store
+     * any.
+     *
+     * @param i the index of the candle, 0 being the oldest
+     * @return the chart candle object
+     */
+    public synchronized ChartCandle getCandle(int i) {
+        int p = physical(i);
+        return new ChartCandle(timeOpen[p], Instant.ofEpochMilli(timeOpen[p]), priceLow[p], priceHigh[p],
+                priceOpen[p], priceClose[p], volume[p]);
+    }
+
+    /**
+     * Gets a list of chart candle objects for a range of the series.
+     *
+     * @param from the index of the first candle, inclusive
+     * @param to the index of the last candle, exclusive
+     * @return the list of candles
+     */
+    public synchronized List<ChartCandle> getCandles(int from, int to) {
+        List<ChartCandle> candles = new ArrayList<ChartCandle>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            candles.add(getCandle(i));
+        }
+        return candles;
+    }
+
+    /**
+     * Gets a view of a range of the series without copying any data.
+     *
+     * @param from the index of the first candle in the view
+     * @param length the number of candles in the view
+     * @return the candle view
+     */
+    public CandleView view(int from, int length) {
+        return new CandleView(this, from, length);
+    }
+
+    /**
+     * Gets a view of the last candles of the series without copying any data.
+     * If the series contains less candles, the view contains all of them.
+     *
+     * @param length the number of candles in the view
+     * @return the candle view
+     */
+    public synchronized CandleView tail(int length) {
+        int l = Math.min(length, size);
+        return new CandleView(this, size - l, l);
+    }
+
+    /**
+     * Gets a view of a copy of the last candles of the series. Unlike the
+     * views returned by tail, it isn't affected by later updates of the series,
+     * so it can be read over a longer time, e. g. a whole repaint, and always
+     * shows the candles as they were at one point in time.
+     *
+     * @param length the number of candles in the view
+     * @return the candle view of the copied candles
+     */
+    public synchronized CandleView snapshotTail(int length) {
+        int l = Math.min(length, size);
+        CandleSeries copy = new CandleSeries(l);
+        for (int i = size - l; i < size; i++) {
+            int p = physical(i);
+            copy.append(timeOpen[p], priceLow[p], priceHigh[p], priceOpen[p], priceClose[p], volume[p]);
+        }
+        return new CandleView(copy, 0, l);
+    }
+
+}
@@ -0,0 +1,156 @@
+package de.stocker.model.dataWrappers;
+
+import java.time.Instant;
+
+/**
+ * The Class CandleView gives read access to a range of candles of a candle
+ * series without copying the data. It is used by the charts to draw the
+ * visible candles and to seed the indicators. A view is meant to be used right
+ * away, e. g. for one repaint, as it refers to the logical indices of the
+ * series at the time it was created.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleView {
+
+    private final CandleSeries series;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Instantiates a new view on a range of a candle series.
+     *
+     * @param series the candle series
+     * @param offset the index of the first candle of the view in the series
+     * @param length the number of candles in the view
+     */
+    CandleView(CandleSeries series, int offset, int length) {
+        this.series = series;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets the number of candles in the view.
+     *
+     * @return the number of candles
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Gets the opening time of a candle in epoch milliseconds.
+     *
+     * @param i the index of the candle in the view
+     * @return the opening time
+     */
+    public long getTimeOpen(int i) {
+        return series.getTimeOpen(offset + i);
+    }
+
+    /**
+     * Gets the opening time of a candle as a Java Instant object used for
+     * conveniently displaying the time stamp.
+     *
+     * @param i the index of the candle in the view
+     * @return the opening time Instant
+     */
+    public Instant getTimeInstant(int i) {
+        return Instant.ofEpochMilli(getTimeOpen(i));
+    }
+
+    /**
+     * Gets the low price of a candle.
+     *
+     * @param i the index of the candle in the view
+     * @return the low price
+     */
+    public double getPriceLow(int i) {
+        return series.getPriceLow(offset + i);
+    }
+
+    /**
+     * Gets the high price of a candle.
+     *
+     * @param i the index of the candle in the view
+     * @return the high price
+     */
+    public double getPriceHigh(int i) {
+        return series.getPriceHigh(offset + i);
+    }
+
+    /**
+     * Gets the open price of a candle.
+     *
+     * @param i the index of the candle in the view
+     * @return the open price
+     */
+    public double getPriceOpen(int i) {
+        return series.getPriceOpen(offset + i);
+    }
+
+    /**
+     * Gets the close price of a candle.
+     *
+     * @param i the index of the candle in the view
+     * @return the close price
+     */
+    public double getPriceClose(int i) {
+        return series.getPriceClose(offset + i);
+    }
+
+    /**
+     * Gets the trade volume of a candle.
+     *
+     * @param i the index of the candle in the view
+     * @return the trade volume
+     */
+    public double getVolume(int i) {
+        return series.getVolume(offset + i);
+    }
+
+    /**
+     * Gets the lowest low price of all candles in the view.
+     *
+     * @return the minimum price, 0 if the view is empty
+     */
+    public double getMinPrice() {
+        if (length == 0) {
+            return 0;
+        }
+        double min = getPriceLow(0);
+        for (int i = 1; i < length; i++) {
+            min = Math.min(min, getPriceLow(i));
+        }
+        return min;
+    }
+
+    /**
+     * Gets the highest high price of all candles in the view.
+     *
+     * @return the maximum price, 0 if the view is empty
+     */
+    public double getMaxPrice() {
+        double max = 0;
+        for (int i = 0; i < length; i++) {
+            max = Math.max(max, getPriceHigh(i));
+        }
+        return max;
+    }
+
+    /**
+     * Gets the chart candle objects of the view. Only used where candle objects
+     * are still required.
+     *
+     * @return the array of candles
+     */
+    public ChartCandle[] toArray() {
+        ChartCandle[] candles = new ChartCandle[length];
+        for (int i = 0; i < length; i++) {
+            candles[i] = series.getCandle(offset + i);
+        }
+        return candles;
+    }
+
+}
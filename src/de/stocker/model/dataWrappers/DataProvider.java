@@ -1,5 +1,7 @@
 package de.stocker.model.dataWrappers;
 
+import java.net.URI;
+
 /**
  * The Class DataProvider containing all relevant information for the network
  * interface to connect to the data provider. A new instance of this class can
@@ -13,9 +15,21 @@ public class DataProvider {
     private String apiKey;
     private String pullUrl;
     private String pushUrl;
+    // rate limit of the pull requests, 0 for the defaults, e. g. in
+    // preferences saved before the rate limit could be set
+    private int requestsPerMinute;
+    private int requestBurst;
+    
+    // the limits of the finnhub free version
+    private final transient int DEFAULT_REQUESTS_PER_MINUTE = 60;
+    private final transient int DEFAULT_REQUEST_BURST = 10;
+    // a server on this computer, e. g. the Kursdatengenerator, isn't limited
+    private final transient int LOCAL_REQUESTS_PER_MINUTE = 6000;
+    private final transient int LOCAL_REQUEST_BURST = 100;
 
     /**
-     * Instantiates a new data provider object.
+     * Instantiates a new data provider object with the default rate limit,
+     * which depends on whether the server runs on this computer.
      *
      * @param name the name
      * @param apiKey the API key used for authentication with the data provider
@@ -23,10 +37,29 @@ public class DataProvider {
      * @param pushUrl the URL used to connect to the web socket to receive push updates
      */
     public DataProvider(String name, String apiKey, String pullUrl, String pushUrl) {
+        this(name, apiKey, pullUrl, pushUrl, 0, 0);
+    }
+    
+    /**
+     * Instantiates a new data provider object.
+     *
+     * @param name the name
+     * @param apiKey the API key used for authentication with the data provider
+     * @param pullUrl the URL used for pull requests
+     * @param pushUrl the URL used to connect to the web socket to receive push updates
+     * @param requestsPerMinute the number of pull requests allowed per minute,
+     * the default is used if not positive
+     * @param requestBurst the number of pull requests allowed at once after a
+     * quiet period, the default is used if not positive
+     */
+    public DataProvider(String name, String apiKey, String pullUrl, String pushUrl, int requestsPerMinute,
+            int requestBurst) {
         this.name = name;
         this.apiKey = apiKey;
         this.pullUrl = pullUrl;
         this.pushUrl = pushUrl;
+        this.requestsPerMinute = requestsPerMinute;
+        this.requestBurst = requestBurst;
     }
 
     /**
@@ -101,4 +134,61 @@ public class DataProvider {
         this.pushUrl = pushUrl;
     }
     
+    /**
+     * Gets the number of pull requests allowed per minute.
+     *
+     * @return the requests per minute
+     */
+    public int getRequestsPerMinute() {
+        if (requestsPerMinute <= 0) {
+            return isLocal() ? LOCAL_REQUESTS_PER_MINUTE : DEFAULT_REQUESTS_PER_MINUTE;
+        }
+        return requestsPerMinute;
+    }
+    
+    /**
+     * Sets the number of pull requests allowed per minute.
+     *
+     * @param requestsPerMinute the new requests per minute
+     */
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+    
+    /**
+     * Gets the number of pull requests allowed at once after a quiet period.
+     *
+     * @return the request burst
+     */
+    public int getRequestBurst() {
+        if (requestBurst <= 0) {
+            return isLocal() ? LOCAL_REQUEST_BURST : DEFAULT_REQUEST_BURST;
+        }
+        return requestBurst;
+    }
+    
+    /**
+     * Sets the number of pull requests allowed at once after a quiet period.
+     *
+     * @param requestBurst the new request burst
+     */
+    public void setRequestBurst(int requestBurst) {
+        this.requestBurst = requestBurst;
+    }
+    
+    /**
+     * Checks if the pull requests go to a server on this computer.
+     *
+     * @return true, if the pull URL names the loopback address
+     */
+    private boolean isLocal() {
+        try {
+            String host = pullUrl == null ? null : URI.create(pullUrl).getHost();
+            return host != null && (host.equalsIgnoreCase("localhost") || host.startsWith("127.")
+                    || host.equals("[::1]"));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
 }
@@ -2,6 +2,8 @@ package de.stocker.model.dataWrappers;
 
 import java.util.Arrays;
 
+import de.stocker.model.RollingWindow;
+
 /**
  * The Class SimpleMovingAverage contains all information of a Simple Moving
  * Average indicator object: the values of the Simple Moving Average and the
@@ -14,6 +16,13 @@ public class SimpleMovingAverage extends PaintableChartComponent {
     private double[] movingAvg;
     private int n;
     
+    // rolling state over the last n close prices, only present for the live
+    // indicator objects kept by the stock item, not persisted
+    private transient RollingWindow window;
+    // index of the oldest data point in the array, which a live object uses
+    // as a ring buffer, 0 for all other objects
+    private transient int start;
+    
     /**
      * Instantiates a new Simple Moving Average object with the specified
      * parameters for storing all indicator components.
@@ -29,6 +38,92 @@ public class SimpleMovingAverage extends PaintableChartComponent {
 
         name = "SMA";
     }
+    
+    /**
+     * Instantiates a new live Simple Moving Average object which keeps the
+     * rolling state of its calculation so that it can be updated with new close
+     * prices in O(1). Its array is used as a ring buffer, so only copies of it
+     * have the data points in order.
+     *
+     * @param n n determines the period over which the Moving Average is
+     * calculated
+     * @param movingAvg the array containing the values of the Simple Moving
+     * Average
+     * @param window the rolling window containing the last n close prices
+     */
+    public SimpleMovingAverage(int n, double[] movingAvg, RollingWindow window) {
+        this(n, movingAvg);
+        this.window = window;
+    }
+    
+    /**
+     * Checks if this object keeps a rolling state and can be updated with new
+     * close prices.
+     *
+     * @return true, if this is a live indicator object
+     */
+    public boolean isRolling() {
+        return window != null && window.isFull() && movingAvg != null && movingAvg.length > 0;
+    }
+    
+    /**
+     * Moves the indicator one data point forward for a newly appended candle.
+     * The oldest value is overwritten so that the length of the array stays
+     * the same.
+     *
+     * @param closePrice the close price of the new candle
+     */
+    public synchronized void appendValue(double closePrice) {
+        if (!isRolling()) {
+            return;
+        }
+        window.push(closePrice);
+        // the oldest slot becomes the newest one
+        movingAvg[start] = window.getMean();
+        start = (start + 1) % movingAvg.length;
+    }
+    
+    /**
+     * Updates the last data point of the indicator for a changed close price
+     * of the last candle.
+     *
+     * @param closePrice the new close price of the last candle
+     */
+    public synchronized void updateLastValue(double closePrice) {
+        if (!isRolling()) {
+            return;
+        }
+        window.replaceLast(closePrice);
+        movingAvg[(start + movingAvg.length - 1) % movingAvg.length] = window.getMean();
+    }
+    
+    /**
+     * Creates a copy of the current indicator values without the rolling
+     * state, which can be handed out to a chart frame. The values of the copy
+     * are in order, oldest first.
+     *
+     * @return the copy of this Simple Moving Average object
+     */
+    public synchronized SimpleMovingAverage copy() {
+        return new SimpleMovingAverage(n, copyOf(movingAvg));
+    }
+    
+    /**
+     * Copies the array of indicator values, starting with the oldest data
+     * point.
+     *
+     * @param values the array of values
+     * @return the copy in order or null, if the array is null
+     */
+    private double[] copyOf(double[] values) {
+        if (values == null) {
+            return null;
+        }
+        double[] copy = new double[values.length];
+        System.arraycopy(values, start, copy, 0, values.length - start);
+        System.arraycopy(values, 0, copy, values.length - start, start);
+        return copy;
+    }
 
     /**
      * Gets an array of Simple Moving Average values. The array is as long as the
@@ -38,6 +133,10 @@ public class SimpleMovingAverage extends PaintableChartComponent {
      * @return the array of Simple Moving Average values
      */
     public double[] getMovingAvg() {
+        double[] movingAvg;
+        synchronized (this) {
+            movingAvg = start == 0 ? this.movingAvg : copyOf(this.movingAvg);
+        }
         if (movingAvg.length >= n) {
             return Arrays.copyOfRange(movingAvg, movingAvg.length - DEFAULT_CANDLE_DRAW_AMOUNT - 1, movingAvg.length - 1);
         } else {
@@ -0,0 +1,195 @@
+package de.stocker.model.dataWrappers;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The Class StockSnapshot is an immutable copy of the price state and the
+ * alarms of a stock item at one point in time. A new snapshot is published by
+ * the stock item with every update, so readers on other threads always get
+ * consistent values, e. g. a price and the change calculated from it, without
+ * taking any locks.
+ *
+ * @author Matthias Rudolph
+ */
+public final class StockSnapshot {
+
+    private final String stockId;
+    private final double curPrice;
+    private final double curPriceOld;
+    // time in epoch milliseconds
+    private final long curPriceTime;
+    private final double change;
+    // range of the prices since the previous snapshot, including the current price
+    private final double priceLow;
+    private final double priceHigh;
+    // System.nanoTime the oldest trade of the update was received at, 0 if
+    // the update doesn't come from push data
+    private final long receiveTime;
+    private final Set<AlarmUnit> alarmUnits;
+
+    /**
+     * Instantiates a new snapshot of the state of a stock item.
+     *
+     * @param stockId the stock id
+     * @param curPrice the current price
+     * @param curPriceOld the price before the current price
+     * @param curPriceTime the time of the current price in epoch milliseconds
+     * @param change the percentage change vs. the opening price of the day
+     * @param alarmUnits the alarms of the stock, copied into the snapshot
+     */
+    public StockSnapshot(String stockId, double curPrice, double curPriceOld, long curPriceTime, double change,
+            Set<AlarmUnit> alarmUnits) {
+        this.stockId = stockId;
+        this.curPrice = curPrice;
+        this.curPriceOld = curPriceOld;
+        this.curPriceTime = curPriceTime;
+        this.change = change;
+        this.priceLow = curPrice;
+        this.priceHigh = curPrice;
+        this.receiveTime = 0;
+        this.alarmUnits = Collections.unmodifiableSet(new HashSet<AlarmUnit>(alarmUnits));
+    }
+
+    /**
+     * Instantiates a new snapshot with a new price, sharing the alarms of the
+     * previous snapshot. Used for push updates, where only the price changes.
+     *
+     * @param previous the previous snapshot
+     * @param curPrice the current price
+     * @param curPriceTime the time of the current price in epoch milliseconds
+     * @param change the percentage change vs. the opening price of the day
+     */
+    public StockSnapshot(StockSnapshot previous, double curPrice, long curPriceTime, double change) {
+        this(previous, curPrice, curPriceTime, change, curPrice, curPrice);
+    }
+
+    /**
+     * Instantiates a new snapshot with a new price reached by a number of
+     * trades, sharing the alarms of the previous snapshot. Used for conflated
+     * push updates.
+     *
+     * @param previous the previous snapshot
+     * @param curPrice the current price, i. e. the price of the last trade
+     * @param curPriceTime the time of the current price in epoch milliseconds
+     * @param change the percentage change vs. the opening price of the day
+     * @param priceLow the lowest price of the trades
+     * @param priceHigh the highest price of the trades
+     */
+    public StockSnapshot(StockSnapshot previous, double curPrice, long curPriceTime, double change,
+            double priceLow, double priceHigh) {
+        this(previous, curPrice, curPriceTime, change, priceLow, priceHigh, 0);
+    }
+
+    /**
+     * Instantiates a new snapshot with a new price reached by a number of
+     * pushed trades, keeping the time the oldest of them was received at to
+     * measure when they become visible.
+     *
+     * @param previous the previous snapshot
+     * @param curPrice the current price, i. e. the price of the last trade
+     * @param curPriceTime the time of the current price in epoch milliseconds
+     * @param change the percentage change vs. the opening price of the day
+     * @param priceLow the lowest price of the trades
+     * @param priceHigh the highest price of the trades
+     * @param receiveTime the System.nanoTime the oldest trade was received at
+     */
+    public StockSnapshot(StockSnapshot previous, double curPrice, long curPriceTime, double change,
+            double priceLow, double priceHigh, long receiveTime) {
+        this.stockId = previous.stockId;
+        this.curPrice = curPrice;
+        this.curPriceOld = previous.curPrice;
+        this.curPriceTime = curPriceTime;
+        this.change = change;
+        this.priceLow = priceLow;
+        this.priceHigh = priceHigh;
+        this.receiveTime = receiveTime;
+        this.alarmUnits = previous.alarmUnits;
+    }
+
+    /**
+     * Gets the stock id.
+     *
+     * @return the stock id
+     */
+    public String getStockId() {
+        return stockId;
+    }
+
+    /**
+     * Gets the lowest price since the previous snapshot, e. g. of the trades
+     * conflated into this snapshot.
+     *
+     * @return the low price, the current price if there was a single trade
+     */
+    public double getPriceLow() {
+        return priceLow;
+    }
+
+    /**
+     * Gets the highest price since the previous snapshot.
+     *
+     * @return the high price, the current price if there was a single trade
+     */
+    public double getPriceHigh() {
+        return priceHigh;
+    }
+
+    /**
+     * Gets the current price.
+     *
+     * @return the current price
+     */
+    public double getCurPrice() {
+        return curPrice;
+    }
+
+    /**
+     * Gets the old current price (last price before the current price).
+     *
+     * @return the old current price
+     */
+    public double getCurPriceOld() {
+        return curPriceOld;
+    }
+
+    /**
+     * Gets the time of the current price in epoch milliseconds.
+     *
+     * @return the time of the current price
+     */
+    public long getCurPriceTime() {
+        return curPriceTime;
+    }
+
+    /**
+     * Gets the time the oldest pushed trade of the update was received at.
+     *
+     * @return the System.nanoTime of receiving the trade, 0 if the update
+     * doesn't come from push data
+     */
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+
+    /**
+     * Gets the percentage change vs. the opening price of the day.
+     *
+     * @return the percentage change
+     */
+    public double getChange() {
+        return change;
+    }
+
+    /**
+     * Gets the alarms of the stock at the time of the snapshot. The set can't
+     * be modified.
+     *
+     * @return the alarm units
+     */
+    public Set<AlarmUnit> getAlarmUnits() {
+        return alarmUnits;
+    }
+
+}
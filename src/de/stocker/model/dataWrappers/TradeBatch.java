@@ -0,0 +1,201 @@
+package de.stocker.model.dataWrappers;
+
+/**
+ * The Class TradeBatch stores a number of trades in columns: parallel arrays
+ * for the stock ids, prices, times and volumes instead of one object per
+ * trade. Every trade also keeps the time its push message was received, taken
+ * with System.nanoTime, to measure the latency of the push pipeline. A batch
+ * is filled by the push message parser and can be cleared and filled again,
+ * the arrays only grow when a message contains more trades than any message
+ * before.
+ *
+ * A batch is not thread-safe. It is filled by one thread and only handed to
+ * another thread once it is complete.
+ *
+ * @author Matthias Rudolph
+ */
+public class TradeBatch {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private String[] stockIds;
+    private double[] prices;
+    // time in epoch milliseconds
+    private long[] times;
+    private double[] volumes;
+    // System.nanoTime of receiving the message, 0 if unknown
+    private long[] receiveTimes;
+    private int size;
+
+    /**
+     * Instantiates a new empty trade batch with the default capacity.
+     */
+    public TradeBatch() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new empty trade batch with room for the specified amount
+     * of trades before it has to grow.
+     *
+     * @param capacity the initial capacity
+     */
+    public TradeBatch(int capacity) {
+        int c = Math.max(1, capacity);
+        stockIds = new String[c];
+        prices = new double[c];
+        times = new long[c];
+        volumes = new double[c];
+        receiveTimes = new long[c];
+    }
+
+    /**
+     * Adds a trade at the end of the batch.
+     *
+     * @param stockId the stock id
+     * @param price the trade price
+     * @param time the time of the trade in epoch milliseconds
+     * @param volume the trade volume
+     */
+    public void add(String stockId, double price, long time, double volume) {
+        if (size == prices.length) {
+            grow();
+        }
+        stockIds[size] = stockId;
+        prices[size] = price;
+        times[size] = time;
+        volumes[size] = volume;
+        receiveTimes[size] = 0;
+        size++;
+    }
+
+    /**
+     * Adds a trade of another batch at the end of the batch.
+     *
+     * @param other the other batch
+     * @param i the index of the trade in the other batch
+     */
+    public void add(TradeBatch other, int i) {
+        add(other.stockIds[i], other.prices[i], other.times[i], other.volumes[i]);
+        receiveTimes[size - 1] = other.receiveTimes[i];
+    }
+
+    /**
+     * Sets the receive time of the trades from an index to the end of the
+     * batch, i. e. of the trades parsed from one push message.
+     *
+     * @param from the index of the first trade
+     * @param receiveTime the System.nanoTime the message was received at
+     */
+    public void setReceiveTime(int from, long receiveTime) {
+        for (int i = Math.max(0, from); i < size; i++) {
+            receiveTimes[i] = receiveTime;
+        }
+    }
+
+    /**
+     * Doubles the capacity of the batch.
+     */
+    private void grow() {
+        int c = prices.length << 1;
+        String[] newStockIds = new String[c];
+        System.arraycopy(stockIds, 0, newStockIds, 0, size);
+        stockIds = newStockIds;
+        double[] newPrices = new double[c];
+        System.arraycopy(prices, 0, newPrices, 0, size);
+        prices = newPrices;
+        long[] newTimes = new long[c];
+        System.arraycopy(times, 0, newTimes, 0, size);
+        times = newTimes;
+        double[] newVolumes = new double[c];
+        System.arraycopy(volumes, 0, newVolumes, 0, size);
+        volumes = newVolumes;
+        long[] newReceiveTimes = new long[c];
+        System.arraycopy(receiveTimes, 0, newReceiveTimes, 0, size);
+        receiveTimes = newReceiveTimes;
+    }
+
+    /**
+     * Removes all trades from the batch, keeping its capacity.
+     */
+    public void clear() {
+        // drop the references to the stock ids
+        for (int i = 0; i < size; i++) {
+            stockIds[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Removes the trades from the end of the batch, so that only the specified
+     * amount of trades is left.
+     *
+     * @param newSize the number of trades to keep
+     */
+    public void truncate(int newSize) {
+        for (int i = newSize; i < size; i++) {
+            stockIds[i] = null;
+        }
+        size = Math.min(size, Math.max(0, newSize));
+    }
+
+    /**
+     * Gets the number of trades in the batch.
+     *
+     * @return the number of trades
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the stock id of a trade.
+     *
+     * @param i the index of the trade
+     * @return the stock id
+     */
+    public String getStockId(int i) {
+        return stockIds[i];
+    }
+
+    /**
+     * Gets the price of a trade.
+     *
+     * @param i the index of the trade
+     * @return the price
+     */
+    public double getPrice(int i) {
+        return prices[i];
+    }
+
+    /**
+     * Gets the time of a trade in epoch milliseconds.
+     *
+     * @param i the index of the trade
+     * @return the time
+     */
+    public long getTime(int i) {
+        return times[i];
+    }
+
+    /**
+     * Gets the volume of a trade.
+     *
+     * @param i the index of the trade
+     * @return the volume
+     */
+    public double getVolume(int i) {
+        return volumes[i];
+    }
+
+    /**
+     * Gets the time the push message of a trade was received at.
+     *
+     * @param i the index of the trade
+     * @return the System.nanoTime of receiving the message, 0 if unknown
+     */
+    public long getReceiveTime(int i) {
+        return receiveTimes[i];
+    }
+
+}
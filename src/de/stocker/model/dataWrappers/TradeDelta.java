@@ -0,0 +1,254 @@
+package de.stocker.model.dataWrappers;
+
+import java.util.Arrays;
+
+import de.stocker.common.EChartResolution;
+
+/**
+ * The Class TradeDelta is the conflation of all trades of one stock received
+ * in a time slice, e. g. in one push message, applied to the stock item as a
+ * single update. The trades are folded into OHLCV segments of one minute, the
+ * smallest chart resolution, so the candles of every resolution can be
+ * updated from the segments exactly like from the single trades. A new
+ * segment is started whenever a trade belongs to another minute than the one
+ * before, so trades received out of order are applied in the same order.
+ *
+ * The delta also keeps the last trade and the lowest and highest price of all
+ * trades, so a price crossing an alarm threshold and returning within the
+ * time slice isn't missed.
+ *
+ * A delta is reused for further time slices after it has been cleared.
+ *
+ * @author Matthias Rudolph
+ */
+public class TradeDelta {
+
+    // all buckets of all chart resolutions are made up of whole minutes
+    private static final long SEGMENT_MILLIS = EChartResolution.ONE.getIntervalMillis();
+    private final int DEFAULT_CAPACITY = 4;
+
+    private long[] segmentStart;
+    private double[] segmentLow;
+    private double[] segmentHigh;
+    private double[] segmentOpen;
+    private double[] segmentClose;
+    private double[] segmentVolume;
+    private int segments;
+
+    private double price;
+    private long time;
+    private double priceLow;
+    private double priceHigh;
+    private int tradeCount;
+    private long firstReceiveTime;
+
+    /**
+     * Instantiates a new empty trade delta.
+     */
+    public TradeDelta() {
+        segmentStart = new long[DEFAULT_CAPACITY];
+        segmentLow = new double[DEFAULT_CAPACITY];
+        segmentHigh = new double[DEFAULT_CAPACITY];
+        segmentOpen = new double[DEFAULT_CAPACITY];
+        segmentClose = new double[DEFAULT_CAPACITY];
+        segmentVolume = new double[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Folds a trade into the delta.
+     *
+     * @param price  the trade price
+     * @param time   the time of the trade in epoch milliseconds
+     * @param volume the trade volume
+     */
+    public void add(double price, long time, double volume) {
+        add(price, time, volume, 0);
+    }
+
+    /**
+     * Folds a trade into the delta, keeping the time its push message was
+     * received at.
+     *
+     * @param price       the trade price
+     * @param time        the time of the trade in epoch milliseconds
+     * @param volume      the trade volume
+     * @param receiveTime the System.nanoTime of receiving the message, 0 if
+     *                    unknown
+     */
+    public void add(double price, long time, double volume, long receiveTime) {
+        long start = Math.floorDiv(time, SEGMENT_MILLIS) * SEGMENT_MILLIS;
+        if (segments == 0 || segmentStart[segments - 1] != start) {
+            if (segments == segmentStart.length) {
+                grow();
+            }
+            segmentStart[segments] = start;
+            segmentLow[segments] = price;
+            segmentHigh[segments] = price;
+            segmentOpen[segments] = price;
+            segmentClose[segments] = price;
+            segmentVolume[segments] = volume;
+            segments++;
+        } else {
+            int s = segments - 1;
+            segmentLow[s] = Math.min(segmentLow[s], price);
+            segmentHigh[s] = Math.max(segmentHigh[s], price);
+            segmentClose[s] = price;
+            segmentVolume[s] += volume;
+        }
+
+        if (tradeCount == 0) {
+            priceLow = price;
+            priceHigh = price;
+            firstReceiveTime = receiveTime;
+        } else {
+            priceLow = Math.min(priceLow, price);
+            priceHigh = Math.max(priceHigh, price);
+        }
+        this.price = price;
+        this.time = time;
+        tradeCount++;
+    }
+
+    private void grow() {
+        int capacity = segmentStart.length << 1;
+        segmentStart = Arrays.copyOf(segmentStart, capacity);
+        segmentLow = Arrays.copyOf(segmentLow, capacity);
+        segmentHigh = Arrays.copyOf(segmentHigh, capacity);
+        segmentOpen = Arrays.copyOf(segmentOpen, capacity);
+        segmentClose = Arrays.copyOf(segmentClose, capacity);
+        segmentVolume = Arrays.copyOf(segmentVolume, capacity);
+    }
+
+    /**
+     * Removes all trades, keeping the storage for reuse.
+     */
+    public void clear() {
+        segments = 0;
+        tradeCount = 0;
+    }
+
+    /**
+     * Gets the number of folded trades.
+     *
+     * @return the trade count
+     */
+    public int getTradeCount() {
+        return tradeCount;
+    }
+
+    /**
+     * Gets the number of one minute segments.
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return segments;
+    }
+
+    /**
+     * Gets the start of a segment.
+     *
+     * @param s the index of the segment, 0 being the first received
+     * @return the start in epoch milliseconds
+     */
+    public long getSegmentStart(int s) {
+        return segmentStart[s];
+    }
+
+    /**
+     * Gets the lowest price of a segment.
+     *
+     * @param s the index of the segment
+     * @return the low price
+     */
+    public double getSegmentLow(int s) {
+        return segmentLow[s];
+    }
+
+    /**
+     * Gets the highest price of a segment.
+     *
+     * @param s the index of the segment
+     * @return the high price
+     */
+    public double getSegmentHigh(int s) {
+        return segmentHigh[s];
+    }
+
+    /**
+     * Gets the price of the first trade of a segment.
+     *
+     * @param s the index of the segment
+     * @return the open price
+     */
+    public double getSegmentOpen(int s) {
+        return segmentOpen[s];
+    }
+
+    /**
+     * Gets the price of the last trade of a segment.
+     *
+     * @param s the index of the segment
+     * @return the close price
+     */
+    public double getSegmentClose(int s) {
+        return segmentClose[s];
+    }
+
+    /**
+     * Gets the trade volume of a segment.
+     *
+     * @param s the index of the segment
+     * @return the volume
+     */
+    public double getSegmentVolume(int s) {
+        return segmentVolume[s];
+    }
+
+    /**
+     * Gets the price of the last received trade.
+     *
+     * @return the price
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * Gets the time of the last received trade.
+     *
+     * @return the time in epoch milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the lowest price of all trades.
+     *
+     * @return the low price
+     */
+    public double getPriceLow() {
+        return priceLow;
+    }
+
+    /**
+     * Gets the highest price of all trades.
+     *
+     * @return the high price
+     */
+    public double getPriceHigh() {
+        return priceHigh;
+    }
+
+    /**
+     * Gets the time the push message of the first trade was received at, the
+     * trade waiting longest for the delta to be applied.
+     *
+     * @return the System.nanoTime of receiving the message, 0 if unknown
+     */
+    public long getFirstReceiveTime() {
+        return firstReceiveTime;
+    }
+
+}
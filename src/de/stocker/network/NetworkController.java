@@ -1,10 +1,18 @@
 package de.stocker.network;
 
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
 
 import de.stocker.common.*;
 import de.stocker.model.dataWrappers.DataProvider;
@@ -20,19 +28,64 @@ public class NetworkController implements INetworkController {
     private DataProvider activeDataProvider;
     private String apiKey;
     private PushClient pushClient;
+    private PushOutbox pushOutbox;
+    private PullClient pullClient;
+    private RequestScheduler requestScheduler;
     private List<IPushSubscriber> pushSubscribers;
     
+    // restoring lost push connections, with exponential backoff
+    private ScheduledExecutorService reconnectScheduler;
+    private ScheduledFuture<?> pendingReconnect;
+    private int reconnectAttempts;
+    private final long BASE_RECONNECT_DELAY = 1000;
+    private final long MAX_RECONNECT_DELAY = 60000;
+    // time of the last push message and of the last one before a connection
+    // loss, 0 if none
+    private volatile long lastPushReceived;
+    private long pushInterruptedSince;
+    
+    // timeouts of the API requests in milliseconds
+    private final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    private final int DEFAULT_READ_TIMEOUT = 15000;
+    
     /**
      * Instantiates a new network controller to connect to the specified data
-     * provider.
+     * provider, using the default timeouts for API requests.
      *
      * @param dataProvider the data provider
      */
     public NetworkController(DataProvider dataProvider) {
+        this(dataProvider, 0, 0);
+    }
+    
+    /**
+     * Instantiates a new network controller to connect to the specified data
+     * provider.
+     *
+     * @param dataProvider the data provider
+     * @param connectTimeout the timeout for connecting to the data provider
+     * for API requests in milliseconds, the default is used if not positive
+     * @param readTimeout the timeout for receiving the response of an API
+     * request in milliseconds, the default is used if not positive
+     */
+    public NetworkController(DataProvider dataProvider, int connectTimeout, int readTimeout) {
         this.activeDataProvider = dataProvider;
         this.apiKey = dataProvider.getApiKey();
         
         this.pushSubscribers = new ArrayList<IPushSubscriber>();
+        // subscriptions are kept across data provider changes and sent again
+        this.pushOutbox = new PushOutbox();
+        this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Push reconnect");
+            t.setDaemon(true);
+            return t;
+        });
+        // the pull client keeps its connections alive across data provider
+        // changes, only the URLs change
+        this.pullClient = new PullClient(connectTimeout > 0 ? connectTimeout : DEFAULT_CONNECT_TIMEOUT,
+                readTimeout > 0 ? readTimeout : DEFAULT_READ_TIMEOUT);
+        this.requestScheduler = new RequestScheduler(pullClient, dataProvider.getRequestsPerMinute(),
+                dataProvider.getRequestBurst());
         
         dialUpConnection();
     }
@@ -41,9 +94,11 @@ public class NetworkController implements INetworkController {
      * {@inheritDoc}
      */
     @Override
-    public void setActiveDataProvider(DataProvider dataProvider) {
+    public synchronized void setActiveDataProvider(DataProvider dataProvider) {
             this.activeDataProvider = dataProvider;
             this.apiKey = activeDataProvider.getApiKey();
+            requestScheduler.setRateLimit(activeDataProvider.getRequestsPerMinute(),
+                    activeDataProvider.getRequestBurst());
             dialUpConnection();
     }
     
@@ -62,6 +117,7 @@ public class NetworkController implements INetworkController {
      */
     @Override
     public void newPushDataReceived(String message) {
+        lastPushReceived = System.currentTimeMillis();
         if (pushSubscribers != null) {
             for (IPushSubscriber pushSub : pushSubscribers) {
                 pushSub.newPushData(message);
@@ -73,7 +129,28 @@ public class NetworkController implements INetworkController {
      * {@inheritDoc}
      */
     @Override
-    public String getCandles(String symbol, String resolution, String from, String to) {
+    public void newPushDataReceived(ByteBuffer message) {
+        lastPushReceived = System.currentTimeMillis();
+        if (pushSubscribers != null) {
+            for (IPushSubscriber pushSub : pushSubscribers) {
+                pushSub.newPushData(message);
+            }
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCandles(String symbol, String resolution, String from, String to, ERequestPriority priority) {
+        return await(getCandlesAsync(symbol, resolution, from, to, priority));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getCandlesAsync(String symbol, String resolution, String from, String to, ERequestPriority priority) {
         StringBuilder sb = new StringBuilder();
         
         sb.append(activeDataProvider.getPullUrl());
@@ -85,15 +162,22 @@ public class NetworkController implements INetworkController {
         sb.append("&token=" + apiKey);
         
         String url = sb.toString();
-        String result = httpGet(url);
-        return result;
+        return requestScheduler.submit(url, priority);
     }
     
     /**
      * {@inheritDoc}
      */
     @Override
-    public String getQuote(String symbol) {
+    public String getQuote(String symbol, ERequestPriority priority) {
+        return await(getQuoteAsync(symbol, priority));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getQuoteAsync(String symbol, ERequestPriority priority) {
         StringBuilder sb = new StringBuilder();
         
         sb.append(activeDataProvider.getPullUrl());
@@ -102,73 +186,143 @@ public class NetworkController implements INetworkController {
         sb.append("&token=" + apiKey);
         
         String url = sb.toString();
-        String result = httpGet(url);
-        return result;
+        return requestScheduler.submit(url, priority);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSearch(String symbol, ERequestPriority priority) {
+        return await(getSearchAsync(symbol, priority));
+    }
+    
+    /**
+     * Waits for the response of an API request. The request may have to wait
+     * for the rate limit of the data provider, so waiting on the event
+     * dispatch thread would freeze the GUI in the meantime. This isn't
+     * allowed, the callers on the event dispatch thread have to use the async
+     * request or a swing worker.
+     *
+     * @param future the future of the response
+     * @return the response or null, if the request failed
+     * @throws IllegalStateException if called on the event dispatch thread
+     *                               before the response has arrived
+     */
+    private String await(CompletableFuture<String> future) {
+        if (SwingUtilities.isEventDispatchThread() && !future.isDone()) {
+            throw new IllegalStateException("Waiting for an API request on the event dispatch thread.");
+        }
+        return future.join();
     }
     
     /**
      * {@inheritDoc}
      */
     @Override
-    public String getSearch(String symbol) {
+    public CompletableFuture<String> getSearchAsync(String symbol, ERequestPriority priority) {
         StringBuilder sb = new StringBuilder();
         
         sb.append(activeDataProvider.getPullUrl());
         sb.append(EPullOperation.SEARCH.getPath());
-        sb.append("?q=" + symbol);
+        // the search string is free text
+        sb.append("?q=" + URLEncoder.encode(symbol, StandardCharsets.UTF_8));
         sb.append("&token=" + apiKey);
         
         String url = sb.toString();
-        String result = httpGet(url);
-        return result;
+        return requestScheduler.submit(url, priority);
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendWebSocketMessage(String message) {
+        pushOutbox.send(message);
     }
     
-    private String httpGet(String url) {
-        try {
-            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setRequestMethod("GET");
-            conn.connect();
-
-            int code = conn.getResponseCode();
-            if (code >= 400) {
-                System.err.println("Request failed. HTTP error code: " + code);
-                return null;
-            }
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                String requestResult = in.readLine();
-                return requestResult;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(String symbol) {
+        pushOutbox.subscribe(symbol);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unsubscribe(String symbol) {
+        pushOutbox.unsubscribe(symbol);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void pushConnectionOpened() {
+        pushOutbox.connectionOpened();
+        
+        long interruptedSince;
+        synchronized (this) {
+            reconnectAttempts = 0;
+            interruptedSince = pushInterruptedSince;
+            pushInterruptedSince = 0;
+        }
+        // the subscribers fill the gap in the push data
+        if (interruptedSince > 0) {
+            long now = System.currentTimeMillis();
+            for (IPushSubscriber pushSub : pushSubscribers) {
+                pushSub.pushDataInterrupted(interruptedSince, now);
             }
-        } catch (IOException ex) {
-            System.err.println("An error occurred: " + ex.getMessage());
-            return null;
         }
     }
-
+    
     /**
      * {@inheritDoc}
      */
     @Override
-    public void sendWebSocketMessage(String message) {
-        while (!pushClient.isOpen()) {
-            try {
-                System.out.println("Waiting for connection...");
-                Thread.sleep(100L);
-            } catch (InterruptedException iex) {
-            }
+    public synchronized void pushConnectionLost() {
+        if (pushInterruptedSince == 0) {
+            pushInterruptedSince = lastPushReceived > 0 ? lastPushReceived : System.currentTimeMillis();
+        }
+        if (pendingReconnect != null && !pendingReconnect.isDone()) {
+            return;
         }
-        pushClient.send(message);
+        
+        // random delay between half and all of the backoff, so clients don't
+        // reconnect all at once after an outage of the data provider
+        long backoff = Math.min(MAX_RECONNECT_DELAY, BASE_RECONNECT_DELAY << Math.min(reconnectAttempts, 16));
+        long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        reconnectAttempts++;
+        System.out.println("Reconnecting to web socket server in " + delay + " ms...");
+        pendingReconnect = reconnectScheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Dials up a new connection to replace a lost one. The subscriptions are
+     * sent again as soon as it is open.
+     */
+    private synchronized void reconnect() {
+        pendingReconnect = null;
+        dialUpConnection();
     }
     
     /**
      * Closes the the currently active connection and dials up a new one. This
-     * is used for a data provider change.
+     * is used for a data provider change and to restore a lost connection.
      */
-    private void dialUpConnection() {
+    private synchronized void dialUpConnection() {
+        if (pendingReconnect != null) {
+            pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
         if (pushClient != null) {
-            pushClient.close();
+            pushClient.disconnect();
         }
         pushClient = new PushClient(this, activeDataProvider.getPushUrl() + "?token=" + apiKey);
+        pushOutbox.setPushClient(pushClient);
         pushClient.connect();
     }
 
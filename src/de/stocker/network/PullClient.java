@@ -0,0 +1,164 @@
+package de.stocker.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The Class PullClient sends the API requests (HTTP pull operations) to the
+ * data provider. It is based on a single {@link HttpClient}, which keeps the
+ * connections to the data provider alive and reuses them for further
+ * requests, and uses HTTP/2 where the data provider supports it, so that
+ * concurrent requests share one connection.
+ *
+ * Requests are sent asynchronously, the caller gets a future of the response
+ * body and doesn't have to wait for it. Responses are requested gzip
+ * compressed. Errors are either logged and complete the future with null,
+ * like the blocking requests did before, or passed on to callers who handle
+ * them, e. g. by sending the request again.
+ *
+ * @author Matthias Rudolph
+ */
+public class PullClient {
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    /**
+     * Instantiates a new pull client.
+     *
+     * @param connectTimeoutMillis the timeout for establishing a connection in
+     *                             milliseconds
+     * @param readTimeoutMillis    the timeout for receiving the response of a
+     *                             request in milliseconds
+     */
+    public PullClient(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+    }
+
+    /**
+     * Sends a GET request without waiting for the response.
+     *
+     * @param url the URL
+     * @return the future of the response body, completed with null if the
+     *         request fails
+     */
+    public CompletableFuture<String> getAsync(String url) {
+        return fetchAsync(url).handle((body, ex) -> {
+            if (ex != null) {
+                System.err.println(describeError(ex));
+                return null;
+            }
+            return body;
+        });
+    }
+
+    /**
+     * Sends a GET request without waiting for the response, passing errors on
+     * to the caller.
+     *
+     * @param url the URL
+     * @return the future of the response body, completed exceptionally with a
+     *         {@link PullException} for HTTP errors or with the cause of other
+     *         errors, e. g. an {@link java.io.IOException} or a timeout
+     */
+    public CompletableFuture<String> fetchAsync(String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(readTimeout)
+                    .header("Accept-Encoding", "gzip")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 400) {
+                        throw new PullException(response.statusCode(), getRetryAfterMillis(response));
+                    }
+                    return decodeBody(response);
+                });
+    }
+
+    /**
+     * Describes an error of a request for the log.
+     *
+     * @param ex the error, possibly wrapped by a future
+     * @return the description
+     */
+    public static String describeError(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof PullException) {
+            return cause.getMessage();
+        }
+        return "An error occurred: " + cause;
+    }
+
+    /**
+     * Sends a GET request and waits for the response.
+     *
+     * @param url the URL
+     * @return the response body or null, if the request fails
+     */
+    public String get(String url) {
+        return getAsync(url).join();
+    }
+
+    /**
+     * Gets the waiting time requested by a response with the Retry-After
+     * header in seconds. Dates aren't used by the data providers and are
+     * ignored.
+     *
+     * @param response the response
+     * @return the waiting time in milliseconds, -1 if none
+     */
+    private long getRetryAfterMillis(HttpResponse<byte[]> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException ex) {
+                return -1L;
+            }
+        }).orElse(-1L);
+    }
+
+    /**
+     * Decodes the body of a response, which may be gzip compressed.
+     *
+     * @param response the response
+     * @return the response body or null, if it can't be decompressed
+     */
+    private String decodeBody(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip")).orElse(false);
+        if (!gzip) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            System.err.println("An error occurred: " + ex.getMessage());
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package de.stocker.network;
+
+/**
+ * The Class PullException signals a pull request answered by the data
+ * provider with an HTTP error, along with what is needed to decide whether
+ * and when the request may be sent again.
+ *
+ * @author Matthias Rudolph
+ */
+public class PullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    /**
+     * Instantiates a new pull exception.
+     *
+     * @param statusCode       the HTTP status code of the response
+     * @param retryAfterMillis the waiting time requested by the data provider
+     *                         in milliseconds, -1 if none
+     */
+    public PullException(int statusCode, long retryAfterMillis) {
+        super("Request failed. HTTP error code: " + statusCode);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets the HTTP status code of the response.
+     *
+     * @return the status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the waiting time requested by the data provider, e. g. with a 429
+     * (too many requests) response.
+     *
+     * @return the waiting time in milliseconds, -1 if none
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Checks if the request may succeed when sent again, i. e. if the data
+     * provider was throttling requests or had a temporary problem.
+     *
+     * @return true, if the request may be sent again
+     */
+    public boolean isTransient() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+}
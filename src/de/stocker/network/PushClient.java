@@ -1,6 +1,7 @@
 package de.stocker.network;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
@@ -9,13 +10,21 @@ import de.stocker.common.INetworkController;
 
 /**
  * The Class PushClient used to connect to the web socket server of a data
- * provider, sending and receiving messages.
+ * provider, sending and receiving messages. Complete text messages are
+ * received as UTF-8 bytes (see {@link Utf8TextDraft}), just like binary
+ * messages, so they don't have to be decoded into strings.
  * 
  * @author Matthias Rudolph
  */
 public class PushClient extends WebSocketClient {
     
     private INetworkController networkController;
+    // set when the connection is closed on purpose, e. g. for a data provider
+    // change, so it isn't restored
+    private volatile boolean disconnected;
+    
+    // seconds without a pong before the connection is considered lost
+    private final int CONNECTION_LOST_TIMEOUT = 30;
     
     /**
      * Instantiates a new push client, belonging to a specific network
@@ -26,18 +35,30 @@ public class PushClient extends WebSocketClient {
      * @param serverUri the web socket server URI to connect to
      */
     public PushClient(INetworkController networkController, String serverUri) {
-        super(URI.create(serverUri));
+        super(URI.create(serverUri), new Utf8TextDraft());
         this.networkController = networkController;
+        // detects connections dropped without a close frame
+        setConnectionLostTimeout(CONNECTION_LOST_TIMEOUT);
+    }
+    
+    /**
+     * Closes the connection on purpose, so that it isn't restored.
+     */
+    public void disconnect() {
+        disconnected = true;
+        close();
     }
 
     /**
-     * Logging a successful connection to the console.
+     * Logging a successful connection to the console and calling the network
+     * controller to send the messages waiting for it.
      *
      * @param handshake the server handshake
      */
     @Override
     public void onOpen(ServerHandshake handshake) {
         System.out.println("Connected to web socket server.");
+        networkController.pushConnectionOpened();
     }
     
     /**
@@ -54,7 +75,21 @@ public class PushClient extends WebSocketClient {
     }
 
     /**
-     * Logging a connection close to console.
+     * Calling the network controller when a new web socket message is received
+     * as bytes, i. e. a binary message or a complete text message, and passing
+     * the UTF-8 encoded message contents to it.
+     *
+     * @param bytes the message bytes
+     */
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        networkController.newPushDataReceived(bytes);
+    }
+
+    /**
+     * Logging a connection close to console and calling the network
+     * controller to restore the connection, unless it was closed on purpose.
+     * Also called if the connection couldn't be established.
      *
      * @param code the code
      * @param reason the reason
@@ -64,6 +99,9 @@ public class PushClient extends WebSocketClient {
     public void onClose(int code, String reason, boolean remote) {
         System.out.println("Connection closed by " + (remote ? "server" : "client") + ", Code: " + code
                 + ", Reason: " + reason);
+        if (!disconnected) {
+            networkController.pushConnectionLost();
+        }
     }
 
     /**
@@ -0,0 +1,199 @@
+package de.stocker.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.Framedata;
+
+import com.google.gson.JsonObject;
+
+import de.stocker.json.JsonFactory;
+
+/**
+ * The Class PushOutbox sends the outgoing web socket messages, so that callers
+ * never wait for the connection. Messages are buffered until the web socket is
+ * open and sent by a sender thread, all messages pending at that time
+ * together as one batch of frames.
+ *
+ * Subscriptions aren't sent as messages right away. The outbox keeps the set
+ * of stocks which should be subscribed and the set of stocks subscribed on
+ * the current connection, and sends only the difference, e. g. nothing for a
+ * stock subscribed and unsubscribed again before the connection is open. On
+ * a new connection, all subscriptions are sent again.
+ *
+ * @author Matthias Rudolph
+ */
+public class PushOutbox {
+
+    private volatile PushClient pushClient;
+    // the subscriptions on the server are unknown for a new connection
+    private volatile boolean connectionChanged;
+
+    // a deque, so messages which couldn't be sent are put back in front
+    private final Deque<String> messages = new ConcurrentLinkedDeque<String>();
+    private final Set<String> desiredSubscriptions = ConcurrentHashMap.newKeySet();
+    // subscriptions sent on the current connection, used by the sender thread only
+    private final Set<String> serverSubscriptions = new HashSet<String>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Push sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Sets the push client of a new connection. Messages are sent as soon as
+     * it is open.
+     *
+     * @param pushClient the push client
+     */
+    public void setPushClient(PushClient pushClient) {
+        this.pushClient = pushClient;
+        connectionChanged = true;
+        scheduleFlush();
+    }
+
+    /**
+     * Called when the web socket has been opened, sending the buffered
+     * messages and subscriptions.
+     */
+    public void connectionOpened() {
+        scheduleFlush();
+    }
+
+    /**
+     * Sends a message as soon as the web socket is open.
+     *
+     * @param message the message
+     */
+    public void send(String message) {
+        messages.add(message);
+        scheduleFlush();
+    }
+
+    /**
+     * Subscribes a stock to push updates, as soon as the web socket is open.
+     *
+     * @param symbol the stock symbol
+     */
+    public void subscribe(String symbol) {
+        if (desiredSubscriptions.add(symbol)) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Unsubscribes a stock from push updates, as soon as the web socket is
+     * open.
+     *
+     * @param symbol the stock symbol
+     */
+    public void unsubscribe(String symbol) {
+        if (desiredSubscriptions.remove(symbol)) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Gets the stocks which should be subscribed, whether the subscriptions
+     * have been sent already or not.
+     *
+     * @return the unmodifiable set of stock symbols
+     */
+    public Set<String> getSubscriptions() {
+        return Collections.unmodifiableSet(desiredSubscriptions);
+    }
+
+    /**
+     * Lets the sender thread flush the outbox, unless it is going to already.
+     * Everything changed in the meantime is sent with the same flush.
+     */
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            sender.execute(this::flush);
+        }
+    }
+
+    /**
+     * Sends the subscription changes and buffered messages as one batch of
+     * frames, if the web socket is open. Runs on the sender thread.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        PushClient client = pushClient;
+        if (client == null || !client.isOpen()) {
+            // flushed again when opened
+            return;
+        }
+        if (connectionChanged) {
+            connectionChanged = false;
+            serverSubscriptions.clear();
+        }
+
+        List<String> batch = new ArrayList<String>();
+        for (String symbol : desiredSubscriptions) {
+            if (serverSubscriptions.add(symbol)) {
+                batch.add(toSubscriptionMessage("subscribe", symbol));
+            }
+        }
+        for (Iterator<String> it = serverSubscriptions.iterator(); it.hasNext();) {
+            String symbol = it.next();
+            if (!desiredSubscriptions.contains(symbol)) {
+                it.remove();
+                batch.add(toSubscriptionMessage("unsubscribe", symbol));
+            }
+        }
+        List<String> sentMessages = new ArrayList<String>();
+        for (String message; (message = messages.poll()) != null;) {
+            sentMessages.add(message);
+        }
+        batch.addAll(sentMessages);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Framedata> frames = new ArrayList<Framedata>();
+        for (String message : batch) {
+            frames.addAll(client.getDraft().createFrames(message, true));
+        }
+        try {
+            client.sendFrame(frames);
+        } catch (WebsocketNotConnectedException e) {
+            // closed in the meantime, everything is sent again when open, the
+            // messages before those sent in the meantime
+            serverSubscriptions.clear();
+            for (ListIterator<String> it = sentMessages.listIterator(sentMessages.size()); it.hasPrevious();) {
+                messages.addFirst(it.previous());
+            }
+        }
+    }
+
+    /**
+     * Creates a subscription message in the format of the data provider, e. g.
+     * {"type":"subscribe","symbol":"AAPL"}.
+     *
+     * @param type   subscribe or unsubscribe
+     * @param symbol the stock symbol
+     * @return the message
+     */
+    private String toSubscriptionMessage(String type, String symbol) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.addProperty("symbol", symbol);
+        return JsonFactory.objectToJson(message);
+    }
+
+}
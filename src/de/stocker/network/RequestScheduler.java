@@ -0,0 +1,295 @@
+package de.stocker.network;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import de.stocker.common.ERequestPriority;
+
+/**
+ * The Class RequestScheduler sends the pull requests to the data provider
+ * within its rate limit, so bulk requests, e. g. restoring the stocks at
+ * startup, aren't throttled by the data provider and leave stocks half
+ * loaded.
+ *
+ * The rate limit is enforced by a token bucket: a request needs a token, the
+ * tokens are refilled at the allowed rate up to the allowed burst. Requests
+ * waiting for a token are queued in one lane per priority and always taken
+ * from the highest priority lane first, so a visible chart doesn't wait for
+ * the stocks restored in the background.
+ *
+ * Requests for a URL which is already queued or in flight are coalesced with
+ * it, i. e. the response is shared. A coalesced request of a higher priority
+ * moves the queued request up to its lane.
+ *
+ * Requests the data provider answers with 429 (too many requests) or a server
+ * error, or which fail with a network error, are sent again after an
+ * exponential backoff with random jitter, so the retries of many requests
+ * don't arrive at the same time. A 429 response also pauses all requests for
+ * the time requested by the data provider.
+ *
+ * @author Matthias Rudolph
+ */
+public class RequestScheduler {
+
+    private final PullClient pullClient;
+
+    // retries of a request after its first attempt
+    private final int MAX_RETRIES = 3;
+    private final long BASE_BACKOFF_MILLIS = 1000;
+    private final long MAX_BACKOFF_MILLIS = 30000;
+
+    // token bucket
+    private double tokens;
+    private double tokensPerMilli;
+    private int burst;
+    private long lastRefill;
+    // no requests are sent before, after a 429 response
+    private long pausedUntil;
+
+    // one queue per priority, in the order of ERequestPriority
+    private final List<ArrayDeque<Request>> lanes;
+    // queued, waiting for a retry or in flight, by URL
+    private final Map<String, Request> pendingRequests = new HashMap<String, Request>();
+
+    /**
+     * A pull request with the future shared by all coalesced callers.
+     */
+    private static class Request {
+        private final String url;
+        private final CompletableFuture<String> future = new CompletableFuture<String>();
+        private ERequestPriority priority;
+        private boolean queued;
+        private int attempts;
+
+        private Request(String url, ERequestPriority priority) {
+            this.url = url;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Instantiates a new request scheduler and starts its dispatcher thread.
+     *
+     * @param pullClient        the pull client sending the requests
+     * @param requestsPerMinute the number of requests allowed per minute
+     * @param burst             the number of requests allowed at once after a
+     *                          quiet period
+     */
+    public RequestScheduler(PullClient pullClient, int requestsPerMinute, int burst) {
+        this.pullClient = pullClient;
+        this.lanes = new ArrayList<ArrayDeque<Request>>();
+        for (int i = 0; i < ERequestPriority.values().length; i++) {
+            lanes.add(new ArrayDeque<Request>());
+        }
+        this.lastRefill = System.currentTimeMillis();
+        setRateLimit(requestsPerMinute, burst);
+        this.tokens = this.burst;
+
+        Thread dispatcher = new Thread(this::dispatchRequests, "Request scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Sets the rate limit, e. g. after the data provider has been changed.
+     * Queued requests are sent within the new limit.
+     *
+     * @param requestsPerMinute the number of requests allowed per minute
+     * @param burst             the number of requests allowed at once after a
+     *                          quiet period
+     */
+    public synchronized void setRateLimit(int requestsPerMinute, int burst) {
+        refillTokens(System.currentTimeMillis());
+        this.tokensPerMilli = Math.max(1, requestsPerMinute) / (double) TimeUnit.MINUTES.toMillis(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = Math.min(tokens, this.burst);
+        notifyAll();
+    }
+
+    /**
+     * Queues a GET request.
+     *
+     * @param url      the URL
+     * @param priority the priority of the request
+     * @return the future of the response body, completed with null if the
+     *         request fails
+     */
+    public synchronized CompletableFuture<String> submit(String url, ERequestPriority priority) {
+        Request request = pendingRequests.get(url);
+        if (request == null) {
+            request = new Request(url, priority);
+            pendingRequests.put(url, request);
+            enqueue(request);
+        } else if (priority.ordinal() < request.priority.ordinal()) {
+            if (request.queued) {
+                lanes.get(request.priority.ordinal()).remove(request);
+                request.priority = priority;
+                lanes.get(priority.ordinal()).addLast(request);
+            } else {
+                // waiting for a retry or in flight, queued in the new lane if it fails
+                request.priority = priority;
+            }
+        }
+        return request.future;
+    }
+
+    /**
+     * Queues a request in the lane of its priority.
+     *
+     * @param request the request
+     */
+    private synchronized void enqueue(Request request) {
+        request.queued = true;
+        lanes.get(request.priority.ordinal()).addLast(request);
+        notifyAll();
+    }
+
+    /**
+     * Takes the queued requests in the order of their priority and sends each
+     * of them as soon as there is a token for it. Runs on the dispatcher
+     * thread.
+     */
+    private void dispatchRequests() {
+        while (true) {
+            Request request;
+            try {
+                request = takeRequest();
+            } catch (InterruptedException e) {
+                return;
+            }
+            request.attempts++;
+            pullClient.fetchAsync(request.url).whenComplete((body, ex) -> requestCompleted(request, body, ex));
+        }
+    }
+
+    /**
+     * Waits for a queued request and a token to send it.
+     *
+     * @return the request of the highest priority
+     * @throws InterruptedException if the dispatcher thread is interrupted
+     */
+    private synchronized Request takeRequest() throws InterruptedException {
+        while (true) {
+            Request request = peekRequest();
+            long now = System.currentTimeMillis();
+            refillTokens(now);
+            if (request == null) {
+                wait();
+            } else if (now < pausedUntil) {
+                wait(pausedUntil - now);
+            } else if (tokens < 1) {
+                wait(Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMilli)));
+            } else {
+                tokens--;
+                lanes.get(request.priority.ordinal()).removeFirst();
+                request.queued = false;
+                return request;
+            }
+        }
+    }
+
+    /**
+     * Gets the first queued request of the highest priority.
+     *
+     * @return the request or null, if no request is queued
+     */
+    private Request peekRequest() {
+        for (ArrayDeque<Request> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return lane.peekFirst();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the tokens for the time passed since the last refill.
+     *
+     * @param now the current time in epoch milliseconds
+     */
+    private void refillTokens(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerMilli);
+        lastRefill = now;
+    }
+
+    /**
+     * Completes a request for all its callers or schedules its retry.
+     *
+     * @param request the request
+     * @param body    the response body, if successful
+     * @param ex      the error, if failed
+     */
+    private void requestCompleted(Request request, String body, Throwable ex) {
+        if (ex != null && request.attempts <= MAX_RETRIES && isTransient(ex)) {
+            long delay = getBackoffMillis(request, ex);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> enqueue(request));
+            return;
+        }
+
+        synchronized (this) {
+            pendingRequests.remove(request.url);
+        }
+        if (ex != null) {
+            System.err.println(PullClient.describeError(ex));
+            request.future.complete(null);
+        } else {
+            request.future.complete(body);
+        }
+    }
+
+    /**
+     * Gets the time to wait before sending a failed request again: the time
+     * requested by the data provider, or else a random time between half and
+     * all of an exponentially growing limit. A 429 response pauses all other
+     * requests as well.
+     *
+     * @param request the failed request
+     * @param ex      the error
+     * @return the waiting time in milliseconds
+     */
+    private long getBackoffMillis(Request request, Throwable ex) {
+        long limit = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (request.attempts - 1));
+        long delay = ThreadLocalRandom.current().nextLong(limit / 2, limit + 1);
+
+        Throwable cause = getCause(ex);
+        if (cause instanceof PullException && ((PullException) cause).getStatusCode() == 429) {
+            long retryAfter = ((PullException) cause).getRetryAfterMillis();
+            if (retryAfter >= 0) {
+                delay = retryAfter + ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MILLIS);
+            }
+            synchronized (this) {
+                pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + delay);
+                tokens = 0;
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * Checks if a failed request may succeed when sent again.
+     *
+     * @param ex the error
+     * @return true, if the request may be sent again
+     */
+    private boolean isTransient(Throwable ex) {
+        Throwable cause = getCause(ex);
+        if (cause instanceof PullException) {
+            return ((PullException) cause).isTransient();
+        }
+        // network errors and timeouts
+        return cause instanceof IOException;
+    }
+
+    private Throwable getCause(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+}
@@ -0,0 +1,128 @@
+package de.stocker.network;
+
+import java.nio.ByteBuffer;
+
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+
+/**
+ * The Class Utf8TextDraft is the web socket protocol draft used by the push
+ * client. It differs from the default draft only in how complete text frames
+ * are delivered: their payload is passed on as the received UTF-8 bytes, like
+ * binary frames, instead of being decoded into a string first. The push
+ * messages are parsed from the bytes directly, which saves decoding and
+ * copying every message. Fragmented text messages are still decoded and
+ * delivered as strings by the default draft.
+ *
+ * The checks of the default draft are kept: the payload is validated as UTF-8
+ * without decoding it, and a text frame received while a fragmented message
+ * isn't complete is left to the default draft, which rejects it. Both close
+ * the connection with the same status codes as before.
+ *
+ * @author Matthias Rudolph
+ */
+public class Utf8TextDraft extends Draft_6455 {
+
+    // a fragmented message has been started and not completed yet, used by
+    // the reading thread of the connection only
+    private boolean fragmented;
+
+    /**
+     * Passes the payload of complete text frames to the listener as bytes, all
+     * other frames are processed by the default draft.
+     *
+     * @param webSocketImpl the web socket the frame was received by
+     * @param frame the frame
+     * @throws InvalidDataException if the frame violates the protocol or the
+     * payload of a text frame isn't valid UTF-8
+     */
+    @Override
+    public void processFrame(WebSocketImpl webSocketImpl, Framedata frame) throws InvalidDataException {
+        Opcode opcode = frame.getOpcode();
+        if (opcode == Opcode.TEXT && frame.isFin() && !fragmented) {
+            if (!isValidUtf8(frame.getPayloadData())) {
+                throw new InvalidDataException(CloseFrame.NO_UTF8, "Invalid UTF-8 in text frame.");
+            }
+            try {
+                webSocketImpl.getWebSocketListener().onWebsocketMessage(webSocketImpl, frame.getPayloadData());
+            } catch (RuntimeException e) {
+                webSocketImpl.getWebSocketListener().onWebsocketError(webSocketImpl, e);
+            }
+            return;
+        }
+        if (opcode == Opcode.CONTINUOUS) {
+            fragmented = !frame.isFin();
+        } else if ((opcode == Opcode.TEXT || opcode == Opcode.BINARY) && !frame.isFin()) {
+            fragmented = true;
+        }
+        super.processFrame(webSocketImpl, frame);
+    }
+    
+    /**
+     * Checks if the remaining bytes of a buffer are valid UTF-8, without
+     * decoding them and without changing the position of the buffer. Overlong
+     * encodings, surrogates and code points above U+10FFFF are rejected.
+     *
+     * @param data the buffer
+     * @return true, if the bytes are valid UTF-8
+     */
+    static boolean isValidUtf8(ByteBuffer data) {
+        int limit = data.limit();
+        int i = data.position();
+        while (i < limit) {
+            int lead = data.get(i++) & 0xFF;
+            if (lead < 0x80) {
+                continue;
+            }
+            // the number of continuation bytes and the range of the first one
+            int count;
+            int low = 0x80;
+            int high = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                count = 1;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                count = 2;
+                if (lead == 0xE0) {
+                    low = 0xA0;
+                } else if (lead == 0xED) {
+                    high = 0x9F;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                count = 3;
+                if (lead == 0xF0) {
+                    low = 0x90;
+                } else if (lead == 0xF4) {
+                    high = 0x8F;
+                }
+            } else {
+                return false;
+            }
+            if (limit - i < count) {
+                return false;
+            }
+            for (int k = 0; k < count; k++) {
+                int b = data.get(i++) & 0xFF;
+                if (b < low || b > high) {
+                    return false;
+                }
+                low = 0x80;
+                high = 0xBF;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Draft copyInstance() {
+        return new Utf8TextDraft();
+    }
+
+}
@@ -3,6 +3,7 @@ package de.stocker.persistence;
 import java.awt.Color;
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -88,11 +89,14 @@ public class PersistenceController {
             String[] watchlistStocks = dataPersistenceModel.getWatchlistStockIds();
             Set<AlarmUnit> alarmUnits = dataPersistenceModel.getAlarmUnits();
 
-            // Add all active stocks back into the data base model
-            if (activeStocks != null) {
-                for (String s : activeStocks) {
-                    stockerModel.addStock(s);
-                }
+            // Add all active stocks back into the data base model. Their data
+            // is loaded in the background, the progress is shown in the status
+            // bar
+            if (activeStocks != null && activeStocks.length > 0) {
+                mainController.showStatus("Restoring stocks... 0/" + activeStocks.length);
+                stockerModel.addStocks(Arrays.asList(activeStocks), (stockId, done, total) -> {
+                    mainController.showStatus("Restoring stocks... " + done + "/" + total);
+                }).whenComplete((v, e) -> mainController.showStatus(""));
             }
 
             // Rebuild the watchlist
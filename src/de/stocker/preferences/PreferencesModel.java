@@ -3,6 +3,7 @@ package de.stocker.preferences;
 import java.awt.Color;
 import java.util.*;
 
+import de.stocker.common.EBackpressurePolicy;
 import de.stocker.common.EChartResolution;
 import de.stocker.common.EChartType;
 import de.stocker.model.dataWrappers.DataProvider;
@@ -38,6 +39,19 @@ public class PreferencesModel {
     private final transient Color DEFAULT_COLOR_ALARM = Color.RED;
     private final transient Color DEFAULT_COLOR_MOVING_AVG = Color.BLUE;
     private final transient Color DEFAULT_COLOR_BOLLINGER = Color.CYAN;
+    private final transient int DEFAULT_CHART_FRAME_RATE = 30;
+    
+    // Push data
+    private final transient int DEFAULT_PUSH_QUEUE_CAPACITY = 1024;
+    private final transient EBackpressurePolicy DEFAULT_PUSH_BACKPRESSURE_POLICY = EBackpressurePolicy.COALESCE;
+    private final transient int DEFAULT_PUSH_SHARD_COUNT = Runtime.getRuntime().availableProcessors();
+    
+    // Pull requests
+    private final transient int DEFAULT_PULL_CONNECT_TIMEOUT = 5000;
+    private final transient int DEFAULT_PULL_READ_TIMEOUT = 15000;
+    
+    // Metrics, the log dump is opt-in, JMX is always available
+    private final transient int DEFAULT_METRICS_LOG_INTERVAL = 0;
     
     /*
      * ACTIVE
@@ -56,12 +70,26 @@ public class PreferencesModel {
     private Color colorAlarm;
     private Color colorMovingAvg;
     private Color colorBollinger;
+    // maximum number of chart repaints per second on push updates
+    private int chartFrameRate;
     
     // Data
     private List<DataProvider> dataProviders;
     private Integer activeDataProvider;
     private transient DataProvTableModel dataTableModel;
     
+    // Push data
+    private int pushQueueCapacity;
+    private EBackpressurePolicy pushBackpressurePolicy;
+    private int pushShardCount;
+    
+    // Pull requests, timeouts in milliseconds
+    private int pullConnectTimeout;
+    private int pullReadTimeout;
+    
+    // Metrics, interval of the log dump in seconds, 0 to turn it off
+    private Integer metricsLogInterval;
+    
     /**
      * Instantiates a new preferences model.
      */
@@ -87,15 +115,28 @@ public class PreferencesModel {
         colorAlarm = DEFAULT_COLOR_ALARM;
         colorBollinger = DEFAULT_COLOR_BOLLINGER;
         colorMovingAvg = DEFAULT_COLOR_MOVING_AVG;
+        chartFrameRate = DEFAULT_CHART_FRAME_RATE;
         
         // Data
         dataProviders = new ArrayList<DataProvider>() {{
+            // the default rate limit of a local server is high enough not to limit it
             add(new DataProvider("Kursdatengenerator", "", "http://localhost:8080", "ws://localhost:8090"));
             add(new DataProvider("Finnhub", "", "https://finnhub.io/api/v1", "wss://ws.finnhub.io"));
         }};
         activeDataProvider = 1;
         dataTableModel = new DataProvTableModel(dataProviders, activeDataProvider);
         
+        // Push data
+        pushQueueCapacity = DEFAULT_PUSH_QUEUE_CAPACITY;
+        pushBackpressurePolicy = DEFAULT_PUSH_BACKPRESSURE_POLICY;
+        pushShardCount = DEFAULT_PUSH_SHARD_COUNT;
+        
+        // Pull requests
+        pullConnectTimeout = DEFAULT_PULL_CONNECT_TIMEOUT;
+        pullReadTimeout = DEFAULT_PULL_READ_TIMEOUT;
+        
+        // Metrics
+        metricsLogInterval = DEFAULT_METRICS_LOG_INTERVAL;
     }
 
     /**
@@ -206,6 +247,150 @@ public class PreferencesModel {
         this.minHeightChartFrame = minHeightChartFrame;
     }
 
+    /**
+     * Gets the maximum number of times per second the charts are repainted
+     * on push updates. Falls back to the default for preferences saved before
+     * the setting existed.
+     *
+     * @return the chart frame rate
+     */
+    public int getChartFrameRate() {
+        return chartFrameRate > 0 ? chartFrameRate : DEFAULT_CHART_FRAME_RATE;
+    }
+
+    /**
+     * Sets the maximum number of times per second the charts are repainted on
+     * push updates.
+     *
+     * @param chartFrameRate the new chart frame rate
+     */
+    public void setChartFrameRate(int chartFrameRate) {
+        this.chartFrameRate = chartFrameRate;
+    }
+
+    /**
+     * Gets the capacity of the queue of incoming push messages. Falls back to
+     * the default for preferences saved before the setting existed.
+     *
+     * @return the push queue capacity
+     */
+    public int getPushQueueCapacity() {
+        return pushQueueCapacity > 0 ? pushQueueCapacity : DEFAULT_PUSH_QUEUE_CAPACITY;
+    }
+
+    /**
+     * Sets the capacity of the queue of incoming push messages.
+     *
+     * @param pushQueueCapacity the new push queue capacity
+     */
+    public void setPushQueueCapacity(int pushQueueCapacity) {
+        this.pushQueueCapacity = pushQueueCapacity;
+    }
+
+    /**
+     * Gets the policy for handling push messages while the push queue is full.
+     * Falls back to the default for preferences saved before the setting
+     * existed.
+     *
+     * @return the push backpressure policy
+     */
+    public EBackpressurePolicy getPushBackpressurePolicy() {
+        return pushBackpressurePolicy != null ? pushBackpressurePolicy : DEFAULT_PUSH_BACKPRESSURE_POLICY;
+    }
+
+    /**
+     * Sets the policy for handling push messages while the push queue is full.
+     *
+     * @param pushBackpressurePolicy the new push backpressure policy
+     */
+    public void setPushBackpressurePolicy(EBackpressurePolicy pushBackpressurePolicy) {
+        this.pushBackpressurePolicy = pushBackpressurePolicy;
+    }
+
+    /**
+     * Gets the number of threads applying push data in parallel, each
+     * responsible for a fixed share of the stocks. Falls back to the default,
+     * the number of available processors, for preferences saved before the
+     * setting existed.
+     *
+     * @return the push shard count
+     */
+    public int getPushShardCount() {
+        return pushShardCount > 0 ? pushShardCount : DEFAULT_PUSH_SHARD_COUNT;
+    }
+
+    /**
+     * Sets the number of threads applying push data in parallel.
+     *
+     * @param pushShardCount the new push shard count
+     */
+    public void setPushShardCount(int pushShardCount) {
+        this.pushShardCount = pushShardCount;
+    }
+
+    /**
+     * Gets the timeout for connecting to the data provider for API requests in
+     * milliseconds. Falls back to the default for preferences saved before the
+     * setting existed.
+     *
+     * @return the pull connect timeout
+     */
+    public int getPullConnectTimeout() {
+        return pullConnectTimeout > 0 ? pullConnectTimeout : DEFAULT_PULL_CONNECT_TIMEOUT;
+    }
+
+    /**
+     * Sets the timeout for connecting to the data provider for API requests in
+     * milliseconds.
+     *
+     * @param pullConnectTimeout the new pull connect timeout
+     */
+    public void setPullConnectTimeout(int pullConnectTimeout) {
+        this.pullConnectTimeout = pullConnectTimeout;
+    }
+
+    /**
+     * Gets the timeout for receiving the response of an API request in
+     * milliseconds. Falls back to the default for preferences saved before the
+     * setting existed.
+     *
+     * @return the pull read timeout
+     */
+    public int getPullReadTimeout() {
+        return pullReadTimeout > 0 ? pullReadTimeout : DEFAULT_PULL_READ_TIMEOUT;
+    }
+
+    /**
+     * Sets the timeout for receiving the response of an API request in
+     * milliseconds.
+     *
+     * @param pullReadTimeout the new pull read timeout
+     */
+    public void setPullReadTimeout(int pullReadTimeout) {
+        this.pullReadTimeout = pullReadTimeout;
+    }
+
+    /**
+     * Gets the interval in seconds in which the metrics are written to the
+     * log, 0 if they are not, which is the default. Falls back to the default
+     * for preferences saved before the setting existed.
+     *
+     * @return the metrics log interval
+     */
+    public int getMetricsLogInterval() {
+        return metricsLogInterval != null ? Math.max(0, metricsLogInterval) : DEFAULT_METRICS_LOG_INTERVAL;
+    }
+
+    /**
+     * Sets the interval in seconds in which the metrics are written to the
+     * log, 0 to turn the log dump off.
+     *
+     * @param metricsLogInterval the new metrics log interval
+     */
+    public void setMetricsLogInterval(int metricsLogInterval) {
+        this.metricsLogInterval = metricsLogInterval;
+    }
+
     /**
      * Gets the chart resolution.
      *
@@ -0,0 +1,45 @@
+package de.stocker.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Enum EBurstProfile varies the rate of the simulated trades over time,
+ * relative to the configured rate.
+ *
+ * @author Matthias Rudolph
+ */
+public enum EBurstProfile {
+
+    /** The configured rate all the time. */
+    STEADY,
+
+    /** Ten times the rate for one second out of ten, like news hitting the market. */
+    SPIKES,
+
+    /** A rate rising to almost twice and falling to a tenth of the configured one in a minute. */
+    WAVES;
+
+    private static final long SPIKE_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long SPIKE_LENGTH_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final double SPIKE_FACTOR = 10;
+    private static final long WAVE_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final double WAVE_AMPLITUDE = 0.9;
+
+    /**
+     * Gets the factor applied to the configured rate at a time.
+     *
+     * @param elapsedMillis the time since the simulator was started
+     * @return the rate factor
+     */
+    public double getRateFactor(long elapsedMillis) {
+        switch (this) {
+        case SPIKES:
+            return elapsedMillis % SPIKE_PERIOD_MILLIS < SPIKE_LENGTH_MILLIS ? SPIKE_FACTOR : 1;
+        case WAVES:
+            return 1 + WAVE_AMPLITUDE * Math.sin(2 * Math.PI * elapsedMillis / WAVE_PERIOD_MILLIS);
+        default:
+            return 1;
+        }
+    }
+
+}
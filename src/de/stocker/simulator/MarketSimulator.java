@@ -0,0 +1,65 @@
+package de.stocker.simulator;
+
+import java.io.IOException;
+
+/**
+ * The Class MarketSimulator is a stand-in for the data provider
+ * "Kursdatengenerator" on the local machine, for load tests without an
+ * external network. It serves candles, quotes and the search over HTTP and
+ * pushes trades over a web socket, like the finnhub API, with the data of a
+ * {@link SimulatedMarket}.
+ *
+ * The number of stocks, the trade rate, its burst profile and the latencies
+ * are set with command line arguments, see {@link SimulatorConfig}. The
+ * simulator runs until it is terminated.
+ *
+ * @author Matthias Rudolph
+ */
+public class MarketSimulator {
+
+    /**
+     * Starts the simulator.
+     *
+     * @param args the command line arguments, e. g. "--trades 10000"
+     */
+    public static void main(String[] args) {
+        SimulatorConfig config;
+        try {
+            config = SimulatorConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(SimulatorConfig.getUsage());
+            System.exit(1);
+            return;
+        }
+
+        SimulatedMarket market = new SimulatedMarket(config.getSymbolCount(), config.getHistoryDays(),
+                config.getSeed());
+        SimulatedPullServer pullServer;
+        try {
+            pullServer = new SimulatedPullServer(market, config);
+        } catch (IOException e) {
+            System.err.println("Error: Can't listen on port " + config.getHttpPort() + ". " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        SimulatedPushServer pushServer = new SimulatedPushServer(market, config);
+
+        pullServer.start();
+        pushServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            pullServer.stop();
+            try {
+                pushServer.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Simulator shutdown"));
+
+        System.out.println("Market simulator started: http://localhost:" + config.getHttpPort() + ", ws://localhost:"
+                + config.getPushPort() + ", " + config.getSymbolCount() + " stocks " + market.getSymbol(0) + " to "
+                + market.getSymbol(config.getSymbolCount() - 1) + ", " + config.getTradesPerSecond()
+                + " trades per second (" + config.getBurstProfile().name().toLowerCase() + ").");
+    }
+
+}
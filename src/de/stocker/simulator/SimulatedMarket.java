@@ -0,0 +1,318 @@
+package de.stocker.simulator;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.json.JsonFactory;
+import de.stocker.model.CandleBuckets;
+
+/**
+ * The Class SimulatedMarket is the market of the simulator: a number of
+ * stocks SIM:S0001, SIM:S0002, ... traded around the clock, their candles,
+ * quotes and trades, written in the format of the finnhub API.
+ *
+ * The price of a stock is a function of time, a few overlaid waves of
+ * different lengths with phases drawn from the seed. Candles are made up of
+ * the one minute candles of that function, so a request gets the same candles
+ * whenever it is sent, the candles of all resolutions fit together, and the
+ * trades pushed later continue them. Only the trades have random noise on top.
+ *
+ * @author Matthias Rudolph
+ */
+public class SimulatedMarket {
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final String SYMBOL_PREFIX = "SIM:S";
+    private final int MAX_SEARCH_RESULTS = 20;
+    // longer ranges are cut off at the start, like by the data provider
+    private final int MAX_CANDLES = 20000;
+    private final double TRADE_NOISE = 0.0002;
+
+    // waves of the price: length in minutes and amplitude of the log price
+    private final double[] WAVE_MINUTES = { 120 * 1440, 7 * 1440, 1440, 53 };
+    private final double[] WAVE_AMPLITUDES = { 0.2, 0.06, 0.02, 0.004 };
+
+    private final long seed;
+    private final String[] symbols;
+    private final Map<String, Integer> symbolIndexes = new HashMap<String, Integer>();
+    private final double[] basePrices;
+    private final double[][] wavePeriods;
+    private final double[][] wavePhases;
+    // no candles before, as if the stocks were listed then
+    private final long historyStart;
+
+    /**
+     * Instantiates a new simulated market.
+     *
+     * @param symbolCount the number of stocks
+     * @param historyDays the number of days with candles before now
+     * @param seed        the seed of the prices
+     */
+    public SimulatedMarket(int symbolCount, int historyDays, long seed) {
+        this.seed = seed;
+        this.symbols = new String[symbolCount];
+        this.basePrices = new double[symbolCount];
+        this.wavePeriods = new double[symbolCount][WAVE_MINUTES.length];
+        this.wavePhases = new double[symbolCount][WAVE_MINUTES.length];
+        this.historyStart = CandleBuckets.getBucketStart(EChartResolution.DAY, System.currentTimeMillis())
+                - TimeUnit.DAYS.toMillis(historyDays);
+
+        int digits = Math.max(4, String.valueOf(symbolCount).length());
+        Random random = new Random(seed);
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = SYMBOL_PREFIX + String.format("%0" + digits + "d", i + 1);
+            symbolIndexes.put(symbols[i], i);
+            // from 5 to 500, as many cheap as expensive stocks
+            basePrices[i] = 5 * Math.pow(100, random.nextDouble());
+            for (int w = 0; w < WAVE_MINUTES.length; w++) {
+                wavePeriods[i][w] = WAVE_MINUTES[w] * (0.7 + 0.6 * random.nextDouble());
+                wavePhases[i][w] = 2 * Math.PI * random.nextDouble();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stocks.
+     *
+     * @return the symbol count
+     */
+    public int getSymbolCount() {
+        return symbols.length;
+    }
+
+    /**
+     * Gets the symbol of a stock.
+     *
+     * @param index the index of the stock
+     * @return the symbol
+     */
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * Gets the index of a stock.
+     *
+     * @param symbol the symbol
+     * @return the index or -1, if there is no such stock
+     */
+    public int indexOf(String symbol) {
+        Integer index = symbolIndexes.get(symbol);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Writes the candles of a stock in a time range like the finnhub candle
+     * endpoint, e. g. {"c":[...],"h":[...],"l":[...],"o":[...],"s":"ok","t":[...],"v":[...]},
+     * or {"s":"no_data"} if there are none.
+     *
+     * @param symbol     the symbol
+     * @param resolution the resolution
+     * @param from       the start of the range in epoch seconds
+     * @param to         the end of the range in epoch seconds
+     * @return the JSON response
+     */
+    public String writeCandles(String symbol, EChartResolution resolution, long from, long to) {
+        int index = indexOf(symbol);
+        long now = System.currentTimeMillis();
+        long fromMillis = Math.max(TimeUnit.SECONDS.toMillis(from), historyStart);
+        long toMillis = Math.min(TimeUnit.SECONDS.toMillis(to), now);
+        if (index < 0 || fromMillis > toMillis) {
+            return "{\"s\":\"no_data\"}";
+        }
+
+        // the start of the first bucket within the range, cut off at the maximum number of candles
+        long start = CandleBuckets.getBucketStart(resolution, fromMillis);
+        if (start < fromMillis) {
+            start = CandleBuckets.getNextBucketStart(resolution, start);
+        }
+        long first = CandleBuckets.getBucketStart(resolution, toMillis);
+        for (int n = 1; n < MAX_CANDLES && first > start; n++) {
+            first = CandleBuckets.getBucketStart(resolution, first - 1);
+        }
+        start = Math.max(start, first);
+
+        StringBuilder t = new StringBuilder("\"t\":[");
+        StringBuilder o = new StringBuilder("\"o\":[");
+        StringBuilder h = new StringBuilder("\"h\":[");
+        StringBuilder l = new StringBuilder("\"l\":[");
+        StringBuilder c = new StringBuilder("\"c\":[");
+        StringBuilder v = new StringBuilder("\"v\":[");
+        double[] candle = new double[5];
+        int count = 0;
+        for (; start <= toMillis; start = CandleBuckets.getNextBucketStart(resolution, start)) {
+            aggregateCandles(index, start, Math.min(CandleBuckets.getNextBucketStart(resolution, start), now), candle);
+            String separator = count++ > 0 ? "," : "";
+            t.append(separator).append(TimeUnit.MILLISECONDS.toSeconds(start));
+            o.append(separator).append(candle[0]);
+            h.append(separator).append(candle[1]);
+            l.append(separator).append(candle[2]);
+            c.append(separator).append(candle[3]);
+            v.append(separator).append((long) candle[4]);
+        }
+        if (count == 0) {
+            return "{\"s\":\"no_data\"}";
+        }
+        return "{" + c + "]," + h + "]," + l + "]," + o + "],\"s\":\"ok\"," + t + "]," + v + "]}";
+    }
+
+    /**
+     * Writes the quote of a stock like the finnhub quote endpoint, e. g.
+     * {"c":261.74,"h":263.31,"l":260.68,"o":261.07,"pc":259.45,"t":1582641000},
+     * with all values 0 if there is no such stock.
+     *
+     * @param symbol the symbol
+     * @return the JSON response
+     */
+    public String writeQuote(String symbol) {
+        JsonObject quote = new JsonObject();
+        int index = indexOf(symbol);
+        long now = System.currentTimeMillis();
+        if (index < 0) {
+            for (String key : new String[] { "c", "h", "l", "o", "pc", "t" }) {
+                quote.addProperty(key, 0);
+            }
+            return JsonFactory.objectToJson(quote);
+        }
+
+        long dayStart = CandleBuckets.getBucketStart(EChartResolution.DAY, now);
+        double[] day = new double[5];
+        aggregateCandles(index, dayStart, now, day);
+        double price = roundPrice(getPrice(index, now));
+        quote.addProperty("c", price);
+        quote.addProperty("h", Math.max(day[1], price));
+        quote.addProperty("l", Math.min(day[2], price));
+        quote.addProperty("o", day[0]);
+        quote.addProperty("pc", roundPrice(getPrice(index, dayStart)));
+        quote.addProperty("t", TimeUnit.MILLISECONDS.toSeconds(now));
+        return JsonFactory.objectToJson(quote);
+    }
+
+    /**
+     * Writes the stocks whose symbol or description contains a text like the
+     * finnhub search endpoint, e. g. {"count":1,"result":[{"description":
+     * "SIMULATED STOCK 1","displaySymbol":"SIM:S0001","symbol":"SIM:S0001",
+     * "type":"Common Stock"}]}.
+     *
+     * @param query the text, case is ignored
+     * @return the JSON response
+     */
+    public String writeSearch(String query) {
+        String text = query.toUpperCase(Locale.ROOT);
+        JsonArray result = new JsonArray();
+        for (int i = 0; i < symbols.length && result.size() < MAX_SEARCH_RESULTS; i++) {
+            String description = getDescription(i);
+            if (symbols[i].contains(text) || description.contains(text)) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("description", description);
+                entry.addProperty("displaySymbol", symbols[i]);
+                entry.addProperty("symbol", symbols[i]);
+                entry.addProperty("type", "Common Stock");
+                result.add(entry);
+            }
+        }
+        JsonObject search = new JsonObject();
+        search.addProperty("count", result.size());
+        search.add("result", result);
+        return JsonFactory.objectToJson(search);
+    }
+
+    /**
+     * Appends a trade of a stock in the format of the finnhub trade messages,
+     * e. g. {"p":7296.89,"s":"SIM:S0001","t":1575526691134,"v":12}.
+     *
+     * @param sb     the string builder of the message
+     * @param index  the index of the stock
+     * @param time   the time of the trade in epoch milliseconds
+     * @param random the source of the price noise and the volume
+     */
+    public void appendTrade(StringBuilder sb, int index, long time, SplittableRandom random) {
+        double noise = 1 + TRADE_NOISE * (2 * random.nextDouble() - 1);
+        sb.append("{\"p\":").append(roundPrice(getPrice(index, time) * noise));
+        sb.append(",\"s\":\"").append(symbols[index]);
+        sb.append("\",\"t\":").append(time);
+        sb.append(",\"v\":").append(1 + random.nextInt(100)).append('}');
+    }
+
+    private String getDescription(int index) {
+        return "SIMULATED STOCK " + (index + 1);
+    }
+
+    /**
+     * Gets the price of a stock at a time, without noise.
+     *
+     * @param index the index of the stock
+     * @param time  the time in epoch milliseconds
+     * @return the price
+     */
+    private double getPrice(int index, long time) {
+        double minutes = (double) time / MINUTE_MILLIS;
+        double logPrice = 0;
+        for (int w = 0; w < WAVE_MINUTES.length; w++) {
+            double angle = 2 * Math.PI * minutes / wavePeriods[index][w] + wavePhases[index][w];
+            logPrice += WAVE_AMPLITUDES[w] * Math.sin(angle);
+        }
+        return basePrices[index] * Math.exp(logPrice);
+    }
+
+    /**
+     * Aggregates the one minute candles of a stock in a time range.
+     *
+     * @param index  the index of the stock
+     * @param start  the start of the range in epoch milliseconds, the start of
+     *               a minute
+     * @param end    the end of the range in epoch milliseconds, exclusive
+     * @param candle receives open, high, low, close and volume
+     */
+    private void aggregateCandles(int index, long start, long end, double[] candle) {
+        double low = Double.MAX_VALUE;
+        double high = 0;
+        double volume = 0;
+        double open = getPrice(index, start);
+        double close = open;
+        // the last minute is included up to the end, e. g. now
+        for (long minute = start; minute < end || minute == start; minute += MINUTE_MILLIS) {
+            double minuteOpen = close;
+            close = getPrice(index, Math.min(minute + MINUTE_MILLIS, end));
+            double spread = minuteOpen * 0.001 * (0.2 + getNoise(index, minute, 0));
+            high = Math.max(high, Math.max(minuteOpen, close) + spread * getNoise(index, minute, 1));
+            low = Math.min(low, Math.min(minuteOpen, close) - spread * getNoise(index, minute, 2));
+            volume += 100 + (long) (900 * getNoise(index, minute, 3));
+        }
+        candle[0] = roundPrice(open);
+        candle[1] = roundPrice(high);
+        candle[2] = roundPrice(low);
+        candle[3] = roundPrice(close);
+        candle[4] = volume;
+    }
+
+    /**
+     * Gets the noise of a one minute candle, the same whenever requested.
+     *
+     * @param index  the index of the stock
+     * @param minute the start of the minute in epoch milliseconds
+     * @param key    the key of the value, e. g. 0 for the spread
+     * @return a value from 0 to 1
+     */
+    private double getNoise(int index, long minute, int key) {
+        long h = seed * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L + minute / MINUTE_MILLIS * 4 + key;
+        // SplitMix64 finalizer
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    private double roundPrice(double price) {
+        return Math.round(price * 100) / 100.0;
+    }
+
+}
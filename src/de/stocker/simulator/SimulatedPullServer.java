@@ -0,0 +1,184 @@
+package de.stocker.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.network.EPullOperation;
+
+/**
+ * The Class SimulatedPullServer answers the pull requests of the app with the
+ * data of the simulated market, on the paths of {@link EPullOperation}. The
+ * responses can be delayed by a fixed and a random latency, and a share of
+ * the requests can be answered with 429 (too many requests), to see how the
+ * app copes with a slow or throttling data provider.
+ *
+ * @author Matthias Rudolph
+ */
+public class SimulatedPullServer {
+
+    // requests answered at the same time, each waiting for its latency
+    private final int THREAD_COUNT = 32;
+    private final int RETRY_AFTER_SECONDS = 1;
+
+    private final SimulatedMarket market;
+    private final SimulatorConfig config;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Instantiates a new pull server listening on the configured port.
+     *
+     * @param market the simulated market
+     * @param config the settings of the simulator
+     * @throws IOException if the port can't be bound
+     */
+    public SimulatedPullServer(SimulatedMarket market, SimulatorConfig config) throws IOException {
+        this.market = market;
+        this.config = config;
+        this.server = HttpServer.create(new InetSocketAddress(config.getHttpPort()), 0);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREAD_COUNT, r -> {
+            Thread t = new Thread(r, "Pull server " + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+
+        server.createContext(EPullOperation.CANDLE.getPath(), exchange -> handle(exchange, this::getCandles));
+        server.createContext(EPullOperation.QUOTE.getPath(),
+                exchange -> handle(exchange, parameters -> market.writeQuote(getParameter(parameters, "symbol"))));
+        server.createContext(EPullOperation.SEARCH.getPath(),
+                exchange -> handle(exchange, parameters -> market.writeSearch(getParameter(parameters, "q"))));
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops answering requests.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answers a request after the configured latency, with a 429 response by
+     * the configured error rate, with a 400 response if a parameter is
+     * missing or invalid, or else with the response of the endpoint.
+     *
+     * @param exchange the request and response
+     * @param endpoint the endpoint writing the response from the query
+     *                 parameters
+     * @throws IOException if the response can't be sent
+     */
+    private void handle(HttpExchange exchange, Function<Map<String, String>, String> endpoint) throws IOException {
+        try {
+            long latency = config.getPullLatencyMillis()
+                    + ThreadLocalRandom.current().nextLong(config.getPullLatencyJitterMillis() + 1);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            if (ThreadLocalRandom.current().nextDouble() < config.getPullErrorRate()) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                send(exchange, 429, "{\"error\":\"API limit reached. Please try again later.\"}");
+                return;
+            }
+
+            String response;
+            try {
+                response = endpoint.apply(getParameters(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, "{\"error\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            send(exchange, 200, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Gets the candles for the parameters of a candle request.
+     *
+     * @param parameters the query parameters
+     * @return the JSON response
+     */
+    private String getCandles(Map<String, String> parameters) {
+        String urlString = getParameter(parameters, "resolution");
+        EChartResolution resolution = EChartResolution.fromUrlString(urlString);
+        if (resolution == null) {
+            throw new IllegalArgumentException("Unsupported resolution " + urlString);
+        }
+        try {
+            long from = Long.parseLong(getParameter(parameters, "from"));
+            long to = Long.parseLong(getParameter(parameters, "to"));
+            return market.writeCandles(getParameter(parameters, "symbol"), resolution, from, to);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time range");
+        }
+    }
+
+    private void send(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Gets a query parameter.
+     *
+     * @param parameters the query parameters
+     * @param name       the name of the parameter
+     * @return the value
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    private String getParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private Map<String, String> getParameters(String query) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int i = pair.indexOf('=');
+            if (i > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, i), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(i + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+}
@@ -0,0 +1,246 @@
+package de.stocker.simulator;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import de.stocker.json.JsonFactory;
+
+/**
+ * The Class SimulatedPushServer pushes the trades of the simulated market to
+ * the connected clients, like the finnhub web socket: clients subscribe stocks
+ * with messages like {"type":"subscribe","symbol":"SIM:S0001"} and receive
+ * messages like {"data":[{"p":..,"s":"SIM:S0001","t":..,"v":..}],"type":"trade"}.
+ *
+ * Every few milliseconds, a generator thread sends each client one message
+ * with the trades due since the last one, at the configured rate varied by
+ * the burst profile, spread over the stocks the client has subscribed.
+ * Trades can be sent older than they are, as if they had been delayed on
+ * the way, and all connections can be dropped regularly, to see the app
+ * restore them.
+ *
+ * @author Matthias Rudolph
+ */
+public class SimulatedPushServer extends WebSocketServer {
+
+    private final long TICK_MILLIS = 10;
+    // pong timeout, like on the client side
+    private final int CONNECTION_LOST_TIMEOUT = 30;
+
+    private final SimulatedMarket market;
+    private final SimulatorConfig config;
+    private final ScheduledExecutorService generator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Trade generator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // used by the generator thread only
+    private final SplittableRandom random;
+    private long startTime;
+    private long lastTick;
+    // trades due but not sent yet, less than one
+    private double tradesDue;
+
+    /**
+     * The stocks subscribed by a client, attached to its connection.
+     */
+    private static class Subscriptions {
+        private final Set<Integer> indexes = new LinkedHashSet<Integer>();
+        // copy read by the generator thread without locking
+        private volatile int[] snapshot = new int[0];
+
+        private synchronized void add(int index) {
+            if (indexes.add(index)) {
+                update();
+            }
+        }
+
+        private synchronized void remove(int index) {
+            if (indexes.remove(index)) {
+                update();
+            }
+        }
+
+        private void update() {
+            snapshot = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Instantiates a new push server listening on the configured port.
+     *
+     * @param market the simulated market
+     * @param config the settings of the simulator
+     */
+    public SimulatedPushServer(SimulatedMarket market, SimulatorConfig config) {
+        super(new InetSocketAddress(config.getPushPort()));
+        this.market = market;
+        this.config = config;
+        this.random = new SplittableRandom(config.getSeed());
+        setReuseAddr(true);
+        setConnectionLostTimeout(CONNECTION_LOST_TIMEOUT);
+    }
+
+    /**
+     * Starts generating trades as soon as the server is listening, and
+     * dropping the connections if configured.
+     */
+    @Override
+    public void onStart() {
+        startTime = System.currentTimeMillis();
+        lastTick = startTime;
+        generator.scheduleAtFixedRate(this::sendTrades, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        int outageInterval = config.getOutageIntervalSeconds();
+        if (outageInterval > 0) {
+            generator.scheduleAtFixedRate(this::dropConnections, outageInterval, outageInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Attaches the subscriptions to a new connection.
+     *
+     * @param conn      the connection
+     * @param handshake the client handshake
+     */
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        conn.setAttachment(new Subscriptions());
+        System.out.println("Client connected, " + getConnections().size() + " connected.");
+    }
+
+    /**
+     * Logs a closed connection.
+     *
+     * @param conn   the connection
+     * @param code   the close code
+     * @param reason the close reason
+     * @param remote true, if closed by the client
+     */
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        System.out.println("Client disconnected (" + code + "), " + getConnections().size() + " connected.");
+    }
+
+    /**
+     * Subscribes or unsubscribes a stock for a client. Messages of other types
+     * and unknown stocks are ignored.
+     *
+     * @param conn    the connection
+     * @param message the message, e. g. {"type":"subscribe","symbol":"SIM:S0001"}
+     */
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        Subscriptions subscriptions = conn.getAttachment();
+        JsonObject json;
+        try {
+            json = JsonFactory.jsonToObject(message, JsonObject.class);
+        } catch (RuntimeException e) {
+            System.err.println("Error: Invalid message " + message);
+            return;
+        }
+        if (subscriptions == null || json == null) {
+            return;
+        }
+        JsonElement type = json.get("type");
+        JsonElement symbol = json.get("symbol");
+        int index = symbol != null && symbol.isJsonPrimitive() ? market.indexOf(symbol.getAsString()) : -1;
+        if (type == null || index < 0) {
+            return;
+        }
+        if ("subscribe".equals(type.getAsString())) {
+            subscriptions.add(index);
+        } else if ("unsubscribe".equals(type.getAsString())) {
+            subscriptions.remove(index);
+        }
+    }
+
+    /**
+     * Logs an error.
+     *
+     * @param conn the connection, null if the error isn't related to one
+     * @param ex   the error
+     */
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        System.err.println("Error: Web socket server. " + ex.getMessage());
+    }
+
+    /**
+     * Stops the server and the generator.
+     *
+     * @throws InterruptedException if interrupted while closing the
+     *                              connections
+     */
+    public void shutdown() throws InterruptedException {
+        generator.shutdownNow();
+        stop(1000);
+    }
+
+    /**
+     * Sends the trades due since the last tick to every client. Runs on the
+     * generator thread.
+     */
+    private void sendTrades() {
+        long now = System.currentTimeMillis();
+        double rate = config.getTradesPerSecond() * config.getBurstProfile().getRateFactor(now - startTime);
+        tradesDue += rate * (now - lastTick) / TimeUnit.SECONDS.toMillis(1);
+        int count = (int) tradesDue;
+        tradesDue -= count;
+        long tickStart = lastTick;
+        lastTick = now;
+        if (count == 0) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (WebSocket conn : getConnections()) {
+            Subscriptions subscriptions = conn.getAttachment();
+            int[] indexes = subscriptions != null ? subscriptions.snapshot : null;
+            if (indexes == null || indexes.length == 0 || !conn.isOpen()) {
+                continue;
+            }
+
+            sb.setLength(0);
+            sb.append("{\"data\":[");
+            for (int i = 0; i < count; i++) {
+                // spread over the tick, delayed by the push latency
+                long time = tickStart + (now - tickStart) * (i + 1) / count - config.getPushLatencyMillis();
+                if (i > 0) {
+                    sb.append(',');
+                }
+                market.appendTrade(sb, indexes[random.nextInt(indexes.length)], time, random);
+            }
+            sb.append("],\"type\":\"trade\"}");
+            try {
+                conn.send(sb.toString());
+            } catch (RuntimeException e) {
+                // closed in the meantime
+            }
+        }
+    }
+
+    /**
+     * Drops all connections, as if the network was lost. Runs on the generator
+     * thread.
+     */
+    private void dropConnections() {
+        System.out.println("Simulated outage, dropping " + getConnections().size() + " connections.");
+        for (WebSocket conn : getConnections()) {
+            conn.close(CloseFrame.GOING_AWAY, "Simulated outage");
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package de.stocker.simulator;
+
+/**
+ * The Class SimulatorConfig holds the settings of the market simulator, read
+ * from the command line arguments, e. g.
+ * "--symbols 500 --trades 10000 --burst spikes --latency 50".
+ *
+ * @author Matthias Rudolph
+ */
+public class SimulatorConfig {
+
+    private int httpPort = 8080;
+    private int pushPort = 8090;
+    private int symbolCount = 100;
+    private int historyDays = 730;
+    private double tradesPerSecond = 1000;
+    private EBurstProfile burstProfile = EBurstProfile.STEADY;
+    private long pullLatencyMillis = 0;
+    private long pullLatencyJitterMillis = 0;
+    private long pushLatencyMillis = 0;
+    private double pullErrorRate = 0;
+    private int outageIntervalSeconds = 0;
+    private long seed = 1;
+
+    /**
+     * Reads the settings from the command line arguments. Settings not given
+     * keep their default.
+     *
+     * @param args the command line arguments
+     * @return the settings
+     * @throws IllegalArgumentException if an argument is unknown or its value
+     *                                  is invalid
+     */
+    public static SimulatorConfig fromArgs(String[] args) {
+        SimulatorConfig config = new SimulatorConfig();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            try {
+                switch (name) {
+                case "--http-port":
+                    config.httpPort = Integer.parseInt(value);
+                    break;
+                case "--push-port":
+                    config.pushPort = Integer.parseInt(value);
+                    break;
+                case "--symbols":
+                    config.symbolCount = Integer.parseInt(value);
+                    break;
+                case "--history-days":
+                    config.historyDays = Integer.parseInt(value);
+                    break;
+                case "--trades":
+                    config.tradesPerSecond = Double.parseDouble(value);
+                    break;
+                case "--burst":
+                    config.burstProfile = EBurstProfile.valueOf(value.toUpperCase());
+                    break;
+                case "--latency":
+                    config.pullLatencyMillis = Long.parseLong(value);
+                    break;
+                case "--latency-jitter":
+                    config.pullLatencyJitterMillis = Long.parseLong(value);
+                    break;
+                case "--push-latency":
+                    config.pushLatencyMillis = Long.parseLong(value);
+                    break;
+                case "--error-rate":
+                    config.pullErrorRate = Double.parseDouble(value);
+                    break;
+                case "--outage-interval":
+                    config.outageIntervalSeconds = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    config.seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+            }
+        }
+        if (config.symbolCount < 1 || config.historyDays < 1 || config.tradesPerSecond < 0
+                || config.pullLatencyMillis < 0 || config.pullLatencyJitterMillis < 0
+                || config.pushLatencyMillis < 0 || config.pullErrorRate < 0 || config.pullErrorRate > 1
+                || config.outageIntervalSeconds < 0) {
+            throw new IllegalArgumentException("Value out of range");
+        }
+        return config;
+    }
+
+    /**
+     * Gets the usage of the command line arguments.
+     *
+     * @return the usage text
+     */
+    public static String getUsage() {
+        return String.join(System.lineSeparator(),
+                "Options:",
+                "  --http-port <port>         port of the pull requests (8080)",
+                "  --push-port <port>         port of the web socket (8090)",
+                "  --symbols <n>              number of stocks SIM:S0001 ... (100)",
+                "  --history-days <n>         days of candle history per stock (730)",
+                "  --trades <n>               trades per second pushed to each client (1000)",
+                "  --burst <profile>          steady, spikes or waves (steady)",
+                "  --latency <ms>             delay of every pull response (0)",
+                "  --latency-jitter <ms>      random extra delay of pull responses (0)",
+                "  --push-latency <ms>        age of the pushed trades when sent (0)",
+                "  --error-rate <share>       share of pull requests answered with 429 (0)",
+                "  --outage-interval <s>      drop all web socket connections every n seconds (0, never)",
+                "  --seed <n>                 seed of the simulated prices (1)");
+    }
+
+    /**
+     * Gets the port of the pull requests.
+     *
+     * @return the port
+     */
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    /**
+     * Gets the port of the web socket.
+     *
+     * @return the port
+     */
+    public int getPushPort() {
+        return pushPort;
+    }
+
+    /**
+     * Gets the number of simulated stocks.
+     *
+     * @return the symbol count
+     */
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    /**
+     * Gets the number of days with candles before now.
+     *
+     * @return the history in days
+     */
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    /**
+     * Gets the number of trades per second pushed to each client, before the
+     * burst profile is applied.
+     *
+     * @return the trade rate
+     */
+    public double getTradesPerSecond() {
+        return tradesPerSecond;
+    }
+
+    /**
+     * Gets the profile varying the trade rate over time.
+     *
+     * @return the burst profile
+     */
+    public EBurstProfile getBurstProfile() {
+        return burstProfile;
+    }
+
+    /**
+     * Gets the delay of every pull response.
+     *
+     * @return the latency in milliseconds
+     */
+    public long getPullLatencyMillis() {
+        return pullLatencyMillis;
+    }
+
+    /**
+     * Gets the maximum random extra delay of a pull response.
+     *
+     * @return the jitter in milliseconds
+     */
+    public long getPullLatencyJitterMillis() {
+        return pullLatencyJitterMillis;
+    }
+
+    /**
+     * Gets the age of the pushed trades when they are sent.
+     *
+     * @return the latency in milliseconds
+     */
+    public long getPushLatencyMillis() {
+        return pushLatencyMillis;
+    }
+
+    /**
+     * Gets the share of pull requests answered with 429 (too many requests).
+     *
+     * @return the share from 0 to 1
+     */
+    public double getPullErrorRate() {
+        return pullErrorRate;
+    }
+
+    /**
+     * Gets the interval in which all web socket connections are dropped.
+     *
+     * @return the interval in seconds, 0 if never
+     */
+    public int getOutageIntervalSeconds() {
+        return outageIntervalSeconds;
+    }
+
+    /**
+     * Gets the seed of the simulated prices.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+}
@@ -11,6 +11,9 @@ import javax.swing.event.InternalFrameEvent;
 import javax.swing.plaf.DimensionUIResource;
 
 import de.stocker.common.*;
+import de.stocker.metrics.LatencyHistogram;
+import de.stocker.metrics.MetricsRegistry;
+import de.stocker.metrics.TickLatencyProbe;
 import de.stocker.model.dataWrappers.*;
 
 /**
@@ -28,6 +31,11 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
 
     private volatile List<BollingerBand> bollingerBands = new ArrayList<BollingerBand>();
     private volatile List<SimpleMovingAverage> movingAvgs = new ArrayList<SimpleMovingAverage>();
+    
+    // the stock item was still loading when the frame was opened, e. g. while
+    // the stocks of the last session are restored, so the indicators are set
+    // up once its data has arrived
+    private volatile boolean waitingForStock;
 
     private DefaultListModel<PaintableChartComponent> activeIndicatorListModel = new DefaultListModel<PaintableChartComponent>();
     private DefaultListModel<AlarmUnit> activeAlarmListModel = new DefaultListModel<AlarmUnit>();
@@ -59,6 +67,12 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
     private static final int xOffset = 30;
     private static final int yOffset = 30;
     
+    /** Numbers the frames, to tell the metrics of frames of the same stock apart. */
+    private static int createdFrameCount = 0;
+    private final String paintTimeName;
+    private final LatencyHistogram paintTime;
+    private final TickLatencyProbe tickLatency;
+    
     /**
      * Instantiates a new chart frame.
      *
@@ -84,15 +98,23 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
         this.frameType = EFrameType.CHART;
         
         openFrameCount++;
+        createdFrameCount++;
+        
+        paintTimeName = "chart.paint." + stockId + "#" + createdFrameCount;
+        paintTime = MetricsRegistry.getDefault().histogram(paintTimeName);
+        tickLatency = new TickLatencyProbe("chart", stockId);
 
         stockItem = getStock();
         if (stockItem == null) {
             System.err.println("Error: No stock data available.");
+            MetricsRegistry.getDefault().remove(paintTimeName, paintTime);
+            tickLatency.close();
             return;
         }
         
         if (stockItem != null) {
             stockItem.addStockListener(this);
+            waitingForStock = !stockItem.isAvailable() && stockItem.isLoading();
         }
         
         initializeData();
@@ -106,6 +128,11 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
                     stockItem.removeStockListener(ChartFrame.this);
                     openFrameCount--;
                 }
+                if (chartPanel != null) {
+                    RepaintScheduler.getDefault().cancel(chartPanel);
+                }
+                MetricsRegistry.getDefault().remove(paintTimeName, paintTime);
+                tickLatency.close();
             };
         });
     }
@@ -123,6 +150,50 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
         dataWorker.execute();
     }
 
+    /**
+     * Sets up the chart once the data of a stock item which was still loading
+     * has arrived: fetches the data of the chart resolution and replaces the
+     * indicators added in the meantime, which have no values, by live ones.
+     */
+    private void initializeLoadedStock() {
+        List<BollingerBand> emptyBands = new ArrayList<BollingerBand>(bollingerBands);
+        List<SimpleMovingAverage> emptyAvgs = new ArrayList<SimpleMovingAverage>(movingAvgs);
+        Map<BollingerBand, BollingerBand> liveBands = new IdentityHashMap<BollingerBand, BollingerBand>();
+        Map<SimpleMovingAverage, SimpleMovingAverage> liveAvgs = new IdentityHashMap<SimpleMovingAverage, SimpleMovingAverage>();
+        
+        SwingWorker<Void, Void> dataWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                stockerModel.triggerDataGeneration(stockId, chartResolution);
+                for (BollingerBand b : emptyBands) {
+                    BollingerBand bb = stockItem.getBollingerBand(chartResolution, b.getF(), b.getN());
+                    if (bb != null) {
+                        bb.setColor(b.getColor());
+                        liveBands.put(b, bb);
+                    }
+                }
+                for (SimpleMovingAverage a : emptyAvgs) {
+                    SimpleMovingAverage sma = stockItem.getMovingAvg(chartResolution, a.getN());
+                    if (sma != null) {
+                        sma.setColor(a.getColor());
+                        liveAvgs.put(a, sma);
+                    }
+                }
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                // indicators removed in the meantime stay removed
+                bollingerBands.replaceAll(b -> liveBands.getOrDefault(b, b));
+                movingAvgs.replaceAll(a -> liveAvgs.getOrDefault(a, a));
+                updateIndicatorListModel();
+                chartPanel.repaint();
+            }
+        };
+        dataWorker.execute();
+    }
+
     private IStockItem getStock() {
         SwingWorker<IStockItem, Void> worker = new SwingWorker<IStockItem, Void>() {
             @Override
@@ -573,17 +644,8 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
      * @return the maximum candle price
      */
     public double getMaxCandlePrice() {
-        double max = 0;
-        ChartCandle[] candles = stockItem.getCandleArray(chartResolution);
-        if (candles != null) {
-            for (ChartCandle c : candles) {
-                if (c.getPriceHigh() > max) {
-                    max = c.getPriceHigh();
-                }
-            }
-        }
-        
-        return max;
+        CandleView candles = stockItem.getCandleView(chartResolution);
+        return candles == null ? 0 : candles.getMaxPrice();
     }
     
     /**
@@ -593,29 +655,26 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
      * @return the minimum candle price
      */
     public double getMinCandlePrice() {
-        double min = 0;
-        ChartCandle[] candles = stockItem.getCandleArray(chartResolution);
-        if (candles != null) {
-            min = candles[0].getPriceLow();
-            for (ChartCandle c : candles) {
-                if (c.getPriceLow() < min) {
-                    min = c.getPriceLow();
-                }
-            }
-        }
-        
-        return min;
+        CandleView candles = stockItem.getCandleView(chartResolution);
+        return candles == null ? 0 : candles.getMinPrice();
     }
 
     /**
      * {@inheritDoc}
      * 
-     * Repaints the chart panel with new data.
+     * Marks the chart panel dirty, it is repainted with the new data by the
+     * repaint scheduler at its frame rate. Sets up the chart when the data of
+     * a stock item which was still loading has arrived.
      */
     @Override
     public void stockDataUpdated(IStockItem s) {
+        if (waitingForStock && s.isAvailable()) {
+            waitingForStock = false;
+            SwingUtilities.invokeLater(this::initializeLoadedStock);
+        }
+        tickLatency.updated(s.getSnapshot().getReceiveTime());
         if (chartPanel != null) {
-            chartPanel.repaint();
+            RepaintScheduler.getDefault().requestRepaint(chartPanel);
         }
     }
 
@@ -646,6 +705,25 @@ public class ChartFrame extends BaseInternalFrame implements IStockListener {
         return bollingerColor;
     }
 
+    /**
+     * Gets the histogram of the durations of painting the chart of this frame.
+     *
+     * @return the paint time histogram
+     */
+    public LatencyHistogram getPaintTime() {
+        return paintTime;
+    }
+
+    /**
+     * Gets the probe measuring when pushed trades become visible in the chart
+     * of this frame.
+     *
+     * @return the tick latency probe
+     */
+    public TickLatencyProbe getTickLatency() {
+        return tickLatency;
+    }
+
     /**
      * Gets the open frame count which is used stagger the opened frames so that
      * they don't complete overlap.
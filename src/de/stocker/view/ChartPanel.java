@@ -53,9 +53,10 @@ public class ChartPanel extends JPanel {
     private int mouseY = -10;
     
     // arrays and lists of values and indicators to be drawn
-    private ChartCandle[] candleArray;
+    private CandleView candleView;
     private List<BollingerBand> bollingers;
     private List<SimpleMovingAverage> smas;
+    private StockSnapshot snapshot;
     private Set<AlarmUnit> alarmUnits;
 
     /**
@@ -99,10 +100,16 @@ public class ChartPanel extends JPanel {
      * {@inheritDoc}
      * 
      * Calls all methods needed to collect and visualize the data to be drawn
-     * whenever the component is (re-)painted.
+     * whenever the component is (re-)painted. The duration is recorded in the
+     * paint time histogram of the chart frame, the latency of the pushed
+     * trades shown for the first time by its tick latency probe.
      */
     @Override
     protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        // taken before the data is collected, trades arriving later are shown
+        // by the next paint
+        long receiveTime = chartFrame.getTickLatency().takePending();
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -118,11 +125,16 @@ public class ChartPanel extends JPanel {
             
             drawCrosshairMouseCursor(g2);
             drawStatusLine(g2);
+        } else if (stockItem.isLoading()) {
+            // a restored stock whose data hasn't arrived yet
+            g2.drawString("Loading data of stock " + stockItem.getStockId() + "...", 30, 30);
         } else {
             // fail safe for the item state !isAvailable
             g2.drawString("No data available for stock " + stockItem.getStockId() + " at the data provider.", 30, 30);
         }
         
+        chartFrame.getPaintTime().recordSince(start);
+        chartFrame.getTickLatency().shown(receiveTime);
     }
 
     /**
@@ -133,17 +145,19 @@ public class ChartPanel extends JPanel {
         chartType = chartFrame.getChartType();
         chartResolution = chartFrame.getChartResolution();
 
-        // gets the candle array from the stock item
+        // gets a view of the candles to draw from the stock item
         if (stockItem.hasCandles(chartResolution)) {
-            candleArray = stockItem.getCandleArray(chartResolution);
+            candleView = stockItem.getCandleView(chartResolution);
         }
 
         // gets the indicators added to this chart from the frame object
         bollingers = new ArrayList<BollingerBand>(chartFrame.getBollingerBands());
         smas = new ArrayList<SimpleMovingAverage>(chartFrame.getMovingAvgs());
 
-        // gets the alarms for this stock
-        alarmUnits = stockItem.getAlarmUnits();
+        // gets the price and the alarms for this stock from one consistent
+        // snapshot
+        snapshot = stockItem.getSnapshot();
+        alarmUnits = snapshot.getAlarmUnits();
     }
     
     /**
@@ -185,8 +199,8 @@ public class ChartPanel extends JPanel {
          * from the model. This is necessary for month and week intervals where
          * a lot less candles are delivered from the data provider
          */
-        if (candleArray != null && candleArray.length > 0) {
-            STEP = (double) ((this.getWidth() - 2 * MARGIN - LEGEND) / candleArray.length);
+        if (candleView != null && candleView.size() > 0) {
+            STEP = (double) ((this.getWidth() - 2 * MARGIN - LEGEND) / candleView.size());
             CANDLE_WIDTH = (double) STEP - 2 * GAP;
         }
 
@@ -241,10 +255,10 @@ public class ChartPanel extends JPanel {
      * @param g2 the Graphics2D component to draw on
      */
     private void drawCandles(Graphics2D g2) {
-        if (candleArray != null) {
-            for (int i = 0; i < candleArray.length; i++) {
-                drawCandle(g2, candleArray[i], i);
-                drawTimestamp(g2, candleArray[i], i);
+        if (candleView != null) {
+            for (int i = 0; i < candleView.size(); i++) {
+                drawCandle(g2, i);
+                drawTimestamp(g2, i);
             }
         } else {
             System.err.println("Error: No candles to draw.");
@@ -255,28 +269,25 @@ public class ChartPanel extends JPanel {
      * Draws a single chart candle.
      *
      * @param g2 the Graphics2D component to draw on
-     * @param candle the candle object to draw
-     * @param i the index of the candle object
+     * @param i the index of the candle in the candle view
      */
-    private void drawCandle(Graphics2D g2, ChartCandle candle, int i) {
-        if (candle == null) {
-            System.err.println("Error: No candle to draw.");
-            return;
-        }
+    private void drawCandle(Graphics2D g2, int i) {
+        double priceOpen = candleView.getPriceOpen(i);
+        double priceClose = candleView.getPriceClose(i);
         
         // calculate coordinates
         double xCoordWick = calcChartXCoordinate(i);
         double xCoordCandle = xCoordWick - (0.5 * STEP) + GAP;
 
-        double upperCandleBoundary = Math.max(candle.getPriceOpen(), candle.getPriceClose());
-        double lowerCandleBoundary = Math.min(candle.getPriceOpen(), candle.getPriceClose());
+        double upperCandleBoundary = Math.max(priceOpen, priceClose);
+        double lowerCandleBoundary = Math.min(priceOpen, priceClose);
 
-        Color candleColor = (candle.getPriceOpen() >= candle.getPriceClose()) ? Color.RED : Color.GREEN;
+        Color candleColor = (priceOpen >= priceClose) ? Color.RED : Color.GREEN;
 
         // draw candle wick
         g2.setColor(Color.BLACK);
-        g2.draw(new Line2D.Double(xCoordWick, calcChartYCoordinate(candle.getPriceLow()), xCoordWick,
-                calcChartYCoordinate(candle.getPriceHigh())));
+        g2.draw(new Line2D.Double(xCoordWick, calcChartYCoordinate(candleView.getPriceLow(i)), xCoordWick,
+                calcChartYCoordinate(candleView.getPriceHigh(i))));
 
         // fill colored rectangle
         g2.setColor(candleColor);
@@ -297,13 +308,13 @@ public class ChartPanel extends JPanel {
     private void drawLine(Graphics2D g2) {
         Path2D path = new Path2D.Double();
 
-        if (candleArray != null) {
-            path.moveTo(0, calcChartYCoordinate(candleArray[0].getPriceClose()));
-            for (int i = 0; i < candleArray.length; i++) {
-                path.lineTo(calcChartXCoordinate(i), calcChartYCoordinate(candleArray[i].getPriceClose()));
-                drawTimestamp(g2, candleArray[i], i);
+        if (candleView != null && candleView.size() > 0) {
+            path.moveTo(0, calcChartYCoordinate(candleView.getPriceClose(0)));
+            for (int i = 0; i < candleView.size(); i++) {
+                path.lineTo(calcChartXCoordinate(i), calcChartYCoordinate(candleView.getPriceClose(i)));
+                drawTimestamp(g2, i);
             }
-            path.lineTo(this.getWidth() - MARGIN - LEGEND, calcChartYCoordinate(candleArray[candleArray.length - 1].getPriceClose()));
+            path.lineTo(this.getWidth() - MARGIN - LEGEND, calcChartYCoordinate(candleView.getPriceClose(candleView.size() - 1)));
         } else {
             System.err.println("Error: No line data to draw.");
         }
@@ -372,13 +383,24 @@ public class ChartPanel extends JPanel {
      * Draws timestamp of a specific candle.
      *
      * @param g2 the Graphics2D component to draw on
-     * @param candle the candle
-     * @param i the index of the candle
+     * @param i the index of the candle in the candle view
      */
-    private void drawTimestamp(Graphics2D g2, ChartCandle candle, int i) {
+    private void drawTimestamp(Graphics2D g2, int i) {
+        // don't draw every timestamp but only a selection depending on frame width
+        int every;
+        if ((chartResolution == EChartResolution.DAY || chartResolution == EChartResolution.WEEK ||
+                chartResolution == EChartResolution.MONTH) && this.getWidth() < 450) {
+            every = 10;
+        } else {
+            every = 5;
+        }
+        if ((i + 1) % every != 0) {
+            return;
+        }
+        
         double xCoordWick = calcChartXCoordinate(i);
 
-        Instant instant = candle.getTimeInstant();
+        Instant instant = candleView.getTimeInstant(i);
         String timestampString = formatTimestamp(instant);
 
         int stringWidth = g2.getFontMetrics().stringWidth(timestampString);
@@ -386,19 +408,7 @@ public class ChartPanel extends JPanel {
         double xCoordStamp = xCoordWick - (stringWidth / 2);
 
         g2.setColor(Color.BLACK);
-        
-        // don't draw every timestamp but only a selection depending on frame width
-        if ((chartResolution == EChartResolution.DAY || chartResolution == EChartResolution.WEEK ||
-                chartResolution == EChartResolution.MONTH) && this.getWidth() < 450) {
-            if ((i + 1) % 10 == 0) {
-                g2.drawString(timestampString, (int) xCoordStamp, (int) this.getHeight() - MARGIN - STATUS_LINE_HEIGHT);
-            }
-        } else {
-            if ((i + 1) % 5 == 0) {
-                g2.drawString(timestampString, (int) xCoordStamp, (int) this.getHeight() - MARGIN - STATUS_LINE_HEIGHT);
-            }
-        }
-
+        g2.drawString(timestampString, (int) xCoordStamp, (int) this.getHeight() - MARGIN - STATUS_LINE_HEIGHT);
     }
 
     /**
@@ -585,25 +595,24 @@ public class ChartPanel extends JPanel {
         
         String stockId = "ID: " + stockItem.getStockId();
         
-        String currentPrice = "Current price: " + String.format("%.2f", stockItem.getCurPrice());
+        String currentPrice = "Current price: " + String.format("%.2f", snapshot.getCurPrice());
         
         // calculate the price at the mouse cursor position
         String cursorPrice = String.format("%.2f", calcPriceFromChartYCoordinate(mouseY));
 
         String cursorTimestamp = "";
-        try {
-            // calculate backwards which candle is at the mouse x position to display its timestamp
-            ChartCandle nearestCandle = candleArray[calcStepCountFromChartXCoordinate(mouseX)];
-            Instant nearestInstant = nearestCandle.getTimeInstant();
+        // calculate backwards which candle is at the mouse x position to display its timestamp
+        int nearestIndex = calcStepCountFromChartXCoordinate(mouseX);
+        /*
+         * only if the index is inside of the view to account for mouse pointer
+         * behavior when leaving frame and going off the chart which can't be
+         * translated to coordinates/timestamps
+         */
+        if (candleView != null && nearestIndex >= 0 && nearestIndex < candleView.size()) {
+            Instant nearestInstant = candleView.getTimeInstant(nearestIndex);
             String format = "yyyy-MM-dd HH:mm:ss";
             String nearestInstantFormatted = DateTimeFormatter.ofPattern(format).withZone(ZoneId.systemDefault()).format(nearestInstant);
             cursorTimestamp = nearestInstantFormatted + " | ";
-        } catch (ArrayIndexOutOfBoundsException | NullPointerException e) {
-            /*
-             * do nothing, only catch exceptions to account for mouse pointer
-             * behavior when leaving frame and going off the chart which can't
-             * be translated to coordinates/timestamps
-             */
         }
         
         String cursorLabel = "Cursor: " + cursorTimestamp + cursorPrice;
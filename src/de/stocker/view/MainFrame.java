@@ -1,5 +1,6 @@
 package de.stocker.view;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.event.*;
 import java.beans.PropertyVetoException;
@@ -19,6 +20,7 @@ public class MainFrame extends JFrame {
     private IMainController mainController;
 
     private final JDesktopPane desktopPane = new JDesktopPane();
+    private final JLabel statusBar = new JLabel(" ");
 
     private JMenuBar menuBar;
     private JMenu menuFile;
@@ -75,6 +77,9 @@ public class MainFrame extends JFrame {
         desktopPane.setVisible(true);
         
         this.add(desktopPane);
+        
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        this.add(statusBar, BorderLayout.SOUTH);
 
         this.setTitle("Stocker -- Matthias Rudolph -- 3266494");
         this.setSize(1500, 800);
@@ -83,11 +88,12 @@ public class MainFrame extends JFrame {
 
         this.setDefaultCloseOperation(EXIT_ON_CLOSE);
 
-        // Saves the persistence before closing the application
+        // Saves the persistence and stops the background threads before
+        // closing the application
         this.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                mainController.savePersistence();
+                mainController.shutdown();
             }
 
         });
@@ -167,6 +173,18 @@ public class MainFrame extends JFrame {
         desktopPane.add(iFrame);
     }
 
+    /**
+     * Sets the text of the status bar. Can be called from any thread, the
+     * status bar is updated on the event dispatch thread.
+     *
+     * @param text the status text, an empty string to clear it
+     */
+    public void setStatusText(String text) {
+        // keeps the height of the status bar when it is cleared
+        String statusText = text == null || text.isEmpty() ? " " : text;
+        SwingUtilities.invokeLater(() -> statusBar.setText(statusText));
+    }
+
     /**
      * Gets an array of all displayed internal frames.
      *
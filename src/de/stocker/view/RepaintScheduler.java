@@ -0,0 +1,143 @@
+package de.stocker.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.JComponent;
+import javax.swing.JInternalFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The Class RepaintScheduler repaints components whose data has changed, e. g.
+ * the chart panels on push updates, at a limited frame rate instead of once
+ * per update. A component is marked dirty from any thread and painted by the
+ * next flush on the event dispatch thread; further updates until then don't
+ * cost anything.
+ *
+ * Every flush paints the components that have waited longest first and stops
+ * once it has used half of the frame interval, the others are left for the
+ * next flush. So even with many charts of busy stocks the event dispatch
+ * thread has time left for the user input. Components that aren't showing,
+ * e. g. in an iconified frame, are not painted, Swing paints them when they
+ * are shown again.
+ *
+ * @author Matthias Rudolph
+ */
+public class RepaintScheduler {
+
+    private static final RepaintScheduler DEFAULT = new RepaintScheduler();
+
+    private final int DEFAULT_MAX_FRAME_RATE = 30;
+
+    // dirty components with the System.nanoTime they were marked at
+    private final Map<JComponent, Long> dirty = new ConcurrentHashMap<JComponent, Long>();
+    private final Timer timer;
+    private volatile long flushBudgetNanos;
+
+    /**
+     * Instantiates a new repaint scheduler with the default frame rate.
+     */
+    public RepaintScheduler() {
+        timer = new Timer(1000 / DEFAULT_MAX_FRAME_RATE, e -> flush());
+        timer.setCoalesce(true);
+        setMaxFrameRate(DEFAULT_MAX_FRAME_RATE);
+    }
+
+    /**
+     * Gets the repaint scheduler of the application.
+     *
+     * @return the default repaint scheduler
+     */
+    public static RepaintScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Sets the maximum number of flushes per second.
+     *
+     * @param maxFrameRate the maximum frame rate, at least 1
+     */
+    public void setMaxFrameRate(int maxFrameRate) {
+        int interval = 1000 / Math.max(1, Math.min(maxFrameRate, 1000));
+        timer.setInitialDelay(interval);
+        timer.setDelay(interval);
+        flushBudgetNanos = interval * 1000000L / 2;
+    }
+
+    /**
+     * Marks a component dirty, so it is painted by the next flush. Can be
+     * called from any thread.
+     *
+     * @param component the component
+     */
+    public void requestRepaint(JComponent component) {
+        dirty.putIfAbsent(component, System.nanoTime());
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Removes a component, e. g. of a closed frame, so it isn't painted
+     * anymore.
+     *
+     * @param component the component
+     */
+    public void cancel(JComponent component) {
+        dirty.remove(component);
+    }
+
+    /**
+     * Paints the dirty components, those waiting longest first, until the
+     * budget of the flush is used up. Called by the timer on the event
+     * dispatch thread. The timer is stopped when there is nothing to paint
+     * and restarted by the next request.
+     */
+    private void flush() {
+        if (dirty.isEmpty()) {
+            timer.stop();
+            // a request may have come in before the timer was stopped
+            if (!dirty.isEmpty()) {
+                timer.start();
+            }
+            return;
+        }
+
+        List<Map.Entry<JComponent, Long>> pending = new ArrayList<Map.Entry<JComponent, Long>>(dirty.entrySet());
+        pending.sort(Map.Entry.comparingByValue());
+
+        long start = System.nanoTime();
+        for (Map.Entry<JComponent, Long> e : pending) {
+            // always paints at least one component, so none waits forever
+            if (System.nanoTime() - start > flushBudgetNanos) {
+                break;
+            }
+            JComponent component = e.getKey();
+            // removed before painting, an update during painting marks it
+            // dirty again
+            dirty.remove(component, e.getValue());
+            if (isVisible(component)) {
+                component.paintImmediately(0, 0, component.getWidth(), component.getHeight());
+            }
+        }
+    }
+
+    /**
+     * Checks whether a component can be seen, i. e. it is showing and not part
+     * of an iconified internal frame.
+     *
+     * @param component the component
+     * @return true, if the component is visible
+     */
+    private boolean isVisible(JComponent component) {
+        if (!component.isShowing() || component.getWidth() <= 0 || component.getHeight() <= 0) {
+            return false;
+        }
+        JInternalFrame frame = (JInternalFrame) SwingUtilities.getAncestorOfClass(JInternalFrame.class, component);
+        return frame == null || !frame.isIcon();
+    }
+
+}
@@ -8,7 +8,9 @@ import javax.swing.plaf.DimensionUIResource;
 import javax.swing.table.*;
 
 import de.stocker.common.*;
+import de.stocker.metrics.TickLatencyProbe;
 import de.stocker.model.WatchlistTableModel;
+import de.stocker.model.dataWrappers.StockSnapshot;
 
 /**
  * The Class WatchlistFrame shows the watchlist and allows the user to interact
@@ -70,10 +72,22 @@ public class WatchlistFrame extends BaseInternalFrame {
             // and whether the price has fallen or risen
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+                // the price column shows the pushed trades, the time they were
+                // received at is taken before the price is read
+                TickLatencyProbe tickLatency = null;
+                long receiveTime = 0;
+                if (column == 2) {
+                    String stockId = watchlistTableModel.getWatchlistEntry(this.convertRowIndexToModel(row)).getStockId();
+                    tickLatency = watchlistTableModel.getTickLatency(stockId);
+                    if (tickLatency != null) {
+                        receiveTime = tickLatency.takePending();
+                    }
+                }
+                
                 Component c = super.prepareRenderer(renderer, row, column);
                 
                 if (column == 2 && watchlistTableModel.getTimerState(this.convertRowIndexToModel(row))) {
-                    IStockItem stock = watchlistTableModel.getWatchlistEntry(row);
+                    StockSnapshot stock = watchlistTableModel.getWatchlistEntry(row).getSnapshot();
                     if (stock.getCurPrice() < stock.getCurPriceOld()) {
                         c.setBackground(Color.RED);
                     } else if (stock.getCurPrice() > stock.getCurPriceOld()) {
@@ -82,6 +96,10 @@ public class WatchlistFrame extends BaseInternalFrame {
                 } else {
                     c.setBackground(null);
                 }
+                
+                if (tickLatency != null) {
+                    tickLatency.shown(receiveTime);
+                }
                 return c;
             }
         };
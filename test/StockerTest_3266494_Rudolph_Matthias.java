@@ -1,3 +1,4 @@
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 
 import de.stocker.common.StockerTesterImpl;
@@ -5,9 +6,17 @@ import test.StockerTest;
 
 public class StockerTest_3266494_Rudolph_Matthias extends StockerTest {
 
+    private StockerTesterImpl stockerTester;
+
     @Override
     @BeforeEach
     public void setUp() {
-        setStockerTester(new StockerTesterImpl());
+        stockerTester = new StockerTesterImpl();
+        setStockerTester(stockerTester);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stockerTester.close();
     }
 }
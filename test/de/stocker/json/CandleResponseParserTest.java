@@ -0,0 +1,119 @@
+package de.stocker.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.model.dataWrappers.CandleSeries;
+
+/**
+ * Tests of the candle response parser: the values of the candles, responses
+ * without data, unknown fields and malformed responses.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleResponseParserTest {
+
+    private final CandleResponseParser parser = new CandleResponseParser();
+
+    @Test
+    public void testParseCandles() {
+        CandleSeries candles = parser.parse("{\"c\":[217.68,221.03],\"h\":[222.49,221.5],\"l\":[217.19,217.14],"
+                + "\"o\":[221.03,218.55],\"s\":\"ok\",\"t\":[1569297600,1569384000],\"v\":[33463820,24018876]}");
+
+        assertEquals(2, candles.size());
+        assertEquals(1569297600000L, candles.getTimeOpen(0));
+        assertEquals(217.19, candles.getPriceLow(0));
+        assertEquals(222.49, candles.getPriceHigh(0));
+        assertEquals(221.03, candles.getPriceOpen(0));
+        assertEquals(217.68, candles.getPriceClose(0));
+        assertEquals(33463820, candles.getVolume(0));
+        assertEquals(1569384000000L, candles.getTimeOpen(1));
+        assertEquals(218.55, candles.getPriceOpen(1));
+        assertEquals(24018876, candles.getVolume(1));
+    }
+
+    @Test
+    public void testParseNegativeNumbersAndExponents() {
+        CandleSeries candles = parser.parse("{ \"t\" : [ 1.5E9 ] , \"o\" : [ -1.5e2 ] , \"h\" : [ 2E+1 ] , "
+                + "\"l\" : [ -3.25E-2 ] , \"c\" : [ -0.75 ] , \"v\" : [ 1e6 ] }");
+
+        assertEquals(1, candles.size());
+        assertEquals(1500000000000L, candles.getTimeOpen(0));
+        assertEquals(-150, candles.getPriceOpen(0));
+        assertEquals(20, candles.getPriceHigh(0));
+        assertEquals(-0.0325, candles.getPriceLow(0));
+        assertEquals(-0.75, candles.getPriceClose(0));
+        assertEquals(1000000, candles.getVolume(0));
+    }
+
+    @Test
+    public void testResponsesWithoutData() {
+        assertEquals(0, parser.parse("{\"s\":\"no_data\"}").size());
+        assertEquals(0, parser.parse("{}").size());
+        assertEquals(0, parser.parse("{\"c\":[],\"h\":[],\"l\":[],\"o\":[],\"s\":\"ok\",\"t\":[],\"v\":[]}").size());
+        assertEquals(0, parser.parse("{\"c\":null,\"t\":null,\"s\":\"no_data\"}").size());
+    }
+
+    @Test
+    public void testSkipUnknownFields() {
+        CandleSeries candles = parser.parse("{\"meta\":{\"t\":[1,2,3],\"s\":\"[\\\"]\"},\"t\":[60],\"close\":[9],"
+                + "\"x\":[[1],[2]],\"c\":[1],\"h\":[2],\"l\":[0.5],\"o\":[1.5],\"v\":[7],\"s\":\"ok\",\"n\":null}");
+
+        assertEquals(1, candles.size());
+        assertEquals(60000, candles.getTimeOpen(0));
+        assertEquals(1, candles.getPriceClose(0));
+        assertEquals(7, candles.getVolume(0));
+    }
+
+    @Test
+    public void testNullValuesAreZero() {
+        CandleSeries candles = parser.parse("{\"t\":[60,120],\"c\":[1,null],\"v\":[null,2]}");
+
+        assertEquals(2, candles.size());
+        assertEquals(0, candles.getPriceClose(1));
+        assertEquals(0, candles.getVolume(0));
+    }
+
+    @Test
+    public void testManyCandles() {
+        StringBuilder t = new StringBuilder();
+        StringBuilder c = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            t.append(i == 0 ? "" : ",").append(60 * i);
+            c.append(i == 0 ? "" : ",").append(i).append(".5");
+        }
+        CandleSeries candles = parser.parse("{\"c\":[" + c + "],\"t\":[" + t + "],\"s\":\"ok\"}");
+
+        assertEquals(1000, candles.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(60000L * i, candles.getTimeOpen(i));
+            assertEquals(i + 0.5, candles.getPriceClose(i));
+        }
+        // the series can grow beyond the decoded columns
+        candles.append(60000000, 1, 1, 1, 1, 1);
+        assertEquals(1001, candles.size());
+    }
+
+    @Test
+    public void testReusedParser() {
+        parser.parse("{\"t\":[60,120,180],\"c\":[1,2,3]}");
+        CandleSeries candles = parser.parse("{\"t\":[240],\"c\":[4]}");
+
+        assertEquals(1, candles.size());
+        assertEquals(240000, candles.getTimeOpen(0));
+        assertEquals(4, candles.getPriceClose(0));
+    }
+
+    @Test
+    public void testMalformedResponses() {
+        String[] responses = { "", "{", "{\"t\":[60,120],\"c\":[1]}", "{\"t\":[60],\"c\":[1,2]}",
+                "{\"t\":[60,\"x\"]}", "{\"t\":[60] \"c\":[1]}", "{\"t\":[60],\"c\":[1" };
+
+        for (String response : responses) {
+            assertThrows(IllegalArgumentException.class, () -> parser.parse(response), response);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package de.stocker.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the number and string reading of the JSON scanner, which is
+ * checked against the JDK where it takes shortcuts.
+ *
+ * @author Matthias Rudolph
+ */
+public class JsonScannerTest {
+
+    /**
+     * Scanner reading a single value, to call the methods of the base class.
+     */
+    private static class Scanner extends JsonScanner {
+
+        Scanner(String message) {
+            begin(message);
+        }
+
+    }
+
+    private static double readDouble(String number) {
+        Scanner scanner = new Scanner(number);
+        double value = scanner.readDouble();
+        assertEquals(number.length(), scanner.pos, number);
+        return value;
+    }
+
+    @Test
+    public void testReadDoubleMatchesParseDouble() {
+        String[] numbers = { "0", "-0", "7296.89", "-7296.89", "0.01", "-0.000001", "1e3", "1E3", "1e+3", "2.5e-3",
+                "-2.5E-3", "123456789012345", "1234567890123456789", "0.1234567890123456789", "9007199254740993",
+                "1e22", "1e23", "1e-22", "1e-23", "4.9e-324", "1.7976931348623157e308", "217.68", "33463820",
+                "0.30000000000000004", "100.10", "1.00000000000000000001" };
+        for (String number : numbers) {
+            assertEquals(Double.parseDouble(number), readDouble(number), number);
+        }
+    }
+
+    @Test
+    public void testReadDoubleKeepsSignOfZero() {
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(readDouble("-0.0")));
+    }
+
+    @Test
+    public void testReadDoubleRejectsMissingDigits() {
+        assertThrows(IllegalArgumentException.class, () -> new Scanner("-").readDouble());
+        assertThrows(IllegalArgumentException.class, () -> new Scanner("x").readDouble());
+    }
+
+    @Test
+    public void testReadLong() {
+        assertEquals(1575526691134L, new Scanner("1575526691134").readLong());
+        assertEquals(-42, new Scanner(" -42").readLong());
+        // fractions and exponents are truncated
+        assertEquals(1575526691, new Scanner("1.575526691134e9").readLong());
+        assertEquals(12, new Scanner("12.9").readLong());
+    }
+
+    @Test
+    public void testReadStringRange() {
+        Scanner scanner = new Scanner("\"AAPL\"");
+        int start = scanner.readStringRange();
+        assertEquals(1, start);
+        assertEquals(6, scanner.pos);
+        assertEquals("AAPL".hashCode(), scanner.stringHash);
+        assertFalse(scanner.stringEscaped);
+        assertFalse(scanner.stringNonAscii);
+
+        scanner = new Scanner("\"a\\\"b\u00e4\"");
+        assertEquals(1, scanner.readStringRange());
+        assertEquals(scanner.length, scanner.pos);
+        assertTrue(scanner.stringEscaped);
+        assertTrue(scanner.stringNonAscii);
+    }
+
+    @Test
+    public void testDecodeString() {
+        assertEquals("AAPL", JsonScanner.decodeString("AAPL"));
+        assertEquals("a\"b\\c/d", JsonScanner.decodeString("a\\\"b\\\\c\\/d"));
+        assertEquals("\b\f\n\r\t", JsonScanner.decodeString("\\b\\f\\n\\r\\t"));
+        assertEquals("BINANCE:BTC\u00e4", JsonScanner.decodeString("BINANCE\\u003aBTC\\u00E4"));
+    }
+
+    @Test
+    public void testSkipValue() {
+        String message = "{\"a\":[1,{\"b\":\"]}\\\"\"},-2.5e3,true,null],\"c\":\"x\"} 7";
+        Scanner scanner = new Scanner(message);
+        scanner.skipValue();
+        assertEquals(7, scanner.readLong());
+    }
+
+}
@@ -0,0 +1,202 @@
+package de.stocker.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.model.dataWrappers.TradeBatch;
+
+/**
+ * Tests of the trade message parser: the values of the trades, messages of
+ * other types, unknown fields, malformed messages and the interning of the
+ * stock ids.
+ *
+ * @author Matthias Rudolph
+ */
+public class TradeMessageParserTest {
+
+    private static final String ACTIVE_STOCK = "AAPL";
+
+    // the canonical string of the active stock, as held by the registry
+    private final String canonical = new String(ACTIVE_STOCK);
+    private final List<String> resolved = new ArrayList<String>();
+    private final TradeMessageParser parser = new TradeMessageParser(stockId -> {
+        resolved.add(stockId);
+        return ACTIVE_STOCK.equals(stockId) ? canonical : null;
+    });
+
+    @Test
+    public void testParseTrades() {
+        TradeBatch trades = new TradeBatch();
+        String message = "{\"data\":[{\"c\":[\"1\",\"12\"],\"p\":7296.89,\"s\":\"AAPL\",\"t\":1575526691134,\"v\":0.01},"
+                + "{\"p\":7296.9,\"s\":\"AAPL\",\"t\":1575526691135,\"v\":2}],\"type\":\"trade\"}";
+
+        assertTrue(parser.parse(message, trades));
+        assertEquals(2, trades.size());
+        assertSame(canonical, trades.getStockId(0));
+        assertEquals(7296.89, trades.getPrice(0));
+        assertEquals(1575526691134L, trades.getTime(0));
+        assertEquals(0.01, trades.getVolume(0));
+        assertEquals(7296.9, trades.getPrice(1));
+        assertEquals(1575526691135L, trades.getTime(1));
+        assertEquals(2, trades.getVolume(1));
+    }
+
+    @Test
+    public void testParseNegativeNumbersAndExponents() {
+        TradeBatch trades = new TradeBatch();
+        String message = "{ \"type\" : \"trade\" , \"data\" : [ { \"p\" : -1.5e2 , \"s\" : \"AAPL\" , "
+                + "\"t\" : 1.575526691134E12 , \"v\" : 25E-3 } ] }";
+
+        assertTrue(parser.parse(message, trades));
+        assertEquals(1, trades.size());
+        assertEquals(-150, trades.getPrice(0));
+        assertEquals(1575526691134L, trades.getTime(0));
+        assertEquals(0.025, trades.getVolume(0));
+    }
+
+    @Test
+    public void testSkipUnknownFields() {
+        TradeBatch trades = new TradeBatch();
+        String message = "{\"type\":\"trade\",\"meta\":{\"a\":[1,{\"b\":\"}]\"}],\"c\":null},\"data\":["
+                + "{\"x\":{\"y\":[true,false]},\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3,\"conditions\":[\"[\"]},"
+                + "42,\"noise\",{}],\"seq\":-1}";
+
+        assertTrue(parser.parse(message, trades));
+        // numbers and strings in the data array are skipped, an empty object
+        // is an empty trade
+        assertEquals(2, trades.size());
+        assertSame(canonical, trades.getStockId(0));
+        assertEquals(1, trades.getPrice(0));
+        assertEquals(2, trades.getTime(0));
+        assertEquals(3, trades.getVolume(0));
+        assertNull(trades.getStockId(1));
+    }
+
+    @Test
+    public void testNullValuesKeepDefaults() {
+        TradeBatch trades = new TradeBatch();
+
+        assertTrue(parser.parse("{\"type\":\"trade\",\"data\":[{\"p\":null,\"s\":null,\"t\":5,\"v\":null}]}", trades));
+        assertEquals(1, trades.size());
+        assertNull(trades.getStockId(0));
+        assertEquals(0, trades.getPrice(0));
+        assertEquals(5, trades.getTime(0));
+    }
+
+    @Test
+    public void testEmptyData() {
+        TradeBatch trades = new TradeBatch();
+
+        assertTrue(parser.parse("{\"data\":[],\"type\":\"trade\"}", trades));
+        assertTrue(parser.parse("{\"data\":[ ],\"type\":\"trade\"}", trades));
+        assertEquals(0, trades.size());
+    }
+
+    @Test
+    public void testOtherMessageTypes() {
+        TradeBatch trades = new TradeBatch();
+        trades.add("MSFT", 1, 1, 1);
+
+        assertFalse(parser.parse("{\"type\":\"ping\"}", trades));
+        assertFalse(parser.parse("{}", trades));
+        // trades read before the type are dropped again
+        assertFalse(parser.parse("{\"data\":[{\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3}],\"type\":\"news\"}", trades));
+        assertFalse(parser.parse("{\"data\":[{\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3}]}", trades));
+        assertEquals(1, trades.size());
+        assertEquals("MSFT", trades.getStockId(0));
+    }
+
+    @Test
+    public void testMalformedMessageAddsNoTrades() {
+        TradeBatch trades = new TradeBatch();
+        trades.add("MSFT", 1, 1, 1);
+        String[] messages = { "", "{", "{\"type\":\"trade\",\"data\":[{\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3}",
+                "{\"type\":\"trade\",\"data\":[{\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3},{\"p\":x}]}",
+                "{\"type\":\"trade\",\"data\":[{\"p\":1 \"s\":\"AAPL\"}]}", "[1,2]", "{\"type\":\"trade\",\"data\":[{\"s\":\"AA" };
+
+        for (String message : messages) {
+            assertThrows(IllegalArgumentException.class, () -> parser.parse(message, trades), message);
+            assertEquals(1, trades.size(), message);
+        }
+    }
+
+    @Test
+    public void testInactiveStockIsNotInterned() {
+        TradeBatch trades = new TradeBatch();
+        String message = "{\"type\":\"trade\",\"data\":[{\"p\":1,\"s\":\"GONE\",\"t\":2,\"v\":3},"
+                + "{\"p\":1,\"s\":\"AAPL\",\"t\":2,\"v\":3}]}";
+
+        assertTrue(parser.parse(message, trades));
+        assertTrue(parser.parse(message, trades));
+
+        // the stock id is kept for the trade, but not remembered, so it is
+        // resolved again and may become active later
+        assertEquals(4, trades.size());
+        assertEquals("GONE", trades.getStockId(0));
+        assertEquals("GONE", trades.getStockId(2));
+        assertNotSame(trades.getStockId(0), trades.getStockId(2));
+        assertSame(canonical, trades.getStockId(1));
+        assertSame(canonical, trades.getStockId(3));
+        assertEquals(List.of("GONE", "AAPL", "GONE"), resolved);
+    }
+
+    @Test
+    public void testEscapedStockId() {
+        TradeBatch trades = new TradeBatch();
+
+        assertTrue(parser.parse("{\"type\":\"trade\",\"data\":[{\"p\":1,\"s\":\"\\u0041APL\",\"t\":2,\"v\":3},"
+                + "{\"p\":1,\"s\":\"BINANCE\\u003aBTC\\\"X\",\"t\":2,\"v\":3}]}", trades));
+        assertSame(canonical, trades.getStockId(0));
+        assertEquals("BINANCE:BTC\"X", trades.getStockId(1));
+    }
+
+    @Test
+    public void testInterningManyStocks() {
+        TradeMessageParser remembering = new TradeMessageParser();
+        TradeBatch trades = new TradeBatch();
+        StringBuilder message = new StringBuilder("{\"type\":\"trade\",\"data\":[");
+        for (int i = 0; i < 500; i++) {
+            message.append(i == 0 ? "" : ",").append("{\"p\":1,\"s\":\"S").append(i).append("\",\"t\":2,\"v\":3}");
+        }
+        message.append("]}");
+
+        assertTrue(remembering.parse(message, trades));
+        assertTrue(remembering.parse(message.toString(), trades));
+        assertEquals(1000, trades.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals("S" + i, trades.getStockId(i));
+            assertSame(trades.getStockId(i), trades.getStockId(500 + i));
+        }
+    }
+
+    @Test
+    public void testParseUtf8Bytes() {
+        TradeBatch trades = new TradeBatch();
+        String message = "{\"type\":\"trade\",\"data\":[{\"p\":1.25,\"s\":\"AAPL\",\"t\":2,\"v\":3},"
+                + "{\"p\":-2,\"s\":\"B\u00c4R\",\"t\":4,\"v\":5e1}]}";
+        ByteBuffer bytes = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(parser.parse(new Utf8CharSequence(bytes), trades));
+        assertEquals(2, trades.size());
+        assertSame(canonical, trades.getStockId(0));
+        assertEquals(1.25, trades.getPrice(0));
+        assertEquals("B\u00c4R", trades.getStockId(1));
+        assertEquals(-2, trades.getPrice(1));
+        assertEquals(50, trades.getVolume(1));
+        assertTrue(Set.of("AAPL", "B\u00c4R").containsAll(resolved));
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.stocker.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the bucket layout of the latency histogram and the values
+ * reported from it.
+ *
+ * @author Matthias Rudolph
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (int value = 0; value < 128; value++) {
+            assertEquals(value, LatencyHistogram.getIndex(value));
+            assertEquals(value, LatencyHistogram.getHighestValue(value));
+        }
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        // from 128 on, buckets are 2 wide, from 256 on 4 wide
+        assertEquals(128, LatencyHistogram.getIndex(128));
+        assertEquals(128, LatencyHistogram.getIndex(129));
+        assertEquals(129, LatencyHistogram.getIndex(130));
+        assertEquals(129, LatencyHistogram.getHighestValue(128));
+        assertEquals(191, LatencyHistogram.getIndex(255));
+        assertEquals(255, LatencyHistogram.getHighestValue(191));
+        assertEquals(192, LatencyHistogram.getIndex(256));
+        assertEquals(192, LatencyHistogram.getIndex(259));
+        assertEquals(193, LatencyHistogram.getIndex(260));
+        assertEquals(259, LatencyHistogram.getHighestValue(192));
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long highest = LatencyHistogram.getHighestValue(i);
+            assertEquals(i, LatencyHistogram.getIndex(highest));
+            if (i + 1 < LatencyHistogram.BUCKET_COUNT) {
+                assertEquals(i + 1, LatencyHistogram.getIndex(highest + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testLargestTrackableValue() {
+        int last = LatencyHistogram.BUCKET_COUNT - 1;
+
+        assertEquals(last, LatencyHistogram.getIndex(LatencyHistogram.MAX_TRACKABLE_VALUE));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, LatencyHistogram.getHighestValue(last));
+    }
+
+    @Test
+    public void testRecordedValuesAreLimited() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, snapshot.getMax());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testPercentilesArePrecise() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        for (int percentile : new int[] { 50, 90, 99 }) {
+            long exact = percentile * 10 * 1000;
+            long value = snapshot.getValueAtPercentile(percentile);
+            assertTrue(value >= exact && value <= exact * 65 / 64, percentile + ": " + value);
+        }
+        assertEquals(1000 * 1000, snapshot.getValueAtPercentile(100));
+    }
+
+}
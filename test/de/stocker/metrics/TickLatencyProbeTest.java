@@ -0,0 +1,51 @@
+package de.stocker.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of removing the histograms of a stock with the last tick latency probe
+ * of a view.
+ *
+ * @author Matthias Rudolph
+ */
+public class TickLatencyProbeTest {
+
+    private static boolean isRegistered(String name) {
+        return MetricsRegistry.getDefault().getHistograms().containsKey(name);
+    }
+
+    @Test
+    public void testHistogramRemovedWithLastProbe() {
+        TickLatencyProbe first = new TickLatencyProbe("test", "CLOSE");
+        TickLatencyProbe second = new TickLatencyProbe("test", "CLOSE");
+        assertTrue(isRegistered("tickToPixel.test.CLOSE"));
+
+        first.close();
+        // closing twice doesn't count for the other probe
+        first.close();
+        assertTrue(isRegistered("tickToPixel.test.CLOSE"));
+
+        second.close();
+        assertFalse(isRegistered("tickToPixel.test.CLOSE"));
+        // shared by all stocks of the view
+        assertTrue(isRegistered("tickToPixel.test"));
+    }
+
+    @Test
+    public void testNewProbeAfterClose() {
+        new TickLatencyProbe("test", "REOPEN").close();
+
+        TickLatencyProbe probe = new TickLatencyProbe("test", "REOPEN");
+        probe.updated(System.nanoTime());
+        probe.shown(probe.takePending());
+
+        assertEquals(1, MetricsRegistry.getDefault().getHistograms().get("tickToPixel.test.REOPEN").getCount());
+        probe.close();
+        assertFalse(isRegistered("tickToPixel.test.REOPEN"));
+    }
+
+}
@@ -0,0 +1,83 @@
+package de.stocker.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.common.EChartResolution;
+
+/**
+ * Tests of the bucket alignment of the candle resolutions, in particular the
+ * calendar alignment of weeks and months, which is checked against java.time.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleBucketsTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static long millis(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testIntradayBuckets() {
+        long time = millis(LocalDate.of(2021, 3, 15)) + TimeUnit.MINUTES.toMillis(10 * 60 + 47) + 31000;
+        long midnight = millis(LocalDate.of(2021, 3, 15));
+
+        assertEquals(midnight + TimeUnit.MINUTES.toMillis(647), CandleBuckets.getBucketStart(EChartResolution.ONE, time));
+        assertEquals(midnight + TimeUnit.MINUTES.toMillis(645), CandleBuckets.getBucketStart(EChartResolution.FIVE, time));
+        assertEquals(midnight + TimeUnit.MINUTES.toMillis(645), CandleBuckets.getBucketStart(EChartResolution.FIFTEEN, time));
+        assertEquals(midnight + TimeUnit.MINUTES.toMillis(630), CandleBuckets.getBucketStart(EChartResolution.THIRTY, time));
+        assertEquals(midnight + TimeUnit.MINUTES.toMillis(600), CandleBuckets.getBucketStart(EChartResolution.SIXTY, time));
+        assertEquals(midnight, CandleBuckets.getBucketStart(EChartResolution.DAY, time));
+    }
+
+    @Test
+    public void testWeeksStartOnMonday() {
+        LocalDate date = LocalDate.of(1965, 1, 1);
+        LocalDate end = LocalDate.of(2040, 12, 31);
+        for (; !date.isAfter(end); date = date.plusDays(1)) {
+            long monday = millis(date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+            long time = millis(date) + DAY - 1;
+
+            assertEquals(monday, CandleBuckets.getBucketStart(EChartResolution.WEEK, millis(date)), date.toString());
+            assertEquals(monday, CandleBuckets.getBucketStart(EChartResolution.WEEK, time), date.toString());
+            assertEquals(monday + 7 * DAY, CandleBuckets.getNextBucketStart(EChartResolution.WEEK, time),
+                    date.toString());
+        }
+    }
+
+    @Test
+    public void testMonthsStartOnTheFirstDay() {
+        // covers the leap years 1968, 2000 and 2024 and the non-leap year 2100
+        LocalDate date = LocalDate.of(1965, 1, 1);
+        LocalDate end = LocalDate.of(2101, 12, 31);
+        for (; !date.isAfter(end); date = date.plusDays(1)) {
+            long first = millis(date.withDayOfMonth(1));
+            long time = millis(date) + DAY - 1;
+
+            assertEquals(first, CandleBuckets.getBucketStart(EChartResolution.MONTH, millis(date)), date.toString());
+            assertEquals(first, CandleBuckets.getBucketStart(EChartResolution.MONTH, time), date.toString());
+            assertEquals(millis(date.withDayOfMonth(1).plusMonths(1)),
+                    CandleBuckets.getNextBucketStart(EChartResolution.MONTH, time), date.toString());
+        }
+    }
+
+    @Test
+    public void testBucketsBeforeEpoch() {
+        long time = millis(LocalDate.of(1969, 12, 31)) + TimeUnit.HOURS.toMillis(23) + 1;
+
+        assertEquals(millis(LocalDate.of(1969, 12, 31)), CandleBuckets.getBucketStart(EChartResolution.DAY, time));
+        assertEquals(millis(LocalDate.of(1969, 12, 29)), CandleBuckets.getBucketStart(EChartResolution.WEEK, time));
+        assertEquals(millis(LocalDate.of(1969, 12, 1)), CandleBuckets.getBucketStart(EChartResolution.MONTH, time));
+        assertEquals(millis(LocalDate.of(1970, 1, 1)), CandleBuckets.getNextBucketStart(EChartResolution.MONTH, time));
+    }
+
+}
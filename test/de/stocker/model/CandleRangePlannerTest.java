@@ -0,0 +1,93 @@
+package de.stocker.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.common.EChartResolution;
+
+/**
+ * Tests of the estimate of candle request ranges and its correction by the
+ * density of received candles.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleRangePlannerTest {
+
+    private static final long MINUTE = 60000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final String CRYPTO = "BINANCE:BTCUSDT";
+    private static final String STOCK = "AAPL";
+
+    private CandleRangePlanner planner = new CandleRangePlanner();
+
+    @Test
+    public void testNoCandlesNeedNoRange() {
+        assertEquals(0, planner.estimateRange(CRYPTO, EChartResolution.ONE, 0));
+    }
+
+    @Test
+    public void testTradedAroundTheClock() {
+        // every interval has a candle, only the safety margin is added
+        assertEquals(125 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.ONE, 100));
+        assertEquals(125 * 5 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.FIVE, 100));
+    }
+
+    @Test
+    public void testTradedInRegularSession() {
+        // seven of 24 hourly intervals on 252 of 365.25 days
+        long range = planner.estimateRange(STOCK, EChartResolution.SIXTY, 100);
+
+        assertTrue(range >= 100 * HOUR * 24 / 7 * 365 / 252, "range " + range);
+        assertTrue(range <= 100 * HOUR * 24 / 7 * 366 / 252 * 5 / 4 + HOUR, "range " + range);
+    }
+
+    @Test
+    public void testDensityCorrectsEstimate() {
+        // a quarter of the minutes had trades
+        planner.recordDensity(CRYPTO, EChartResolution.ONE, 250, 0, 1000 * MINUTE);
+
+        assertEquals(500 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.ONE, 100));
+        // aggregated resolutions are corrected by the density of their base resolution
+        assertEquals(500 * 5 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.FIVE, 100));
+        // other stocks and base resolutions aren't affected
+        assertEquals(125 * MINUTE, planner.estimateRange("BINANCE:ETHUSDT", EChartResolution.ONE, 100));
+    }
+
+    @Test
+    public void testDensityIsLimited() {
+        planner.recordDensity(CRYPTO, EChartResolution.ONE, 1, 0, 10000 * MINUTE);
+        planner.recordDensity(STOCK, EChartResolution.ONE, 1000, 0, 1000 * MINUTE);
+
+        // not below the minimum density
+        assertEquals(12500 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.ONE, 100));
+        // not above every interval
+        assertEquals(125 * MINUTE, planner.estimateRange(STOCK, EChartResolution.ONE, 100));
+    }
+
+    @Test
+    public void testShortOrEmptyRangesAreIgnored() {
+        planner.recordDensity(CRYPTO, EChartResolution.ONE, 1, 0, 5 * MINUTE);
+        planner.recordDensity(CRYPTO, EChartResolution.ONE, 0, 0, 1000 * MINUTE);
+
+        assertEquals(125 * MINUTE, planner.estimateRange(CRYPTO, EChartResolution.ONE, 100));
+    }
+
+    @Test
+    public void testHistoryStart() {
+        assertTrue(planner.hasHistoryBefore(STOCK, EChartResolution.DAY, 1000));
+
+        planner.recordHistoryStart(STOCK, EChartResolution.DAY, 1000);
+        // an older start doesn't extend the known range again
+        planner.recordHistoryStart(STOCK, EChartResolution.DAY, 500);
+
+        assertFalse(planner.hasHistoryBefore(STOCK, EChartResolution.DAY, 1000));
+        assertFalse(planner.hasHistoryBefore(STOCK, EChartResolution.DAY, 800));
+        assertTrue(planner.hasHistoryBefore(STOCK, EChartResolution.DAY, 1001));
+        assertTrue(planner.hasHistoryBefore(STOCK, EChartResolution.ONE, 800));
+        assertTrue(planner.hasHistoryBefore(CRYPTO, EChartResolution.DAY, 800));
+    }
+
+}
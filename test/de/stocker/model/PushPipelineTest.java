@@ -0,0 +1,231 @@
+package de.stocker.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.stocker.common.EBackpressurePolicy;
+import de.stocker.model.dataWrappers.TradeBatch;
+import de.stocker.model.dataWrappers.TradeDelta;
+
+/**
+ * Tests of the push pipeline: what each backpressure policy does with the
+ * messages received while the queue is full, the order of the trades of a
+ * stock across the shards and stopping the threads.
+ *
+ * Every message is a single trade of its own stock, its price being the
+ * number of the message. The parser is held on the first message, so the
+ * following messages fill the queue.
+ *
+ * @author Matthias Rudolph
+ */
+public class PushPipelineTest {
+
+    private static final int CAPACITY = 4;
+
+    private final CountDownLatch parserEntered = new CountDownLatch(1);
+    private final CountDownLatch parserReleased = new CountDownLatch(1);
+    private final List<Double> applied = new ArrayList<Double>();
+    private PushPipeline pipeline;
+
+    @AfterEach
+    public void tearDown() {
+        parserReleased.countDown();
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private boolean parse(CharSequence message, TradeBatch trades) {
+        if (message.toString().equals("1")) {
+            parserEntered.countDown();
+            try {
+                parserReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        trades.add("S" + message, Double.parseDouble(message.toString()), 1, 1);
+        return true;
+    }
+
+    private void apply(String stockId, TradeDelta delta) {
+        synchronized (applied) {
+            applied.add(delta.getPrice());
+        }
+    }
+
+    /**
+     * Starts a pipeline and submits the first message, returning once the
+     * parser holds it.
+     */
+    private void startHeld(EBackpressurePolicy policy) throws InterruptedException {
+        // one shard, so the trades of all stocks are applied in order
+        pipeline = new PushPipeline(this::parse, this::apply, CAPACITY, policy, 1);
+        pipeline.start();
+        pipeline.submit("1");
+        assertTrue(parserEntered.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Releases the parser and waits until the number of trades has been
+     * applied.
+     */
+    private List<Double> releaseAndAwait(int trades) throws InterruptedException {
+        parserReleased.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getAppliedTrades() < trades && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        synchronized (applied) {
+            return new ArrayList<Double>(applied);
+        }
+    }
+
+    private static List<Double> prices(int... prices) {
+        List<Double> list = new ArrayList<Double>();
+        for (int p : prices) {
+            list.add((double) p);
+        }
+        return list;
+    }
+
+    @Test
+    public void testDropOldestDropsQueuedMessages() throws InterruptedException {
+        startHeld(EBackpressurePolicy.DROP_OLDEST);
+        for (int i = 2; i <= 10; i++) {
+            pipeline.submit(String.valueOf(i));
+        }
+
+        assertEquals(10, pipeline.getReceivedFrames());
+        assertEquals(5, pipeline.getDroppedFrames());
+        assertEquals(0, pipeline.getCoalescedFrames());
+        assertEquals(CAPACITY, pipeline.getQueueDepth());
+        assertEquals(prices(1, 7, 8, 9, 10), releaseAndAwait(5));
+    }
+
+    @Test
+    public void testCoalesceKeepsAllMessagesInOrder() throws InterruptedException {
+        startHeld(EBackpressurePolicy.COALESCE);
+        // as many messages collected as fit into the queue
+        for (int i = 2; i <= 9; i++) {
+            pipeline.submit(String.valueOf(i));
+        }
+
+        assertEquals(0, pipeline.getDroppedFrames());
+        assertEquals(4, pipeline.getCoalescedFrames());
+        assertEquals(8, pipeline.getQueueDepth());
+        assertEquals(prices(1, 2, 3, 4, 5, 6, 7, 8, 9), releaseAndAwait(9));
+    }
+
+    @Test
+    public void testCoalesceDropsOldestCollectedMessages() throws InterruptedException {
+        startHeld(EBackpressurePolicy.COALESCE);
+        for (int i = 2; i <= 11; i++) {
+            pipeline.submit(String.valueOf(i));
+        }
+
+        assertEquals(2, pipeline.getDroppedFrames());
+        assertEquals(6, pipeline.getCoalescedFrames());
+        assertEquals(2 * CAPACITY, pipeline.getQueueDepth());
+        assertEquals(prices(1, 2, 3, 4, 5, 8, 9, 10, 11), releaseAndAwait(9));
+    }
+
+    @Test
+    public void testBlockWaitsForSpace() throws InterruptedException {
+        startHeld(EBackpressurePolicy.BLOCK);
+        for (int i = 2; i <= 5; i++) {
+            pipeline.submit(String.valueOf(i));
+        }
+
+        // the queue is full, the next message waits until the parser goes on
+        Thread submitter = new Thread(() -> pipeline.submit("6"));
+        submitter.start();
+        submitter.join(200);
+        assertTrue(submitter.isAlive());
+
+        List<Double> result = releaseAndAwait(6);
+        submitter.join(5000);
+        assertFalse(submitter.isAlive());
+        assertEquals(0, pipeline.getDroppedFrames());
+        assertEquals(0, pipeline.getCoalescedFrames());
+        assertEquals(prices(1, 2, 3, 4, 5, 6), result);
+    }
+
+    @Test
+    public void testTradesOfAStockStayInOrderAcrossShards() throws InterruptedException {
+        int stocks = 8;
+        int tradesPerStock = 200;
+        // the first and last price of every delta applied, by stock
+        Map<String, List<double[]>> byStock = new HashMap<String, List<double[]>>();
+        // messages "stock:price" with one trade each
+        pipeline = new PushPipeline((message, trades) -> {
+            String m = message.toString();
+            int colon = m.indexOf(':');
+            trades.add(m.substring(0, colon), Double.parseDouble(m.substring(colon + 1)), 1, 1);
+            return true;
+        }, (stockId, delta) -> {
+            synchronized (byStock) {
+                byStock.computeIfAbsent(stockId, s -> new ArrayList<double[]>())
+                        .add(new double[] { delta.getSegmentOpen(0), delta.getPrice(), delta.getTradeCount() });
+            }
+        }, CAPACITY, EBackpressurePolicy.BLOCK, 4);
+        pipeline.start();
+        for (int p = 1; p <= tradesPerStock; p++) {
+            for (int s = 0; s < stocks; s++) {
+                pipeline.submit("S" + s + ":" + p);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getAppliedTrades() < stocks * tradesPerStock && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        synchronized (byStock) {
+            assertEquals(stocks, byStock.size());
+            for (List<double[]> deltas : byStock.values()) {
+                // the deltas follow each other and keep the order of their
+                // trades, as the prices count up
+                double last = 0;
+                for (double[] delta : deltas) {
+                    assertEquals(last + 1, delta[0]);
+                    assertEquals(delta[0] + delta[2] - 1, delta[1]);
+                    last = delta[1];
+                }
+                assertEquals(tradesPerStock, last);
+            }
+        }
+    }
+
+    @Test
+    public void testStopEndsThreads() throws InterruptedException {
+        startHeld(EBackpressurePolicy.DROP_OLDEST);
+        pipeline.stop();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hasPipelineThreads() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(hasPipelineThreads());
+    }
+
+    private static boolean hasPipelineThreads() {
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && (t.getName().equals("Push parser") || t.getName().startsWith("Push applier"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,155 @@
+package de.stocker.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the rolling window and the indicators calculated with it against
+ * the formulas summing up every period, which they replace.
+ *
+ * @author Matthias Rudolph
+ */
+public class RollingWindowTest {
+
+    private static final double F = 2;
+
+    /**
+     * The Simple Moving Average summing up every period.
+     */
+    private static double[] movingAverage(int n, double[] data) {
+        double[] movAvg = new double[data.length - n + 1];
+        for (int i = 0; i < movAvg.length; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += data[i + j];
+            }
+            movAvg[i] = sum / n;
+        }
+        return movAvg;
+    }
+
+    /**
+     * The standard deviation of a period summing up the squared deviations
+     * from its moving average.
+     */
+    private static double stdDev(int i, int n, double[] data, double movAvg) {
+        double sum = 0;
+        for (int j = 0; j < n; j++) {
+            sum += Math.pow(data[i + j] - movAvg, 2);
+        }
+        return Math.sqrt(sum / n);
+    }
+
+    private static double[] band(int n, double[] data, double sign) {
+        double[] movAvg = movingAverage(n, data);
+        double[] band = new double[movAvg.length];
+        for (int i = 0; i < band.length; i++) {
+            band[i] = movAvg[i] + sign * F * stdDev(i, n, data, movAvg[i]);
+        }
+        return band;
+    }
+
+    /**
+     * A random walk of prices in cents, staying unchanged for runs of several
+     * values.
+     */
+    private static double[] randomPrices(Random random, int length, double flatShare) {
+        double[] data = new double[length];
+        long cents = 10000;
+        for (int i = 0; i < length;) {
+            cents = Math.max(1, cents + random.nextInt(201) - 100);
+            int run = random.nextDouble() < flatShare ? 1 + random.nextInt(40) : 1;
+            for (int j = 0; j < run && i < length; j++) {
+                data[i++] = cents / 100.0;
+            }
+        }
+        return data;
+    }
+
+    private static boolean isFlat(double[] data, int i, int n) {
+        for (int j = 1; j < n; j++) {
+            if (data[i + j] != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void testFlatWindowsAfterChange() {
+        double[] data = { 101.37, 108.11, 108.11, 108.11, 108.11, 108.11 };
+
+        assertArrayEquals(movingAverage(2, data), StockCalcHelper.getMovingAverage(2, data));
+        assertArrayEquals(band(2, data, 1), StockCalcHelper.getUpperBollingerBand(F, 2, data));
+        assertArrayEquals(band(2, data, -1), StockCalcHelper.getLowerBollingerBand(F, 2, data));
+        assertEquals(108.11, StockCalcHelper.getMovingAverage(2, data)[4]);
+        assertEquals(108.11, StockCalcHelper.getUpperBollingerBand(F, 2, data)[4]);
+    }
+
+    @Test
+    public void testFirstWindowIsExact() {
+        double[] data = randomPrices(new Random(1), 100, 0);
+        for (int n : new int[] { 1, 2, 20, 38 }) {
+            assertEquals(movingAverage(n, data)[0], StockCalcHelper.getMovingAverage(n, data)[0]);
+            assertEquals(band(n, data, 1)[0], StockCalcHelper.getUpperBollingerBand(F, n, data)[0]);
+            assertEquals(band(n, data, -1)[0], StockCalcHelper.getLowerBollingerBand(F, n, data)[0]);
+        }
+    }
+
+    @Test
+    public void testAgreesWithSummingEveryPeriod() {
+        Random random = new Random(42);
+        for (int n : new int[] { 1, 2, 5, 20, 38 }) {
+            double[] data = randomPrices(random, 5000, 0.2);
+            double[] movAvg = movingAverage(n, data);
+            double[] upper = band(n, data, 1);
+            double[] lower = band(n, data, -1);
+
+            double[] rollingMovAvg = StockCalcHelper.getMovingAverage(n, data);
+            double[] rollingUpper = StockCalcHelper.getUpperBollingerBand(F, n, data);
+            double[] rollingLower = StockCalcHelper.getLowerBollingerBand(F, n, data);
+
+            for (int i = 0; i < movAvg.length; i++) {
+                if (isFlat(data, i, n)) {
+                    // no leftovers of the running sums in flat windows
+                    assertEquals(movAvg[i], rollingMovAvg[i], "n " + n + ", " + i);
+                    assertEquals(upper[i], rollingUpper[i], "n " + n + ", " + i);
+                    assertEquals(lower[i], rollingLower[i], "n " + n + ", " + i);
+                }
+                // within rounding of the prices, the standard deviation can
+                // differ by more, as the deviations are added in another order
+                assertEquals(movAvg[i], rollingMovAvg[i], 1e-12 * movAvg[i], "n " + n + ", " + i);
+                assertEquals(upper[i], rollingUpper[i], 1e-9, "n " + n + ", " + i);
+                assertEquals(lower[i], rollingLower[i], 1e-9, "n " + n + ", " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testReplaceLast() {
+        Random random = new Random(7);
+        int n = 5;
+        double[] data = randomPrices(random, 200, 0.2);
+        RollingWindow window = new RollingWindow(n);
+        for (int i = 0; i < data.length; i++) {
+            window.push(random.nextInt(20000) / 100.0);
+            window.replaceLast(data[i]);
+            if (i >= n - 1) {
+                double movAvg = movingAverage(n, data)[i - n + 1];
+                double stdDev = stdDev(i - n + 1, n, data, movAvg);
+                if (isFlat(data, i - n + 1, n)) {
+                    assertEquals(movAvg, window.getMean(), "" + i);
+                    assertEquals(0, window.getStdDev(), "" + i);
+                } else {
+                    assertEquals(movAvg, window.getMean(), 1e-12 * movAvg, "" + i);
+                    assertEquals(stdDev, window.getStdDev(), 1e-9, "" + i);
+                }
+            }
+        }
+    }
+
+}
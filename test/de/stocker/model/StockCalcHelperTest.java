@@ -0,0 +1,127 @@
+package de.stocker.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.common.EChartResolution;
+import de.stocker.model.dataWrappers.CandleSeries;
+
+/**
+ * Tests of the aggregation of base candles into the candles of a higher
+ * resolution, at once and incrementally.
+ *
+ * @author Matthias Rudolph
+ */
+public class StockCalcHelperTest {
+
+    private static final long MINUTE = 60000;
+    // 2021-03-01 00:00 UTC
+    private static final long T0 = 1614556800000L;
+
+    /**
+     * Appends a 1 minute candle whose values are derived from its minute m:
+     * open 100 + m, close 100.5 + m, low 99 + m, high 102 + m and volume m.
+     */
+    private static void appendMinute(CandleSeries base, int m) {
+        base.append(T0 + m * MINUTE, 99 + m, 102 + m, 100 + m, 100.5 + m, m);
+    }
+
+    private static CandleSeries minutes(int from, int to) {
+        CandleSeries base = new CandleSeries();
+        for (int m = from; m <= to; m++) {
+            appendMinute(base, m);
+        }
+        return base;
+    }
+
+    /**
+     * Checks an aggregated candle of the minutes from first to last.
+     */
+    private static void assertBucket(CandleSeries target, int i, int first, int last) {
+        assertBucket(target, i, T0 + first * MINUTE, first, last);
+    }
+
+    /**
+     * Checks an aggregated candle of the minutes from first to last that opens
+     * at the given time.
+     */
+    private static void assertBucket(CandleSeries target, int i, long timeOpen, int first, int last) {
+        assertEquals(timeOpen, target.getTimeOpen(i));
+        assertEquals(99 + first, target.getPriceLow(i));
+        assertEquals(102 + last, target.getPriceHigh(i));
+        assertEquals(100 + first, target.getPriceOpen(i));
+        assertEquals(100.5 + last, target.getPriceClose(i));
+        assertEquals((first + last) * (last - first + 1) / 2.0, target.getVolume(i));
+    }
+
+    @Test
+    public void testAggregateIntoBuckets() {
+        CandleSeries target = new CandleSeries();
+
+        assertEquals(0, StockCalcHelper.aggregateCandles(minutes(0, 11), target, EChartResolution.FIVE));
+
+        assertEquals(3, target.size());
+        assertBucket(target, 0, 0, 4);
+        assertBucket(target, 1, 5, 9);
+        assertBucket(target, 2, 10, 11);
+    }
+
+    @Test
+    public void testAggregateIncrementallyReplacesLastBucket() {
+        CandleSeries base = minutes(0, 6);
+        CandleSeries target = new CandleSeries();
+        StockCalcHelper.aggregateCandles(base, target, EChartResolution.FIVE);
+        assertEquals(2, target.size());
+        assertBucket(target, 1, 5, 6);
+
+        // the open bucket gets more candles and a new bucket is started
+        for (int m = 7; m <= 10; m++) {
+            appendMinute(base, m);
+        }
+        assertEquals(1, StockCalcHelper.aggregateCandles(base, target, EChartResolution.FIVE));
+
+        assertEquals(3, target.size());
+        assertBucket(target, 0, 0, 4);
+        assertBucket(target, 1, 5, 9);
+        assertBucket(target, 2, 10, 10);
+    }
+
+    @Test
+    public void testAggregateWithoutNewCandlesChangesOnlyLastBucket() {
+        CandleSeries base = minutes(0, 7);
+        CandleSeries target = new CandleSeries();
+        StockCalcHelper.aggregateCandles(base, target, EChartResolution.FIVE);
+
+        assertEquals(1, StockCalcHelper.aggregateCandles(base, target, EChartResolution.FIVE));
+        assertEquals(2, target.size());
+        assertBucket(target, 1, 5, 7);
+    }
+
+    @Test
+    public void testAggregateHours() {
+        CandleSeries target = new CandleSeries();
+
+        StockCalcHelper.aggregateCandles(minutes(0, 150), target, EChartResolution.SIXTY);
+
+        assertEquals(3, target.size());
+        assertBucket(target, 0, 0, 59);
+        assertBucket(target, 1, 60, 119);
+        assertBucket(target, 2, 120, 150);
+    }
+
+    @Test
+    public void testAggregateAlignsBucketsToCalendar() {
+        CandleSeries base = minutes(3, 7);
+        appendMinute(base, 13);
+        CandleSeries target = new CandleSeries();
+
+        StockCalcHelper.aggregateCandles(base, target, EChartResolution.FIVE);
+
+        assertEquals(3, target.size());
+        assertBucket(target, 0, T0, 3, 4);
+        assertBucket(target, 1, 5, 7);
+        assertBucket(target, 2, T0 + 10 * MINUTE, 13, 13);
+    }
+
+}
@@ -0,0 +1,219 @@
+package de.stocker.model.dataWrappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the ring buffer of the candle series: wraparound, growing,
+ * prepending older candles and merging the candles of a gap.
+ *
+ * @author Matthias Rudolph
+ */
+public class CandleSeriesTest {
+
+    private static final long MINUTE = 60000;
+
+    /**
+     * Appends a candle whose values are derived from its time, so they can be
+     * checked by {@link #assertCandle(CandleSeries, int, long)}.
+     */
+    private static void append(CandleSeries series, long time) {
+        series.append(time, time - 1, time + 1, time + 0.25, time + 0.5, time / MINUTE);
+    }
+
+    private static void prepend(CandleSeries series, long time) {
+        series.prepend(time, time - 1, time + 1, time + 0.25, time + 0.5, time / MINUTE);
+    }
+
+    private static long[] timesFrom(int first, int count) {
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = (first + i) * MINUTE;
+        }
+        return times;
+    }
+
+    private static CandleSeries series(long... times) {
+        CandleSeries series = new CandleSeries();
+        for (long t : times) {
+            append(series, t);
+        }
+        return series;
+    }
+
+    private static void assertCandle(CandleSeries series, int i, long time) {
+        assertEquals(time, series.getTimeOpen(i));
+        assertEquals(time - 1, series.getPriceLow(i));
+        assertEquals(time + 1, series.getPriceHigh(i));
+        assertEquals(time + 0.25, series.getPriceOpen(i));
+        assertEquals(time + 0.5, series.getPriceClose(i));
+        assertEquals(time / MINUTE, series.getVolume(i));
+    }
+
+    @Test
+    public void testCapacityIsPowerOfTwo() {
+        assertEquals(64, CandleSeries.capacityFor(0));
+        assertEquals(64, CandleSeries.capacityFor(64));
+        assertEquals(128, CandleSeries.capacityFor(65));
+        assertEquals(1024, CandleSeries.capacityFor(1000));
+    }
+
+    @Test
+    public void testPrependWrapsAroundTheFront() {
+        // the first prepended candle is stored in the last slot of the arrays
+        CandleSeries series = new CandleSeries();
+        for (int i = 10; i > 0; i--) {
+            prepend(series, i * MINUTE);
+        }
+        for (int i = 11; i <= 20; i++) {
+            append(series, i * MINUTE);
+        }
+
+        assertEquals(20, series.size());
+        for (int i = 0; i < 20; i++) {
+            assertCandle(series, i, (i + 1) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testGrowWithWrappedHead() {
+        CandleSeries series = new CandleSeries();
+        for (int i = 30; i > 0; i--) {
+            prepend(series, i * MINUTE);
+        }
+        // fills the capacity of 64 and grows twice while the oldest candles
+        // are at the end of the arrays
+        for (int i = 31; i <= 200; i++) {
+            append(series, i * MINUTE);
+        }
+        for (int i = 0; i > -20; i--) {
+            prepend(series, i * MINUTE);
+        }
+
+        assertEquals(220, series.size());
+        for (int i = 0; i < 220; i++) {
+            assertCandle(series, i, (i - 19) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testTailAfterWraparound() {
+        CandleSeries series = new CandleSeries();
+        for (int i = 5; i > 0; i--) {
+            prepend(series, i * MINUTE);
+        }
+        for (int i = 6; i <= 64; i++) {
+            append(series, i * MINUTE);
+        }
+
+        CandleView tail = series.tail(10);
+        assertEquals(10, tail.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals((55 + i) * MINUTE, tail.getTimeOpen(i));
+        }
+    }
+
+    @Test
+    public void testPrependAllSkipsOverlap() {
+        CandleSeries series = series(5 * MINUTE, 6 * MINUTE, 7 * MINUTE);
+        CandleSeries older = series(1 * MINUTE, 2 * MINUTE, 3 * MINUTE, 4 * MINUTE, 5 * MINUTE, 6 * MINUTE);
+
+        assertEquals(4, series.prependAll(older));
+        assertEquals(7, series.size());
+        for (int i = 0; i < 7; i++) {
+            assertCandle(series, i, (i + 1) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testPrependAllIntoEmptySeries() {
+        CandleSeries series = new CandleSeries();
+
+        assertEquals(100, series.prependAll(series(timesFrom(1, 100))));
+        assertEquals(100, series.size());
+        for (int i = 0; i < 100; i++) {
+            assertCandle(series, i, (i + 1) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testMergeAllInsertsGap() {
+        CandleSeries series = series(1 * MINUTE, 2 * MINUTE, 6 * MINUTE, 7 * MINUTE);
+
+        series.mergeAll(series(3 * MINUTE, 4 * MINUTE, 5 * MINUTE));
+
+        assertEquals(7, series.size());
+        for (int i = 0; i < 7; i++) {
+            assertCandle(series, i, (i + 1) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testMergeAllReplacesCandlesAndCombinesLast() {
+        CandleSeries series = new CandleSeries();
+        series.append(1 * MINUTE, 10, 12, 11, 11, 100);
+        series.append(2 * MINUTE, 10, 12, 11, 11, 100);
+        // the last candle has got trades pushed after the gap was requested
+        series.append(3 * MINUTE, 20, 22, 21, 22, 50);
+
+        CandleSeries gap = new CandleSeries();
+        gap.append(2 * MINUTE, 9, 13, 10, 12, 200);
+        gap.append(3 * MINUTE, 19, 21, 20, 21, 40);
+        series.mergeAll(gap);
+
+        assertEquals(3, series.size());
+        assertEquals(9, series.getPriceLow(1));
+        assertEquals(13, series.getPriceHigh(1));
+        assertEquals(200, series.getVolume(1));
+
+        assertEquals(19, series.getPriceLow(2));
+        assertEquals(22, series.getPriceHigh(2));
+        assertEquals(20, series.getPriceOpen(2));
+        assertEquals(22, series.getPriceClose(2));
+        assertEquals(50, series.getVolume(2));
+    }
+
+    @Test
+    public void testMergeAllAcrossWrappedHead() {
+        CandleSeries series = new CandleSeries();
+        for (int i = 60; i > 0; i -= 2) {
+            prepend(series, i * MINUTE);
+        }
+        for (int i = 62; i <= 100; i += 2) {
+            append(series, i * MINUTE);
+        }
+
+        // fills every odd minute, the series has to grow while inserting
+        long[] odd = new long[50];
+        for (int i = 0; i < odd.length; i++) {
+            odd[i] = (2 * i + 1) * MINUTE;
+        }
+        series.mergeAll(series(odd));
+
+        assertEquals(100, series.size());
+        for (int i = 0; i < 100; i++) {
+            assertCandle(series, i, (i + 1) * MINUTE);
+        }
+    }
+
+    @Test
+    public void testAddTradeUpdatesLastCandle() {
+        CandleSeries series = new CandleSeries();
+
+        assertTrue(series.addTrade(MINUTE, 10, 1));
+        assertFalse(series.addTrade(MINUTE, 12, 2));
+        assertFalse(series.addTrade(MINUTE, 9, 3));
+        assertTrue(series.addTrade(2 * MINUTE, 11, 4));
+
+        assertEquals(2, series.size());
+        assertEquals(9, series.getPriceLow(0));
+        assertEquals(12, series.getPriceHigh(0));
+        assertEquals(10, series.getPriceOpen(0));
+        assertEquals(9, series.getPriceClose(0));
+        assertEquals(6, series.getVolume(0));
+    }
+
+}
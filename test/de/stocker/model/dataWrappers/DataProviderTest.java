@@ -0,0 +1,52 @@
+package de.stocker.model.dataWrappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.json.JsonFactory;
+
+/**
+ * Tests of the default rate limit of a data provider.
+ *
+ * @author Matthias Rudolph
+ */
+public class DataProviderTest {
+
+    @Test
+    public void testDefaultsOfRemoteServer() {
+        DataProvider provider = new DataProvider("Finnhub", "", "https://finnhub.io/api/v1", "wss://ws.finnhub.io");
+
+        assertEquals(60, provider.getRequestsPerMinute());
+        assertEquals(10, provider.getRequestBurst());
+    }
+
+    @Test
+    public void testDefaultsOfLocalServer() {
+        for (String url : new String[] { "http://localhost:8080", "http://127.0.0.1:8080", "http://[::1]:8080" }) {
+            DataProvider provider = new DataProvider("Kursdatengenerator", "", url, "ws://localhost:8090");
+
+            assertEquals(6000, provider.getRequestsPerMinute(), url);
+            assertEquals(100, provider.getRequestBurst(), url);
+        }
+    }
+
+    @Test
+    public void testPreferencesWithoutRateLimit() {
+        // saved before the rate limit could be set
+        DataProvider provider = JsonFactory.jsonToObject("{\"name\":\"Kursdatengenerator\",\"apiKey\":\"\","
+                + "\"pullUrl\":\"http://localhost:8080\",\"pushUrl\":\"ws://localhost:8090\"}", DataProvider.class);
+
+        assertEquals(6000, provider.getRequestsPerMinute());
+        assertEquals(100, provider.getRequestBurst());
+    }
+
+    @Test
+    public void testSetRateLimit() {
+        DataProvider provider = new DataProvider("Local", "", "http://localhost:8080", "ws://localhost:8090", 30, 5);
+
+        assertEquals(30, provider.getRequestsPerMinute());
+        assertEquals(5, provider.getRequestBurst());
+    }
+
+}
@@ -0,0 +1,114 @@
+package de.stocker.model.dataWrappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the folding of trades into the one minute segments of a trade
+ * delta.
+ *
+ * @author Matthias Rudolph
+ */
+public class TradeDeltaTest {
+
+    private static final long MINUTE = 60000;
+    // 2021-03-01 00:00 UTC
+    private static final long T0 = 1614556800000L;
+
+    @Test
+    public void testFoldsTradesOfOneMinute() {
+        TradeDelta delta = new TradeDelta();
+        delta.add(10, T0 + 1000, 1, 5);
+        delta.add(12, T0 + 2000, 2, 6);
+        delta.add(9, T0 + 3000, 3, 7);
+        delta.add(11, T0 + MINUTE - 1, 4, 8);
+
+        assertEquals(4, delta.getTradeCount());
+        assertEquals(1, delta.getSegmentCount());
+        assertEquals(T0, delta.getSegmentStart(0));
+        assertEquals(10, delta.getSegmentOpen(0));
+        assertEquals(12, delta.getSegmentHigh(0));
+        assertEquals(9, delta.getSegmentLow(0));
+        assertEquals(11, delta.getSegmentClose(0));
+        assertEquals(10, delta.getSegmentVolume(0));
+        assertEquals(11, delta.getPrice());
+        assertEquals(T0 + MINUTE - 1, delta.getTime());
+        assertEquals(5, delta.getFirstReceiveTime());
+    }
+
+    @Test
+    public void testOutOfOrderMinutesStartNewSegments() {
+        TradeDelta delta = new TradeDelta();
+        delta.add(10, T0 + MINUTE + 1000, 1);
+        delta.add(11, T0 + 1000, 2);
+        delta.add(12, T0 + 2000, 3);
+        delta.add(13, T0 + MINUTE + 2000, 4);
+
+        // segments in the order received, the earlier minute in between
+        assertEquals(3, delta.getSegmentCount());
+        assertEquals(T0 + MINUTE, delta.getSegmentStart(0));
+        assertEquals(T0, delta.getSegmentStart(1));
+        assertEquals(T0 + MINUTE, delta.getSegmentStart(2));
+        assertEquals(10, delta.getSegmentClose(0));
+        assertEquals(11, delta.getSegmentOpen(1));
+        assertEquals(12, delta.getSegmentClose(1));
+        assertEquals(5, delta.getSegmentVolume(1));
+        assertEquals(13, delta.getSegmentOpen(2));
+
+        // the last trade received, not the latest one
+        assertEquals(13, delta.getPrice());
+        assertEquals(10, delta.getPriceLow());
+        assertEquals(13, delta.getPriceHigh());
+    }
+
+    @Test
+    public void testGrowsPastInitialCapacity() {
+        TradeDelta delta = new TradeDelta();
+        int minutes = 11;
+        for (int m = 0; m < minutes; m++) {
+            delta.add(100 + m, T0 + m * MINUTE, m + 1);
+            delta.add(200 + m, T0 + m * MINUTE + 30000, 1);
+        }
+
+        assertEquals(2 * minutes, delta.getTradeCount());
+        assertEquals(minutes, delta.getSegmentCount());
+        for (int m = 0; m < minutes; m++) {
+            assertEquals(T0 + m * MINUTE, delta.getSegmentStart(m));
+            assertEquals(100 + m, delta.getSegmentOpen(m));
+            assertEquals(100 + m, delta.getSegmentLow(m));
+            assertEquals(200 + m, delta.getSegmentHigh(m));
+            assertEquals(200 + m, delta.getSegmentClose(m));
+            assertEquals(m + 2, delta.getSegmentVolume(m));
+        }
+        assertEquals(100, delta.getPriceLow());
+        assertEquals(210, delta.getPriceHigh());
+    }
+
+    @Test
+    public void testReuseAfterClear() {
+        TradeDelta delta = new TradeDelta();
+        for (int m = 0; m < 6; m++) {
+            delta.add(50, T0 + m * MINUTE, 1, 100);
+        }
+        delta.clear();
+        assertEquals(0, delta.getTradeCount());
+        assertEquals(0, delta.getSegmentCount());
+
+        // nothing of the trades before the clear is kept
+        delta.add(20, T0 + 5 * MINUTE + 1000, 2, 200);
+        delta.add(22, T0 + 5 * MINUTE + 2000, 3, 300);
+
+        assertEquals(2, delta.getTradeCount());
+        assertEquals(1, delta.getSegmentCount());
+        assertEquals(T0 + 5 * MINUTE, delta.getSegmentStart(0));
+        assertEquals(20, delta.getSegmentOpen(0));
+        assertEquals(20, delta.getSegmentLow(0));
+        assertEquals(22, delta.getSegmentHigh(0));
+        assertEquals(5, delta.getSegmentVolume(0));
+        assertEquals(20, delta.getPriceLow());
+        assertEquals(22, delta.getPriceHigh());
+        assertEquals(200, delta.getFirstReceiveTime());
+    }
+
+}
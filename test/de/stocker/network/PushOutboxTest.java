@@ -0,0 +1,191 @@
+package de.stocker.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.Framedata;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the outbox sending web socket messages and subscription changes
+ * when the connection is open.
+ *
+ * @author Matthias Rudolph
+ */
+public class PushOutboxTest {
+
+    private PushOutbox outbox = new PushOutbox();
+
+    /**
+     * A push client without a connection, which records the messages of each
+     * sent batch of frames.
+     */
+    private static class RecordingClient extends PushClient {
+
+        private final BlockingQueue<List<String>> batches = new LinkedBlockingQueue<List<String>>();
+        // messages framed for the next batch, used by the sender thread only
+        private final List<String> framed = new ArrayList<String>();
+        private final Draft draft = new Draft_6455() {
+            @Override
+            public List<Framedata> createFrames(String text, boolean mask) {
+                framed.add(text);
+                return super.createFrames(text, mask);
+            }
+        };
+        private volatile boolean open;
+        // runs instead of sending the next batch, which then fails
+        private volatile Runnable failure;
+
+        RecordingClient(boolean open) {
+            super(null, "ws://localhost");
+            this.open = open;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public Draft getDraft() {
+            return draft;
+        }
+
+        @Override
+        public void sendFrame(Collection<Framedata> frames) {
+            List<String> batch = new ArrayList<String>(framed);
+            framed.clear();
+            Runnable r = failure;
+            if (r != null) {
+                failure = null;
+                r.run();
+                throw new WebsocketNotConnectedException();
+            }
+            batches.add(batch);
+        }
+
+        List<String> nextBatch() throws InterruptedException {
+            return batches.poll(5, TimeUnit.SECONDS);
+        }
+
+        List<String> pollBatch() throws InterruptedException {
+            return batches.poll(100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String subscribe(String symbol) {
+        return "{\"type\":\"subscribe\",\"symbol\":\"" + symbol + "\"}";
+    }
+
+    private static String unsubscribe(String symbol) {
+        return "{\"type\":\"unsubscribe\",\"symbol\":\"" + symbol + "\"}";
+    }
+
+    @Test
+    public void testWaitsForOpenConnection() throws InterruptedException {
+        RecordingClient client = new RecordingClient(false);
+        outbox.setPushClient(client);
+
+        outbox.subscribe("A");
+        outbox.subscribe("B");
+        // never sent, as it is unsubscribed before the connection is open
+        outbox.unsubscribe("B");
+        outbox.send("m");
+        assertNull(client.pollBatch());
+
+        client.open = true;
+        outbox.connectionOpened();
+
+        assertEquals(Arrays.asList(subscribe("A"), "m"), client.nextBatch());
+        assertNull(client.pollBatch());
+    }
+
+    @Test
+    public void testSendsSubscriptionChanges() throws InterruptedException {
+        RecordingClient client = new RecordingClient(true);
+        outbox.setPushClient(client);
+
+        outbox.subscribe("A");
+        assertEquals(Arrays.asList(subscribe("A")), client.nextBatch());
+
+        // subscribed already
+        outbox.subscribe("A");
+        assertNull(client.pollBatch());
+
+        outbox.subscribe("B");
+        outbox.unsubscribe("A");
+        List<String> batch = client.nextBatch();
+        // possibly split into two batches, if the first change is flushed already
+        if (batch.size() == 1) {
+            batch.addAll(client.nextBatch());
+        }
+        assertEquals(2, batch.size());
+        assertEquals(true, batch.contains(subscribe("B")));
+        assertEquals(true, batch.contains(unsubscribe("A")));
+        assertEquals(Arrays.asList("B"), new ArrayList<String>(outbox.getSubscriptions()));
+    }
+
+    @Test
+    public void testNewConnectionIsSubscribedAgain() throws InterruptedException {
+        RecordingClient client = new RecordingClient(true);
+        outbox.setPushClient(client);
+        outbox.subscribe("A");
+        assertEquals(Arrays.asList(subscribe("A")), client.nextBatch());
+
+        RecordingClient newClient = new RecordingClient(true);
+        outbox.setPushClient(newClient);
+
+        assertEquals(Arrays.asList(subscribe("A")), newClient.nextBatch());
+        assertNull(client.pollBatch());
+    }
+
+    @Test
+    public void testSentAgainWhenNotConnected() throws InterruptedException {
+        RecordingClient client = new RecordingClient(true);
+        client.failure = () -> client.open = false;
+        outbox.setPushClient(client);
+
+        outbox.subscribe("A");
+        outbox.send("m");
+        assertNull(client.pollBatch());
+
+        client.open = true;
+        outbox.connectionOpened();
+
+        assertEquals(Arrays.asList(subscribe("A"), "m"), client.nextBatch());
+    }
+
+    @Test
+    public void testOrderIsKeptWhenNotConnected() throws InterruptedException {
+        RecordingClient client = new RecordingClient(false);
+        outbox.setPushClient(client);
+        outbox.send("m1");
+        outbox.send("m2");
+
+        // m3 is sent while the batch with m1 and m2 fails
+        client.failure = () -> {
+            client.open = false;
+            outbox.send("m3");
+        };
+        client.open = true;
+        outbox.connectionOpened();
+        assertNull(client.pollBatch());
+
+        client.open = true;
+        outbox.connectionOpened();
+
+        assertEquals(Arrays.asList("m1", "m2", "m3"), client.nextBatch());
+    }
+
+}
@@ -0,0 +1,211 @@
+package de.stocker.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import de.stocker.common.ERequestPriority;
+
+/**
+ * Tests of the request scheduler with a pull client that doesn't send any
+ * requests: the rate limit, the order of the priorities, coalescing and the
+ * backoff after a 429 response.
+ *
+ * @author Matthias Rudolph
+ */
+public class RequestSchedulerTest {
+
+    /**
+     * Pull client recording the requests and answering them with a response
+     * function, or with a future completed by the test.
+     */
+    private static class FakePullClient extends PullClient {
+
+        private final List<String> urls = new ArrayList<String>();
+        private final List<Long> times = new ArrayList<Long>();
+        private final Map<String, CompletableFuture<String>> held = new ConcurrentHashMap<String, CompletableFuture<String>>();
+        private volatile Function<String, CompletableFuture<String>> responder = url -> CompletableFuture
+                .completedFuture("response " + url);
+
+        FakePullClient() {
+            super(1000, 1000);
+        }
+
+        @Override
+        public synchronized CompletableFuture<String> fetchAsync(String url) {
+            urls.add(url);
+            times.add(System.nanoTime());
+            notifyAll();
+            CompletableFuture<String> future = held.remove(url);
+            return future != null ? future : responder.apply(url);
+        }
+
+        synchronized List<String> awaitRequests(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (urls.size() < count && System.currentTimeMillis() < deadline) {
+                wait(deadline - System.currentTimeMillis());
+            }
+            return new ArrayList<String>(urls);
+        }
+
+        synchronized long getTime(int i) {
+            return times.get(i);
+        }
+
+    }
+
+    private final FakePullClient pullClient = new FakePullClient();
+
+    private static long millisBetween(long start, long end) {
+        return TimeUnit.NANOSECONDS.toMillis(end - start);
+    }
+
+    @Test
+    public void testBurstAndRefill() throws InterruptedException {
+        // a token every 50 ms
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 1200, 3);
+        long start = System.nanoTime();
+        for (int i = 0; i < 7; i++) {
+            scheduler.submit("u" + i, ERequestPriority.CHART);
+        }
+
+        assertEquals(7, pullClient.awaitRequests(7).size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(millisBetween(start, pullClient.getTime(i)) < 40, "burst " + i);
+        }
+        for (int i = 3; i < 7; i++) {
+            long elapsed = millisBetween(start, pullClient.getTime(i));
+            assertTrue(elapsed >= (i - 2) * 50 - 5, "request " + i + " after " + elapsed + " ms");
+        }
+    }
+
+    @Test
+    public void testTokensDoNotExceedBurst() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 1200, 2);
+        // would be enough for 6 tokens without the limit
+        Thread.sleep(300);
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit("u" + i, ERequestPriority.CHART);
+        }
+
+        pullClient.awaitRequests(4);
+        assertTrue(millisBetween(start, pullClient.getTime(1)) < 40);
+        assertTrue(millisBetween(start, pullClient.getTime(2)) >= 45);
+        assertTrue(millisBetween(start, pullClient.getTime(3)) >= 95);
+    }
+
+    @Test
+    public void testHigherPrioritiesFirst() throws InterruptedException {
+        // a token every 100 ms, the first request takes the only one
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 600, 1);
+        scheduler.submit("first", ERequestPriority.BACKGROUND);
+        pullClient.awaitRequests(1);
+
+        scheduler.submit("background 1", ERequestPriority.BACKGROUND);
+        scheduler.submit("watchlist 1", ERequestPriority.WATCHLIST);
+        scheduler.submit("background 2", ERequestPriority.BACKGROUND);
+        scheduler.submit("chart", ERequestPriority.CHART);
+        scheduler.submit("watchlist 2", ERequestPriority.WATCHLIST);
+
+        assertEquals(List.of("first", "chart", "watchlist 1", "watchlist 2", "background 1", "background 2"),
+                pullClient.awaitRequests(6));
+    }
+
+    @Test
+    public void testCoalescing() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 6000, 10);
+        CompletableFuture<String> response = new CompletableFuture<String>();
+        pullClient.held.put("u", response);
+
+        CompletableFuture<String> first = scheduler.submit("u", ERequestPriority.BACKGROUND);
+        pullClient.awaitRequests(1);
+        // in flight, shares the response
+        CompletableFuture<String> second = scheduler.submit("u", ERequestPriority.CHART);
+        assertSame(first, second);
+
+        response.complete("body");
+        assertEquals("body", second.join());
+        // sent again once completed
+        assertEquals("response u", scheduler.submit("u", ERequestPriority.CHART).join());
+        assertEquals(List.of("u", "u"), pullClient.awaitRequests(2));
+    }
+
+    @Test
+    public void testCoalescedRequestMovesUp() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 600, 1);
+        scheduler.submit("first", ERequestPriority.CHART);
+        pullClient.awaitRequests(1);
+
+        CompletableFuture<String> queued = scheduler.submit("prefetch", ERequestPriority.BACKGROUND);
+        scheduler.submit("watchlist", ERequestPriority.WATCHLIST);
+        assertSame(queued, scheduler.submit("prefetch", ERequestPriority.CHART));
+
+        assertEquals(List.of("first", "prefetch", "watchlist"), pullClient.awaitRequests(3));
+        assertEquals("response prefetch", queued.join());
+    }
+
+    @Test
+    public void testBackoffAfterTooManyRequests() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 6000, 10);
+        CompletableFuture<String> throttled = new CompletableFuture<String>();
+        pullClient.held.put("throttled", throttled);
+
+        CompletableFuture<String> response = scheduler.submit("throttled", ERequestPriority.CHART);
+        pullClient.awaitRequests(1);
+        long failed = System.nanoTime();
+        throttled.completeExceptionally(new PullException(429, 300));
+        // queued during the pause
+        CompletableFuture<String> other = scheduler.submit("other", ERequestPriority.CHART);
+
+        List<String> urls = pullClient.awaitRequests(3);
+        assertEquals("response throttled", response.join());
+        assertEquals("response other", other.join());
+        assertTrue(urls.subList(1, 3).containsAll(List.of("throttled", "other")));
+        // retried after the time requested by the data provider plus jitter,
+        // no other request sent in the meantime
+        for (int i = 1; i < 3; i++) {
+            long elapsed = millisBetween(failed, pullClient.getTime(i));
+            assertTrue(elapsed >= 295 && elapsed < 2000, urls.get(i) + " after " + elapsed + " ms");
+        }
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 6000, 10);
+        pullClient.responder = url -> CompletableFuture.failedFuture(new PullException(403, -1));
+
+        assertNull(scheduler.submit("forbidden", ERequestPriority.CHART).join());
+        Thread.sleep(100);
+        assertEquals(1, pullClient.awaitRequests(1).size());
+    }
+
+    @Test
+    public void testServerErrorIsRetried() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(pullClient, 6000, 10);
+        CompletableFuture<String> unavailable = new CompletableFuture<String>();
+        pullClient.held.put("u", unavailable);
+
+        CompletableFuture<String> response = scheduler.submit("u", ERequestPriority.CHART);
+        pullClient.awaitRequests(1);
+        long failed = System.nanoTime();
+        unavailable.completeExceptionally(new PullException(503, -1));
+
+        assertEquals("response u", response.join());
+        // the first backoff is between half and all of a second
+        long elapsed = millisBetween(failed, pullClient.getTime(1));
+        assertTrue(elapsed >= 495 && elapsed < 1500, "retried after " + elapsed + " ms");
+    }
+
+}
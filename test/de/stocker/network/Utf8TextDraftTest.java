@@ -0,0 +1,82 @@
+package de.stocker.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the UTF-8 validation of the web socket draft, which is checked
+ * against the decoder of the JDK.
+ *
+ * @author Matthias Rudolph
+ */
+public class Utf8TextDraftTest {
+
+    private static boolean decodes(byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testAcceptsValidText() {
+        String text = "{\"data\":[{\"p\":7296.89,\"s\":\"BINANCE:BTCUSDT\"}],\"type\":\"trade\"} \u00e4\u20ac\ud83d\ude00";
+        assertTrue(Utf8TextDraft.isValidUtf8(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(Utf8TextDraft.isValidUtf8(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    public void testRejectsMalformedSequences() {
+        // truncated, lone continuation, overlong, surrogate, above U+10FFFF
+        int[][] malformed = { { 0xC3 }, { 0xE2, 0x82 }, { 0x80 }, { 0xC0, 0xAF }, { 0xE0, 0x80, 0xAF },
+                { 0xED, 0xA0, 0x80 }, { 0xF4, 0x90, 0x80, 0x80 }, { 0xF5, 0x80, 0x80, 0x80 }, { 0xFF } };
+        for (int[] sequence : malformed) {
+            assertFalse(Utf8TextDraft.isValidUtf8(ByteBuffer.wrap(bytes(sequence))));
+        }
+    }
+
+    @Test
+    public void testMatchesJdkDecoder() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            byte[] bytes = new byte[random.nextInt(6)];
+            for (int j = 0; j < bytes.length; j++) {
+                // mostly bytes above 0x7F, where the sequences are checked
+                bytes[j] = (byte) (0x80 + random.nextInt(0x80) - (random.nextInt(4) == 0 ? 0x40 : 0));
+            }
+            assertEquals(decodes(bytes), Utf8TextDraft.isValidUtf8(ByteBuffer.wrap(bytes)));
+        }
+    }
+
+    @Test
+    public void testKeepsPosition() {
+        ByteBuffer data = ByteBuffer.wrap(bytes('x', 0xC3, 0xA4, 'y'));
+        data.position(1);
+        assertTrue(Utf8TextDraft.isValidUtf8(data));
+        assertEquals(1, data.position());
+        // only the remaining bytes are checked
+        data.position(2);
+        assertFalse(Utf8TextDraft.isValidUtf8(data));
+    }
+
+}